@@ -0,0 +1,36 @@
+package com.esame.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * After-commit callbacks
+ * Callback dopo il commit
+ * 
+ * Defers in-memory side effects until the surrounding transaction commits, so a rollback never leaves them applied
+ * Rimanda gli effetti in memoria al commit della transazione corrente, così un rollback non li lascia applicati
+ */
+public final class AfterCommit {
+    
+    private AfterCommit() {
+    }
+    
+    /**
+     * Run an action after the current transaction commits, or right away outside a transaction
+     * Esegue un'azione dopo il commit della transazione corrente, o subito fuori da una transazione
+     * 
+     * @param action Action to run / Azione da eseguire
+     */
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
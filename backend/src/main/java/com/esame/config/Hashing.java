@@ -0,0 +1,61 @@
+package com.esame.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hash functions shared by the services
+ * Funzioni hash condivise dai servizi
+ */
+public final class Hashing {
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    private Hashing() {
+    }
+    
+    /**
+     * SHA-256 of the UTF-8 bytes as lower-case hex
+     * SHA-256 dei byte UTF-8 in esadecimale minuscolo
+     * 
+     * @param value Text to hash / Testo da calcolare
+     * @return 64 hex characters / 64 caratteri esadecimali
+     */
+    public static String sha256Hex(String value) {
+        return sha256Hex(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * SHA-256 as lower-case hex
+     * SHA-256 in esadecimale minuscolo
+     * 
+     * @param value Bytes to hash / Byte da calcolare
+     * @return 64 hex characters / 64 caratteri esadecimali
+     */
+    public static String sha256Hex(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available / SHA-256 non disponibile", e);
+        }
+    }
+    
+    /**
+     * 64-bit FNV-1a over the UTF-16 characters; fast, not collision resistant
+     * FNV-1a a 64 bit sui caratteri UTF-16; veloce, non resistente alle collisioni
+     * 
+     * @param value Text to hash / Testo da calcolare
+     * @return Hash / Hash
+     */
+    public static long fnv1a64(String value) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,59 @@
+package com.esame.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * PostgreSQL Migrations
+ * Migrazioni PostgreSQL
+ * 
+ * Applies the idempotent scripts in db/postgres/migrations, in file name order, once Hibernate
+ * has updated the schema and before the application serves requests. A failing script stops
+ * the startup. Deployments with ddl-auto validate run the same scripts by hand beforehand.
+ * Applica gli script idempotenti in db/postgres/migrations, in ordine di nome file, dopo
+ * l'aggiornamento dello schema da parte di Hibernate e prima che l'applicazione serva
+ * richieste. Uno script in errore blocca l'avvio. I deployment con ddl-auto validate eseguono
+ * prima gli stessi script a mano.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class PostgresMigrations {
+    
+    private static final Logger log = LoggerFactory.getLogger(PostgresMigrations.class);
+    
+    private static final String SCRIPTS = "classpath:db/postgres/migrations/*.sql";
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    /**
+     * Run the migrations when the database is PostgreSQL
+     * Esegue le migrazioni quando il database è PostgreSQL
+     */
+    @PostConstruct
+    public void migrate() throws IOException, SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+        }
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources(SCRIPTS);
+        Arrays.sort(scripts, Comparator.comparing(Resource::getFilename));
+        new ResourceDatabasePopulator(scripts).execute(dataSource);
+        log.info("{} PostgreSQL migrations applied / {} migrazioni PostgreSQL applicate", scripts.length, scripts.length);
+    }
+}
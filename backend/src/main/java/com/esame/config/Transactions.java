@@ -0,0 +1,31 @@
+package com.esame.config;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Programmatic transaction templates
+ * Template di transazione programmatici
+ */
+public final class Transactions {
+    
+    private Transactions() {
+    }
+    
+    /**
+     * Template whose work commits apart from the caller's transaction
+     * Template il cui lavoro viene confermato separatamente dalla transazione del chiamante
+     * 
+     * A rollback of the caller does not undo it, and its own failure does not mark the caller rollback-only
+     * Un rollback del chiamante non lo annulla, e un suo errore non marca il chiamante come rollback-only
+     * 
+     * @param transactionManager Transaction manager / Gestore delle transazioni
+     * @return REQUIRES_NEW template / Template REQUIRES_NEW
+     */
+    public static TransactionTemplate requiresNew(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
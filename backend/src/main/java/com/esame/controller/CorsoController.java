@@ -1,16 +1,26 @@
 package com.esame.controller;
 
+import com.esame.dto.CourseDTO;
+import com.esame.dto.CourseFields;
+import com.esame.dto.CourseFilter;
+import com.esame.exception.BusinessLogicException;
 import com.esame.model.Corso;
 import com.esame.repository.CorsoRepository;
+import com.esame.repository.CourseCard;
+import com.esame.repository.index.CourseChangedEvent;
+import com.esame.service.CourseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
@@ -20,7 +30,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.stream.Collectors;
 
 /**
  * Course Controller
@@ -38,6 +47,12 @@ public class CorsoController {
     @Autowired
     private CorsoRepository corsoRepository;
     
+    @Autowired
+    private CourseService courseService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     /**
      * Get all available courses
      * Recupera tutti i corsi disponibili
@@ -45,6 +60,8 @@ public class CorsoController {
      * @param titolo Optional course title filter / Filtro opzionale per titolo corso
      * @param luogo Optional location filter / Filtro opzionale per luogo
      * @param disponibili Optional filter for available courses only / Filtro opzionale per corsi disponibili
+     * @param facets Include facet counts / Includi conteggi facet
+     * @param fields Sparse fieldset / Insieme ridotto di campi
      * @return List of courses / Lista di corsi
      */
     @GetMapping
@@ -88,128 +105,87 @@ public class CorsoController {
             @RequestParam(required = false) Double prezzoMax,
             
             @Parameter(description = "Show only available courses / Mostra solo corsi disponibili") 
-            @RequestParam(required = false, defaultValue = "false") boolean disponibili) {
-        
-        try {
-            List<Corso> corsi = corsoRepository.findAll();
-            int initialCount = corsi.size();
+            @RequestParam(required = false, defaultValue = "false") boolean disponibili,
             
-            // Apply filters with validation / Applica filtri con validazione
-            if (titolo != null && !titolo.trim().isEmpty()) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getTitolo() != null && c.getTitolo().toLowerCase().contains(titolo.toLowerCase().trim()))
-                    .collect(Collectors.toList());
-            }
+            @Parameter(description = "Certification filter / Filtro per certificazione") 
+            @RequestParam(required = false) Boolean certificazione,
             
-            if (luogo != null && !luogo.trim().isEmpty()) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getLuogo() != null && c.getLuogo().toLowerCase().contains(luogo.toLowerCase().trim()))
-                    .collect(Collectors.toList());
-            }
-            
-            if (docente != null && !docente.trim().isEmpty()) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getDocenti() != null && c.getDocenti().toLowerCase().contains(docente.toLowerCase().trim()))
-                    .collect(Collectors.toList());
-            }
+            @Parameter(description = "Include facet counts of the filtered courses / Includi i conteggi facet dei corsi filtrati") 
+            @RequestParam(required = false, defaultValue = "false") boolean facets,
             
-            if (categoria != null && !categoria.trim().isEmpty()) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getCategoria() != null && c.getCategoria().toLowerCase().contains(categoria.toLowerCase().trim()))
-                    .collect(Collectors.toList());
-            }
-            
-            if (livello != null && !livello.trim().isEmpty()) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getLivello() != null && c.getLivello().toLowerCase().contains(livello.toLowerCase().trim()))
-                    .collect(Collectors.toList());
-            }
-            
-            if (dataInizio != null && !dataInizio.trim().isEmpty()) {
-                try {
-                    LocalDate startDate = LocalDate.parse(dataInizio.trim());
-                    corsi = corsi.stream()
-                        .filter(c -> c.getDataOraInizio() != null && 
-                               (c.getDataOraInizio().toLocalDate().isAfter(startDate) || c.getDataOraInizio().toLocalDate().isEqual(startDate)))
-                        .collect(Collectors.toList());
-                } catch (DateTimeParseException e) {
-                    // Return error for invalid date format
-                    return ResponseEntity.badRequest().body("Formato data inizio non valido. Usa YYYY-MM-DD");
-                }
-            }
-            
-            if (dataFine != null && !dataFine.trim().isEmpty()) {
-                try {
-                    LocalDate endDate = LocalDate.parse(dataFine.trim());
-                    corsi = corsi.stream()
-                        .filter(c -> c.getDataOraInizio() != null && 
-                               (c.getDataOraInizio().toLocalDate().isBefore(endDate) || c.getDataOraInizio().toLocalDate().isEqual(endDate)))
-                        .collect(Collectors.toList());
-                } catch (DateTimeParseException e) {
-                    // Return error for invalid date format
-                    return ResponseEntity.badRequest().body("Formato data fine non valido. Usa YYYY-MM-DD");
-                }
-            }
-            
-            if (durataMin != null && durataMin >= 0) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getDurataOre() != null && c.getDurataOre() >= durataMin)
-                    .collect(Collectors.toList());
+            @Parameter(description = "Comma-separated fields to return, e.g. titolo,luogo,prezzo / Campi da restituire separati da virgola, es. titolo,luogo,prezzo") 
+            @RequestParam(required = false) String fields) {
+        
+        CourseFilter filter = new CourseFilter();
+        filter.setTitolo(titolo);
+        filter.setLuogo(luogo);
+        filter.setDocente(docente);
+        filter.setCategoria(categoria);
+        filter.setLivello(livello);
+        filter.setDurataMin(durataMin);
+        filter.setDurataMax(durataMax);
+        filter.setPrezzoMin(prezzoMin);
+        filter.setPrezzoMax(prezzoMax);
+        filter.setDisponibili(disponibili);
+        filter.setCertificazione(certificazione);
+        
+        // Validate date filters / Valida filtri data
+        if (dataInizio != null && !dataInizio.trim().isEmpty()) {
+            try {
+                filter.setDataInizio(LocalDate.parse(dataInizio.trim()));
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest().body("Formato data inizio non valido. Usa YYYY-MM-DD");
             }
-            
-            if (durataMax != null && durataMax >= 0) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getDurataOre() != null && c.getDurataOre() <= durataMax)
-                    .collect(Collectors.toList());
+        }
+        
+        if (dataFine != null && !dataFine.trim().isEmpty()) {
+            try {
+                filter.setDataFine(LocalDate.parse(dataFine.trim()));
+            } catch (DateTimeParseException e) {
+                return ResponseEntity.badRequest().body("Formato data fine non valido. Usa YYYY-MM-DD");
             }
+        }
+        
+        CourseFields selectedFields;
+        try {
+            selectedFields = CourseFields.parse(fields);
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        
+        try {
+            Map<String, Object> response = new HashMap<>();
             
-            // Price filters with validation / Filtri prezzo con validazione
-            if (prezzoMin != null) {
-                final Double finalPrezzoMin;
-                if (prezzoMin < 0) {
-                    // Skip filter if negative / Salta filtro se negativo
-                    finalPrezzoMin = null;
-                } else if (prezzoMin > 10000) {
-                    finalPrezzoMin = 10000.0; // Cap at 10000 / Limita a 10000
-                } else {
-                    finalPrezzoMin = prezzoMin;
+            if (selectedFields != null && !selectedFields.needsDetail()) {
+                // Card projection: listing columns only, no TEXT columns / Proiezione scheda: solo colonne di elenco, niente colonne TEXT
+                List<CourseCard> cards = courseService.findCourseCards(filter);
+                response.put("courses", courseService.toCardDTOs(cards, selectedFields));
+                response.put("totalFound", cards.size());
+                if (facets) {
+                    response.put("facets", courseService.computeCardFacets(cards));
                 }
-                if (finalPrezzoMin != null) {
-                    corsi = corsi.stream()
-                        .filter(c -> c.getPrezzo() != null && c.getPrezzo() >= finalPrezzoMin)
-                        .collect(Collectors.toList());
-                }
-            }
-            
-            if (prezzoMax != null) {
-                final Double finalPrezzoMax;
-                if (prezzoMax < 0) {
-                    // Skip filter if negative / Salta filtro se negativo
-                    finalPrezzoMax = null;
-                } else if (prezzoMax > 10000) {
-                    finalPrezzoMax = 10000.0; // Cap at 10000 / Limita a 10000
-                } else {
-                    finalPrezzoMax = prezzoMax;
+            } else if (selectedFields != null) {
+                List<CourseDTO> courses = courseService.findCourseDTOs(filter, selectedFields);
+                response.put("courses", courses);
+                response.put("totalFound", courses.size());
+                if (facets) {
+                    response.put("facets", courseService.computeCardFacets(courseService.findCourseCards(filter)));
                 }
-                if (finalPrezzoMax != null) {
-                    corsi = corsi.stream()
-                        .filter(c -> c.getPrezzo() != null && c.getPrezzo() <= finalPrezzoMax)
-                        .collect(Collectors.toList());
+            } else {
+                // Facet, range and location filters are served by the in-memory indexes, title and teacher by one SQL query
+                // Filtri facet, intervallo e luogo serviti dagli indici in memoria, titolo e docente da una query SQL
+                List<Corso> corsi = courseService.findCourses(filter);
+                response.put("courses", corsi);
+                response.put("totalFound", corsi.size());
+                if (facets) {
+                    // Histograms of the same result set for the filter UI / Istogrammi dello stesso insieme per l'interfaccia filtri
+                    response.put("facets", courseService.computeFacets(corsi));
                 }
             }
             
-            if (disponibili) {
-                corsi = corsi.stream()
-                    .filter(c -> c.getDisponibilita() != null && c.getDisponibilita() > 0)
-                    .collect(Collectors.toList());
-            }
-            
             // Add metadata about search results / Aggiungi metadati sui risultati
-            Map<String, Object> response = new HashMap<>();
-            response.put("courses", corsi);
-            response.put("totalFound", corsi.size());
-            response.put("totalAvailable", initialCount);
-            response.put("filtersApplied", getAppliedFilters(titolo, luogo, docente, categoria, livello, dataInizio, dataFine, durataMin, durataMax, prezzoMin, prezzoMax, disponibili));
+            response.put("totalAvailable", courseService.countAllCourses());
+            response.put("filtersApplied", getAppliedFilters(titolo, luogo, docente, categoria, livello, dataInizio, dataFine, durataMin, durataMax, prezzoMin, prezzoMax, disponibili, certificazione));
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -218,6 +194,25 @@ public class CorsoController {
         }
     }
     
+    /**
+     * Export course cards as a streamed JSON array
+     * Esporta le schede corso come array JSON in streaming
+     * 
+     * @return Streamed courses / Corsi in streaming
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Export courses", description = "Stream all courses without TEXT fields as JSON in constant memory / Trasmette tutti i corsi senza campi TEXT in JSON a memoria costante")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Courses streamed / Corsi trasmessi"),
+        @ApiResponse(responseCode = "500", description = "Internal server error / Errore interno del server")
+    })
+    public ResponseEntity<StreamingResponseBody> exportCourses() {
+        StreamingResponseBody body = out -> courseService.exportCourses(out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+    
     /**
      * Get course by ID
      * Recupera corso per ID
@@ -294,6 +289,7 @@ public class CorsoController {
         
         try {
             Corso savedCorso = corsoRepository.save(corso);
+            eventPublisher.publishEvent(CourseChangedEvent.saved(savedCorso));
             return ResponseEntity.status(HttpStatus.CREATED).body(savedCorso);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -307,7 +303,7 @@ public class CorsoController {
     private Map<String, Object> getAppliedFilters(String titolo, String luogo, String docente, String categoria, 
                                                    String livello, String dataInizio, String dataFine, 
                                                    Integer durataMin, Integer durataMax, Double prezzoMin, 
-                                                   Double prezzoMax, boolean disponibili) {
+                                                   Double prezzoMax, boolean disponibili, Boolean certificazione) {
         Map<String, Object> appliedFilters = new HashMap<>();
         
         if (titolo != null && !titolo.trim().isEmpty()) {
@@ -346,6 +342,9 @@ public class CorsoController {
         if (disponibili) {
             appliedFilters.put("disponibili", true);
         }
+        if (certificazione != null) {
+            appliedFilters.put("certificazione", certificazione);
+        }
         
         return appliedFilters;
     }
@@ -4,8 +4,13 @@ import com.esame.dto.ApiResponse;
 import com.esame.dto.LoginRequestDTO;
 import com.esame.dto.PasswordChangeDTO;
 import com.esame.dto.UserDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.security.AccountDetails;
 import com.esame.security.JwtTokenProvider;
+import com.esame.service.RefreshTokenService;
+import com.esame.service.TokenRevocationService;
 import com.esame.service.UserService;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -45,6 +50,12 @@ public class EnhancedAuthController {
     @Autowired
     private AuthenticationManager authenticationManager;
     
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
     /**
      * User registration
      * Registrazione utente
@@ -101,7 +112,8 @@ public class EnhancedAuthController {
             
             // Generate JWT token / Genera token JWT
             String jwt = jwtTokenProvider.generateToken(authentication);
-            String refreshToken = jwtTokenProvider.generateRefreshToken(loginRequest.getEmail());
+            // Each login starts a refresh token family / Ogni accesso avvia una famiglia di token di refresh
+            String refreshToken = refreshTokenService.issue(loginRequest.getEmail());
             
             // Get user details / Recupera dettagli utente
             UserDTO user = userService.getUserByEmail(loginRequest.getEmail());
@@ -141,14 +153,23 @@ public class EnhancedAuthController {
         try {
             String refreshToken = request.get("refreshToken");
             
-            if (refreshToken == null || !jwtTokenProvider.validateToken(refreshToken)) {
+            // Verified once, subject read from the same claims / Verificato una volta, subject letto dagli stessi claim
+            Claims claims = refreshToken != null ? jwtTokenProvider.parseValidClaims(refreshToken) : null;
+            if (claims == null || claims.getId() == null || tokenRevocationService.isRevoked(claims.getId())) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(ApiResponse.error("Invalid refresh token / Refresh token non valido"));
             }
             
-            String username = jwtTokenProvider.getUsernameFromJWT(refreshToken);
-            String newJwt = jwtTokenProvider.generateTokenFromUsername(username);
-            String newRefreshToken = jwtTokenProvider.generateRefreshToken(username);
+            String username = claims.getSubject();
+            // Fresh claims, and no new tokens for disabled accounts / Claim aggiornati, e nessun nuovo token per account disattivati
+            AccountDetails account = userService.loadUserByUsername(username);
+            if (!account.isEnabled()) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Account disabled / Account disattivato"));
+            }
+            // Rotated once; a second use of the same token revokes the family / Ruotato una volta; un secondo uso dello stesso token revoca la famiglia
+            String newRefreshToken = refreshTokenService.rotate(refreshToken, claims);
+            String newJwt = jwtTokenProvider.generateToken(account);
             
             Map<String, Object> response = new HashMap<>();
             response.put("accessToken", newJwt);
@@ -158,6 +179,9 @@ public class EnhancedAuthController {
             response.put("timestamp", LocalDateTime.now());
             
             return ResponseEntity.ok(ApiResponse.success("Token refreshed successfully / Token aggiornato con successo", response));
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(ApiResponse.error("Error refreshing token / Errore nell'aggiornamento del token: " + e.getMessage()));
@@ -257,12 +281,29 @@ public class EnhancedAuthController {
      * Logout user
      * Disconnetti utente
      * 
+     * Revokes the bearer access token and, if given, the refresh token and its family
+     * Revoca il token di accesso bearer e, se fornito, il token di refresh e la sua famiglia
+     * 
+     * @param authorization Authorization header / Header Authorization
+     * @param request Optional refresh token / Token di refresh opzionale
      * @return Success message / Messaggio di successo
      */
     @PostMapping("/logout")
-    @Operation(summary = "Logout user", description = "Logout current user / Disconnetti utente corrente")
-    public ResponseEntity<ApiResponse<String>> logout() {
+    @Operation(summary = "Logout user", description = "Logout current user and revoke its tokens / Disconnetti utente corrente e revoca i suoi token")
+    public ResponseEntity<ApiResponse<String>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @Parameter(description = "Refresh token / Token di refresh")
+            @RequestBody(required = false) Map<String, String> request) {
         try {
+            if (authorization != null && authorization.startsWith("Bearer ")) {
+                revoke(authorization.substring(7));
+            }
+            if (request != null && request.get("refreshToken") != null) {
+                Claims refreshClaims = revoke(request.get("refreshToken"));
+                if (refreshClaims != null) {
+                    refreshTokenService.revoke(refreshClaims);
+                }
+            }
             SecurityContextHolder.clearContext();
             return ResponseEntity.ok(ApiResponse.success("Logout successful / Disconnessione riuscita", "User logged out successfully / Utente disconnesso con successo"));
         } catch (Exception e) {
@@ -270,4 +311,13 @@ public class EnhancedAuthController {
                 .body(ApiResponse.error("Error during logout / Errore durante la disconnessione: " + e.getMessage()));
         }
     }
+    
+    // Invalid or expired tokens need no revocation / I token non validi o scaduti non richiedono revoca
+    private Claims revoke(String token) {
+        Claims claims = jwtTokenProvider.parseValidClaims(token);
+        if (claims != null) {
+            tokenRevocationService.revoke(claims.getId(), claims.getExpiration());
+        }
+        return claims;
+    }
 }
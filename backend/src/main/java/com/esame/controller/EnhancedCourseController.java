@@ -2,17 +2,30 @@ package com.esame.controller;
 
 import com.esame.dto.ApiResponse;
 import com.esame.dto.CourseDTO;
+import com.esame.dto.CourseFields;
+import com.esame.dto.CourseFilter;
+import com.esame.dto.CourseSearchHitDTO;
+import com.esame.dto.CourseSuggestionDTO;
+import com.esame.dto.EnrollmentDTO;
 import com.esame.dto.PagedResponse;
+import com.esame.dto.SeatHoldDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.exception.ResourceNotFoundException;
+import com.esame.repository.index.SoldOutIndex;
 import com.esame.service.CourseService;
+import com.esame.service.IdempotencyService;
+import com.esame.service.SeatHoldService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -31,6 +44,15 @@ public class EnhancedCourseController {
     @Autowired
     private CourseService courseService;
     
+    @Autowired
+    private SeatHoldService seatHoldService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private SoldOutIndex soldOutIndex;
+    
     /**
      * Get all courses with pagination and filtering
      * Recupera tutti i corsi con paginazione e filtri
@@ -44,10 +66,14 @@ public class EnhancedCourseController {
      * @param docente Teacher filter / Filtro docente
      * @param categoria Category filter / Filtro categoria
      * @param disponibili Available courses only / Solo corsi disponibili
+     * @param pagination Pagination mode (offset/cursor) / Modalità paginazione (offset/cursor)
+     * @param cursor Continuation token for cursor mode / Token di continuazione per modalità cursore
+     * @param includeTotal Include total count in cursor mode / Includi conteggio totale in modalità cursore
+     * @param fields Sparse fieldset / Insieme ridotto di campi
      * @return Paged response with courses / Risposta paginata con corsi
      */
     @GetMapping
-    @Operation(summary = "Get all courses with pagination", description = "Retrieve all courses with pagination and filtering / Recupera tutti i corsi con paginazione e filtri")
+    @Operation(summary = "Get all courses with pagination", description = "Retrieve all courses with offset or cursor (keyset) pagination and filtering / Recupera tutti i corsi con paginazione offset o a cursore (keyset) e filtri")
     public ResponseEntity<ApiResponse<PagedResponse<CourseDTO>>> getAllCourses(
             @Parameter(description = "Page number (0-based) / Numero pagina (basato su 0)")
             @RequestParam(defaultValue = "0") int page,
@@ -74,13 +100,42 @@ public class EnhancedCourseController {
             @RequestParam(required = false) String categoria,
             
             @Parameter(description = "Available courses only / Solo corsi disponibili")
-            @RequestParam(required = false) Boolean disponibili) {
+            @RequestParam(required = false) Boolean disponibili,
+            
+            @Parameter(description = "Pagination mode: offset or cursor / Modalità paginazione: offset o cursor")
+            @RequestParam(defaultValue = "offset") String pagination,
+            
+            @Parameter(description = "Opaque continuation token (cursor mode) / Token di continuazione opaco (modalità cursore)")
+            @RequestParam(required = false) String cursor,
+            
+            @Parameter(description = "Include total count in cursor mode / Includi conteggio totale in modalità cursore")
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            
+            @Parameter(description = "Comma-separated fields to return, e.g. titolo,luogo,prezzo / Campi da restituire separati da virgola, es. titolo,luogo,prezzo")
+            @RequestParam(required = false) String fields) {
         
         try {
-            PagedResponse<CourseDTO> response = courseService.getAllCourses(
-                page, size, sortBy, sortDir, titolo, luogo, docente, categoria, disponibili);
+            PagedResponse<CourseDTO> response;
+            CourseFields selectedFields = CourseFields.parse(fields);
+            
+            if (cursor != null || "cursor".equalsIgnoreCase(pagination)) {
+                CourseFilter filter = new CourseFilter();
+                filter.setTitolo(titolo);
+                filter.setLuogo(luogo);
+                filter.setDocente(docente);
+                filter.setCategoria(categoria);
+                filter.setDisponibili(Boolean.TRUE.equals(disponibili));
+                
+                response = courseService.getCoursesByCursor(cursor, size, sortBy, sortDir, filter, includeTotal, selectedFields);
+            } else {
+                response = courseService.getAllCourses(
+                    page, size, sortBy, sortDir, titolo, luogo, docente, categoria, disponibili, selectedFields);
+            }
             
             return ResponseEntity.ok(ApiResponse.success("Courses retrieved successfully / Corsi recuperati con successo", response));
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid pagination request / Richiesta di paginazione non valida: " + e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(ApiResponse.error("Error retrieving courses / Errore nel recupero dei corsi: " + e.getMessage()));
@@ -119,9 +174,15 @@ public class EnhancedCourseController {
     @PostMapping
     @Operation(summary = "Create new course", description = "Create a new course / Crea un nuovo corso")
     public ResponseEntity<ApiResponse<CourseDTO>> createCourse(
+            @Parameter(description = "Key making retries safe / Chiave che rende sicuri i tentativi ripetuti")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Parameter(description = "Course data / Dati del corso")
             @Valid @RequestBody CourseDTO courseDTO) {
         
+        return idempotencyService.execute("POST /api/v1/courses", idempotencyKey, courseDTO, () -> create(courseDTO));
+    }
+    
+    private ResponseEntity<ApiResponse<CourseDTO>> create(CourseDTO courseDTO) {
         try {
             CourseDTO createdCourse = courseService.createCourse(courseDTO);
             return ResponseEntity.status(HttpStatus.CREATED)
@@ -179,6 +240,127 @@ public class EnhancedCourseController {
         }
     }
     
+    /**
+     * Switch high-demand (flash-sale) enrollment mode
+     * Attiva o disattiva la modalità iscrizione ad alta domanda (flash sale)
+     * 
+     * @param id Course ID / ID del corso
+     * @param enabled New mode / Nuova modalità
+     * @return Updated course / Corso aggiornato
+     */
+    @PutMapping("/{id}/high-demand")
+    @Operation(summary = "Set high-demand mode", description = "Admit enrollments in memory and write them behind / Ammette le iscrizioni in memoria e le scrive in differita")
+    public ResponseEntity<ApiResponse<CourseDTO>> setHighDemand(
+            @Parameter(description = "Course ID / ID del corso")
+            @PathVariable Long id,
+            @Parameter(description = "Enable or disable / Attiva o disattiva")
+            @RequestParam boolean enabled) {
+        
+        try {
+            CourseDTO course = courseService.setHighDemand(id, enabled);
+            return ResponseEntity.ok(ApiResponse.success("High-demand mode updated / Modalità alta domanda aggiornata", course));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Error updating high-demand mode / Errore nell'aggiornamento della modalità alta domanda: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Hold a seat while the participant completes enrollment
+     * Blocca un posto mentre il partecipante completa l'iscrizione
+     * 
+     * @param id Course ID / ID del corso
+     * @param minuti Hold duration in minutes / Durata del blocco in minuti
+     * @return Hold code and expiry / Codice e scadenza del blocco
+     */
+    @PostMapping("/{id}/holds")
+    @Operation(summary = "Hold a seat", description = "Reserve a seat for a few minutes / Riserva un posto per alcuni minuti")
+    public ResponseEntity<ApiResponse<SeatHoldDTO>> createHold(
+            @Parameter(description = "Course ID / ID del corso")
+            @PathVariable Long id,
+            @Parameter(description = "Hold duration in minutes / Durata del blocco in minuti")
+            @RequestParam(defaultValue = "" + SeatHoldService.DEFAULT_HOLD_MINUTES) int minuti) {
+        
+        // Sold out: rejected before any transaction / Esaurito: rifiutato prima di qualsiasi transazione
+        if (soldOutIndex.isSoldOut(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error("Course is full / Il corso è completo"));
+        }
+        
+        try {
+            SeatHoldDTO hold = seatHoldService.createHold(id, minuti);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Seat held / Posto bloccato", hold));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error holding seat / Errore nel blocco del posto: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Confirm a held seat as an enrollment
+     * Conferma un posto bloccato come iscrizione
+     * 
+     * @param id Course ID / ID del corso
+     * @param codice Hold code / Codice del blocco
+     * @param enrollmentDTO Participant data / Dati del partecipante
+     * @return Created enrollment / Iscrizione creata
+     */
+    @PostMapping("/{id}/holds/{codice}/confirm")
+    @Operation(summary = "Confirm a seat hold", description = "Turn a held seat into an enrollment / Trasforma un posto bloccato in un'iscrizione")
+    public ResponseEntity<ApiResponse<EnrollmentDTO>> confirmHold(
+            @Parameter(description = "Course ID / ID del corso")
+            @PathVariable Long id,
+            @Parameter(description = "Hold code / Codice del blocco")
+            @PathVariable String codice,
+            @Parameter(description = "Participant data / Dati del partecipante")
+            @RequestBody EnrollmentDTO enrollmentDTO) {
+        
+        try {
+            EnrollmentDTO enrollment = seatHoldService.confirmHold(id, codice, enrollmentDTO);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Enrollment created successfully / Iscrizione creata con successo", enrollment));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error confirming seat hold / Errore nella conferma del blocco: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Release a held seat
+     * Rilascia un posto bloccato
+     * 
+     * @param id Course ID / ID del corso
+     * @param codice Hold code / Codice del blocco
+     * @return Success message / Messaggio di successo
+     */
+    @DeleteMapping("/{id}/holds/{codice}")
+    @Operation(summary = "Release a seat hold", description = "Give a held seat back before it expires / Restituisce un posto bloccato prima della scadenza")
+    public ResponseEntity<ApiResponse<String>> releaseHold(
+            @Parameter(description = "Course ID / ID del corso")
+            @PathVariable Long id,
+            @Parameter(description = "Hold code / Codice del blocco")
+            @PathVariable String codice) {
+        
+        try {
+            seatHoldService.releaseHold(id, codice);
+            return ResponseEntity.ok(ApiResponse.success("Seat released / Posto rilasciato", codice));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error releasing seat hold / Errore nel rilascio del blocco: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get upcoming courses
      * Recupera corsi futuri
@@ -197,6 +379,111 @@ public class EnhancedCourseController {
         }
     }
     
+    /**
+     * Full-text course search
+     * Ricerca full-text dei corsi
+     * 
+     * @param q Search text / Testo di ricerca
+     * @param limit Maximum number of results / Numero massimo di risultati
+     * @return Ranked courses with highlighted matches / Corsi ordinati con corrispondenze evidenziate
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search courses", description = "Full-text search over title, teachers, program and general information, ranked by BM25 / Ricerca full-text su titolo, docenti, programma e informazioni generali, ordinata con BM25")
+    public ResponseEntity<ApiResponse<List<CourseSearchHitDTO>>> searchCourses(
+            @Parameter(description = "Search text / Testo di ricerca")
+            @RequestParam(required = false) String q,
+            
+            @Parameter(description = "Maximum number of results / Numero massimo di risultati")
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        try {
+            List<CourseSearchHitDTO> results = courseService.searchCourses(q, limit);
+            return ResponseEntity.ok(ApiResponse.success("Search completed successfully / Ricerca completata con successo", results));
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error("Invalid search request / Richiesta di ricerca non valida: " + e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error searching courses / Errore nella ricerca dei corsi: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Autocomplete course titles, locations, teachers and categories
+     * Completamento automatico di titoli, luoghi, docenti e categorie dei corsi
+     * 
+     * @param q Typed prefix / Prefisso digitato
+     * @param limit Maximum number of suggestions / Numero massimo di suggerimenti
+     * @return Completions ranked by enrollments / Completamenti ordinati per iscrizioni
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest courses", description = "Prefix completions over title, location, teachers and category, ranked by enrollments / Completamenti per prefisso su titolo, luogo, docenti e categoria, ordinati per iscrizioni")
+    public ResponseEntity<ApiResponse<List<CourseSuggestionDTO>>> suggestCourses(
+            @Parameter(description = "Typed prefix / Prefisso digitato")
+            @RequestParam(required = false) String q,
+            
+            @Parameter(description = "Maximum number of suggestions / Numero massimo di suggerimenti")
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        try {
+            List<CourseSuggestionDTO> suggestions = courseService.suggestCourses(q, limit);
+            return ResponseEntity.ok(ApiResponse.success("Suggestions retrieved successfully / Suggerimenti recuperati con successo", suggestions));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error retrieving suggestions / Errore nel recupero dei suggerimenti: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Get courses by price, duration and start date ranges
+     * Recupera corsi per intervalli di prezzo, durata e data di inizio
+     * 
+     * @param prezzoMin Minimum price / Prezzo minimo
+     * @param prezzoMax Maximum price / Prezzo massimo
+     * @param durataMin Minimum duration in hours / Durata minima in ore
+     * @param durataMax Maximum duration in hours / Durata massima in ore
+     * @param dataInizio First start day (YYYY-MM-DD) / Primo giorno di inizio (YYYY-MM-DD)
+     * @param dataFine Last start day (YYYY-MM-DD) / Ultimo giorno di inizio (YYYY-MM-DD)
+     * @return List of courses / Lista corsi
+     */
+    @GetMapping("/range")
+    @Operation(summary = "Get courses by range", description = "Retrieve courses by price, duration and start date ranges / Recupera corsi per intervalli di prezzo, durata e data di inizio")
+    public ResponseEntity<ApiResponse<List<CourseDTO>>> getCoursesInRange(
+            @Parameter(description = "Minimum price / Prezzo minimo")
+            @RequestParam(required = false) Double prezzoMin,
+            
+            @Parameter(description = "Maximum price / Prezzo massimo")
+            @RequestParam(required = false) Double prezzoMax,
+            
+            @Parameter(description = "Minimum duration in hours / Durata minima in ore")
+            @RequestParam(required = false) Integer durataMin,
+            
+            @Parameter(description = "Maximum duration in hours / Durata massima in ore")
+            @RequestParam(required = false) Integer durataMax,
+            
+            @Parameter(description = "First start day (YYYY-MM-DD) / Primo giorno di inizio (YYYY-MM-DD)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInizio,
+            
+            @Parameter(description = "Last start day (YYYY-MM-DD) / Ultimo giorno di inizio (YYYY-MM-DD)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFine) {
+        
+        try {
+            CourseFilter filter = new CourseFilter();
+            filter.setPrezzoMin(prezzoMin);
+            filter.setPrezzoMax(prezzoMax);
+            filter.setDurataMin(durataMin);
+            filter.setDurataMax(durataMax);
+            filter.setDataInizio(dataInizio);
+            filter.setDataFine(dataFine);
+            
+            List<CourseDTO> courses = courseService.getCoursesInRange(filter);
+            return ResponseEntity.ok(ApiResponse.success("Courses retrieved successfully / Corsi recuperati con successo", courses));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error retrieving courses by range / Errore nel recupero dei corsi per intervallo: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get courses by category
      * Recupera corsi per categoria
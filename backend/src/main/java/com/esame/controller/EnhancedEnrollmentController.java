@@ -0,0 +1,142 @@
+package com.esame.controller;
+
+import com.esame.dto.ApiResponse;
+import com.esame.dto.BatchEnrollmentResultDTO;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.EnrollmentTicketDTO;
+import com.esame.service.AsyncEnrollmentPipeline;
+import com.esame.service.EnrollmentService;
+import com.esame.service.IdempotencyService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Enhanced Enrollment Controller
+ * Controller Iscrizione Potenziato
+ * 
+ * REST API endpoints for enrollment management with DTOs and enhanced features
+ * Endpoint API REST per la gestione delle iscrizioni con DTO e funzionalità potenziate
+ */
+@RestController
+@RequestMapping("/api/v1/enrollments")
+@Tag(name = "Enhanced Enrollment Management", description = "Enhanced API for managing enrollments / API potenziata per la gestione delle iscrizioni")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000", "http://127.0.0.1:5173"})
+public class EnhancedEnrollmentController {
+    
+    // Rows accepted by one bulk request / Righe accettate da una richiesta massiva
+    private static final int MAX_BATCH_ROWS = 1000;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private AsyncEnrollmentPipeline asyncEnrollmentPipeline;
+    
+    /**
+     * Enroll many participants at once
+     * Iscrive molti partecipanti in una volta
+     * 
+     * @param enrollments Enrollment rows, for one or more courses / Righe di iscrizione, per uno o più corsi
+     * @return One result per row / Un esito per riga
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Bulk enrollment", description = "Enroll a whole team in one request / Iscrive un intero team con una richiesta")
+    public ResponseEntity<ApiResponse<List<BatchEnrollmentResultDTO>>> createEnrollments(
+            @Parameter(description = "Key making retries safe / Chiave che rende sicuri i tentativi ripetuti")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Parameter(description = "Enrollment rows / Righe di iscrizione")
+            @RequestBody List<EnrollmentDTO> enrollments) {
+        
+        return idempotencyService.execute("POST /api/v1/enrollments/batch", idempotencyKey, enrollments,
+            () -> enroll(enrollments));
+    }
+    
+    private ResponseEntity<ApiResponse<List<BatchEnrollmentResultDTO>>> enroll(List<EnrollmentDTO> enrollments) {
+        if (enrollments == null || enrollments.isEmpty() || enrollments.size() > MAX_BATCH_ROWS) {
+            return ResponseEntity.badRequest()
+                .body(ApiResponse.error("A batch must contain 1 to " + MAX_BATCH_ROWS + " rows / Un batch deve contenere da 1 a " + MAX_BATCH_ROWS + " righe"));
+        }
+        
+        try {
+            List<BatchEnrollmentResultDTO> results = enrollmentService.createEnrollments(enrollments);
+            Map<String, Integer> totals = new TreeMap<>();
+            for (BatchEnrollmentResultDTO result : results) {
+                totals.merge(result.getStatus(), 1, Integer::sum);
+            }
+            return ResponseEntity.ok(ApiResponse.success("Batch processed / Batch elaborato: " + totals, results));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(ApiResponse.error("Error processing batch / Errore nell'elaborazione del batch: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Accept an enrollment for asynchronous processing
+     * Accetta un'iscrizione per l'elaborazione asincrona
+     * 
+     * The request thread only validates and queues; the outcome is read from the status URL.
+     * Il thread della richiesta si limita a validare e accodare; l'esito si legge dall'URL di stato.
+     * 
+     * @param enrollmentDTO Enrollment data / Dati dell'iscrizione
+     * @return 202 with the ticket, or 429 with Retry-After when the queue is full / 202 con il ticket, o 429 con Retry-After quando la coda è piena
+     */
+    @PostMapping("/async")
+    @Operation(summary = "Asynchronous enrollment", description = "Queue an enrollment and poll its status / Accoda un'iscrizione e interroga il suo stato")
+    public ResponseEntity<ApiResponse<EnrollmentTicketDTO>> submitEnrollment(
+            @Parameter(description = "Key making retries safe / Chiave che rende sicuri i tentativi ripetuti")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Parameter(description = "Enrollment data / Dati dell'iscrizione")
+            @Valid @RequestBody EnrollmentDTO enrollmentDTO) {
+        
+        return idempotencyService.execute("POST /api/v1/enrollments/async", idempotencyKey, enrollmentDTO,
+            () -> submit(enrollmentDTO));
+    }
+    
+    private ResponseEntity<ApiResponse<EnrollmentTicketDTO>> submit(EnrollmentDTO enrollmentDTO) {
+        EnrollmentTicketDTO ticket = asyncEnrollmentPipeline.submit(enrollmentDTO);
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(asyncEnrollmentPipeline.retryAfterSeconds(enrollmentDTO.getCorsoId())))
+                .body(ApiResponse.error("Too many enrollments in progress, retry later / Troppe iscrizioni in corso, riprovare più tardi"));
+        }
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/v1/enrollments/async/" + ticket.getTicket()))
+            .body(ApiResponse.success("Enrollment queued / Iscrizione in coda", ticket));
+    }
+    
+    /**
+     * Get the status of an asynchronous enrollment
+     * Recupera lo stato di un'iscrizione asincrona
+     * 
+     * @param ticket Ticket ID / ID del ticket
+     * @return Ticket with its outcome once processed / Ticket con il suo esito una volta elaborato
+     */
+    @GetMapping("/async/{ticket}")
+    @Operation(summary = "Asynchronous enrollment status", description = "Status of a queued enrollment / Stato di un'iscrizione in coda")
+    public ResponseEntity<ApiResponse<EnrollmentTicketDTO>> getEnrollmentTicket(
+            @Parameter(description = "Ticket ID / ID del ticket")
+            @PathVariable String ticket) {
+        
+        EnrollmentTicketDTO status = asyncEnrollmentPipeline.getTicket(ticket);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error("Ticket not found or expired / Ticket non trovato o scaduto"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Ticket retrieved / Ticket recuperato", status));
+    }
+}
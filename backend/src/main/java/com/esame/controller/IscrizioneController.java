@@ -1,9 +1,18 @@
 package com.esame.controller;
 
+import com.esame.dto.EnrollmentDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.exception.ResourceNotFoundException;
 import com.esame.model.Corso;
 import com.esame.model.Iscrizione;
 import com.esame.repository.CorsoRepository;
 import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.index.SoldOutIndex;
+import com.esame.repository.index.TrigramSearchIndex;
+import com.esame.service.EnrollmentService;
+import com.esame.service.IdempotencyService;
+import com.esame.service.SeatInventory;
+import com.esame.service.WaitlistService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,8 +20,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -37,27 +48,68 @@ public class IscrizioneController {
     @Autowired
     private CorsoRepository corsoRepository;
     
+    @Autowired
+    private TrigramSearchIndex trigramSearchIndex;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private SoldOutIndex soldOutIndex;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
     /**
      * Get all enrollments
      * Recupera tutte le iscrizioni
      * 
      * @param corsoId Optional course ID filter / Filtro opzionale per ID corso
+     * @param nome Optional participant name filter (contains) / Filtro opzionale per nome partecipante (contiene)
+     * @param email Optional participant email filter (contains) / Filtro opzionale per email partecipante (contiene)
      * @return List of enrollments / Lista di iscrizioni
      */
     @GetMapping
-    @Operation(summary = "Get all enrollments", description = "Retrieve all enrollments with optional course filter / Recupera tutte le iscrizioni con filtro opzionale per corso")
+    @Operation(summary = "Get all enrollments", description = "Retrieve all enrollments with optional course, name and email filters / Recupera tutte le iscrizioni con filtri opzionali per corso, nome ed email")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Enrollments retrieved successfully / Iscrizioni recuperate con successo"),
         @ApiResponse(responseCode = "500", description = "Internal server error / Errore interno del server")
     })
     public ResponseEntity<List<Iscrizione>> getAllEnrollments(
             @Parameter(description = "Course ID filter / Filtro per ID corso") 
-            @RequestParam(required = false) Long corsoId) {
+            @RequestParam(required = false) Long corsoId,
+            
+            @Parameter(description = "Participant name filter / Filtro per nome partecipante") 
+            @RequestParam(required = false) String nome,
+            
+            @Parameter(description = "Participant email filter / Filtro per email partecipante") 
+            @RequestParam(required = false) String email) {
         
         try {
             List<Iscrizione> iscrizioni;
+            boolean byNome = nome != null && !nome.trim().isEmpty();
+            boolean byEmail = email != null && !email.trim().isEmpty();
             
-            if (corsoId != null) {
+            if (byNome || byEmail) {
+                // Substring filters use the trigram index / I filtri per sottostringa usano l'indice a trigrammi
+                iscrizioni = byNome ?
+                    trigramSearchIndex.findEnrollmentsByNome(nome.trim()) :
+                    trigramSearchIndex.findEnrollmentsByEmail(email.trim());
+                if (byNome && byEmail) {
+                    String emailFilter = email.trim().toLowerCase();
+                    iscrizioni.removeIf(i -> i.getPartecipanteEmail() == null
+                        || !i.getPartecipanteEmail().toLowerCase().contains(emailFilter));
+                }
+                if (corsoId != null) {
+                    iscrizioni.removeIf(i -> !corsoId.equals(i.getCorsoId()));
+                }
+            } else if (corsoId != null) {
                 iscrizioni = iscrizioneRepository.findByCorsoId(corsoId);
             } else {
                 iscrizioni = iscrizioneRepository.findAll();
@@ -69,6 +121,29 @@ public class IscrizioneController {
         }
     }
     
+    /**
+     * Export enrollments as a streamed JSON array
+     * Esporta le iscrizioni come array JSON in streaming
+     * 
+     * @param corsoId Optional course ID filter / Filtro opzionale per ID corso
+     * @return Streamed enrollments / Iscrizioni in streaming
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Export enrollments", description = "Stream all enrollments as JSON in constant memory / Trasmette tutte le iscrizioni in JSON a memoria costante")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Enrollments streamed / Iscrizioni trasmesse"),
+        @ApiResponse(responseCode = "500", description = "Internal server error / Errore interno del server")
+    })
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(
+            @Parameter(description = "Course ID filter / Filtro per ID corso") 
+            @RequestParam(required = false) Long corsoId) {
+        
+        StreamingResponseBody body = out -> enrollmentService.exportEnrollments(corsoId, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
+    }
+    
     /**
      * Get enrollment by ID
      * Recupera iscrizione per ID
@@ -107,19 +182,45 @@ public class IscrizioneController {
     @Operation(summary = "Create new enrollment", description = "Create a new course enrollment / Crea una nuova iscrizione al corso")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Enrollment created successfully / Iscrizione creata con successo"),
+        @ApiResponse(responseCode = "202", description = "Accepted as pending (high-demand) or waitlisted (full) / Accettata in attesa di scrittura (alta domanda) o in lista d'attesa (completo)"),
         @ApiResponse(responseCode = "400", description = "Invalid enrollment data / Dati iscrizione non validi"),
         @ApiResponse(responseCode = "404", description = "Course not found / Corso non trovato"),
         @ApiResponse(responseCode = "409", description = "Participant already enrolled / Partecipante già iscritto"),
         @ApiResponse(responseCode = "500", description = "Internal server error / Errore interno del server")
     })
     public ResponseEntity<?> createEnrollment(
+            @Parameter(description = "Key making retries safe / Chiave che rende sicuri i tentativi ripetuti")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            
             @Parameter(description = "Enrollment data / Dati dell'iscrizione") 
             @Valid @RequestBody Iscrizione iscrizione) {
         
+        // Only client fields: the entity stamps its own creation time / Solo i campi del client: l'entità imposta la propria data di creazione
+        EnrollmentDTO request = new EnrollmentDTO(iscrizione.getCorsoId(),
+            iscrizione.getPartecipanteNome(), iscrizione.getPartecipanteCognome(), iscrizione.getPartecipanteEmail());
+        return idempotencyService.execute("POST /enrollments", idempotencyKey, request, () -> enroll(iscrizione));
+    }
+    
+    private ResponseEntity<?> enroll(Iscrizione iscrizione) {
         try {
             // Get course ID from the iscrizione object / Ottieni ID corso dall'oggetto iscrizione
             Long corsoId = iscrizione.getCorsoId();
             
+            EnrollmentDTO request = new EnrollmentDTO(corsoId,
+                iscrizione.getPartecipanteNome(), iscrizione.getPartecipanteCognome(), iscrizione.getPartecipanteEmail());
+            
+            // High-demand courses are admitted in memory / I corsi ad alta domanda sono ammessi in memoria
+            EnrollmentDTO pending = seatInventory.tryAdmit(request);
+            if (pending != null) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(pending);
+            }
+            
+            // Sold out: straight to the waitlist, no course lookup or seat UPDATE
+            // Esaurito: direttamente in lista d'attesa, senza lettura del corso né UPDATE dei posti
+            if (soldOutIndex.isSoldOut(corsoId)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(waitlistService.enqueue(request));
+            }
+            
             // Check if course exists / Controlla se il corso esiste
             Optional<Corso> corsoOpt = corsoRepository.findById(corsoId);
             if (corsoOpt.isEmpty()) {
@@ -131,24 +232,29 @@ public class IscrizioneController {
             // Set the course relationship / Imposta la relazione del corso
             iscrizione.setCorso(corso);
             
-            // Check if course has availability / Controlla se il corso ha disponibilità
+            // Full courses queue the request / I corsi completi accodano la richiesta
             if (corso.getDisponibilita() <= 0) {
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body("Course is full / Il corso è completo");
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(waitlistService.enqueue(request));
             }
             
-            // Check if participant is already enrolled / Controlla se il partecipante è già iscritto
-            if (iscrizioneRepository.existsByCorsoIdAndPartecipanteEmail(
-                corsoId, iscrizione.getPartecipanteEmail())) {
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body("Participant already enrolled in this course / Partecipante già iscritto a questo corso");
+            // Reserve a seat atomically and create enrollment / Riserva un posto in modo atomico e crea iscrizione
+            try {
+                Iscrizione savedIscrizione = enrollmentService.reserveSeatAndSave(iscrizione);
+                return ResponseEntity.status(HttpStatus.CREATED).body(savedIscrizione);
+            } catch (BusinessLogicException e) {
+                // Duplicate rejected by the unique key on insert / Duplicato respinto dalla chiave unica all'inserimento
+                if ("ALREADY_ENROLLED".equals(e.getErrorCode())) {
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Participant already enrolled in this course / Partecipante già iscritto a questo corso");
+                }
+                // Last seat taken by a concurrent request / Ultimo posto preso da una richiesta concorrente
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(waitlistService.enqueue(request));
             }
             
-            // Create enrollment / Crea iscrizione
-            Iscrizione savedIscrizione = iscrizioneRepository.save(iscrizione);
-            
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedIscrizione);
-            
+        } catch (BusinessLogicException e) {
+            // Started, already enrolled or high-demand course full / Iniziato, già iscritto o corso ad alta domanda completo
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -185,4 +291,78 @@ public class IscrizioneController {
             return ResponseEntity.internalServerError().build();
         }
     }
+    
+    /**
+     * Delete an enrollment, promoting the first participant on the waitlist
+     * Elimina un'iscrizione, promuovendo il primo partecipante in lista d'attesa
+     * 
+     * @param id Enrollment ID / ID dell'iscrizione
+     * @return No content / Nessun contenuto
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete enrollment", description = "Delete an enrollment; the seat goes to the waitlist first / Elimina un'iscrizione; il posto va prima alla lista d'attesa")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Enrollment deleted / Iscrizione eliminata"),
+        @ApiResponse(responseCode = "404", description = "Enrollment not found / Iscrizione non trovata"),
+        @ApiResponse(responseCode = "409", description = "Course already started / Corso già iniziato"),
+        @ApiResponse(responseCode = "500", description = "Internal server error / Errore interno del server")
+    })
+    public ResponseEntity<?> deleteEnrollment(
+            @Parameter(description = "Enrollment ID / ID dell'iscrizione") 
+            @PathVariable Long id) {
+        
+        try {
+            enrollmentService.deleteEnrollment(id);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (BusinessLogicException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Get the waitlist of a course
+     * Recupera la lista d'attesa di un corso
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Waiting participants in order / Partecipanti in attesa in ordine
+     */
+    @GetMapping("/waitlist")
+    @Operation(summary = "Get course waitlist", description = "Participants waiting for a seat, first come first / Partecipanti in attesa di un posto, in ordine di arrivo")
+    public ResponseEntity<List<EnrollmentDTO>> getWaitlist(
+            @Parameter(description = "Course ID / ID del corso") 
+            @RequestParam Long corsoId) {
+        
+        try {
+            return ResponseEntity.ok(waitlistService.getWaitlist(corsoId));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Leave the waitlist
+     * Lascia la lista d'attesa
+     * 
+     * @param attesaId Waitlist entry ID / ID della voce in lista d'attesa
+     * @return No content / Nessun contenuto
+     */
+    @DeleteMapping("/waitlist/{attesaId}")
+    @Operation(summary = "Leave waitlist", description = "Remove a waitlist entry / Rimuove una voce dalla lista d'attesa")
+    public ResponseEntity<?> leaveWaitlist(
+            @Parameter(description = "Waitlist entry ID / ID della voce in lista d'attesa") 
+            @PathVariable Long attesaId) {
+        
+        try {
+            waitlistService.leave(attesaId);
+            return ResponseEntity.noContent().build();
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package com.esame.dto;
+
+import com.esame.exception.BusinessLogicException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Batch Enrollment Result Data Transfer Object
+ * DTO per Esito Iscrizione Massiva
+ * 
+ * Outcome of one row of a bulk enrollment request
+ * Esito di una riga di una richiesta di iscrizione massiva
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchEnrollmentResultDTO {
+    
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_REJECTED = "REJECTED";
+    
+    private int riga;
+    private String status;
+    private String errorCode;
+    private String message;
+    private EnrollmentDTO enrollment;
+    
+    // Constructors / Costruttori
+    public BatchEnrollmentResultDTO() {}
+    
+    public BatchEnrollmentResultDTO(int riga, String status, EnrollmentDTO enrollment) {
+        this.riga = riga;
+        this.status = status;
+        this.enrollment = enrollment;
+    }
+    
+    /**
+     * Result of a row that was not enrolled
+     * Esito di una riga non iscritta
+     * 
+     * @param riga Row index in the request / Indice della riga nella richiesta
+     * @param e Reason / Motivo
+     * @return Rejected result / Esito rifiutato
+     */
+    public static BatchEnrollmentResultDTO rejected(int riga, BusinessLogicException e) {
+        BatchEnrollmentResultDTO result = new BatchEnrollmentResultDTO(riga, STATUS_REJECTED, null);
+        result.setErrorCode(e.getErrorCode());
+        result.setMessage(e.getMessage());
+        return result;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public int getRiga() {
+        return riga;
+    }
+    
+    public void setRiga(int riga) {
+        this.riga = riga;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getErrorCode() {
+        return errorCode;
+    }
+    
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public EnrollmentDTO getEnrollment() {
+        return enrollment;
+    }
+    
+    public void setEnrollment(EnrollmentDTO enrollment) {
+        this.enrollment = enrollment;
+    }
+}
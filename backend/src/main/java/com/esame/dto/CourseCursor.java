@@ -0,0 +1,139 @@
+package com.esame.dto;
+
+import com.esame.exception.BusinessLogicException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Course Cursor
+ * Cursore Corso
+ * 
+ * Opaque continuation token for keyset (seek) pagination on (sortField, corsoId)
+ * Token di continuazione opaco per paginazione keyset (seek) su (campoOrdinamento, corsoId)
+ */
+public class CourseCursor {
+    
+    // Sort fields usable for keyset pagination (non-nullable columns, each backed by a (column, corso_id) index) / Campi ordinamento utilizzabili (colonne non null, ognuna con un indice (colonna, corso_id))
+    public static final Set<String> SORTABLE_FIELDS = Set.of("titolo", "luogo", "dataOraInizio", "disponibilita", "corsoId");
+    
+    private static final String SEPARATOR = "|";
+    
+    private final String sortField;
+    private final boolean descending;
+    private final Long corsoId;
+    private final Comparable<?> sortValue;
+    
+    public CourseCursor(String sortField, boolean descending, Long corsoId, Comparable<?> sortValue) {
+        this.sortField = sortField;
+        this.descending = descending;
+        this.corsoId = corsoId;
+        this.sortValue = sortValue;
+    }
+    
+    /**
+     * Build cursor pointing after the given course
+     * Costruisce cursore che punta dopo il corso indicato
+     * 
+     * @param course Last course of the page / Ultimo corso della pagina
+     * @param sortField Sort field / Campo ordinamento
+     * @param descending Sort direction / Direzione ordinamento
+     * @return Cursor / Cursore
+     */
+    public static CourseCursor after(CourseDTO course, String sortField, boolean descending) {
+        return new CourseCursor(sortField, descending, course.getCorsoId(), sortValueOf(course, sortField));
+    }
+    
+    /**
+     * Encode cursor as opaque URL-safe token
+     * Codifica cursore come token opaco URL-safe
+     * 
+     * @return Encoded token / Token codificato
+     */
+    public String encode() {
+        String raw = sortField + SEPARATOR + (descending ? "d" : "a") + SEPARATOR + corsoId + SEPARATOR + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decode an opaque token
+     * Decodifica un token opaco
+     * 
+     * @param token Encoded token / Token codificato
+     * @return Decoded cursor / Cursore decodificato
+     * @throws BusinessLogicException if token is malformed / se il token non è valido
+     */
+    public static CourseCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4 || !SORTABLE_FIELDS.contains(parts[0])) {
+                throw invalidCursor();
+            }
+            String field = parts[0];
+            return new CourseCursor(field, "d".equals(parts[1]), Long.valueOf(parts[2]), parseValue(field, parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalidCursor();
+        }
+    }
+    
+    /**
+     * Read the sort key of a course
+     * Legge la chiave di ordinamento di un corso
+     */
+    private static Comparable<?> sortValueOf(CourseDTO corso, String sortField) {
+        switch (sortField) {
+            case "titolo":
+                return corso.getTitolo();
+            case "luogo":
+                return corso.getLuogo();
+            case "dataOraInizio":
+                return corso.getDataOraInizio();
+            case "disponibilita":
+                return corso.getDisponibilita();
+            default:
+                return corso.getCorsoId();
+        }
+    }
+    
+    private static Comparable<?> parseValue(String sortField, String value) {
+        switch (sortField) {
+            case "titolo":
+            case "luogo":
+                return value;
+            case "dataOraInizio":
+                return LocalDateTime.parse(value);
+            case "disponibilita":
+                return Integer.valueOf(value);
+            default:
+                return Long.valueOf(value);
+        }
+    }
+    
+    private static BusinessLogicException invalidCursor() {
+        return new BusinessLogicException(
+            "INVALID_CURSOR",
+            "Invalid pagination cursor / Cursore di paginazione non valido"
+        );
+    }
+    
+    // Getters / Getter
+    public String getSortField() {
+        return sortField;
+    }
+    
+    public boolean isDescending() {
+        return descending;
+    }
+    
+    public Long getCorsoId() {
+        return corsoId;
+    }
+    
+    public Comparable<?> getSortValue() {
+        return sortValue;
+    }
+}
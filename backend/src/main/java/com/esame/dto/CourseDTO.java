@@ -2,6 +2,7 @@ package com.esame.dto;
 
 import jakarta.validation.constraints.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -232,11 +233,13 @@ public class CourseDTO {
         this.iscrizioni = iscrizioni;
     }
     
-    // Helper methods / Metodi helper
+    // Helper methods, not serialized / Metodi helper, non serializzati
+    @JsonIgnore
     public boolean isUpcoming() {
         return dataOraInizio != null && dataOraInizio.isAfter(LocalDateTime.now());
     }
     
+    @JsonIgnore
     public boolean isFull() {
         return disponibilita != null && disponibilita <= 0;
     }
@@ -0,0 +1,73 @@
+package com.esame.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Course Facets Data Transfer Object
+ * DTO per Facet Corsi
+ * 
+ * Course counts per value, bucket or month over a filtered result set
+ * Conteggi dei corsi per valore, fascia o mese su un insieme di risultati filtrato
+ */
+public class CourseFacetsDTO {
+    
+    private Map<String, Long> categorie = new LinkedHashMap<>();
+    private Map<String, Long> livelli = new LinkedHashMap<>();
+    private Map<String, Long> citta = new LinkedHashMap<>();
+    private Map<String, Long> prezzi = new LinkedHashMap<>();
+    private Map<String, Long> durate = new LinkedHashMap<>();
+    private Map<String, Long> mesiInizio = new LinkedHashMap<>();
+    
+    // Constructors / Costruttori
+    public CourseFacetsDTO() {}
+    
+    // Getters and Setters / Getter e Setter
+    public Map<String, Long> getCategorie() {
+        return categorie;
+    }
+    
+    public void setCategorie(Map<String, Long> categorie) {
+        this.categorie = categorie;
+    }
+    
+    public Map<String, Long> getLivelli() {
+        return livelli;
+    }
+    
+    public void setLivelli(Map<String, Long> livelli) {
+        this.livelli = livelli;
+    }
+    
+    public Map<String, Long> getCitta() {
+        return citta;
+    }
+    
+    public void setCitta(Map<String, Long> citta) {
+        this.citta = citta;
+    }
+    
+    public Map<String, Long> getPrezzi() {
+        return prezzi;
+    }
+    
+    public void setPrezzi(Map<String, Long> prezzi) {
+        this.prezzi = prezzi;
+    }
+    
+    public Map<String, Long> getDurate() {
+        return durate;
+    }
+    
+    public void setDurate(Map<String, Long> durate) {
+        this.durate = durate;
+    }
+    
+    public Map<String, Long> getMesiInizio() {
+        return mesiInizio;
+    }
+    
+    public void setMesiInizio(Map<String, Long> mesiInizio) {
+        this.mesiInizio = mesiInizio;
+    }
+}
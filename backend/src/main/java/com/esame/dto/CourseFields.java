@@ -0,0 +1,123 @@
+package com.esame.dto;
+
+import com.esame.exception.BusinessLogicException;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Course Sparse Fieldset
+ * Insieme Ridotto di Campi Corso
+ * 
+ * Parsed value of the fields=titolo,luogo,prezzo request parameter. Listings that do not ask
+ * for a detail field are served from CourseCard projections; unselected properties are cleared
+ * so the NON_NULL serialization leaves them out of the payload. corsoId is always returned.
+ * Valore interpretato del parametro fields=titolo,luogo,prezzo. Gli elenchi che non chiedono
+ * campi di dettaglio sono serviti dalle proiezioni CourseCard; le proprietà non selezionate
+ * vengono azzerate così la serializzazione NON_NULL le esclude. corsoId è sempre restituito.
+ */
+public class CourseFields {
+    
+    // Fields that need the full entity / Campi che richiedono l'entità completa
+    private static final Set<String> DETAIL_FIELDS = Set.of("programma", "informazioniGenerali", "iscrizioniCount");
+    
+    private static final Map<String, Consumer<CourseDTO>> CLEARERS = new LinkedHashMap<>();
+    
+    static {
+        CLEARERS.put("titolo", dto -> dto.setTitolo(null));
+        CLEARERS.put("dataOraInizio", dto -> dto.setDataOraInizio(null));
+        CLEARERS.put("luogo", dto -> dto.setLuogo(null));
+        CLEARERS.put("disponibilita", dto -> dto.setDisponibilita(null));
+        CLEARERS.put("programma", dto -> dto.setProgramma(null));
+        CLEARERS.put("docenti", dto -> dto.setDocenti(null));
+        CLEARERS.put("informazioniGenerali", dto -> dto.setInformazioniGenerali(null));
+        CLEARERS.put("dataTest", dto -> dto.setDataTest(null));
+        CLEARERS.put("dataCompletamento", dto -> dto.setDataCompletamento(null));
+        CLEARERS.put("durataOre", dto -> dto.setDurataOre(null));
+        CLEARERS.put("livello", dto -> dto.setLivello(null));
+        CLEARERS.put("categoria", dto -> dto.setCategoria(null));
+        CLEARERS.put("prezzo", dto -> dto.setPrezzo(null));
+        CLEARERS.put("certificazione", dto -> dto.setCertificazione(null));
+        CLEARERS.put("iscrizioniCount", dto -> dto.setIscrizioniCount(null));
+        CLEARERS.put("isAvailable", dto -> dto.setIsAvailable(null));
+        CLEARERS.put("status", dto -> dto.setStatus(null));
+    }
+    
+    private final Set<String> selected;
+    
+    private CourseFields(Set<String> selected) {
+        this.selected = selected;
+    }
+    
+    /**
+     * Parse a comma-separated field list
+     * Interpreta una lista di campi separati da virgola
+     * 
+     * @param fields Field list, null or blank for all fields / Lista campi, null o vuota per tutti i campi
+     * @return Parsed fieldset, or null when every field is requested / Insieme interpretato, o null se sono richiesti tutti i campi
+     * @throws BusinessLogicException if a field is unknown / se un campo è sconosciuto
+     */
+    public static CourseFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || "corsoId".equals(name)) {
+                continue;
+            }
+            if (!CLEARERS.containsKey(name)) {
+                throw new BusinessLogicException(
+                    "INVALID_FIELDS", 
+                    "Unknown field '" + name + "', allowed: " + CLEARERS.keySet() + " / Campo sconosciuto '" + name + "', consentiti: " + CLEARERS.keySet(),
+                    "fields"
+                );
+            }
+            selected.add(name);
+        }
+        return new CourseFields(selected);
+    }
+    
+    /**
+     * Check whether the full entity must be loaded
+     * Controlla se va caricata l'entità completa
+     * 
+     * @return True if a detail field is selected / True se è selezionato un campo di dettaglio
+     */
+    public boolean needsDetail() {
+        for (String field : selected) {
+            if (DETAIL_FIELDS.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Clear the unselected properties of each DTO
+     * Azzera le proprietà non selezionate di ogni DTO
+     * 
+     * @param courses Course DTOs / DTO dei corsi
+     * @return Same list / Stessa lista
+     */
+    public List<CourseDTO> apply(List<CourseDTO> courses) {
+        for (CourseDTO course : courses) {
+            course.setIscrizioni(null);
+            CLEARERS.forEach((name, clear) -> {
+                if (!selected.contains(name)) {
+                    clear.accept(course);
+                }
+            });
+        }
+        return courses;
+    }
+    
+    public Set<String> getSelected() {
+        return selected;
+    }
+}
@@ -0,0 +1,222 @@
+package com.esame.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Course Search Filter
+ * Filtro Ricerca Corsi
+ * 
+ * Holds the normalized catalog filters shared by the course search endpoints
+ * Contiene i filtri normalizzati del catalogo condivisi dagli endpoint di ricerca corsi
+ */
+public class CourseFilter {
+    
+    // Maximum accepted price filter / Filtro prezzo massimo accettato
+    public static final double MAX_PRICE = 10000.0;
+    
+    private String titolo;
+    private String luogo;
+    private String docente;
+    private String categoria;
+    private String livello;
+    private LocalDate dataInizio;
+    private LocalDate dataFine;
+    private Integer durataMin;
+    private Integer durataMax;
+    private Double prezzoMin;
+    private Double prezzoMax;
+    private boolean disponibili;
+    private Boolean certificazione;
+    
+    // Constructors / Costruttori
+    public CourseFilter() {}
+    
+    /**
+     * Check if no filter is set
+     * Controlla se nessun filtro è impostato
+     * 
+     * @return True if no filter is set / True se nessun filtro è impostato
+     */
+    public boolean isEmpty() {
+        return titolo == null && luogo == null && docente == null && categoria == null
+            && livello == null && dataInizio == null && dataFine == null
+            && durataMin == null && durataMax == null
+            && prezzoMin == null && prezzoMax == null && !disponibili
+            && certificazione == null;
+    }
+    
+    /**
+     * Check if a facet filter (categoria, livello, certificazione, disponibili) is set
+     * Controlla se è impostato un filtro facet (categoria, livello, certificazione, disponibili)
+     * 
+     * @return True if a facet filter is set / True se è impostato un filtro facet
+     */
+    public boolean hasFacetFilters() {
+        return categoria != null || livello != null || certificazione != null || disponibili;
+    }
+    
+    /**
+     * Check if a range filter (prezzo, durata, date) is set
+     * Controlla se è impostato un filtro a intervallo (prezzo, durata, date)
+     * 
+     * @return True if a range filter is set / True se è impostato un filtro a intervallo
+     */
+    public boolean hasRangeFilters() {
+        return dataInizio != null || dataFine != null || durataMin != null || durataMax != null
+            || prezzoMin != null || prezzoMax != null;
+    }
+    
+    /**
+     * Stable key identifying this filter combination, used for cached counts
+     * Chiave stabile che identifica questa combinazione di filtri, usata per i conteggi in cache
+     * 
+     * @return Cache key / Chiave cache
+     */
+    public String cacheKey() {
+        return String.join("|",
+            String.valueOf(titolo), String.valueOf(luogo), String.valueOf(docente),
+            String.valueOf(categoria), String.valueOf(livello),
+            String.valueOf(dataInizio), String.valueOf(dataFine),
+            String.valueOf(durataMin), String.valueOf(durataMax),
+            String.valueOf(prezzoMin), String.valueOf(prezzoMax),
+            String.valueOf(disponibili), String.valueOf(certificazione));
+    }
+    
+    /**
+     * Trim text filter, returning null for blank values
+     * Rimuove spazi dal filtro testuale, restituendo null per valori vuoti
+     */
+    private static String normalizeText(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim();
+    }
+    
+    /**
+     * Normalize price filter: negative values are skipped, large values capped
+     * Normalizza filtro prezzo: valori negativi ignorati, valori elevati limitati
+     */
+    private static Double normalizePrice(Double value) {
+        if (value == null || value < 0) {
+            return null;
+        }
+        return Math.min(value, MAX_PRICE);
+    }
+    
+    /**
+     * Normalize duration filter: negative values are skipped
+     * Normalizza filtro durata: valori negativi ignorati
+     */
+    private static Integer normalizeDuration(Integer value) {
+        if (value == null || value < 0) {
+            return null;
+        }
+        return value;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public String getTitolo() {
+        return titolo;
+    }
+    
+    public void setTitolo(String titolo) {
+        this.titolo = normalizeText(titolo);
+    }
+    
+    public String getLuogo() {
+        return luogo;
+    }
+    
+    public void setLuogo(String luogo) {
+        this.luogo = normalizeText(luogo);
+    }
+    
+    public String getDocente() {
+        return docente;
+    }
+    
+    public void setDocente(String docente) {
+        this.docente = normalizeText(docente);
+    }
+    
+    public String getCategoria() {
+        return categoria;
+    }
+    
+    public void setCategoria(String categoria) {
+        this.categoria = normalizeText(categoria);
+    }
+    
+    public String getLivello() {
+        return livello;
+    }
+    
+    public void setLivello(String livello) {
+        this.livello = normalizeText(livello);
+    }
+    
+    public LocalDate getDataInizio() {
+        return dataInizio;
+    }
+    
+    public void setDataInizio(LocalDate dataInizio) {
+        this.dataInizio = dataInizio;
+    }
+    
+    public LocalDate getDataFine() {
+        return dataFine;
+    }
+    
+    public void setDataFine(LocalDate dataFine) {
+        this.dataFine = dataFine;
+    }
+    
+    public Integer getDurataMin() {
+        return durataMin;
+    }
+    
+    public void setDurataMin(Integer durataMin) {
+        this.durataMin = normalizeDuration(durataMin);
+    }
+    
+    public Integer getDurataMax() {
+        return durataMax;
+    }
+    
+    public void setDurataMax(Integer durataMax) {
+        this.durataMax = normalizeDuration(durataMax);
+    }
+    
+    public Double getPrezzoMin() {
+        return prezzoMin;
+    }
+    
+    public void setPrezzoMin(Double prezzoMin) {
+        this.prezzoMin = normalizePrice(prezzoMin);
+    }
+    
+    public Double getPrezzoMax() {
+        return prezzoMax;
+    }
+    
+    public void setPrezzoMax(Double prezzoMax) {
+        this.prezzoMax = normalizePrice(prezzoMax);
+    }
+    
+    public boolean isDisponibili() {
+        return disponibili;
+    }
+    
+    public void setDisponibili(boolean disponibili) {
+        this.disponibili = disponibili;
+    }
+    
+    public Boolean getCertificazione() {
+        return certificazione;
+    }
+    
+    public void setCertificazione(Boolean certificazione) {
+        this.certificazione = certificazione;
+    }
+}
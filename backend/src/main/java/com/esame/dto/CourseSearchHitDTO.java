@@ -0,0 +1,53 @@
+package com.esame.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.Map;
+
+/**
+ * Course Search Hit Data Transfer Object
+ * DTO per Risultato Ricerca Corsi
+ * 
+ * Course returned by full-text search with its relevance score and highlighted fragments
+ * Corso restituito dalla ricerca full-text con punteggio di rilevanza e frammenti evidenziati
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CourseSearchHitDTO {
+    
+    private CourseDTO course;
+    private double score;
+    private Map<String, String> highlights;
+    
+    // Constructors / Costruttori
+    public CourseSearchHitDTO() {}
+    
+    public CourseSearchHitDTO(CourseDTO course, double score, Map<String, String> highlights) {
+        this.course = course;
+        this.score = score;
+        this.highlights = highlights;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public CourseDTO getCourse() {
+        return course;
+    }
+    
+    public void setCourse(CourseDTO course) {
+        this.course = course;
+    }
+    
+    public double getScore() {
+        return score;
+    }
+    
+    public void setScore(double score) {
+        this.score = score;
+    }
+    
+    public Map<String, String> getHighlights() {
+        return highlights;
+    }
+    
+    public void setHighlights(Map<String, String> highlights) {
+        this.highlights = highlights;
+    }
+}
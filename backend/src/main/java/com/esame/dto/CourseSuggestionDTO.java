@@ -0,0 +1,59 @@
+package com.esame.dto;
+
+/**
+ * Course Suggestion Data Transfer Object
+ * DTO per Suggerimento Corsi
+ * 
+ * Autocomplete entry with the field it comes from and its enrollment weight
+ * Voce di completamento automatico con il campo di provenienza e il peso per iscrizioni
+ */
+public class CourseSuggestionDTO {
+    
+    private String text;
+    private String field;
+    private long weight;
+    private int courseCount;
+    
+    // Constructors / Costruttori
+    public CourseSuggestionDTO() {}
+    
+    public CourseSuggestionDTO(String text, String field, long weight, int courseCount) {
+        this.text = text;
+        this.field = field;
+        this.weight = weight;
+        this.courseCount = courseCount;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public String getText() {
+        return text;
+    }
+    
+    public void setText(String text) {
+        this.text = text;
+    }
+    
+    public String getField() {
+        return field;
+    }
+    
+    public void setField(String field) {
+        this.field = field;
+    }
+    
+    public long getWeight() {
+        return weight;
+    }
+    
+    public void setWeight(long weight) {
+        this.weight = weight;
+    }
+    
+    public int getCourseCount() {
+        return courseCount;
+    }
+    
+    public void setCourseCount(int courseCount) {
+        this.courseCount = courseCount;
+    }
+}
@@ -43,6 +43,10 @@ public class EnrollmentDTO {
     private String status;
     private String fullName;
     
+    // Waitlist fields / Campi lista d'attesa
+    private Long attesaId;
+    private Integer posizioneAttesa;
+    
     // Constructors / Costruttori
     public EnrollmentDTO() {}
     
@@ -142,6 +146,22 @@ public class EnrollmentDTO {
         this.fullName = fullName;
     }
     
+    public Long getAttesaId() {
+        return attesaId;
+    }
+    
+    public void setAttesaId(Long attesaId) {
+        this.attesaId = attesaId;
+    }
+    
+    public Integer getPosizioneAttesa() {
+        return posizioneAttesa;
+    }
+    
+    public void setPosizioneAttesa(Integer posizioneAttesa) {
+        this.posizioneAttesa = posizioneAttesa;
+    }
+    
     // Helper methods / Metodi helper
     public String getParticipantFullName() {
         if (partecipanteNome != null && partecipanteCognome != null) {
@@ -0,0 +1,90 @@
+package com.esame.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.LocalDateTime;
+
+/**
+ * Enrollment Ticket Data Transfer Object
+ * DTO per Ticket di Iscrizione
+ * 
+ * State of an enrollment accepted by the asynchronous pipeline
+ * Stato di un'iscrizione accettata dalla pipeline asincrona
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EnrollmentTicketDTO {
+    
+    public static final String STATUS_QUEUED = "QUEUED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    private String ticket;
+    private Long corsoId;
+    private String status;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime dataOraRichiesta;
+    
+    // Outcome once processed / Esito una volta elaborata
+    private BatchEnrollmentResultDTO risultato;
+    private String message;
+    
+    // Constructors / Costruttori
+    public EnrollmentTicketDTO() {}
+    
+    public EnrollmentTicketDTO(String ticket, Long corsoId, String status, LocalDateTime dataOraRichiesta) {
+        this.ticket = ticket;
+        this.corsoId = corsoId;
+        this.status = status;
+        this.dataOraRichiesta = dataOraRichiesta;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public String getTicket() {
+        return ticket;
+    }
+    
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+    
+    public Long getCorsoId() {
+        return corsoId;
+    }
+    
+    public void setCorsoId(Long corsoId) {
+        this.corsoId = corsoId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getDataOraRichiesta() {
+        return dataOraRichiesta;
+    }
+    
+    public void setDataOraRichiesta(LocalDateTime dataOraRichiesta) {
+        this.dataOraRichiesta = dataOraRichiesta;
+    }
+    
+    public BatchEnrollmentResultDTO getRisultato() {
+        return risultato;
+    }
+    
+    public void setRisultato(BatchEnrollmentResultDTO risultato) {
+        this.risultato = risultato;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -14,6 +14,7 @@ import java.util.List;
 public class PagedResponse<T> extends ApiResponse<List<T>> {
     
     private PagingInfo paging;
+    private CursorInfo cursor;
     
     // Constructors / Costruttori
     public PagedResponse() {
@@ -34,6 +35,12 @@ public class PagedResponse<T> extends ApiResponse<List<T>> {
         return new PagedResponse<>(true, message, data, paging);
     }
     
+    public static <T> PagedResponse<T> success(List<T> data, CursorInfo cursor) {
+        PagedResponse<T> response = new PagedResponse<>(true, "Data retrieved successfully / Dati recuperati con successo", data, null);
+        response.setCursor(cursor);
+        return response;
+    }
+    
     // Getters and Setters / Getter e Setter
     public PagingInfo getPaging() {
         return paging;
@@ -43,6 +50,14 @@ public class PagedResponse<T> extends ApiResponse<List<T>> {
         this.paging = paging;
     }
     
+    public CursorInfo getCursor() {
+        return cursor;
+    }
+    
+    public void setCursor(CursorInfo cursor) {
+        this.cursor = cursor;
+    }
+    
     /**
      * Paging Information
      * Informazioni di Paginazione
@@ -137,4 +152,59 @@ public class PagedResponse<T> extends ApiResponse<List<T>> {
             this.hasPrevious = hasPrevious;
         }
     }
+    
+    /**
+     * Cursor Information for keyset pagination
+     * Informazioni Cursore per paginazione keyset
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CursorInfo {
+        private int size;
+        private String nextCursor;
+        private boolean hasNext;
+        private Long totalElements;
+        
+        // Constructors / Costruttori
+        public CursorInfo() {}
+        
+        public CursorInfo(int size, String nextCursor, Long totalElements) {
+            this.size = size;
+            this.nextCursor = nextCursor;
+            this.hasNext = nextCursor != null;
+            this.totalElements = totalElements;
+        }
+        
+        // Getters and Setters / Getter e Setter
+        public int getSize() {
+            return size;
+        }
+        
+        public void setSize(int size) {
+            this.size = size;
+        }
+        
+        public String getNextCursor() {
+            return nextCursor;
+        }
+        
+        public void setNextCursor(String nextCursor) {
+            this.nextCursor = nextCursor;
+        }
+        
+        public boolean isHasNext() {
+            return hasNext;
+        }
+        
+        public void setHasNext(boolean hasNext) {
+            this.hasNext = hasNext;
+        }
+        
+        public Long getTotalElements() {
+            return totalElements;
+        }
+        
+        public void setTotalElements(Long totalElements) {
+            this.totalElements = totalElements;
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package com.esame.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Seat Hold Data Transfer Object
+ * DTO per Blocco Posto
+ * 
+ * A seat reserved for a limited time, confirmed with its code
+ * Un posto riservato per un tempo limitato, confermato con il suo codice
+ */
+public class SeatHoldDTO {
+    
+    private String codice;
+    private Long corsoId;
+    private LocalDateTime scadenza;
+    private long secondiRimanenti;
+    
+    // Constructors / Costruttori
+    public SeatHoldDTO() {}
+    
+    public SeatHoldDTO(String codice, Long corsoId, LocalDateTime scadenza, long secondiRimanenti) {
+        this.codice = codice;
+        this.corsoId = corsoId;
+        this.scadenza = scadenza;
+        this.secondiRimanenti = secondiRimanenti;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public String getCodice() {
+        return codice;
+    }
+    
+    public void setCodice(String codice) {
+        this.codice = codice;
+    }
+    
+    public Long getCorsoId() {
+        return corsoId;
+    }
+    
+    public void setCorsoId(Long corsoId) {
+        this.corsoId = corsoId;
+    }
+    
+    public LocalDateTime getScadenza() {
+        return scadenza;
+    }
+    
+    public void setScadenza(LocalDateTime scadenza) {
+        this.scadenza = scadenza;
+    }
+    
+    public long getSecondiRimanenti() {
+        return secondiRimanenti;
+    }
+    
+    public void setSecondiRimanenti(long secondiRimanenti) {
+        this.secondiRimanenti = secondiRimanenti;
+    }
+}
@@ -6,6 +6,11 @@ package com.esame.exception;
  * 
  * Custom exception for business logic violations
  * Eccezione personalizzata per violazioni della logica di business
+ * 
+ * Without a cause it is an expected rejection and skips capturing the stack trace, which
+ * would otherwise dominate its cost under load.
+ * Senza causa è un rifiuto previsto e non cattura lo stack trace, che altrimenti ne
+ * dominerebbe il costo sotto carico.
  */
 public class BusinessLogicException extends RuntimeException {
     
@@ -20,7 +25,7 @@ public class BusinessLogicException extends RuntimeException {
      * @param message Error message / Messaggio di errore
      */
     public BusinessLogicException(String errorCode, String message) {
-        super(message);
+        super(message, null, false, false);
         this.errorCode = errorCode;
         this.fieldName = null;
     }
@@ -34,7 +39,7 @@ public class BusinessLogicException extends RuntimeException {
      * @param fieldName Field name related to the error / Nome campo relativo all'errore
      */
     public BusinessLogicException(String errorCode, String message, String fieldName) {
-        super(message);
+        super(message, null, false, false);
         this.errorCode = errorCode;
         this.fieldName = fieldName;
     }
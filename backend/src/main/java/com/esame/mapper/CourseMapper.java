@@ -2,8 +2,10 @@ package com.esame.mapper;
 
 import com.esame.model.Corso;
 import com.esame.dto.CourseDTO;
+import com.esame.repository.CourseCard;
 import org.springframework.stereotype.Component;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -47,13 +49,59 @@ public class CourseMapper {
         
         // Set additional fields / Imposta campi aggiuntivi
         dto.setIsAvailable(corso.getDisponibilita() != null && corso.getDisponibilita() > 0);
-        dto.setStatus(determineStatus(corso));
+        dto.setStatus(determineStatus(corso.getDisponibilita(), corso.getDataOraInizio()));
         
-        // Set enrollments count if available / Imposta conteggio iscrizioni se disponibile
-        if (corso.getIscrizioni() != null) {
-            dto.setIscrizioniCount(corso.getIscrizioni().size());
+        return dto;
+    }
+    
+    /**
+     * Convert Course entity to DTO with its enrollment count
+     * Converte entità Corso in DTO con il conteggio delle iscrizioni
+     * 
+     * The count is passed in so the lazy enrollment collection is never loaded.
+     * Il conteggio è passato dal chiamante così la collezione lazy delle iscrizioni non viene mai caricata.
+     * 
+     * @param corso Course entity / Entità Corso
+     * @param iscrizioniCount Enrollment count / Numero di iscrizioni
+     * @return Course DTO / DTO Corso
+     */
+    public CourseDTO toDTO(Corso corso, Integer iscrizioniCount) {
+        CourseDTO dto = toDTO(corso);
+        if (dto != null) {
+            dto.setIscrizioniCount(iscrizioniCount);
+        }
+        return dto;
+    }
+    
+    /**
+     * Convert a course card projection to DTO, leaving TEXT fields and enrollments unset
+     * Converte una proiezione scheda corso in DTO, lasciando vuoti campi TEXT e iscrizioni
+     * 
+     * @param card Course card / Scheda corso
+     * @return Course DTO / DTO Corso
+     */
+    public CourseDTO toDTO(CourseCard card) {
+        if (card == null) {
+            return null;
         }
         
+        CourseDTO dto = new CourseDTO();
+        dto.setCorsoId(card.corsoId());
+        dto.setTitolo(card.titolo());
+        dto.setDataOraInizio(card.dataOraInizio());
+        dto.setLuogo(card.luogo());
+        dto.setDisponibilita(card.disponibilita());
+        dto.setDocenti(card.docenti());
+        dto.setDataTest(card.dataTest());
+        dto.setDataCompletamento(card.dataCompletamento());
+        dto.setDurataOre(card.durataOre());
+        dto.setLivello(card.livello());
+        dto.setCategoria(card.categoria());
+        dto.setPrezzo(card.prezzo());
+        dto.setCertificazione(card.certificazione());
+        dto.setIsAvailable(card.disponibilita() != null && card.disponibilita() > 0);
+        dto.setStatus(determineStatus(card.disponibilita(), card.dataOraInizio()));
+        
         return dto;
     }
     
@@ -106,6 +154,37 @@ public class CourseMapper {
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Convert list of Course entities to DTOs with their enrollment counts
+     * Converte lista di entità Corso in DTO con i conteggi delle iscrizioni
+     * 
+     * @param corsi List of Course entities / Lista di entità Corso
+     * @param iscrizioniCounts Enrollment count by course ID, missing means none / Numero di iscrizioni per ID corso, assente significa nessuna
+     * @return List of Course DTOs / Lista di DTO Corso
+     */
+    public List<CourseDTO> toDTOList(List<Corso> corsi, Map<Long, Integer> iscrizioniCounts) {
+        if (corsi == null) {
+            return null;
+        }
+        
+        return corsi.stream()
+                .map(corso -> toDTO(corso, iscrizioniCounts.getOrDefault(corso.getCorsoId(), 0)))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Convert list of course cards to DTOs
+     * Converte lista di schede corso in DTO
+     * 
+     * @param cards List of course cards / Lista di schede corso
+     * @return List of Course DTOs / Lista di DTO Corso
+     */
+    public List<CourseDTO> toCardDTOList(List<CourseCard> cards) {
+        return cards.stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+    
     /**
      * Update Course entity with DTO data
      * Aggiorna entità Corso con dati DTO
@@ -170,23 +249,24 @@ public class CourseMapper {
      * Determine course status based on availability and dates
      * Determina stato del corso basato su disponibilità e date
      * 
-     * @param corso Course entity / Entità Corso
+     * @param disponibilita Available seats / Posti disponibili
+     * @param dataOraInizio Start date and time / Data e ora di inizio
      * @return Course status / Stato del corso
      */
-    private String determineStatus(Corso corso) {
-        if (corso.getDisponibilita() == null || corso.getDisponibilita() <= 0) {
+    private String determineStatus(Integer disponibilita, java.time.LocalDateTime dataOraInizio) {
+        if (disponibilita == null || disponibilita <= 0) {
             return "FULL";
         }
         
-        if (corso.getDataOraInizio() == null) {
+        if (dataOraInizio == null) {
             return "UNKNOWN";
         }
         
         java.time.LocalDateTime now = java.time.LocalDateTime.now();
         
-        if (corso.getDataOraInizio().isBefore(now)) {
+        if (dataOraInizio.isBefore(now)) {
             return "STARTED";
-        } else if (corso.getDataOraInizio().isAfter(now.plusDays(7))) {
+        } else if (dataOraInizio.isAfter(now.plusDays(7))) {
             return "UPCOMING";
         } else {
             return "STARTING_SOON";
@@ -0,0 +1,89 @@
+package com.esame.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Seat Hold Entity Model
+ * Modello Entità Blocco Posto
+ * 
+ * A seat taken from a course for a limited time while the participant completes enrollment
+ * Un posto tolto a un corso per un tempo limitato mentre il partecipante completa l'iscrizione
+ */
+@Entity
+@Table(name = "blocchi_posto", indexes = {
+    @Index(name = "idx_blocchi_posto_codice", columnList = "codice", unique = true)
+})
+public class BloccoPosto {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "blocco_id")
+    private Long bloccoId;
+    
+    // Opaque code given to the client / Codice opaco consegnato al client
+    @Column(name = "codice", length = 36, nullable = false, updatable = false)
+    private String codice;
+    
+    @Column(name = "corso_id", nullable = false, updatable = false)
+    private Long corsoId;
+    
+    @Column(name = "data_ora_creazione", nullable = false, updatable = false)
+    private LocalDateTime dataOraCreazione;
+    
+    @Column(name = "scadenza", nullable = false, updatable = false)
+    private LocalDateTime scadenza;
+    
+    // Default constructor / Costruttore di default
+    public BloccoPosto() {
+    }
+    
+    // Constructor with parameters / Costruttore con parametri
+    public BloccoPosto(String codice, Long corsoId, LocalDateTime dataOraCreazione, LocalDateTime scadenza) {
+        this.codice = codice;
+        this.corsoId = corsoId;
+        this.dataOraCreazione = dataOraCreazione;
+        this.scadenza = scadenza;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public Long getBloccoId() {
+        return bloccoId;
+    }
+    
+    public void setBloccoId(Long bloccoId) {
+        this.bloccoId = bloccoId;
+    }
+    
+    public String getCodice() {
+        return codice;
+    }
+    
+    public void setCodice(String codice) {
+        this.codice = codice;
+    }
+    
+    public Long getCorsoId() {
+        return corsoId;
+    }
+    
+    public void setCorsoId(Long corsoId) {
+        this.corsoId = corsoId;
+    }
+    
+    public LocalDateTime getDataOraCreazione() {
+        return dataOraCreazione;
+    }
+    
+    public void setDataOraCreazione(LocalDateTime dataOraCreazione) {
+        this.dataOraCreazione = dataOraCreazione;
+    }
+    
+    public LocalDateTime getScadenza() {
+        return scadenza;
+    }
+    
+    public void setScadenza(LocalDateTime scadenza) {
+        this.scadenza = scadenza;
+    }
+}
@@ -14,7 +14,17 @@ import java.util.List;
  * Rappresenta un'entità corso con tutti i campi richiesti
  */
 @Entity
-@Table(name = "corsi")
+@Table(name = "corsi", indexes = {
+    // Keyset sort columns paired with the corso_id tie-breaker / Colonne di ordinamento keyset abbinate allo spareggio corso_id
+    @Index(name = "idx_corsi_data_inizio_corso", columnList = "data_ora_inizio, corso_id"),
+    @Index(name = "idx_corsi_titolo_corso", columnList = "titolo, corso_id"),
+    @Index(name = "idx_corsi_luogo_corso", columnList = "luogo, corso_id"),
+    @Index(name = "idx_corsi_disponibilita_corso", columnList = "disponibilita, corso_id"),
+    @Index(name = "idx_corsi_categoria", columnList = "categoria"),
+    @Index(name = "idx_corsi_livello", columnList = "livello"),
+    @Index(name = "idx_corsi_prezzo", columnList = "prezzo"),
+    @Index(name = "idx_corsi_durata_ore", columnList = "durata_ore")
+})
 public class Corso {
     
     @Id
@@ -72,6 +82,10 @@ public class Corso {
     @Column(name = "certificazione")
     private Boolean certificazione = false;
     
+    // High-demand (flash-sale) enrollment mode / Modalità iscrizione ad alta domanda (flash sale)
+    @Column(name = "alta_domanda")
+    private Boolean altaDomanda = false;
+    
     @OneToMany(mappedBy = "corso", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Iscrizione> iscrizioni;
@@ -208,6 +222,14 @@ public class Corso {
         this.certificazione = certificazione;
     }
     
+    public Boolean getAltaDomanda() {
+        return altaDomanda;
+    }
+    
+    public void setAltaDomanda(Boolean altaDomanda) {
+        this.altaDomanda = altaDomanda;
+    }
+    
     public List<Iscrizione> getIscrizioni() {
         return iscrizioni;
     }
@@ -0,0 +1,120 @@
+package com.esame.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Refresh Token Family Entity Model
+ * Modello Entità Famiglia Token di Refresh
+ * 
+ * The chain of refresh tokens started by one login. Only the SHA-256 of the current token
+ * is kept; each refresh replaces it and increments the generation, and presenting an older
+ * token revokes the whole family.
+ * La catena di token di refresh avviata da un accesso. È conservato solo lo SHA-256 del
+ * token attuale; ogni refresh lo sostituisce e incrementa la generazione, e presentare un
+ * token precedente revoca l'intera famiglia.
+ */
+@Entity
+@Table(name = "famiglie_refresh", indexes = {
+    @Index(name = "idx_famiglie_refresh_token_hash", columnList = "token_hash", unique = true),
+    @Index(name = "idx_famiglie_refresh_scadenza", columnList = "scadenza")
+})
+public class FamigliaRefresh {
+    
+    @Id
+    @Column(name = "famiglia_id", length = 36)
+    private String famigliaId;
+    
+    @Column(name = "username", length = 100, nullable = false, updatable = false)
+    private String username;
+    
+    // SHA-256 of the current refresh token / SHA-256 del token di refresh attuale
+    @Column(name = "token_hash", length = 64, nullable = false)
+    private String tokenHash;
+    
+    @Column(name = "generazione", nullable = false)
+    private int generazione;
+    
+    @Column(name = "revocata", nullable = false)
+    private boolean revocata;
+    
+    @Column(name = "data_ora_creazione", nullable = false, updatable = false)
+    private LocalDateTime dataOraCreazione;
+    
+    // Expiry of the current refresh token / Scadenza del token di refresh attuale
+    @Column(name = "scadenza", nullable = false)
+    private LocalDateTime scadenza;
+    
+    // Default constructor / Costruttore di default
+    public FamigliaRefresh() {
+    }
+    
+    // Constructor with parameters / Costruttore con parametri
+    public FamigliaRefresh(String famigliaId, String username, String tokenHash,
+                           LocalDateTime dataOraCreazione, LocalDateTime scadenza) {
+        this.famigliaId = famigliaId;
+        this.username = username;
+        this.tokenHash = tokenHash;
+        this.generazione = 0;
+        this.revocata = false;
+        this.dataOraCreazione = dataOraCreazione;
+        this.scadenza = scadenza;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public String getFamigliaId() {
+        return famigliaId;
+    }
+    
+    public void setFamigliaId(String famigliaId) {
+        this.famigliaId = famigliaId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public String getTokenHash() {
+        return tokenHash;
+    }
+    
+    public void setTokenHash(String tokenHash) {
+        this.tokenHash = tokenHash;
+    }
+    
+    public int getGenerazione() {
+        return generazione;
+    }
+    
+    public void setGenerazione(int generazione) {
+        this.generazione = generazione;
+    }
+    
+    public boolean isRevocata() {
+        return revocata;
+    }
+    
+    public void setRevocata(boolean revocata) {
+        this.revocata = revocata;
+    }
+    
+    public LocalDateTime getDataOraCreazione() {
+        return dataOraCreazione;
+    }
+    
+    public void setDataOraCreazione(LocalDateTime dataOraCreazione) {
+        this.dataOraCreazione = dataOraCreazione;
+    }
+    
+    public LocalDateTime getScadenza() {
+        return scadenza;
+    }
+    
+    public void setScadenza(LocalDateTime scadenza) {
+        this.scadenza = scadenza;
+    }
+}
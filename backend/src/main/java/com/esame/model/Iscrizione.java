@@ -1,9 +1,12 @@
 package com.esame.model;
 
+import com.esame.repository.index.SuggestWeightListener;
+import com.esame.repository.index.TrigramIndexListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 /**
  * Enrollment Entity Model
@@ -13,11 +16,17 @@ import java.time.LocalDateTime;
  * Rappresenta un'entità iscrizione con tutti i campi richiesti
  */
 @Entity
-@Table(name = "iscrizioni")
+@EntityListeners({TrigramIndexListener.class, SuggestWeightListener.class})
+@Table(name = "iscrizioni", uniqueConstraints = {
+    // One enrollment per participant and course, whatever the email case / Un'iscrizione per partecipante e corso, qualunque sia il maiuscolo dell'email
+    @UniqueConstraint(name = "uk_iscrizioni_corso_email", columnNames = {"corso_id", "partecipante_email_norm"})
+})
 public class Iscrizione {
     
+    // Pooled sequence instead of IDENTITY so inserts can be JDBC-batched / Sequenza a blocchi invece di IDENTITY così gli insert possono essere raggruppati in batch JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "iscrizioni_seq")
+    @SequenceGenerator(name = "iscrizioni_seq", sequenceName = "iscrizioni_seq", allocationSize = 50)
     @Column(name = "iscrizione_id")
     private Long iscrizioneId;
     
@@ -41,6 +50,11 @@ public class Iscrizione {
     @Column(name = "partecipante_email", length = 50, nullable = false)
     private String partecipanteEmail;
     
+    // lower(partecipante_email), kept as a column because H2 has no expression indexes / lower(partecipante_email), mantenuta come colonna perché H2 non ha indici su espressioni
+    @Column(name = "partecipante_email_norm", length = 50, nullable = false)
+    @JsonIgnore
+    private String partecipanteEmailNorm;
+    
     @Column(name = "data_ora_iscrizione", nullable = false, updatable = false)
     private LocalDateTime dataOraIscrizione;
     
@@ -73,6 +87,23 @@ public class Iscrizione {
         this.dataOraIscrizione = LocalDateTime.now();
     }
     
+    /**
+     * Normalize an email for duplicate detection
+     * Normalizza un'email per il rilevamento dei duplicati
+     * 
+     * @param email Email as entered / Email come inserita
+     * @return Trimmed lower-case email / Email senza spazi e in minuscolo
+     */
+    public static String normalizeEmail(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    void updateEmailNorm() {
+        this.partecipanteEmailNorm = normalizeEmail(partecipanteEmail);
+    }
+    
     // Getters and Setters / Getter e Setter
     public Long getIscrizioneId() {
         return iscrizioneId;
@@ -114,6 +145,10 @@ public class Iscrizione {
         this.partecipanteEmail = partecipanteEmail;
     }
     
+    public String getPartecipanteEmailNorm() {
+        return partecipanteEmailNorm;
+    }
+    
     public LocalDateTime getDataOraIscrizione() {
         return dataOraIscrizione;
     }
@@ -0,0 +1,117 @@
+package com.esame.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Waitlist Entry Entity Model
+ * Modello Entità Voce Lista d'Attesa
+ * 
+ * A participant waiting for a seat of a full course, promoted in arrival order
+ * Un partecipante in attesa di un posto di un corso completo, promosso in ordine di arrivo
+ */
+@Entity
+@Table(name = "lista_attesa", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_lista_attesa_corso_email", columnNames = {"corso_id", "partecipante_email_norm"})
+}, indexes = {
+    @Index(name = "idx_lista_attesa_corso", columnList = "corso_id, attesa_id")
+})
+public class ListaAttesa {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "attesa_id")
+    private Long attesaId;
+    
+    @Column(name = "corso_id", nullable = false)
+    private Long corsoId;
+    
+    @Column(name = "partecipante_nome", length = 30, nullable = false)
+    private String partecipanteNome;
+    
+    @Column(name = "partecipante_cognome", length = 30, nullable = false)
+    private String partecipanteCognome;
+    
+    @Column(name = "partecipante_email", length = 50, nullable = false)
+    private String partecipanteEmail;
+    
+    // Same normalization as iscrizioni / Stessa normalizzazione di iscrizioni
+    @Column(name = "partecipante_email_norm", length = 50, nullable = false)
+    private String partecipanteEmailNorm;
+    
+    @Column(name = "data_ora_richiesta", nullable = false, updatable = false)
+    private LocalDateTime dataOraRichiesta;
+    
+    // Default constructor / Costruttore di default
+    public ListaAttesa() {
+        this.dataOraRichiesta = LocalDateTime.now();
+    }
+    
+    // Constructor with parameters / Costruttore con parametri
+    public ListaAttesa(Long corsoId, String partecipanteNome, String partecipanteCognome, String partecipanteEmail) {
+        this.corsoId = corsoId;
+        this.partecipanteNome = partecipanteNome;
+        this.partecipanteCognome = partecipanteCognome;
+        this.partecipanteEmail = partecipanteEmail;
+        this.dataOraRichiesta = LocalDateTime.now();
+    }
+    
+    @PrePersist
+    @PreUpdate
+    void updateEmailNorm() {
+        this.partecipanteEmailNorm = Iscrizione.normalizeEmail(partecipanteEmail);
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public Long getAttesaId() {
+        return attesaId;
+    }
+    
+    public void setAttesaId(Long attesaId) {
+        this.attesaId = attesaId;
+    }
+    
+    public Long getCorsoId() {
+        return corsoId;
+    }
+    
+    public void setCorsoId(Long corsoId) {
+        this.corsoId = corsoId;
+    }
+    
+    public String getPartecipanteNome() {
+        return partecipanteNome;
+    }
+    
+    public void setPartecipanteNome(String partecipanteNome) {
+        this.partecipanteNome = partecipanteNome;
+    }
+    
+    public String getPartecipanteCognome() {
+        return partecipanteCognome;
+    }
+    
+    public void setPartecipanteCognome(String partecipanteCognome) {
+        this.partecipanteCognome = partecipanteCognome;
+    }
+    
+    public String getPartecipanteEmail() {
+        return partecipanteEmail;
+    }
+    
+    public void setPartecipanteEmail(String partecipanteEmail) {
+        this.partecipanteEmail = partecipanteEmail;
+    }
+    
+    public String getPartecipanteEmailNorm() {
+        return partecipanteEmailNorm;
+    }
+    
+    public LocalDateTime getDataOraRichiesta() {
+        return dataOraRichiesta;
+    }
+    
+    public void setDataOraRichiesta(LocalDateTime dataOraRichiesta) {
+        this.dataOraRichiesta = dataOraRichiesta;
+    }
+}
@@ -0,0 +1,104 @@
+package com.esame.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Idempotent Response Entity Model
+ * Modello Entità Risposta Idempotente
+ * 
+ * The response stored for an Idempotency-Key, replayed when the client retries
+ * La risposta salvata per una Idempotency-Key, restituita quando il client riprova
+ */
+@Entity
+@Table(name = "risposte_idempotenti", indexes = {
+    @Index(name = "idx_risposte_idempotenti_scadenza", columnList = "scadenza")
+})
+public class RispostaIdempotente {
+    
+    // Endpoint and hash of caller and client key / Endpoint e hash di chiamante e chiave del client
+    @Id
+    @Column(name = "chiave", length = 300)
+    private String chiave;
+    
+    // SHA-256 of the request body / SHA-256 del corpo della richiesta
+    @Column(name = "impronta", length = 64, nullable = false)
+    private String impronta;
+    
+    @Column(name = "stato_http", nullable = false)
+    private int statoHttp;
+    
+    // Response body as JSON / Corpo della risposta in JSON
+    @Column(name = "corpo", length = 1_000_000)
+    private String corpo;
+    
+    @Column(name = "data_ora_creazione", nullable = false)
+    private LocalDateTime dataOraCreazione;
+    
+    @Column(name = "scadenza", nullable = false)
+    private LocalDateTime scadenza;
+    
+    // Default constructor / Costruttore di default
+    public RispostaIdempotente() {
+    }
+    
+    // Constructor with parameters / Costruttore con parametri
+    public RispostaIdempotente(String chiave, String impronta, int statoHttp, String corpo,
+                               LocalDateTime dataOraCreazione, LocalDateTime scadenza) {
+        this.chiave = chiave;
+        this.impronta = impronta;
+        this.statoHttp = statoHttp;
+        this.corpo = corpo;
+        this.dataOraCreazione = dataOraCreazione;
+        this.scadenza = scadenza;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public String getChiave() {
+        return chiave;
+    }
+    
+    public void setChiave(String chiave) {
+        this.chiave = chiave;
+    }
+    
+    public String getImpronta() {
+        return impronta;
+    }
+    
+    public void setImpronta(String impronta) {
+        this.impronta = impronta;
+    }
+    
+    public int getStatoHttp() {
+        return statoHttp;
+    }
+    
+    public void setStatoHttp(int statoHttp) {
+        this.statoHttp = statoHttp;
+    }
+    
+    public String getCorpo() {
+        return corpo;
+    }
+    
+    public void setCorpo(String corpo) {
+        this.corpo = corpo;
+    }
+    
+    public LocalDateTime getDataOraCreazione() {
+        return dataOraCreazione;
+    }
+    
+    public void setDataOraCreazione(LocalDateTime dataOraCreazione) {
+        this.dataOraCreazione = dataOraCreazione;
+    }
+    
+    public LocalDateTime getScadenza() {
+        return scadenza;
+    }
+    
+    public void setScadenza(LocalDateTime scadenza) {
+        this.scadenza = scadenza;
+    }
+}
@@ -0,0 +1,82 @@
+package com.esame.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Revoked Token Entity Model
+ * Modello Entità Token Revocato
+ * 
+ * A JWT ID that must no longer be accepted, kept until the token itself expires. Other
+ * nodes poll the table by data_ora_revoca.
+ * Un ID JWT che non deve più essere accettato, conservato fino alla scadenza del token
+ * stesso. Gli altri nodi leggono la tabella per data_ora_revoca.
+ */
+@Entity
+@Table(name = "token_revocati", indexes = {
+    @Index(name = "idx_token_revocati_jti", columnList = "jti", unique = true),
+    @Index(name = "idx_token_revocati_scadenza", columnList = "scadenza"),
+    @Index(name = "idx_token_revocati_data_ora_revoca", columnList = "data_ora_revoca")
+})
+public class TokenRevocato {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "revoca_id")
+    private Long revocaId;
+    
+    // JWT ID claim / Claim ID del JWT
+    @Column(name = "jti", length = 36, nullable = false, updatable = false)
+    private String jti;
+    
+    // Expiry of the revoked token / Scadenza del token revocato
+    @Column(name = "scadenza", nullable = false, updatable = false)
+    private LocalDateTime scadenza;
+    
+    @Column(name = "data_ora_revoca", nullable = false, updatable = false)
+    private LocalDateTime dataOraRevoca;
+    
+    // Default constructor / Costruttore di default
+    public TokenRevocato() {
+    }
+    
+    // Constructor with parameters / Costruttore con parametri
+    public TokenRevocato(String jti, LocalDateTime scadenza, LocalDateTime dataOraRevoca) {
+        this.jti = jti;
+        this.scadenza = scadenza;
+        this.dataOraRevoca = dataOraRevoca;
+    }
+    
+    // Getters and Setters / Getter e Setter
+    public Long getRevocaId() {
+        return revocaId;
+    }
+    
+    public void setRevocaId(Long revocaId) {
+        this.revocaId = revocaId;
+    }
+    
+    public String getJti() {
+        return jti;
+    }
+    
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+    
+    public LocalDateTime getScadenza() {
+        return scadenza;
+    }
+    
+    public void setScadenza(LocalDateTime scadenza) {
+        this.scadenza = scadenza;
+    }
+    
+    public LocalDateTime getDataOraRevoca() {
+        return dataOraRevoca;
+    }
+    
+    public void setDataOraRevoca(LocalDateTime dataOraRevoca) {
+        this.dataOraRevoca = dataOraRevoca;
+    }
+}
@@ -1,5 +1,8 @@
 package com.esame.model;
 
+import com.esame.repository.index.TrigramIndexListener;
+import com.esame.security.AccountVersionListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -14,6 +17,7 @@ import java.time.LocalDateTime;
  * Rappresenta un utente nel sistema con informazioni di autenticazione e abbonamento
  */
 @Entity
+@EntityListeners({TrigramIndexListener.class, AccountVersionListener.class})
 @Table(name = "users")
 public class User {
     
@@ -76,6 +80,17 @@ public class User {
     @Column(name = "subscription_expires_at")
     private LocalDateTime subscriptionExpiresAt;
     
+    // Raised when a change must invalidate issued tokens; the database default lets the column be added to a populated table
+    // Incrementata quando una modifica deve invalidare i token emessi; il default nel database permette di aggiungere la colonna a una tabella popolata
+    @Column(name = "token_version", nullable = false, columnDefinition = "integer default 0 not null")
+    @JsonIgnore
+    private Integer tokenVersion = 0;
+    
+    // Active flag, role and password as loaded / Stato attivo, ruolo e password come caricati
+    @Transient
+    @JsonIgnore
+    private String loadedAccountState;
+    
     // Constructors / Costruttori
     public User() {}
     
@@ -215,6 +230,10 @@ public class User {
         this.subscriptionExpiresAt = subscriptionExpiresAt;
     }
     
+    public Integer getTokenVersion() {
+        return tokenVersion;
+    }
+    
     // Helper methods / Metodi helper
     public String getFullName() {
         return nome + " " + cognome;
@@ -243,9 +262,23 @@ public class User {
         return hasRole(UserRole.STUDENT);
     }
     
+    @PostLoad
+    public void postLoad() {
+        this.loadedAccountState = accountState();
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
+        // Deactivation, role or password change revokes issued tokens / Disattivazione, cambio ruolo o password revoca i token emessi
+        if (loadedAccountState != null && !loadedAccountState.equals(accountState())) {
+            this.tokenVersion = (tokenVersion != null ? tokenVersion : 0) + 1;
+            this.loadedAccountState = accountState();
+        }
+    }
+    
+    private String accountState() {
+        return isActive + "|" + role + "|" + password;
     }
     
     // Enums / Enumerazioni
@@ -0,0 +1,54 @@
+package com.esame.repository;
+
+import com.esame.model.BloccoPosto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Seat Hold Repository Interface
+ * Interfaccia Repository Blocco Posto
+ * 
+ * Data access layer for seat holds
+ * Livello di accesso ai dati per i blocchi posto
+ */
+@Repository
+public interface BloccoPostoRepository extends JpaRepository<BloccoPosto, Long> {
+    
+    /**
+     * Find a hold by its client code
+     * Trova un blocco tramite il suo codice client
+     * 
+     * @param codice Hold code / Codice del blocco
+     * @return Hold if any / Blocco se presente
+     */
+    Optional<BloccoPosto> findByCodice(String codice);
+    
+    /**
+     * Remove a hold, reporting whether this call removed it
+     * Rimuove un blocco, indicando se è stato rimosso da questa chiamata
+     * 
+     * @param bloccoId Hold ID / ID del blocco
+     * @return 1 if removed, 0 if already gone / 1 se rimosso, 0 se già assente
+     */
+    @Modifying
+    @Query("DELETE FROM BloccoPosto b WHERE b.bloccoId = :bloccoId")
+    int claim(@Param("bloccoId") Long bloccoId);
+    
+    /**
+     * Remove a hold only if it has expired
+     * Rimuove un blocco solo se è scaduto
+     * 
+     * @param bloccoId Hold ID / ID del blocco
+     * @param now Current time / Ora corrente
+     * @return 1 if removed, 0 otherwise / 1 se rimosso, 0 altrimenti
+     */
+    @Modifying
+    @Query("DELETE FROM BloccoPosto b WHERE b.bloccoId = :bloccoId AND b.scadenza <= :now")
+    int claimExpired(@Param("bloccoId") Long bloccoId, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,29 @@
+package com.esame.repository;
+
+import com.esame.model.Corso;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Course Card Repository Fragment
+ * Frammento Repository Schede Corso
+ * 
+ * Filtered listings that select only the CourseCard columns
+ * Elenchi filtrati che selezionano solo le colonne di CourseCard
+ */
+public interface CorsoCardRepository {
+    
+    /**
+     * Find course cards matching a specification
+     * Trova schede corso che corrispondono a una specifica
+     * 
+     * @param spec Filter specification, may be null / Specifica di filtro, può essere null
+     * @param sort Sort order / Ordinamento
+     * @param offset Rows to skip / Righe da saltare
+     * @param limit Maximum rows, 0 for no limit / Righe massime, 0 per nessun limite
+     * @return Course cards / Schede corso
+     */
+    List<CourseCard> findCards(Specification<Corso> spec, Sort sort, long offset, int limit);
+}
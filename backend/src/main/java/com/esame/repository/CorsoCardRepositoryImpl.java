@@ -0,0 +1,61 @@
+package com.esame.repository;
+
+import com.esame.model.Corso;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+/**
+ * Course Card Repository Implementation
+ * Implementazione Repository Schede Corso
+ * 
+ * Criteria query with a constructor projection, so the same Specifications used for
+ * entity listings run without loading TEXT columns or managed entities
+ * Query Criteria con proiezione a costruttore, così le stesse Specification usate per
+ * gli elenchi di entità vengono eseguite senza caricare colonne TEXT o entità gestite
+ */
+public class CorsoCardRepositoryImpl implements CorsoCardRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<CourseCard> findCards(Specification<Corso> spec, Sort sort, long offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<CourseCard> query = cb.createQuery(CourseCard.class);
+        Root<Corso> root = query.from(Corso.class);
+        
+        Selection<?>[] columns = new Selection<?>[CourseCard.ATTRIBUTES.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = root.get(CourseCard.ATTRIBUTES[i]);
+        }
+        query.select(cb.construct(CourseCard.class, columns));
+        
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort != null && sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        
+        TypedQuery<CourseCard> typed = entityManager.createQuery(query);
+        typed.setFirstResult((int) offset);
+        if (limit > 0) {
+            typed.setMaxResults(limit);
+        }
+        return typed.getResultList();
+    }
+}
@@ -2,12 +2,20 @@ package com.esame.repository;
 
 import com.esame.model.Corso;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 /**
  * Course Repository Interface
@@ -17,7 +25,7 @@ import java.util.List;
  * Livello di accesso ai dati per l'entità Corso
  */
 @Repository
-public interface CorsoRepository extends JpaRepository<Corso, Long> {
+public interface CorsoRepository extends JpaRepository<Corso, Long>, JpaSpecificationExecutor<Corso>, CorsoCardRepository {
     
     /**
      * Find courses by title containing specified text
@@ -177,4 +185,80 @@ public interface CorsoRepository extends JpaRepository<Corso, Long> {
      */
     @Query("SELECT COUNT(c) > 0 FROM Corso c WHERE c.titolo = :titolo AND c.dataOraInizio = :dataOraInizio AND c.corsoId != :corsoId")
     boolean existsByTitoloAndDataOraInizioAndCorsoIdNot(@Param("titolo") String titolo, @Param("dataOraInizio") LocalDateTime dataOraInizio, @Param("corsoId") Long corsoId);
+    
+    /**
+     * Find course cards by ID without reading TEXT columns
+     * Trova schede corso per ID senza leggere colonne TEXT
+     * 
+     * @param ids Course IDs / ID dei corsi
+     * @return Course cards ordered by ID / Schede corso ordinate per ID
+     */
+    @Query("SELECT new com.esame.repository.CourseCard(c.corsoId, c.titolo, c.dataOraInizio, c.luogo, c.disponibilita, c.docenti, " +
+           "c.dataTest, c.dataCompletamento, c.durataOre, c.livello, c.categoria, c.prezzo, c.certificazione) " +
+           "FROM Corso c WHERE c.corsoId IN :ids ORDER BY c.corsoId")
+    List<CourseCard> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Stream all course cards for exports, fetched from a cursor in bounded batches
+     * Legge in streaming tutte le schede corso per gli export, da un cursore a blocchi limitati
+     * 
+     * @return Course cards ordered by ID / Schede corso ordinate per ID
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.esame.repository.CourseCard(c.corsoId, c.titolo, c.dataOraInizio, c.luogo, c.disponibilita, c.docenti, " +
+           "c.dataTest, c.dataCompletamento, c.durataOre, c.livello, c.categoria, c.prezzo, c.certificazione) " +
+           "FROM Corso c ORDER BY c.corsoId")
+    Stream<CourseCard> streamCards();
+    
+    /**
+     * Take one seat if any is left, in a single conditional UPDATE
+     * Occupa un posto se ne resta almeno uno, con un singolo UPDATE condizionale
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return 1 if a seat was reserved, 0 if the course is full or missing / 1 se il posto è stato riservato, 0 se il corso è completo o inesistente
+     */
+    @Modifying
+    @Query("UPDATE Corso c SET c.disponibilita = c.disponibilita - 1 WHERE c.corsoId = :corsoId AND c.disponibilita > 0")
+    int reserveSeat(@Param("corsoId") Long corsoId);
+    
+    /**
+     * Give one seat back in a single UPDATE
+     * Restituisce un posto con un singolo UPDATE
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Number of updated rows / Numero di righe aggiornate
+     */
+    @Modifying
+    @Query("UPDATE Corso c SET c.disponibilita = c.disponibilita + 1 WHERE c.corsoId = :corsoId")
+    int releaseSeat(@Param("corsoId") Long corsoId);
+    
+    /**
+     * Take several seats at once if enough are left
+     * Occupa più posti in una volta se ne restano abbastanza
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param seats Seats to take / Posti da occupare
+     * @return 1 if the seats were reserved, 0 otherwise / 1 se i posti sono stati riservati, 0 altrimenti
+     */
+    @Modifying
+    @Query("UPDATE Corso c SET c.disponibilita = c.disponibilita - :seats WHERE c.corsoId = :corsoId AND c.disponibilita >= :seats")
+    int reserveSeats(@Param("corsoId") Long corsoId, @Param("seats") int seats);
+    
+    /**
+     * Read the committed seats of a course, bypassing the persistence context
+     * Legge i posti confermati di un corso, scavalcando il contesto di persistenza
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Seats left, or null if the course is missing / Posti rimasti, o null se il corso non esiste
+     */
+    @Query("SELECT c.disponibilita FROM Corso c WHERE c.corsoId = :corsoId")
+    Integer findDisponibilitaById(@Param("corsoId") Long corsoId);
+    
+    /**
+     * Find courses in high-demand enrollment mode
+     * Trova corsi in modalità iscrizione ad alta domanda
+     * 
+     * @return High-demand courses / Corsi ad alta domanda
+     */
+    List<Corso> findByAltaDomandaTrue();
 }
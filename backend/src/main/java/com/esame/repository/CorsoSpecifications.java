@@ -0,0 +1,132 @@
+package com.esame.repository;
+
+import com.esame.dto.CourseCursor;
+import com.esame.dto.CourseFilter;
+import com.esame.model.Corso;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Course Specifications
+ * Specifiche Corso
+ * 
+ * Builds dynamic JPA Criteria queries for course catalog filters
+ * Costruisce query JPA Criteria dinamiche per i filtri del catalogo corsi
+ */
+public final class CorsoSpecifications {
+    
+    private static final char LIKE_ESCAPE = '\\';
+    
+    private CorsoSpecifications() {}
+    
+    /**
+     * Build a single specification combining all filters with AND
+     * Costruisce una singola specifica che combina tutti i filtri in AND
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Specification for the filtered catalog / Specifica per il catalogo filtrato
+     */
+    public static Specification<Corso> withFilter(CourseFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            
+            if (filter.getTitolo() != null) {
+                predicates.add(cb.like(cb.lower(root.get("titolo")), containsPattern(filter.getTitolo()), LIKE_ESCAPE));
+            }
+            if (filter.getLuogo() != null) {
+                predicates.add(cb.like(cb.lower(root.get("luogo")), containsPattern(filter.getLuogo()), LIKE_ESCAPE));
+            }
+            if (filter.getDocente() != null) {
+                predicates.add(cb.like(cb.lower(root.get("docenti")), containsPattern(filter.getDocente()), LIKE_ESCAPE));
+            }
+            if (filter.getCategoria() != null) {
+                predicates.add(cb.like(cb.lower(root.get("categoria")), containsPattern(filter.getCategoria()), LIKE_ESCAPE));
+            }
+            if (filter.getLivello() != null) {
+                predicates.add(cb.like(cb.lower(root.get("livello")), containsPattern(filter.getLivello()), LIKE_ESCAPE));
+            }
+            if (filter.getDataInizio() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("dataOraInizio"), filter.getDataInizio().atStartOfDay()));
+            }
+            if (filter.getDataFine() != null) {
+                // Whole end day is included / Il giorno finale è incluso
+                predicates.add(cb.lessThan(root.get("dataOraInizio"), filter.getDataFine().plusDays(1).atStartOfDay()));
+            }
+            if (filter.getDurataMin() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("durataOre"), filter.getDurataMin()));
+            }
+            if (filter.getDurataMax() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("durataOre"), filter.getDurataMax()));
+            }
+            if (filter.getPrezzoMin() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("prezzo"), filter.getPrezzoMin()));
+            }
+            if (filter.getPrezzoMax() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("prezzo"), filter.getPrezzoMax()));
+            }
+            if (filter.isDisponibili()) {
+                predicates.add(cb.greaterThan(root.get("disponibilita"), 0));
+            }
+            if (filter.getCertificazione() != null) {
+                // Missing flag counts as not certified / Flag mancante vale come non certificato
+                predicates.add(filter.getCertificazione()
+                    ? cb.isTrue(root.get("certificazione"))
+                    : cb.or(cb.isFalse(root.get("certificazione")), cb.isNull(root.get("certificazione"))));
+            }
+            
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    /**
+     * Keyset predicate selecting rows strictly after the cursor position on (sortField, corsoId)
+     * Predicato keyset che seleziona le righe strettamente dopo la posizione del cursore su (campoOrdinamento, corsoId)
+     * 
+     * @param cursor Decoded cursor / Cursore decodificato
+     * @return Specification for the next page / Specifica per la pagina successiva
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Corso> after(CourseCursor cursor) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("corsoId");
+            boolean desc = cursor.isDescending();
+            Predicate idBeyond = desc ? cb.lessThan(id, cursor.getCorsoId()) : cb.greaterThan(id, cursor.getCorsoId());
+            
+            if ("corsoId".equals(cursor.getSortField())) {
+                return idBeyond;
+            }
+            
+            Expression<Comparable> key = root.get(cursor.getSortField());
+            Comparable value = cursor.getSortValue();
+            Predicate keyBeyond = desc ? cb.lessThan(key, value) : cb.greaterThan(key, value);
+            
+            // (key > v) OR (key = v AND id > lastId) / (chiave > v) OR (chiave = v AND id > ultimoId)
+            return cb.or(keyBeyond, cb.and(cb.equal(key, value), idBeyond));
+        };
+    }
+    
+    /**
+     * Build a case-insensitive LIKE pattern, escaping wildcards in user input
+     * Costruisce un pattern LIKE case-insensitive, facendo escape dei caratteri jolly
+     * 
+     * @param value Raw filter value / Valore filtro grezzo
+     * @return LIKE pattern / Pattern LIKE
+     */
+    static String containsPattern(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 2);
+        escaped.append('%');
+        for (char c : value.toLowerCase().toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        escaped.append('%');
+        return escaped.toString();
+    }
+}
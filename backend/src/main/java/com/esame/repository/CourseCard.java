@@ -0,0 +1,47 @@
+package com.esame.repository;
+
+import com.esame.model.Corso;
+
+import java.time.LocalDateTime;
+
+/**
+ * Course Card Projection
+ * Proiezione Scheda Corso
+ * 
+ * Columns shown by catalog listings; the programma and informazioniGenerali TEXT columns are never read
+ * Colonne mostrate dagli elenchi del catalogo; le colonne TEXT programma e informazioniGenerali non vengono lette
+ */
+public record CourseCard(
+        Long corsoId,
+        String titolo,
+        LocalDateTime dataOraInizio,
+        String luogo,
+        Integer disponibilita,
+        String docenti,
+        LocalDateTime dataTest,
+        LocalDateTime dataCompletamento,
+        Integer durataOre,
+        String livello,
+        String categoria,
+        Double prezzo,
+        Boolean certificazione) {
+    
+    // Entity attributes selected, in constructor order / Attributi dell'entità selezionati, nell'ordine del costruttore
+    public static final String[] ATTRIBUTES = {
+        "corsoId", "titolo", "dataOraInizio", "luogo", "disponibilita", "docenti", "dataTest",
+        "dataCompletamento", "durataOre", "livello", "categoria", "prezzo", "certificazione"
+    };
+    
+    /**
+     * Card view of an already loaded entity
+     * Vista scheda di un'entità già caricata
+     * 
+     * @param corso Course entity / Entità corso
+     * @return Course card / Scheda corso
+     */
+    public static CourseCard of(Corso corso) {
+        return new CourseCard(corso.getCorsoId(), corso.getTitolo(), corso.getDataOraInizio(), corso.getLuogo(),
+            corso.getDisponibilita(), corso.getDocenti(), corso.getDataTest(), corso.getDataCompletamento(),
+            corso.getDurataOre(), corso.getLivello(), corso.getCategoria(), corso.getPrezzo(), corso.getCertificazione());
+    }
+}
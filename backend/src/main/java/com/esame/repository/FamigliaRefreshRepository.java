@@ -0,0 +1,62 @@
+package com.esame.repository;
+
+import com.esame.model.FamigliaRefresh;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh Token Family Repository Interface
+ * Interfaccia Repository Famiglia Token di Refresh
+ * 
+ * Data access layer for refresh token families
+ * Livello di accesso ai dati per le famiglie di token di refresh
+ */
+@Repository
+public interface FamigliaRefreshRepository extends JpaRepository<FamigliaRefresh, String> {
+    
+    /**
+     * Replace the current token of a family, only if the presented one is still current
+     * Sostituisce il token attuale di una famiglia, solo se quello presentato è ancora attuale
+     * 
+     * @param tokenHash Hash of the presented token / Hash del token presentato
+     * @param nuovoHash Hash of the new token / Hash del nuovo token
+     * @param generazione New generation / Nuova generazione
+     * @param scadenza New expiry / Nuova scadenza
+     * @param now Current time / Ora corrente
+     * @param creataDopo Oldest creation time still allowed to rotate / Ora di creazione più vecchia ancora ammessa alla rotazione
+     * @return 1 if rotated, 0 if the token is stale, revoked or expired / 1 se ruotato, 0 se il token è superato, revocato o scaduto
+     */
+    @Modifying
+    @Query("UPDATE FamigliaRefresh f SET f.tokenHash = :nuovoHash, f.generazione = :generazione, f.scadenza = :scadenza "
+        + "WHERE f.tokenHash = :tokenHash AND f.revocata = false AND f.scadenza > :now AND f.dataOraCreazione > :creataDopo")
+    int rotate(@Param("tokenHash") String tokenHash, @Param("nuovoHash") String nuovoHash,
+               @Param("generazione") int generazione, @Param("scadenza") LocalDateTime scadenza,
+               @Param("now") LocalDateTime now, @Param("creataDopo") LocalDateTime creataDopo);
+    
+    /**
+     * Revoke a family
+     * Revoca una famiglia
+     * 
+     * @param famigliaId Family ID / ID della famiglia
+     * @return 1 if revoked by this call / 1 se revocata da questa chiamata
+     */
+    @Modifying
+    @Query("UPDATE FamigliaRefresh f SET f.revocata = true WHERE f.famigliaId = :famigliaId AND f.revocata = false")
+    int revoke(@Param("famigliaId") String famigliaId);
+    
+    /**
+     * Remove the families whose current token has expired
+     * Rimuove le famiglie il cui token attuale è scaduto
+     * 
+     * @param now Current time / Ora corrente
+     * @return Rows removed / Righe rimosse
+     */
+    @Modifying
+    @Query("DELETE FROM FamigliaRefresh f WHERE f.scadenza <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,28 @@
+package com.esame.repository;
+
+import com.esame.model.Iscrizione;
+
+/**
+ * Enrollment Insert Repository Fragment
+ * Frammento Repository Inserimento Iscrizioni
+ * 
+ * Inserts that let the unique index detect duplicate enrollments
+ * Inserimenti che lasciano all'indice univoco il rilevamento delle iscrizioni duplicate
+ */
+public interface IscrizioneInsertRepository {
+    
+    /**
+     * Insert an enrollment unless the participant is already enrolled in the course
+     * Inserisce un'iscrizione a meno che il partecipante non sia già iscritto al corso
+     * 
+     * One statement, no prior existence query: ON CONFLICT DO NOTHING on PostgreSQL, MERGE
+     * elsewhere. On success the enrollment gets its ID; it is not attached to the session.
+     * Un solo statement, senza query di esistenza preventiva: ON CONFLICT DO NOTHING su
+     * PostgreSQL, MERGE altrove. In caso di successo l'iscrizione riceve il suo ID; non viene
+     * collegata alla sessione.
+     * 
+     * @param iscrizione Enrollment with its course set / Iscrizione con il corso impostato
+     * @return True if inserted, false if already enrolled / True se inserita, false se già iscritto
+     */
+    boolean insertIfAbsent(Iscrizione iscrizione);
+}
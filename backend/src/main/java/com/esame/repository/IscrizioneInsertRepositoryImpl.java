@@ -0,0 +1,107 @@
+package com.esame.repository;
+
+import com.esame.model.Iscrizione;
+import com.esame.repository.index.SuggestWeightListener;
+import com.esame.repository.index.TrigramIndexListener;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Enrollment Insert Repository Implementation
+ * Implementazione Repository Inserimento Iscrizioni
+ * 
+ * Native conditional insert keyed on (corso_id, partecipante_email_norm), the columns of
+ * uk_iscrizioni_corso_email; a duplicate shows up as zero affected rows. The ID comes from the
+ * entity's own sequence generator and the index listeners are notified by hand, since a
+ * native statement bypasses the JPA lifecycle.
+ * Insert condizionale nativo sulle colonne (corso_id, partecipante_email_norm) di
+ * uk_iscrizioni_corso_email; un duplicato si presenta come zero righe modificate. L'ID arriva
+ * dal generatore a sequenza dell'entità e i listener degli indici vengono notificati a mano,
+ * poiché uno statement nativo scavalca il ciclo di vita JPA.
+ */
+public class IscrizioneInsertRepositoryImpl implements IscrizioneInsertRepository {
+    
+    // SQLState of a unique key violation / SQLState di una violazione di chiave unica
+    private static final String UNIQUE_VIOLATION = "23505";
+    
+    private static final String COLUMNS =
+        "(iscrizione_id, corso_id, partecipante_nome, partecipante_cognome, partecipante_email, partecipante_email_norm, data_ora_iscrizione)";
+    private static final String VALUES = "(?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_ON_CONFLICT =
+        "INSERT INTO iscrizioni " + COLUMNS + " VALUES " + VALUES
+        + " ON CONFLICT (corso_id, partecipante_email_norm) DO NOTHING";
+    
+    private static final String MERGE =
+        "MERGE INTO iscrizioni t "
+        + "USING (SELECT CAST(? AS BIGINT) AS corso_id, CAST(? AS VARCHAR(50)) AS email_norm) s "
+        + "ON t.corso_id = s.corso_id AND t.partecipante_email_norm = s.email_norm "
+        + "WHEN NOT MATCHED THEN INSERT " + COLUMNS + " VALUES " + VALUES;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private TrigramIndexListener trigramIndexListener;
+    
+    @Autowired
+    private SuggestWeightListener suggestWeightListener;
+    
+    @Override
+    public boolean insertIfAbsent(Iscrizione iscrizione) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        Long corsoId = iscrizione.getCorso() != null ? iscrizione.getCorso().getCorsoId() : iscrizione.getCorsoId();
+        String emailNorm = Iscrizione.normalizeEmail(iscrizione.getPartecipanteEmail());
+        
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+            .getEntityDescriptor(Iscrizione.class).getGenerator();
+        Long id = (Long) generator.generate(session, iscrizione, null, EventType.INSERT);
+        
+        boolean postgres = session.getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        
+        // Plain JDBC, so a lost MERGE race does not mark the transaction rollback-only
+        // JDBC semplice, così una corsa persa dal MERGE non marca la transazione come rollback-only
+        entityManager.flush();
+        boolean inserted = session.doReturningWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(postgres ? INSERT_ON_CONFLICT : MERGE)) {
+                int index = 1;
+                if (!postgres) {
+                    insert.setLong(index++, corsoId);
+                    insert.setString(index++, emailNorm);
+                }
+                insert.setLong(index++, id);
+                insert.setLong(index++, corsoId);
+                insert.setString(index++, iscrizione.getPartecipanteNome());
+                insert.setString(index++, iscrizione.getPartecipanteCognome());
+                insert.setString(index++, iscrizione.getPartecipanteEmail());
+                insert.setString(index++, emailNorm);
+                insert.setTimestamp(index, Timestamp.valueOf(iscrizione.getDataOraIscrizione()));
+                return insert.executeUpdate() > 0;
+            } catch (SQLException e) {
+                // MERGE has no conflict clause: a concurrent insert of the same key surfaces as a violation
+                // MERGE non ha clausola di conflitto: un insert concorrente della stessa chiave emerge come violazione
+                if (!postgres && UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    return false;
+                }
+                throw e;
+            }
+        });
+        if (!inserted) {
+            return false;
+        }
+        
+        iscrizione.setIscrizioneId(id);
+        trigramIndexListener.onSaved(iscrizione);
+        suggestWeightListener.onChanged(iscrizione);
+        return true;
+    }
+}
@@ -2,12 +2,20 @@ package com.esame.repository;
 
 import com.esame.model.Iscrizione;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Enrollment Repository Interface
@@ -17,7 +25,7 @@ import java.util.List;
  * Livello di accesso ai dati per l'entità Iscrizione
  */
 @Repository
-public interface IscrizioneRepository extends JpaRepository<Iscrizione, Long> {
+public interface IscrizioneRepository extends JpaRepository<Iscrizione, Long>, IscrizioneInsertRepository {
     
     /**
      * Find enrollments by course ID
@@ -68,6 +76,54 @@ public interface IscrizioneRepository extends JpaRepository<Iscrizione, Long> {
     @Query("SELECT COUNT(i) FROM Iscrizione i WHERE i.corsoId = :corsoId")
     Long countByCorsoId(@Param("corsoId") Long corsoId);
     
+    /**
+     * Count enrollments of every course in one grouped query
+     * Conta le iscrizioni di ogni corso con una singola query raggruppata
+     * 
+     * @return Rows of [corsoId, count] / Righe [corsoId, conteggio]
+     */
+    @Query("SELECT i.corsoId, COUNT(i) FROM Iscrizione i GROUP BY i.corsoId")
+    List<Object[]> countGroupedByCorsoId();
+    
+    /**
+     * Count the enrollments of some courses in one grouped query
+     * Conta le iscrizioni di alcuni corsi con una singola query raggruppata
+     * 
+     * @param corsoIds Course IDs / ID dei corsi
+     * @return Rows of [corsoId, count], only for courses with enrollments / Righe [corsoId, conteggio], solo per corsi con iscrizioni
+     */
+    @Query("SELECT i.corsoId, COUNT(i) FROM Iscrizione i WHERE i.corsoId IN :corsoIds GROUP BY i.corsoId")
+    List<Object[]> countGroupedByCorsoIdIn(@Param("corsoIds") Collection<Long> corsoIds);
+    
+    /**
+     * Check if a course has any enrollment
+     * Controlla se un corso ha almeno un'iscrizione
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return True if enrolled / True se ha iscrizioni
+     */
+    boolean existsByCorsoId(Long corsoId);
+    
+    /**
+     * Stream enrollments with their course for exports, optionally for one course
+     * Legge in streaming le iscrizioni con il loro corso per gli export, opzionalmente per un corso
+     * 
+     * Rows are fetched from a cursor in bounded batches; must be consumed inside a transaction
+     * and closed. The caller detaches entities once written.
+     * Le righe sono lette da un cursore a blocchi limitati; va consumato in una transazione
+     * e chiuso. Il chiamante scollega le entità una volta scritte.
+     * 
+     * @param corsoId Course ID, null for all courses / ID corso, null per tutti i corsi
+     * @return Stream ordered by enrollment ID / Stream ordinato per ID iscrizione
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT i FROM Iscrizione i LEFT JOIN FETCH i.corso WHERE :corsoId IS NULL OR i.corsoId = :corsoId ORDER BY i.iscrizioneId")
+    Stream<Iscrizione> streamForExport(@Param("corsoId") Long corsoId);
+    
     /**
      * Check if participant is already enrolled in a course
      * Controlla se il partecipante è già iscritto a un corso
@@ -76,9 +132,20 @@ public interface IscrizioneRepository extends JpaRepository<Iscrizione, Long> {
      * @param email Participant email / Email del partecipante
      * @return True if already enrolled, false otherwise / True se già iscritto, false altrimenti
      */
-    @Query("SELECT COUNT(i) > 0 FROM Iscrizione i WHERE i.corsoId = :corsoId AND i.partecipanteEmail = :email")
+    @Query("SELECT COUNT(i) > 0 FROM Iscrizione i WHERE i.corsoId = :corsoId AND i.partecipanteEmailNorm = LOWER(TRIM(:email))")
     boolean existsByCorsoIdAndPartecipanteEmail(@Param("corsoId") Long corsoId, @Param("email") String email);
     
+    /**
+     * Find which of the given participants are already enrolled, in one set-based query
+     * Trova quali dei partecipanti indicati sono già iscritti, con una singola query su insiemi
+     * 
+     * @param corsoIds Course IDs / ID dei corsi
+     * @param emails Normalized participant emails / Email normalizzate dei partecipanti
+     * @return Rows of [corsoId, normalized email] / Righe [corsoId, email normalizzata]
+     */
+    @Query("SELECT i.corsoId, i.partecipanteEmailNorm FROM Iscrizione i WHERE i.corsoId IN :corsoIds AND i.partecipanteEmailNorm IN :emails")
+    List<Object[]> findEnrolledEmails(@Param("corsoIds") Collection<Long> corsoIds, @Param("emails") Collection<String> emails);
+    
     /**
      * Find enrollments by participant name containing
      * Trova iscrizioni per nome partecipante contenente
@@ -0,0 +1,27 @@
+package com.esame.repository;
+
+import com.esame.model.ListaAttesa;
+
+/**
+ * Waitlist Insert Repository Fragment
+ * Frammento Repository Inserimento Lista d'Attesa
+ * 
+ * Inserts that let the unique index detect duplicate waitlist entries
+ * Inserimenti che lasciano all'indice univoco il rilevamento delle voci duplicate in lista d'attesa
+ */
+public interface ListaAttesaInsertRepository {
+    
+    /**
+     * Insert a waitlist entry unless the participant is already waiting for the course
+     * Inserisce una voce in lista d'attesa a meno che il partecipante non sia già in attesa per il corso
+     * 
+     * One statement: ON CONFLICT DO NOTHING on PostgreSQL, MERGE elsewhere. The entry is not
+     * attached to the session; read it back by course and normalized email.
+     * Un solo statement: ON CONFLICT DO NOTHING su PostgreSQL, MERGE altrove. La voce non viene
+     * collegata alla sessione; va riletta per corso ed email normalizzata.
+     * 
+     * @param attesa Waitlist entry / Voce in lista d'attesa
+     * @return True if inserted, false if already waiting / True se inserita, false se già in attesa
+     */
+    boolean insertIfAbsent(ListaAttesa attesa);
+}
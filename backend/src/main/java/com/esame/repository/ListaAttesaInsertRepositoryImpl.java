@@ -0,0 +1,80 @@
+package com.esame.repository;
+
+import com.esame.model.Iscrizione;
+import com.esame.model.ListaAttesa;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Waitlist Insert Repository Implementation
+ * Implementazione Repository Inserimento Lista d'Attesa
+ * 
+ * Native conditional insert keyed on (corso_id, partecipante_email_norm), the columns of
+ * uk_lista_attesa_corso_email; a duplicate shows up as zero affected rows, so two concurrent
+ * identical requests never turn into a constraint error.
+ * Insert condizionale nativo sulle colonne (corso_id, partecipante_email_norm) di
+ * uk_lista_attesa_corso_email; un duplicato si presenta come zero righe modificate, così due
+ * richieste identiche concorrenti non diventano mai un errore di vincolo.
+ */
+public class ListaAttesaInsertRepositoryImpl implements ListaAttesaInsertRepository {
+    
+    // SQLState of a unique key violation / SQLState di una violazione di chiave unica
+    private static final String UNIQUE_VIOLATION = "23505";
+    
+    private static final String COLUMNS =
+        "(corso_id, partecipante_nome, partecipante_cognome, partecipante_email, partecipante_email_norm, data_ora_richiesta)";
+    private static final String VALUES = "(?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_ON_CONFLICT =
+        "INSERT INTO lista_attesa " + COLUMNS + " VALUES " + VALUES
+        + " ON CONFLICT (corso_id, partecipante_email_norm) DO NOTHING";
+    
+    private static final String MERGE =
+        "MERGE INTO lista_attesa t "
+        + "USING (SELECT CAST(? AS BIGINT) AS corso_id, CAST(? AS VARCHAR(50)) AS email_norm) s "
+        + "ON t.corso_id = s.corso_id AND t.partecipante_email_norm = s.email_norm "
+        + "WHEN NOT MATCHED THEN INSERT " + COLUMNS + " VALUES " + VALUES;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public boolean insertIfAbsent(ListaAttesa attesa) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        String emailNorm = Iscrizione.normalizeEmail(attesa.getPartecipanteEmail());
+        boolean postgres = session.getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        
+        // Plain JDBC, so a lost MERGE race does not mark the transaction rollback-only
+        // JDBC semplice, così una corsa persa dal MERGE non marca la transazione come rollback-only
+        entityManager.flush();
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(postgres ? INSERT_ON_CONFLICT : MERGE)) {
+                int index = 1;
+                if (!postgres) {
+                    insert.setLong(index++, attesa.getCorsoId());
+                    insert.setString(index++, emailNorm);
+                }
+                insert.setLong(index++, attesa.getCorsoId());
+                insert.setString(index++, attesa.getPartecipanteNome());
+                insert.setString(index++, attesa.getPartecipanteCognome());
+                insert.setString(index++, attesa.getPartecipanteEmail());
+                insert.setString(index++, emailNorm);
+                insert.setTimestamp(index, Timestamp.valueOf(attesa.getDataOraRichiesta()));
+                return insert.executeUpdate() > 0;
+            } catch (SQLException e) {
+                // MERGE has no conflict clause: a concurrent insert of the same key surfaces as a violation
+                // MERGE non ha clausola di conflitto: un insert concorrente della stessa chiave emerge come violazione
+                if (!postgres && UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    return false;
+                }
+                throw e;
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.esame.repository;
+
+import com.esame.model.ListaAttesa;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Waitlist Repository Interface
+ * Interfaccia Repository Lista d'Attesa
+ * 
+ * Data access layer for waitlist entries
+ * Livello di accesso ai dati per le voci della lista d'attesa
+ */
+@Repository
+public interface ListaAttesaRepository extends JpaRepository<ListaAttesa, Long>, ListaAttesaInsertRepository {
+    
+    /**
+     * Find the waitlist of a course in arrival order
+     * Trova la lista d'attesa di un corso in ordine di arrivo
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Waiting entries, first come first / Voci in attesa, prima i primi arrivati
+     */
+    List<ListaAttesa> findByCorsoIdOrderByAttesaIdAsc(Long corsoId);
+    
+    /**
+     * Find every waitlist entry in arrival order
+     * Trova ogni voce in lista d'attesa in ordine di arrivo
+     * 
+     * @return Waiting entries / Voci in attesa
+     */
+    List<ListaAttesa> findAllByOrderByAttesaIdAsc();
+    
+    /**
+     * Find the entry of a participant for a course
+     * Trova la voce di un partecipante per un corso
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param emailNorm Normalized participant email / Email del partecipante normalizzata
+     * @return Waiting entry if any / Voce in attesa se presente
+     */
+    Optional<ListaAttesa> findByCorsoIdAndPartecipanteEmailNorm(Long corsoId, String emailNorm);
+    
+    /**
+     * Remove an entry, reporting whether this call removed it
+     * Rimuove una voce, indicando se è stata rimossa da questa chiamata
+     * 
+     * @param attesaId Entry ID / ID della voce
+     * @return 1 if removed, 0 if already gone / 1 se rimossa, 0 se già assente
+     */
+    @Modifying
+    @Query("DELETE FROM ListaAttesa a WHERE a.attesaId = :attesaId")
+    int claim(@Param("attesaId") Long attesaId);
+}
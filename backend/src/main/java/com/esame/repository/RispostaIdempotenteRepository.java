@@ -0,0 +1,32 @@
+package com.esame.repository;
+
+import com.esame.model.RispostaIdempotente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Idempotent Response Repository Interface
+ * Interfaccia Repository Risposta Idempotente
+ * 
+ * Data access layer for stored idempotent responses
+ * Livello di accesso ai dati per le risposte idempotenti salvate
+ */
+@Repository
+public interface RispostaIdempotenteRepository extends JpaRepository<RispostaIdempotente, String> {
+    
+    /**
+     * Remove the responses whose key has expired
+     * Rimuove le risposte la cui chiave è scaduta
+     * 
+     * @param now Current time / Ora corrente
+     * @return Rows removed / Righe rimosse
+     */
+    @Modifying
+    @Query("DELETE FROM RispostaIdempotente r WHERE r.scadenza <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,72 @@
+package com.esame.repository;
+
+import com.esame.model.TokenRevocato;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Revoked Token Repository Interface
+ * Interfaccia Repository Token Revocato
+ * 
+ * Data access layer for revoked JWT IDs
+ * Livello di accesso ai dati per gli ID JWT revocati
+ */
+@Repository
+public interface TokenRevocatoRepository extends JpaRepository<TokenRevocato, Long> {
+    
+    /**
+     * Check if a token ID is revoked and not yet expired
+     * Controlla se un ID token è revocato e non ancora scaduto
+     * 
+     * @param jti JWT ID / ID JWT
+     * @param now Current time / Ora corrente
+     * @return True if revoked / True se revocato
+     */
+    boolean existsByJtiAndScadenzaAfter(String jti, LocalDateTime now);
+    
+    /**
+     * Check if a token ID was ever revoked
+     * Controlla se un ID token è mai stato revocato
+     * 
+     * @param jti JWT ID / ID JWT
+     * @return True if present / True se presente
+     */
+    boolean existsByJti(String jti);
+    
+    /**
+     * Token IDs revoked from a given time on
+     * ID token revocati da un dato momento in poi
+     * 
+     * @param since Earliest revocation time / Ora di revoca minima
+     * @return Rows as [jti, dataOraRevoca] / Righe come [jti, dataOraRevoca]
+     */
+    @Query("SELECT t.jti, t.dataOraRevoca FROM TokenRevocato t WHERE t.dataOraRevoca >= :since")
+    List<Object[]> findRevokedSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * Token IDs still revoked at a given time
+     * ID token ancora revocati in un dato momento
+     * 
+     * @param now Current time / Ora corrente
+     * @return JWT IDs / ID JWT
+     */
+    @Query("SELECT t.jti FROM TokenRevocato t WHERE t.scadenza > :now")
+    List<String> findActiveJtis(@Param("now") LocalDateTime now);
+    
+    /**
+     * Remove the revocations of tokens that have expired anyway
+     * Rimuove le revoche di token comunque scaduti
+     * 
+     * @param now Current time / Ora corrente
+     * @return Rows removed / Righe rimosse
+     */
+    @Modifying
+    @Query("DELETE FROM TokenRevocato t WHERE t.scadenza <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
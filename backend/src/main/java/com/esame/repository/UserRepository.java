@@ -39,6 +39,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.email = :email AND u.isActive = true")
     Optional<User> findActiveByEmail(@Param("email") String email);
     
+    /**
+     * Find the token versions raised at least once
+     * Trova le versioni token incrementate almeno una volta
+     * 
+     * @return Rows of [id, tokenVersion] / Righe [id, tokenVersion]
+     */
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersion > 0")
+    List<Object[]> findTokenVersions();
+    
     /**
      * Find users by role
      * Trova utenti per ruolo
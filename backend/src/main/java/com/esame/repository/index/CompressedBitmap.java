@@ -0,0 +1,527 @@
+package com.esame.repository.index;
+
+import java.util.Arrays;
+
+/**
+ * Compressed Bitmap
+ * Bitmap Compressa
+ * 
+ * Roaring-style bitmap of non-negative int ordinals. Values are split on their high 16 bits
+ * into containers: sparse chunks are kept as sorted char arrays, dense chunks (more than
+ * 4096 values) as 65536-bit bitsets. and/or always return new bitmaps and never modify
+ * their operands.
+ * Bitmap in stile Roaring di ordinali int non negativi. I valori sono divisi sui 16 bit alti
+ * in contenitori: i blocchi sparsi sono array ordinati di char, quelli densi (più di 4096
+ * valori) bitset da 65536 bit. and/or restituiscono sempre nuove bitmap e non modificano
+ * gli operandi.
+ */
+public final class CompressedBitmap {
+    
+    private static final int ARRAY_MAX = 4096;
+    
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+    
+    /**
+     * Add a value
+     * Aggiunge un valore
+     * 
+     * @param value Non-negative ordinal / Ordinale non negativo
+     */
+    public void add(int value) {
+        char high = (char) (value >>> 16);
+        int i = indexOf(high);
+        if (i >= 0) {
+            containers[i] = containers[i].add((char) value);
+        } else {
+            insertContainer(-i - 1, high, new ArrayContainer().add((char) value));
+        }
+    }
+    
+    /**
+     * Remove a value
+     * Rimuove un valore
+     * 
+     * @param value Non-negative ordinal / Ordinale non negativo
+     */
+    public void remove(int value) {
+        int i = indexOf((char) (value >>> 16));
+        if (i < 0) {
+            return;
+        }
+        containers[i] = containers[i].remove((char) value);
+        if (containers[i].cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        }
+    }
+    
+    /**
+     * Check if a value is present
+     * Controlla se un valore è presente
+     * 
+     * @param value Non-negative ordinal / Ordinale non negativo
+     * @return True if present / True se presente
+     */
+    public boolean contains(int value) {
+        int i = indexOf((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+    
+    /**
+     * Number of values in the bitmap
+     * Numero di valori nella bitmap
+     * 
+     * @return Cardinality / Cardinalità
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Intersection of two bitmaps
+     * Intersezione di due bitmap
+     * 
+     * @param other Other bitmap / Altra bitmap
+     * @return New bitmap with values in both / Nuova bitmap con i valori presenti in entrambe
+     */
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0) {
+                    result.appendContainer(keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Union of two bitmaps
+     * Unione di due bitmap
+     * 
+     * @param other Other bitmap / Altra bitmap
+     * @return New bitmap with values in either / Nuova bitmap con i valori presenti in almeno una
+     */
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j])) {
+                result.appendContainer(keys[i], containers[i].copy());
+                i++;
+            } else if (i >= size || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Values of this bitmap without those of another
+     * Valori di questa bitmap senza quelli di un'altra
+     * 
+     * @param other Bitmap to subtract / Bitmap da sottrarre
+     * @return New bitmap / Nuova bitmap
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container c = (j < other.size && other.keys[j] == keys[i]) ?
+                containers[i].andNot(other.containers[j]) : containers[i].copy();
+            if (c.cardinality() > 0) {
+                result.appendContainer(keys[i], c);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Sorted array of all values
+     * Array ordinato di tutti i valori
+     * 
+     * @return Values in ascending order / Valori in ordine crescente
+     */
+    public int[] toArray() {
+        int[] out = new int[cardinality()];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].fill(keys[i] << 16, out, offset);
+        }
+        return out;
+    }
+    
+    /**
+     * Build a bitmap from a set of values
+     * Costruisce una bitmap da un insieme di valori
+     * 
+     * @param values Values / Valori
+     * @return Bitmap / Bitmap
+     */
+    public static CompressedBitmap of(int... values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+    
+    private int indexOf(char high) {
+        return Arrays.binarySearch(keys, 0, size, high);
+    }
+    
+    private void insertContainer(int pos, char high, Container container) {
+        ensureCapacity();
+        System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        System.arraycopy(containers, pos, containers, pos + 1, size - pos);
+        keys[pos] = high;
+        containers[pos] = container;
+        size++;
+    }
+    
+    private void appendContainer(char high, Container container) {
+        ensureCapacity();
+        keys[size] = high;
+        containers[size] = container;
+        size++;
+    }
+    
+    private void ensureCapacity() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+    }
+    
+    /**
+     * Container for the low 16 bits of one chunk
+     * Contenitore per i 16 bit bassi di un blocco
+     */
+    private abstract static class Container {
+        abstract Container add(char value);
+        abstract Container remove(char value);
+        abstract boolean contains(char value);
+        abstract int cardinality();
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract Container andNot(Container other);
+        abstract Container copy();
+        abstract int fill(int base, int[] out, int offset);
+    }
+    
+    /**
+     * Sparse container: sorted array of values
+     * Contenitore sparso: array ordinato di valori
+     */
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+        
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+        
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        Container add(char value) {
+            int pos = Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) {
+                return this;
+            }
+            if (cardinality >= ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            pos = -pos - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, values.length * 2)));
+            }
+            System.arraycopy(values, pos, values, pos + 1, cardinality - pos);
+            values[pos] = value;
+            cardinality++;
+            return this;
+        }
+        
+        @Override
+        Container remove(char value) {
+            int pos = Arrays.binarySearch(values, 0, cardinality, value);
+            if (pos >= 0) {
+                System.arraycopy(values, pos + 1, values, pos, cardinality - pos - 1);
+                cardinality--;
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        Container and(Container other) {
+            char[] out = new char[cardinality];
+            int n = 0;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < o.cardinality) {
+                    if (values[i] < o.values[j]) {
+                        i++;
+                    } else if (values[i] > o.values[j]) {
+                        j++;
+                    } else {
+                        out[n++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        out[n++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+        
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer o = (ArrayContainer) other;
+            char[] out = new char[cardinality + o.cardinality];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < o.cardinality) {
+                if (j >= o.cardinality || (i < cardinality && values[i] < o.values[j])) {
+                    out[n++] = values[i++];
+                } else if (i >= cardinality || values[i] > o.values[j]) {
+                    out[n++] = o.values[j++];
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer merged = new ArrayContainer(out, n);
+            return n > ARRAY_MAX ? merged.toBitmap() : merged;
+        }
+        
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[cardinality];
+            int n = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    out[n++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, n);
+        }
+        
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+        
+        @Override
+        int fill(int base, int[] out, int offset) {
+            for (int i = 0; i < cardinality; i++) {
+                out[offset++] = base | values[i];
+            }
+            return offset;
+        }
+        
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+    
+    /**
+     * Dense container: 65536-bit bitset
+     * Contenitore denso: bitset da 65536 bit
+     */
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+        
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+        
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        Container add(char value) {
+            long mask = 1L << value;
+            int w = value >>> 6;
+            if ((words[w] & mask) == 0) {
+                words[w] |= mask;
+                cardinality++;
+            }
+            return this;
+        }
+        
+        @Override
+        Container remove(char value) {
+            long mask = 1L << value;
+            int w = value >>> 6;
+            if ((words[w] & mask) != 0) {
+                words[w] &= ~mask;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArrayContainer() : this;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] o = ((BitmapContainer) other).words;
+            long[] out = new long[1024];
+            int card = 0;
+            for (int i = 0; i < out.length; i++) {
+                out[i] = words[i] & o[i];
+                card += Long.bitCount(out[i]);
+            }
+            BitmapContainer result = new BitmapContainer(out, card);
+            return card <= ARRAY_MAX ? result.toArrayContainer() : result;
+        }
+        
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            if (other instanceof ArrayContainer) {
+                BitmapContainer result = new BitmapContainer(out, cardinality);
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    result.add(o.values[i]);
+                }
+                return result;
+            }
+            long[] o = ((BitmapContainer) other).words;
+            int card = 0;
+            for (int i = 0; i < out.length; i++) {
+                out[i] |= o[i];
+                card += Long.bitCount(out[i]);
+            }
+            return new BitmapContainer(out, card);
+        }
+        
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            int card = cardinality;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer o = (ArrayContainer) other;
+                for (int i = 0; i < o.cardinality; i++) {
+                    char v = o.values[i];
+                    long mask = 1L << v;
+                    if ((out[v >>> 6] & mask) != 0) {
+                        out[v >>> 6] &= ~mask;
+                        card--;
+                    }
+                }
+            } else {
+                long[] o = ((BitmapContainer) other).words;
+                card = 0;
+                for (int i = 0; i < out.length; i++) {
+                    out[i] &= ~o[i];
+                    card += Long.bitCount(out[i]);
+                }
+            }
+            BitmapContainer result = new BitmapContainer(out, card);
+            return card <= ARRAY_MAX ? result.toArrayContainer() : result;
+        }
+        
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+        
+        @Override
+        int fill(int base, int[] out, int offset) {
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[offset++] = base | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+        
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int n = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+}
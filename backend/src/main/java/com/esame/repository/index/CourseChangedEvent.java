@@ -0,0 +1,82 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+
+/**
+ * Course Changed Event
+ * Evento Modifica Corso
+ * 
+ * Published whenever a course row is written, so in-memory indexes can follow the database.
+ * Enrollment paths that only move disponibilita publish a seat change, carrying the new
+ * count instead of a reloaded course.
+ * Pubblicato a ogni scrittura di un corso, così gli indici in memoria seguono il database.
+ * I percorsi di iscrizione che spostano solo disponibilita pubblicano una variazione di posti,
+ * con il nuovo conteggio invece di un corso ricaricato.
+ */
+public class CourseChangedEvent {
+    
+    private final Long corsoId;
+    private final Corso corso;
+    private final Integer disponibilita;
+    
+    private CourseChangedEvent(Long corsoId, Corso corso, Integer disponibilita) {
+        this.corsoId = corsoId;
+        this.corso = corso;
+        this.disponibilita = disponibilita;
+    }
+    
+    /**
+     * Event for a created or updated course
+     * Evento per un corso creato o aggiornato
+     * 
+     * @param corso Saved course / Corso salvato
+     * @return Event / Evento
+     */
+    public static CourseChangedEvent saved(Corso corso) {
+        return new CourseChangedEvent(corso.getCorsoId(), corso, corso.getDisponibilita());
+    }
+    
+    /**
+     * Event for a deleted course
+     * Evento per un corso eliminato
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Event / Evento
+     */
+    public static CourseChangedEvent deleted(Long corsoId) {
+        return new CourseChangedEvent(corsoId, null, null);
+    }
+    
+    /**
+     * Event for a course whose free seats changed and nothing else
+     * Evento per un corso di cui sono cambiati solo i posti liberi
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param disponibilita Seats left after the change / Posti rimasti dopo la modifica
+     * @return Event / Evento
+     */
+    public static CourseChangedEvent seats(Long corsoId, int disponibilita) {
+        return new CourseChangedEvent(corsoId, null, disponibilita);
+    }
+    
+    public boolean isDeleted() {
+        return corso == null && disponibilita == null;
+    }
+    
+    public boolean isSeatsOnly() {
+        return corso == null && disponibilita != null;
+    }
+    
+    // Getters / Getter
+    public Long getCorsoId() {
+        return corsoId;
+    }
+    
+    public Corso getCorso() {
+        return corso;
+    }
+    
+    public Integer getDisponibilita() {
+        return disponibilita;
+    }
+}
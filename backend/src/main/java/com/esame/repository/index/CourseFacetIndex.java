@@ -0,0 +1,254 @@
+package com.esame.repository.index;
+
+import com.esame.dto.CourseFilter;
+import com.esame.model.Corso;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Course Facet Index
+ * Indice Facet Corsi
+ * 
+ * Bitmap index over the low-cardinality course facets (categoria, livello, certificazione,
+ * disponibilita &gt; 0). Every course gets a dense ordinal; each distinct facet value owns a
+ * CompressedBitmap of ordinals, so filter combinations become bitwise AND/OR operations.
+ * Indice bitmap sui facet a bassa cardinalità dei corsi (categoria, livello, certificazione,
+ * disponibilita &gt; 0). Ogni corso ha un ordinale denso; ogni valore distinto possiede una
+ * CompressedBitmap di ordinali, così le combinazioni di filtri diventano AND/OR bit a bit.
+ */
+@Component
+public class CourseFacetIndex implements CourseIndex {
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Ordinal dictionary / Dizionario degli ordinali
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private long[] corsoIds = new long[64];
+    private String[] categoriaByOrdinal = new String[64];
+    private String[] livelloByOrdinal = new String[64];
+    private int nextOrdinal;
+    
+    // Facet bitmaps / Bitmap dei facet
+    private final CompressedBitmap live = new CompressedBitmap();
+    private final Map<String, CompressedBitmap> categorie = new HashMap<>();
+    private final Map<String, CompressedBitmap> livelli = new HashMap<>();
+    private final CompressedBitmap certificati = new CompressedBitmap();
+    private final CompressedBitmap disponibili = new CompressedBitmap();
+    
+    private volatile boolean warm;
+    
+    @Override
+    public void rebuild(List<Corso> corsi) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            freeOrdinals.clear();
+            categorie.clear();
+            livelli.clear();
+            for (int ordinal : live.toArray()) {
+                live.remove(ordinal);
+                certificati.remove(ordinal);
+                disponibili.remove(ordinal);
+            }
+            nextOrdinal = 0;
+            for (Corso corso : corsi) {
+                index(corso);
+            }
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void upsert(Corso corso) {
+        lock.writeLock().lock();
+        try {
+            unindex(corso.getCorsoId());
+            index(corso);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long corsoId) {
+        lock.writeLock().lock();
+        try {
+            unindex(corsoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void seatsChanged(Long corsoId, int disponibilita) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(corsoId);
+            if (ordinal == null) {
+                return;
+            }
+            if (disponibilita > 0) {
+                disponibili.add(ordinal);
+            } else {
+                disponibili.remove(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    /**
+     * Find the courses matching the facet filters
+     * Trova i corsi che corrispondono ai filtri facet
+     * 
+     * categoria and livello keep the catalog's "contains" semantics: every distinct value
+     * containing the search text is OR-ed together, then facets are AND-ed.
+     * categoria e livello mantengono la semantica "contiene" del catalogo: i valori distinti
+     * che contengono il testo cercato sono uniti in OR, poi i facet sono combinati in AND.
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Matching course IDs in ascending order / ID corsi corrispondenti in ordine crescente
+     */
+    public long[] findCourseIds(CourseFilter filter) {
+        lock.readLock().lock();
+        try {
+            CompressedBitmap result = live;
+            if (filter.getCategoria() != null) {
+                result = result.and(matchContaining(categorie, filter.getCategoria()));
+            }
+            if (filter.getLivello() != null) {
+                result = result.and(matchContaining(livelli, filter.getLivello()));
+            }
+            if (filter.getCertificazione() != null) {
+                result = filter.getCertificazione() ? result.and(certificati) : result.andNot(certificati);
+            }
+            if (filter.isDisponibili()) {
+                result = result.and(disponibili);
+            }
+            
+            int[] matches = result.toArray();
+            long[] ids = new long[matches.length];
+            for (int i = 0; i < matches.length; i++) {
+                ids[i] = corsoIds[matches[i]];
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Number of indexed courses
+     * Numero di corsi indicizzati
+     * 
+     * @return Course count / Numero di corsi
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private CompressedBitmap matchContaining(Map<String, CompressedBitmap> facet, String text) {
+        String needle = normalize(text);
+        CompressedBitmap union = new CompressedBitmap();
+        for (Map.Entry<String, CompressedBitmap> entry : facet.entrySet()) {
+            if (entry.getKey().contains(needle)) {
+                union = union.or(entry.getValue());
+            }
+        }
+        return union;
+    }
+    
+    private void index(Corso corso) {
+        int ordinal = allocateOrdinal(corso.getCorsoId());
+        live.add(ordinal);
+        
+        String categoria = normalize(corso.getCategoria());
+        categoriaByOrdinal[ordinal] = categoria;
+        if (categoria != null) {
+            categorie.computeIfAbsent(categoria, k -> new CompressedBitmap()).add(ordinal);
+        }
+        
+        String livello = normalize(corso.getLivello());
+        livelloByOrdinal[ordinal] = livello;
+        if (livello != null) {
+            livelli.computeIfAbsent(livello, k -> new CompressedBitmap()).add(ordinal);
+        }
+        
+        if (Boolean.TRUE.equals(corso.getCertificazione())) {
+            certificati.add(ordinal);
+        }
+        if (corso.getDisponibilita() != null && corso.getDisponibilita() > 0) {
+            disponibili.add(ordinal);
+        }
+    }
+    
+    private void unindex(Long corsoId) {
+        Integer ordinal = ordinals.remove(corsoId);
+        if (ordinal == null) {
+            return;
+        }
+        live.remove(ordinal);
+        certificati.remove(ordinal);
+        disponibili.remove(ordinal);
+        removeFromFacet(categorie, categoriaByOrdinal[ordinal], ordinal);
+        removeFromFacet(livelli, livelloByOrdinal[ordinal], ordinal);
+        categoriaByOrdinal[ordinal] = null;
+        livelloByOrdinal[ordinal] = null;
+        freeOrdinals.push(ordinal);
+    }
+    
+    private static void removeFromFacet(Map<String, CompressedBitmap> facet, String value, int ordinal) {
+        if (value == null) {
+            return;
+        }
+        CompressedBitmap bitmap = facet.get(value);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                facet.remove(value);
+            }
+        }
+    }
+    
+    private int allocateOrdinal(Long corsoId) {
+        int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+        if (ordinal >= corsoIds.length) {
+            int capacity = corsoIds.length * 2;
+            corsoIds = Arrays.copyOf(corsoIds, capacity);
+            categoriaByOrdinal = Arrays.copyOf(categoriaByOrdinal, capacity);
+            livelloByOrdinal = Arrays.copyOf(livelloByOrdinal, capacity);
+        }
+        corsoIds[ordinal] = corsoId;
+        ordinals.put(corsoId, ordinal);
+        return ordinal;
+    }
+    
+    private static String normalize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
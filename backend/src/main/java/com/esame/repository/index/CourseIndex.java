@@ -0,0 +1,57 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+
+import java.util.List;
+
+/**
+ * Course Index
+ * Indice Corsi
+ * 
+ * In-process secondary index over the course catalog, kept in sync by CourseIndexMaintainer
+ * Indice secondario in-process sul catalogo corsi, sincronizzato da CourseIndexMaintainer
+ */
+public interface CourseIndex {
+    
+    /**
+     * Replace the index content with a full snapshot of the catalog
+     * Sostituisce il contenuto dell'indice con uno snapshot completo del catalogo
+     * 
+     * @param corsi All courses / Tutti i corsi
+     */
+    void rebuild(List<Corso> corsi);
+    
+    /**
+     * Insert or replace a single course
+     * Inserisce o sostituisce un singolo corso
+     * 
+     * @param corso Saved course / Corso salvato
+     */
+    void upsert(Corso corso);
+    
+    /**
+     * Remove a course
+     * Rimuove un corso
+     * 
+     * @param corsoId Course ID / ID del corso
+     */
+    void remove(Long corsoId);
+    
+    /**
+     * Apply a change of the free seats of a course; indexes that do not cover disponibilita ignore it
+     * Applica una variazione dei posti liberi di un corso; gli indici che non coprono disponibilita la ignorano
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param disponibilita Seats left / Posti rimasti
+     */
+    default void seatsChanged(Long corsoId, int disponibilita) {
+    }
+    
+    /**
+     * Check if the index has been built and can answer queries
+     * Controlla se l'indice è stato costruito e può rispondere alle query
+     * 
+     * @return True if warm / True se pronto
+     */
+    boolean isWarm();
+}
@@ -0,0 +1,75 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * Course Index Maintainer
+ * Manutentore Indici Corsi
+ * 
+ * Builds every CourseIndex once the application is ready and applies course changes
+ * after the writing transaction commits
+ * Costruisce ogni CourseIndex all'avvio dell'applicazione e applica le modifiche ai corsi
+ * dopo il commit della transazione di scrittura
+ */
+@Component
+public class CourseIndexMaintainer {
+    
+    private static final Logger log = LoggerFactory.getLogger(CourseIndexMaintainer.class);
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private List<CourseIndex> indexes;
+    
+    /**
+     * Load the catalog once and build all indexes
+     * Carica il catalogo una volta e costruisce tutti gli indici
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildAll();
+    }
+    
+    /**
+     * Rebuild all indexes from the database
+     * Ricostruisce tutti gli indici dal database
+     */
+    public void rebuildAll() {
+        List<Corso> corsi = corsoRepository.findAll();
+        for (CourseIndex index : indexes) {
+            index.rebuild(corsi);
+        }
+        log.info("Built {} course indexes over {} courses / Costruiti {} indici corsi su {} corsi",
+            indexes.size(), corsi.size(), indexes.size(), corsi.size());
+    }
+    
+    /**
+     * Apply a committed course change to all indexes
+     * Applica una modifica confermata di un corso a tutti gli indici
+     * 
+     * @param event Course change / Modifica corso
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        for (CourseIndex index : indexes) {
+            if (event.isDeleted()) {
+                index.remove(event.getCorsoId());
+            } else if (event.isSeatsOnly()) {
+                index.seatsChanged(event.getCorsoId(), event.getDisponibilita());
+            } else {
+                index.upsert(event.getCorso());
+            }
+        }
+    }
+}
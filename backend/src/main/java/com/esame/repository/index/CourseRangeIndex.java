@@ -0,0 +1,330 @@
+package com.esame.repository.index;
+
+import com.esame.dto.CourseFilter;
+import com.esame.model.Corso;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Course Range Index
+ * Indice a Intervalli Corsi
+ * 
+ * Keeps prezzo, durataOre and dataOraInizio as sorted long[] keys (order-preserving bits for
+ * prezzo, epoch seconds for dataOraInizio) with parallel corsoId arrays, so range filters are
+ * two binary searches without boxing. Readers use an immutable snapshot; a change that moves a
+ * value splices it into a copy of the affected columns, and a change that moves none is skipped.
+ * Mantiene prezzo, durataOre e dataOraInizio come chiavi long[] ordinate (bit che preservano
+ * l'ordine per prezzo, secondi epoch per dataOraInizio) con array corsoId paralleli, così i
+ * filtri a intervallo sono due ricerche binarie senza boxing. I lettori usano uno snapshot
+ * immutabile; una modifica che sposta un valore lo inserisce in una copia delle colonne
+ * interessate, e una modifica che non ne sposta nessuno viene saltata.
+ */
+@Component
+public class CourseRangeIndex implements CourseIndex {
+    
+    private static final int PREZZO = 0;
+    private static final int DURATA = 1;
+    private static final int INIZIO = 2;
+    private static final int COLUMNS = 3;
+    
+    // Source values by course, guarded by this / Valori sorgente per corso, protetti da this
+    private final Map<Long, RangeValues> values = new HashMap<>();
+    
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+    private volatile boolean warm;
+    
+    @Override
+    public synchronized void rebuild(List<Corso> corsi) {
+        values.clear();
+        for (Corso corso : corsi) {
+            values.put(corso.getCorsoId(), RangeValues.of(corso));
+        }
+        snapshot = Snapshot.build(values.values());
+        warm = true;
+    }
+    
+    @Override
+    public synchronized void upsert(Corso corso) {
+        RangeValues next = RangeValues.of(corso);
+        RangeValues previous = values.put(corso.getCorsoId(), next);
+        if (!next.equals(previous)) {
+            snapshot = snapshot.replace(previous, next);
+        }
+    }
+    
+    @Override
+    public synchronized void remove(Long corsoId) {
+        RangeValues previous = values.remove(corsoId);
+        if (previous != null) {
+            snapshot = snapshot.replace(previous, null);
+        }
+    }
+    
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    /**
+     * Find the courses matching the range filters of a filter, ignoring the other fields
+     * Trova i corsi che corrispondono ai filtri a intervallo, ignorando gli altri campi
+     * 
+     * Bounds follow CorsoSpecifications: prezzo and durata are inclusive, dataFine includes
+     * the whole end day.
+     * I limiti seguono CorsoSpecifications: prezzo e durata sono inclusivi, dataFine include
+     * l'intero giorno finale.
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Matching course IDs in ascending order / ID corsi corrispondenti in ordine crescente
+     */
+    public long[] findCourseIds(CourseFilter filter) {
+        Snapshot current = snapshot;
+        long[] result = null;
+        
+        if (filter.getPrezzoMin() != null || filter.getPrezzoMax() != null) {
+            double min = filter.getPrezzoMin() != null ? filter.getPrezzoMin() : Double.NEGATIVE_INFINITY;
+            double max = filter.getPrezzoMax() != null ? filter.getPrezzoMax() : Double.POSITIVE_INFINITY;
+            result = intersect(result, current.columns[PREZZO].between(priceKey(min), priceKey(max)));
+        }
+        if (filter.getDurataMin() != null || filter.getDurataMax() != null) {
+            int min = filter.getDurataMin() != null ? filter.getDurataMin() : Integer.MIN_VALUE;
+            int max = filter.getDurataMax() != null ? filter.getDurataMax() : Integer.MAX_VALUE;
+            result = intersect(result, current.columns[DURATA].between(min, max));
+        }
+        if (filter.getDataInizio() != null || filter.getDataFine() != null) {
+            long from = filter.getDataInizio() != null ?
+                epochSeconds(filter.getDataInizio().atStartOfDay()) : Long.MIN_VALUE;
+            long to = filter.getDataFine() != null ?
+                epochSeconds(filter.getDataFine().plusDays(1).atStartOfDay()) - 1 : Long.MAX_VALUE;
+            result = intersect(result, current.columns[INIZIO].between(from, to));
+        }
+        
+        return result != null ? result : current.allIds();
+    }
+    
+    /**
+     * Find the courses starting at or after a point in time
+     * Trova i corsi che iniziano in un momento uguale o successivo a quello indicato
+     * 
+     * @param from Lower bound, second precision / Limite inferiore, precisione al secondo
+     * @return Matching course IDs in ascending order / ID corsi corrispondenti in ordine crescente
+     */
+    public long[] findStartingFrom(LocalDateTime from) {
+        long seconds = epochSeconds(from) + (from.getNano() > 0 ? 1 : 0);
+        return snapshot.columns[INIZIO].between(seconds, Long.MAX_VALUE);
+    }
+    
+    /**
+     * Intersect two ascending ID arrays; null stands for "no constraint yet"
+     * Interseca due array di ID crescenti; null significa "nessun vincolo ancora"
+     * 
+     * @param left First ID array or null / Primo array di ID o null
+     * @param right Second ID array / Secondo array di ID
+     * @return IDs present in both / ID presenti in entrambi
+     */
+    public static long[] intersect(long[] left, long[] right) {
+        if (left == null) {
+            return right;
+        }
+        long[] out = new long[Math.min(left.length, right.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                out[n++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+    
+    private static long epochSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    // Sorts like the double; -0.0 folds into 0.0 / Ordina come il double; -0.0 coincide con 0.0
+    private static long priceKey(double prezzo) {
+        long bits = Double.doubleToLongBits(prezzo + 0.0);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+    
+    /**
+     * Range keys of a single course by column, null when the column is empty
+     * Chiavi a intervallo di un singolo corso per colonna, null quando la colonna è vuota
+     */
+    private static final class RangeValues {
+        final long corsoId;
+        final Long[] keys;
+        
+        private RangeValues(long corsoId, Long[] keys) {
+            this.corsoId = corsoId;
+            this.keys = keys;
+        }
+        
+        static RangeValues of(Corso corso) {
+            Long[] keys = new Long[COLUMNS];
+            keys[PREZZO] = corso.getPrezzo() != null ? priceKey(corso.getPrezzo()) : null;
+            keys[DURATA] = corso.getDurataOre() != null ? Long.valueOf(corso.getDurataOre()) : null;
+            keys[INIZIO] = corso.getDataOraInizio() != null ? epochSeconds(corso.getDataOraInizio()) : null;
+            return new RangeValues(corso.getCorsoId(), keys);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RangeValues)) return false;
+            RangeValues other = (RangeValues) o;
+            return corsoId == other.corsoId && Arrays.equals(keys, other.keys);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(corsoId) + Arrays.hashCode(keys);
+        }
+    }
+    
+    /**
+     * Immutable sorted columns; rows with a null value are left out, as in SQL ranges
+     * Colonne ordinate immutabili; le righe con valore null sono escluse, come negli intervalli SQL
+     */
+    private static final class Snapshot {
+        final long[] ids;
+        final Column[] columns;
+        
+        private Snapshot(long[] ids, Column[] columns) {
+            this.ids = ids;
+            this.columns = columns;
+        }
+        
+        static Snapshot build(Collection<RangeValues> rows) {
+            long[] ids = rows.stream().mapToLong(r -> r.corsoId).sorted().toArray();
+            Column[] columns = new Column[COLUMNS];
+            for (int c = 0; c < COLUMNS; c++) {
+                columns[c] = Column.build(rows, c);
+            }
+            return new Snapshot(ids, columns);
+        }
+        
+        /**
+         * Copy with one course replaced; previous or next is null for an insert or a removal
+         * Copia con un corso sostituito; previous o next è null per un inserimento o una rimozione
+         */
+        Snapshot replace(RangeValues previous, RangeValues next) {
+            long[] nextIds = ids;
+            if (previous == null) {
+                nextIds = insertAt(ids, -Arrays.binarySearch(ids, next.corsoId) - 1, next.corsoId);
+            } else if (next == null) {
+                nextIds = removeAt(ids, Arrays.binarySearch(ids, previous.corsoId));
+            }
+            
+            Column[] nextColumns = columns.clone();
+            for (int c = 0; c < COLUMNS; c++) {
+                Long before = previous != null ? previous.keys[c] : null;
+                Long after = next != null ? next.keys[c] : null;
+                if (Objects.equals(before, after)) {
+                    continue;
+                }
+                if (before != null) {
+                    nextColumns[c] = nextColumns[c].without(before, previous.corsoId);
+                }
+                if (after != null) {
+                    nextColumns[c] = nextColumns[c].with(after, next.corsoId);
+                }
+            }
+            return new Snapshot(nextIds, nextColumns);
+        }
+        
+        long[] allIds() {
+            return ids.clone();
+        }
+    }
+    
+    /**
+     * One range column: keys ascending, ties by corsoId, with the parallel corsoId array
+     * Una colonna a intervallo: chiavi crescenti, a parità per corsoId, con l'array corsoId parallelo
+     */
+    private static final class Column {
+        final long[] keys;
+        final long[] ids;
+        
+        private Column(long[] keys, long[] ids) {
+            this.keys = keys;
+            this.ids = ids;
+        }
+        
+        static Column build(Collection<RangeValues> rows, int column) {
+            List<RangeValues> present = new ArrayList<>(rows.size());
+            for (RangeValues row : rows) {
+                if (row.keys[column] != null) {
+                    present.add(row);
+                }
+            }
+            present.sort(Comparator.<RangeValues>comparingLong(r -> r.keys[column]).thenComparingLong(r -> r.corsoId));
+            long[] keys = new long[present.size()];
+            long[] ids = new long[present.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = present.get(i).keys[column];
+                ids[i] = present.get(i).corsoId;
+            }
+            return new Column(keys, ids);
+        }
+        
+        long[] between(long min, long max) {
+            // First index >= min, first index > max / Primo indice >= min, primo indice > max
+            int from = position(min, Long.MIN_VALUE);
+            int to = max == Long.MAX_VALUE ? keys.length : position(max + 1, Long.MIN_VALUE);
+            long[] slice = Arrays.copyOfRange(ids, from, Math.max(from, to));
+            Arrays.sort(slice);
+            return slice;
+        }
+        
+        Column with(long key, long corsoId) {
+            int at = position(key, corsoId);
+            return new Column(insertAt(keys, at, key), insertAt(ids, at, corsoId));
+        }
+        
+        Column without(long key, long corsoId) {
+            int at = position(key, corsoId);
+            return new Column(removeAt(keys, at), removeAt(ids, at));
+        }
+        
+        // First index whose (key, corsoId) is not below the given pair / Primo indice la cui coppia (chiave, corsoId) non è minore di quella data
+        private int position(long key, long corsoId) {
+            int lo = 0, hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < key || (keys[mid] == key && ids[mid] < corsoId)) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+    
+    private static long[] insertAt(long[] source, int index, long value) {
+        long[] out = new long[source.length + 1];
+        System.arraycopy(source, 0, out, 0, index);
+        out[index] = value;
+        System.arraycopy(source, index, out, index + 1, source.length - index);
+        return out;
+    }
+    
+    private static long[] removeAt(long[] source, int index) {
+        long[] out = new long[source.length - 1];
+        System.arraycopy(source, 0, out, 0, index);
+        System.arraycopy(source, index + 1, out, index, source.length - index - 1);
+        return out;
+    }
+}
@@ -0,0 +1,290 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Course Search Index
+ * Indice di Ricerca Corsi
+ * 
+ * Inverted index over titolo, docenti, programma and informazioniGenerali, analyzed with
+ * ItalianAnalyzer and ranked with BM25. Each field keeps its own length statistics and the
+ * per-field scores are combined with field boosts, so a hit in the title outranks one in
+ * the program text.
+ * Indice invertito su titolo, docenti, programma e informazioniGenerali, analizzato con
+ * ItalianAnalyzer e ordinato con BM25. Ogni campo mantiene le proprie statistiche di lunghezza
+ * e i punteggi per campo sono combinati con i boost, così una corrispondenza nel titolo
+ * supera una nel programma.
+ */
+@Component
+public class CourseSearchIndex implements CourseIndex {
+    
+    // Searchable fields and their boosts / Campi ricercabili e relativi boost
+    static final String[] FIELDS = {"titolo", "docenti", "programma", "informazioniGenerali"};
+    private static final double[] BOOSTS = {3.0, 2.0, 1.0, 1.0};
+    
+    // BM25 parameters / Parametri BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    
+    private static final int SNIPPET_LENGTH = 160;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // term -> corsoId -> term frequency per field / termine -> corsoId -> frequenza per campo
+    private final Map<String, Map<Long, int[]>> postings = new HashMap<>();
+    private final Map<Long, IndexedCourse> documents = new HashMap<>();
+    private final long[] totalFieldLengths = new long[FIELDS.length];
+    
+    private volatile boolean warm;
+    
+    /**
+     * Ranked search hit with highlighted fragments
+     * Risultato di ricerca ordinato con frammenti evidenziati
+     */
+    public static final class Hit {
+        private final Long corsoId;
+        private final double score;
+        private final Map<String, String> highlights;
+        
+        Hit(Long corsoId, double score, Map<String, String> highlights) {
+            this.corsoId = corsoId;
+            this.score = score;
+            this.highlights = highlights;
+        }
+        
+        public Long getCorsoId() {
+            return corsoId;
+        }
+        
+        public double getScore() {
+            return score;
+        }
+        
+        public Map<String, String> getHighlights() {
+            return highlights;
+        }
+    }
+    
+    @Override
+    public void rebuild(List<Corso> corsi) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            Arrays.fill(totalFieldLengths, 0);
+            for (Corso corso : corsi) {
+                index(corso);
+            }
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void upsert(Corso corso) {
+        lock.writeLock().lock();
+        try {
+            unindex(corso.getCorsoId());
+            index(corso);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void remove(Long corsoId) {
+        lock.writeLock().lock();
+        try {
+            unindex(corsoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    /**
+     * Search courses, matching any query term, best BM25 score first
+     * Cerca corsi che contengono almeno un termine, con punteggio BM25 migliore per primo
+     * 
+     * @param query User query / Query utente
+     * @param limit Maximum number of hits / Numero massimo di risultati
+     * @return Ranked hits / Risultati ordinati
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(ItalianAnalyzer.terms(query));
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            double[] averageLengths = new double[FIELDS.length];
+            for (int f = 0; f < FIELDS.length; f++) {
+                averageLengths[f] = documentCount == 0 ? 0 : (double) totalFieldLengths[f] / documentCount;
+            }
+            
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, int[]> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int df = termPostings.size();
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                
+                for (Map.Entry<Long, int[]> posting : termPostings.entrySet()) {
+                    int[] fieldLengths = documents.get(posting.getKey()).fieldLengths;
+                    int[] tf = posting.getValue();
+                    double score = 0;
+                    for (int f = 0; f < FIELDS.length; f++) {
+                        if (tf[f] == 0) {
+                            continue;
+                        }
+                        double norm = averageLengths[f] == 0 ? 1 : fieldLengths[f] / averageLengths[f];
+                        score += BOOSTS[f] * tf[f] * (K1 + 1) / (tf[f] + K1 * (1 - B + B * norm));
+                    }
+                    scores.merge(posting.getKey(), idf * score, Double::sum);
+                }
+            }
+            
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort((a, b) -> {
+                int byScore = Double.compare(b.getValue(), a.getValue());
+                return byScore != 0 ? byScore : a.getKey().compareTo(b.getKey());
+            });
+            
+            List<Hit> hits = new ArrayList<>(Math.min(limit, ranked.size()));
+            for (Map.Entry<Long, Double> entry : ranked) {
+                if (hits.size() >= limit) {
+                    break;
+                }
+                IndexedCourse document = documents.get(entry.getKey());
+                hits.add(new Hit(entry.getKey(), entry.getValue(), highlight(document, terms)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void index(Corso corso) {
+        String[] texts = {corso.getTitolo(), corso.getDocenti(), corso.getProgramma(), corso.getInformazioniGenerali()};
+        int[] fieldLengths = new int[FIELDS.length];
+        Set<String> courseTerms = new LinkedHashSet<>();
+        
+        for (int f = 0; f < FIELDS.length; f++) {
+            List<String> terms = ItalianAnalyzer.terms(texts[f]);
+            fieldLengths[f] = terms.size();
+            totalFieldLengths[f] += terms.size();
+            for (String term : terms) {
+                postings.computeIfAbsent(term, k -> new HashMap<>())
+                    .computeIfAbsent(corso.getCorsoId(), k -> new int[FIELDS.length])[f]++;
+                courseTerms.add(term);
+            }
+        }
+        documents.put(corso.getCorsoId(), new IndexedCourse(texts, fieldLengths, courseTerms));
+    }
+    
+    private void unindex(Long corsoId) {
+        IndexedCourse document = documents.remove(corsoId);
+        if (document == null) {
+            return;
+        }
+        for (int f = 0; f < FIELDS.length; f++) {
+            totalFieldLengths[f] -= document.fieldLengths[f];
+        }
+        for (String term : document.terms) {
+            Map<Long, int[]> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(corsoId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Build one highlighted fragment per matching field, wrapping matches in &lt;em&gt;
+     * Costruisce un frammento evidenziato per ogni campo corrispondente, racchiudendo le corrispondenze in &lt;em&gt;
+     */
+    private static Map<String, String> highlight(IndexedCourse document, Set<String> terms) {
+        Map<String, String> highlights = new LinkedHashMap<>();
+        for (int f = 0; f < FIELDS.length; f++) {
+            String text = document.texts[f];
+            if (text == null) {
+                continue;
+            }
+            List<ItalianAnalyzer.Token> matches = new ArrayList<>();
+            for (ItalianAnalyzer.Token token : ItalianAnalyzer.analyze(text)) {
+                if (terms.contains(token.getTerm())) {
+                    matches.add(token);
+                }
+            }
+            if (matches.isEmpty()) {
+                continue;
+            }
+            
+            // Window around the first match / Finestra attorno alla prima corrispondenza
+            int from = text.length() <= SNIPPET_LENGTH ? 0 : Math.max(0, matches.get(0).getStart() - SNIPPET_LENGTH / 4);
+            int to = Math.min(text.length(), from + SNIPPET_LENGTH);
+            
+            StringBuilder fragment = new StringBuilder();
+            if (from > 0) {
+                fragment.append("...");
+            }
+            int cursor = from;
+            for (ItalianAnalyzer.Token match : matches) {
+                if (match.getStart() < from || match.getEnd() > to) {
+                    continue;
+                }
+                fragment.append(escape(text.substring(cursor, match.getStart())))
+                    .append("<em>").append(escape(text.substring(match.getStart(), match.getEnd()))).append("</em>");
+                cursor = match.getEnd();
+            }
+            fragment.append(escape(text.substring(cursor, to)));
+            if (to < text.length()) {
+                fragment.append("...");
+            }
+            highlights.put(FIELDS[f], fragment.toString());
+        }
+        return highlights;
+    }
+    
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    
+    /**
+     * Stored field text and statistics of an indexed course
+     * Testo dei campi e statistiche di un corso indicizzato
+     */
+    private static final class IndexedCourse {
+        final String[] texts;
+        final int[] fieldLengths;
+        final Set<String> terms;
+        
+        IndexedCourse(String[] texts, int[] fieldLengths, Set<String> terms) {
+            this.texts = texts;
+            this.fieldLengths = fieldLengths;
+            this.terms = terms;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import com.esame.repository.IscrizioneRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Course Suggest Index
+ * Indice Suggerimenti Corsi
+ * 
+ * Compressed (radix) trie over normalized titolo, luogo, docenti and categoria. Phrases are
+ * inserted at every word start, so "rea" completes "Introduzione a React". Each node caches
+ * the top-K suggestions of its subtree ranked by enrollment count, so a lookup is a walk
+ * down the typed prefix plus a copy of at most K entries. Writes recompute only the nodes
+ * on the touched paths. Enrollment counts only rank the suggestions, so enrollment writes just
+ * mark their course dirty and a background pass re-weights the dirty courses with one grouped
+ * count every app.suggest.reweight-interval.
+ * Trie compresso (radix) su titolo, luogo, docenti e categoria normalizzati. Le frasi sono
+ * inserite a ogni inizio di parola, così "rea" completa "Introduzione a React". Ogni nodo
+ * mantiene i top-K suggerimenti del proprio sottoalbero ordinati per numero di iscrizioni,
+ * quindi una ricerca è una discesa lungo il prefisso più una copia di al massimo K elementi.
+ * Le scritture ricalcolano solo i nodi sui percorsi toccati. I conteggi delle iscrizioni servono
+ * solo a ordinare i suggerimenti, quindi le scritture di iscrizioni segnano solo il corso come
+ * da aggiornare e un passaggio in background ricalcola i pesi con un solo conteggio raggruppato
+ * ogni app.suggest.reweight-interval.
+ */
+@Component
+public class CourseSuggestIndex implements CourseIndex {
+    
+    // Completions cached per node / Completamenti in cache per nodo
+    public static final int MAX_SUGGESTIONS = 20;
+    
+    private static final Suggestion[] NONE = new Suggestion[0];
+    
+    private static final Comparator<Suggestion> RANKING = Comparator
+        .comparingLong((Suggestion s) -> s.weight).reversed()
+        .thenComparing(s -> s.normalized)
+        .thenComparing(s -> s.field);
+    
+    private static final Logger log = LoggerFactory.getLogger(CourseSuggestIndex.class);
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Value("${app.suggest.reweight-interval:PT2S}")
+    private Duration reweightInterval;
+    
+    // Courses whose enrollment count changed since the last pass / Corsi il cui numero di iscrizioni è cambiato dall'ultimo passaggio
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    
+    private Thread worker;
+    private volatile boolean running;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private Node root = new Node("");
+    // field + normalized phrase -> suggestion / campo + frase normalizzata -> suggerimento
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    
+    private volatile boolean warm;
+    
+    /**
+     * Completion offered to the client
+     * Completamento offerto al client
+     */
+    public static final class Suggestion {
+        private final String text;
+        private final String field;
+        private final String normalized;
+        private long weight;
+        private int courseCount;
+        
+        Suggestion(String text, String field, String normalized) {
+            this.text = text;
+            this.field = field;
+            this.normalized = normalized;
+        }
+        
+        public String getText() {
+            return text;
+        }
+        
+        public String getField() {
+            return field;
+        }
+        
+        public long getWeight() {
+            return weight;
+        }
+        
+        public int getCourseCount() {
+            return courseCount;
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "course-suggest-reweight");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    
+    @Override
+    public void rebuild(List<Corso> corsi) {
+        Map<Long, Long> enrollments = new HashMap<>();
+        for (Object[] row : iscrizioneRepository.countGroupedByCorsoId()) {
+            enrollments.put((Long) row[0], (Long) row[1]);
+        }
+        
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+            suggestions.clear();
+            contributions.clear();
+            for (Corso corso : corsi) {
+                long weight = enrollments.getOrDefault(corso.getCorsoId(), 0L);
+                Contribution contribution = new Contribution(weight, phrases(corso));
+                contributions.put(corso.getCorsoId(), contribution);
+                for (Suggestion suggestion : contribution.suggestions) {
+                    suggestion.weight += weight;
+                    suggestion.courseCount++;
+                }
+            }
+            for (Suggestion suggestion : suggestions.values()) {
+                insertAll(suggestion);
+            }
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void upsert(Corso corso) {
+        lock.writeLock().lock();
+        try {
+            // Seat changes arrive here too; the count is left to the next pass / Anche le variazioni di posti arrivano qui; il conteggio è lasciato al prossimo passaggio
+            Contribution previous = contributions.remove(corso.getCorsoId());
+            long weight = previous != null ? previous.weight : 0L;
+            Contribution current = new Contribution(weight, phrases(corso));
+            contributions.put(corso.getCorsoId(), current);
+            apply(previous, current);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        markDirty(corso.getCorsoId());
+    }
+    
+    @Override
+    public void remove(Long corsoId) {
+        lock.writeLock().lock();
+        try {
+            apply(contributions.remove(corsoId), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    /**
+     * Mark a course whose enrollments changed for the next re-weighting pass
+     * Segna un corso le cui iscrizioni sono cambiate per il prossimo ricalcolo dei pesi
+     * 
+     * @param corsoId Course ID / ID corso
+     */
+    public void markDirty(Long corsoId) {
+        if (corsoId != null) {
+            dirty.add(corsoId);
+        }
+    }
+    
+    /**
+     * Re-weight the dirty courses with one grouped count
+     * Ricalcola i pesi dei corsi da aggiornare con un solo conteggio raggruppato
+     */
+    public void reweightDirty() {
+        if (!warm || dirty.isEmpty()) {
+            return;
+        }
+        List<Long> corsoIds = new ArrayList<>(dirty);
+        dirty.removeAll(corsoIds);
+        Map<Long, Long> counts = new HashMap<>();
+        try {
+            for (Object[] row : iscrizioneRepository.countGroupedByCorsoIdIn(corsoIds)) {
+                counts.put((Long) row[0], (Long) row[1]);
+            }
+        } catch (DataAccessException e) {
+            // Retried by the next pass / Ritentato dal prossimo passaggio
+            dirty.addAll(corsoIds);
+            throw e;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            for (Long corsoId : corsoIds) {
+                Contribution previous = contributions.get(corsoId);
+                long weight = counts.getOrDefault(corsoId, 0L);
+                if (previous == null || previous.weight == weight) {
+                    continue;
+                }
+                Contribution current = new Contribution(weight, previous.suggestions);
+                contributions.put(corsoId, current);
+                apply(previous, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Top completions for a typed prefix
+     * Migliori completamenti per un prefisso digitato
+     * 
+     * @param prefix Typed text / Testo digitato
+     * @param limit Maximum number of completions / Numero massimo di completamenti
+     * @return Completions, most enrolled first / Completamenti, i più frequentati per primi
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int i = 0;
+            while (i < key.length()) {
+                Node child = node.children.get(key.charAt(i));
+                if (child == null) {
+                    return new ArrayList<>();
+                }
+                int remaining = key.length() - i;
+                if (child.label.length() <= remaining) {
+                    if (!key.startsWith(child.label, i)) {
+                        return new ArrayList<>();
+                    }
+                    i += child.label.length();
+                } else {
+                    if (!child.label.startsWith(key.substring(i))) {
+                        return new ArrayList<>();
+                    }
+                    i = key.length();
+                }
+                node = child;
+            }
+            return new ArrayList<>(Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Lowercase, fold accents and collapse punctuation into single spaces
+     * Converte in minuscolo, rimuove accenti e riduce la punteggiatura a spazi singoli
+     * 
+     * @param text Raw text / Testo grezzo
+     * @return Normalized text / Testo normalizzato
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = ItalianAnalyzer.fold(text);
+        StringBuilder out = new StringBuilder(folded.length());
+        boolean space = false;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && out.length() > 0) {
+                    out.append(' ');
+                }
+                out.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return out.toString();
+    }
+    
+    /**
+     * Swap one course's contribution, re-inserting only the suggestions it touches
+     * Sostituisce il contributo di un corso, reinserendo solo i suggerimenti toccati
+     */
+    private void apply(Contribution previous, Contribution current) {
+        Set<Suggestion> touched = new LinkedHashSet<>();
+        if (previous != null) {
+            touched.addAll(previous.suggestions);
+        }
+        if (current != null) {
+            touched.addAll(current.suggestions);
+        }
+        for (Suggestion suggestion : touched) {
+            if (suggestion.courseCount > 0) {
+                removeAll(suggestion);
+            }
+        }
+        if (previous != null) {
+            for (Suggestion suggestion : previous.suggestions) {
+                suggestion.weight -= previous.weight;
+                suggestion.courseCount--;
+            }
+        }
+        if (current != null) {
+            for (Suggestion suggestion : current.suggestions) {
+                suggestion.weight += current.weight;
+                suggestion.courseCount++;
+            }
+        }
+        for (Suggestion suggestion : touched) {
+            if (suggestion.courseCount > 0) {
+                insertAll(suggestion);
+            } else {
+                suggestions.remove(suggestion.field + '|' + suggestion.normalized);
+            }
+        }
+    }
+    
+    private Set<Suggestion> phrases(Corso corso) {
+        Set<Suggestion> phrases = new LinkedHashSet<>();
+        addPhrase(phrases, "titolo", corso.getTitolo());
+        addPhrase(phrases, "luogo", corso.getLuogo());
+        addPhrase(phrases, "categoria", corso.getCategoria());
+        if (corso.getDocenti() != null) {
+            for (String docente : corso.getDocenti().split("[,;]")) {
+                addPhrase(phrases, "docenti", docente);
+            }
+        }
+        return phrases;
+    }
+    
+    private void addPhrase(Set<Suggestion> phrases, String field, String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        phrases.add(suggestions.computeIfAbsent(field + '|' + normalized,
+            k -> new Suggestion(text.trim(), field, normalized)));
+    }
+    
+    private void insertAll(Suggestion suggestion) {
+        for (String key : wordSuffixes(suggestion.normalized)) {
+            insert(key, suggestion);
+        }
+    }
+    
+    private void removeAll(Suggestion suggestion) {
+        for (String key : wordSuffixes(suggestion.normalized)) {
+            delete(key, suggestion);
+        }
+    }
+    
+    private static List<String> wordSuffixes(String phrase) {
+        List<String> keys = new ArrayList<>();
+        keys.add(phrase);
+        for (int i = phrase.indexOf(' '); i >= 0; i = phrase.indexOf(' ', i + 1)) {
+            keys.add(phrase.substring(i + 1));
+        }
+        return keys;
+    }
+    
+    private void insert(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(key.charAt(i), child);
+                node = child;
+                path.add(node);
+                break;
+            }
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge / Divide l'arco
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                middle.top = child.top;
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        node.entries.add(suggestion);
+        for (int p = path.size() - 1; p >= 0; p--) {
+            path.get(p).recomputeTop();
+        }
+    }
+    
+    private void delete(String key, Suggestion suggestion) {
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        node.entries.remove(suggestion);
+        
+        // Prune empty nodes and merge single-child chains / Rimuove nodi vuoti e unisce catene a figlio singolo
+        for (int p = path.size() - 1; p >= 1; p--) {
+            Node current = path.get(p);
+            Node parent = path.get(p - 1);
+            if (current.entries.isEmpty() && current.children.isEmpty()) {
+                parent.children.remove(current.label.charAt(0));
+            } else if (current.entries.isEmpty() && current.children.size() == 1) {
+                Node only = current.children.values().iterator().next();
+                only.label = current.label + only.label;
+                parent.children.put(only.label.charAt(0), only);
+            } else {
+                current.recomputeTop();
+            }
+        }
+        root.recomputeTop();
+    }
+    
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+    
+    /**
+     * Radix trie node
+     * Nodo del trie radix
+     */
+    private static final class Node {
+        String label;
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Suggestion> entries = new ArrayList<>(1);
+        Suggestion[] top = NONE;
+        
+        Node(String label) {
+            this.label = label;
+        }
+        
+        void recomputeTop() {
+            Set<Suggestion> candidates = new LinkedHashSet<>(entries);
+            for (Node child : children.values()) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            Suggestion[] sorted = candidates.toArray(NONE);
+            Arrays.sort(sorted, RANKING);
+            top = sorted.length > MAX_SUGGESTIONS ? Arrays.copyOf(sorted, MAX_SUGGESTIONS) : sorted;
+        }
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(reweightInterval.toMillis());
+                reweightDirty();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                log.warn("Suggestion re-weighting failed, retrying / Ricalcolo pesi suggerimenti fallito, nuovo tentativo: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Suggestions and enrollment weight contributed by one course
+     * Suggerimenti e peso iscrizioni forniti da un corso
+     */
+    private static final class Contribution {
+        final long weight;
+        final Set<Suggestion> suggestions;
+        
+        Contribution(long weight, Set<Suggestion> suggestions) {
+            this.weight = weight;
+            this.suggestions = suggestions;
+        }
+    }
+}
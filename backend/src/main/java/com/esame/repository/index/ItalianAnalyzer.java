@@ -0,0 +1,156 @@
+package com.esame.repository.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Italian Analyzer
+ * Analizzatore Italiano
+ * 
+ * Turns course text into index terms: splits on non-alphanumeric characters, lowercases,
+ * folds accents ("Università" -> "universita"), drops common stop words and applies a light
+ * stemmer that strips gender/number endings. Token offsets point into the original text
+ * so matches can be highlighted.
+ * Trasforma il testo dei corsi in termini di indice: divide sui caratteri non alfanumerici,
+ * converte in minuscolo, rimuove gli accenti ("Università" -> "universita"), scarta le stop
+ * word comuni e applica uno stemmer leggero che rimuove le desinenze di genere/numero.
+ * Gli offset dei token puntano al testo originale per evidenziare le corrispondenze.
+ */
+public final class ItalianAnalyzer {
+    
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "ad", "al", "alla", "alle", "agli", "ai", "allo", "anche", "c", "che", "chi", "ci", "con",
+        "da", "dal", "dalla", "dai", "degli", "dei", "del", "della", "delle", "dello", "di", "e", "ed",
+        "gli", "i", "il", "in", "l", "la", "le", "lo", "ma", "nei", "nel", "nella", "non", "o", "per",
+        "piu", "se", "si", "su", "sul", "sulla", "tra", "fra", "un", "una", "uno",
+        "the", "and", "of", "to", "for", "with");
+    
+    private ItalianAnalyzer() {}
+    
+    /**
+     * Analyzed token with its position in the source text
+     * Token analizzato con la sua posizione nel testo sorgente
+     */
+    public static final class Token {
+        private final String term;
+        private final int start;
+        private final int end;
+        
+        Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+        
+        public String getTerm() {
+            return term;
+        }
+        
+        public int getStart() {
+            return start;
+        }
+        
+        public int getEnd() {
+            return end;
+        }
+    }
+    
+    /**
+     * Analyze text into stemmed tokens
+     * Analizza il testo in token con stemming
+     * 
+     * @param text Source text, may be null / Testo sorgente, può essere null
+     * @return Tokens in text order / Token nell'ordine del testo
+     */
+    public static List<Token> analyze(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                String folded = fold(text.substring(start, i));
+                if (!STOP_WORDS.contains(folded)) {
+                    tokens.add(new Token(stem(folded), start, i));
+                }
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * Analyze text and keep only the terms
+     * Analizza il testo mantenendo solo i termini
+     * 
+     * @param text Source text / Testo sorgente
+     * @return Terms in text order / Termini nell'ordine del testo
+     */
+    public static List<String> terms(String text) {
+        List<Token> tokens = analyze(text);
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            terms.add(token.getTerm());
+        }
+        return terms;
+    }
+    
+    /**
+     * Lowercase and strip diacritics
+     * Converte in minuscolo e rimuove i segni diacritici
+     * 
+     * @param text Source text / Testo sorgente
+     * @return Folded text / Testo normalizzato
+     */
+    public static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7F) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+    
+    /**
+     * Light stemming: strip the final vowel of long words, plus the "i"/"h" before it
+     * Stemming leggero: rimuove la vocale finale delle parole lunghe, più la "i"/"h" che la precede
+     * 
+     * "corso"/"corsi" both become "cors" and "lezione"/"lezioni" both become "lezion";
+     * words shorter than five letters ("java", "web") are kept as they are.
+     * "corso"/"corsi" diventano entrambe "cors" e "lezione"/"lezioni" diventano "lezion";
+     * le parole più brevi di cinque lettere ("java", "web") restano invariate.
+     * 
+     * @param term Folded term / Termine normalizzato
+     * @return Stem / Radice
+     */
+    static String stem(String term) {
+        int len = term.length();
+        if (len < 5) {
+            return term;
+        }
+        char last = term.charAt(len - 1);
+        char before = term.charAt(len - 2);
+        switch (last) {
+            case 'e':
+            case 'i':
+                return (before == 'i' || before == 'h') ? term.substring(0, len - 2) : term.substring(0, len - 1);
+            case 'a':
+            case 'o':
+                return before == 'i' ? term.substring(0, len - 2) : term.substring(0, len - 1);
+            default:
+                return term;
+        }
+    }
+}
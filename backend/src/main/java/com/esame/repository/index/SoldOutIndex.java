@@ -0,0 +1,114 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sold-Out Index
+ * Indice Corsi Esauriti
+ * 
+ * Bitset of the courses whose disponibilita is 0, indexed by corsoId, so requests for a
+ * sold-out course can be answered without a query. Reads are a single volatile array load;
+ * the rare writes (a course selling out or getting a seat back) are serialized and grow the
+ * array when needed.
+ * Bitset dei corsi con disponibilita a 0, indicizzato per corsoId, così le richieste per un
+ * corso esaurito possono avere risposta senza query. Le letture sono un solo accesso volatile
+ * all'array; le rare scritture (un corso che si esaurisce o riottiene un posto) sono
+ * serializzate e ingrandiscono l'array quando serve.
+ */
+@Component
+public class SoldOutIndex implements CourseIndex {
+    
+    private volatile AtomicLongArray words = new AtomicLongArray(1);
+    private volatile boolean warm;
+    
+    @Override
+    public synchronized void rebuild(List<Corso> corsi) {
+        words = new AtomicLongArray(words.length());
+        for (Corso corso : corsi) {
+            upsert(corso);
+        }
+        warm = true;
+    }
+    
+    @Override
+    public synchronized void upsert(Corso corso) {
+        if (corso.getCorsoId() == null) {
+            return;
+        }
+        if (corso.getDisponibilita() != null) {
+            seatsChanged(corso.getCorsoId(), corso.getDisponibilita());
+        } else {
+            remove(corso.getCorsoId());
+        }
+    }
+    
+    @Override
+    public synchronized void seatsChanged(Long corsoId, int disponibilita) {
+        if (disponibilita <= 0) {
+            set(corsoId);
+        } else {
+            remove(corsoId);
+        }
+    }
+    
+    @Override
+    public synchronized void remove(Long corsoId) {
+        int word = wordIndex(corsoId);
+        AtomicLongArray current = words;
+        if (word >= 0 && word < current.length()) {
+            current.set(word, current.get(word) & ~bit(corsoId));
+        }
+    }
+    
+    @Override
+    public boolean isWarm() {
+        return warm;
+    }
+    
+    /**
+     * Check if a course is known to have no seats left
+     * Controlla se un corso è noto per non avere più posti
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return True if sold out / True se esaurito
+     */
+    public boolean isSoldOut(Long corsoId) {
+        if (corsoId == null) {
+            return false;
+        }
+        int word = wordIndex(corsoId);
+        AtomicLongArray current = words;
+        return word >= 0 && word < current.length() && (current.get(word) & bit(corsoId)) != 0;
+    }
+    
+    private void set(Long corsoId) {
+        int word = wordIndex(corsoId);
+        if (word < 0) {
+            return;
+        }
+        AtomicLongArray current = words;
+        if (word >= current.length()) {
+            AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, current.length() * 2));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            current = grown;
+            words = grown;
+        }
+        current.set(word, current.get(word) | bit(corsoId));
+    }
+    
+    // Negative for IDs outside the bitset range / Negativo per ID fuori dall'intervallo del bitset
+    private static int wordIndex(long corsoId) {
+        long word = corsoId >>> 6;
+        return corsoId < 0 || word > Integer.MAX_VALUE - 8 ? -1 : (int) word;
+    }
+    
+    private static long bit(long corsoId) {
+        return 1L << (corsoId & 63);
+    }
+}
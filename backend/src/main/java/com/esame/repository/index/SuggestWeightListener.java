@@ -0,0 +1,38 @@
+package com.esame.repository.index;
+
+import com.esame.config.AfterCommit;
+import com.esame.model.Iscrizione;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Suggest Weight Listener
+ * Listener Pesi Suggerimenti
+ * 
+ * JPA entity listener that marks the course of every committed enrollment write as dirty in
+ * CourseSuggestIndex; the index re-weights dirty courses in batches, off the request path.
+ * Listener di entità JPA che segna come da aggiornare in CourseSuggestIndex il corso di ogni
+ * scrittura di iscrizione confermata; l'indice ricalcola i pesi dei corsi a blocchi, fuori dal
+ * percorso della richiesta.
+ */
+@Component
+public class SuggestWeightListener {
+    
+    // Lazy: the listener is created while the EntityManagerFactory is still building
+    // Lazy: il listener viene creato mentre l'EntityManagerFactory è ancora in costruzione
+    @Autowired
+    @Lazy
+    private CourseSuggestIndex courseSuggestIndex;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Iscrizione iscrizione) {
+        Long corsoId = iscrizione.getCorsoId();
+        AfterCommit.run(() -> courseSuggestIndex.markDirty(corsoId));
+    }
+}
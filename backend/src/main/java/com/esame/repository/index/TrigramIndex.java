@@ -0,0 +1,181 @@
+package com.esame.repository.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram Index
+ * Indice a Trigrammi
+ * 
+ * In-process n-gram posting lists for case-insensitive substring search. Every lowercased
+ * value is split into overlapping 3-character grams; a lookup intersects the posting lists
+ * of the needle's grams, starting from the shortest, and verifies the few candidates left.
+ * Needles shorter than three characters fall back to scanning the stored values.
+ * Liste di posting n-gram in-process per la ricerca di sottostringhe case-insensitive. Ogni
+ * valore in minuscolo è diviso in gram sovrapposti di 3 caratteri; una ricerca interseca le
+ * liste dei gram del testo cercato, partendo dalla più corta, e verifica i pochi candidati
+ * rimasti. I testi più corti di tre caratteri ricadono sulla scansione dei valori memorizzati.
+ */
+public class TrigramIndex {
+    
+    private static final int GRAM = 3;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String[]> values = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    
+    /**
+     * Index or re-index the searchable values of an entity
+     * Indicizza o re-indicizza i valori ricercabili di un'entità
+     * 
+     * @param id Entity ID / ID entità
+     * @param texts Values matched with OR semantics / Valori confrontati con semantica OR
+     */
+    public void put(Long id, String... texts) {
+        String[] lowered = new String[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            lowered[i] = texts[i] != null ? texts[i].toLowerCase(Locale.ROOT) : null;
+        }
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            values.put(id, lowered);
+            for (String gram : grams(lowered)) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove an entity
+     * Rimuove un'entità
+     * 
+     * @param id Entity ID / ID entità
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove everything
+     * Rimuove tutto
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            values.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Find entities with a value containing the needle, ignoring case
+     * Trova entità con un valore che contiene il testo cercato, ignorando maiuscole/minuscole
+     * 
+     * @param needle Text to search / Testo da cercare
+     * @return Matching IDs in ascending order / ID corrispondenti in ordine crescente
+     */
+    public long[] search(String needle) {
+        String lowered = needle.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            Iterable<Long> candidates = values.keySet();
+            if (lowered.length() >= GRAM) {
+                Set<Long> shortest = null;
+                for (String gram : grams(new String[]{lowered})) {
+                    Set<Long> posting = postings.get(gram);
+                    if (posting == null) {
+                        return new long[0];
+                    }
+                    if (shortest == null || posting.size() < shortest.size()) {
+                        shortest = posting;
+                    }
+                }
+                candidates = shortest;
+            }
+            
+            long[] matches = new long[16];
+            int count = 0;
+            for (Long id : candidates) {
+                if (containsAny(values.get(id), lowered)) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = id;
+                }
+            }
+            long[] result = Arrays.copyOf(matches, count);
+            Arrays.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Number of indexed entities
+     * Numero di entità indicizzate
+     * 
+     * @return Entity count / Numero di entità
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void unindex(Long id) {
+        String[] previous = values.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+    
+    private static boolean containsAny(String[] texts, String needle) {
+        for (String text : texts) {
+            if (text != null && text.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static Set<String> grams(String[] texts) {
+        Set<String> grams = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i + GRAM <= text.length(); i++) {
+                grams.add(text.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+}
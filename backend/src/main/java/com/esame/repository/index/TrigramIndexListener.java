@@ -0,0 +1,39 @@
+package com.esame.repository.index;
+
+import com.esame.config.AfterCommit;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trigram Index Listener
+ * Listener Indice a Trigrammi
+ * 
+ * JPA entity listener that forwards enrollment and user writes to TrigramSearchIndex once
+ * the surrounding transaction commits, whichever controller or service performed them.
+ * Listener di entità JPA che inoltra le scritture di iscrizioni e utenti a TrigramSearchIndex
+ * dopo il commit della transazione, qualunque controller o servizio le abbia eseguite.
+ */
+@Component
+public class TrigramIndexListener {
+    
+    // Lazy: the listener is created while the EntityManagerFactory is still building
+    // Lazy: il listener viene creato mentre l'EntityManagerFactory è ancora in costruzione
+    @Autowired
+    @Lazy
+    private TrigramSearchIndex trigramSearchIndex;
+    
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        AfterCommit.run(() -> trigramSearchIndex.onSaved(entity));
+    }
+    
+    @PostRemove
+    public void onRemoved(Object entity) {
+        AfterCommit.run(() -> trigramSearchIndex.onRemoved(entity));
+    }
+}
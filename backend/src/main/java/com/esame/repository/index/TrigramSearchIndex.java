@@ -0,0 +1,287 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import com.esame.model.Iscrizione;
+import com.esame.model.User;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Trigram Search Index
+ * Indice di Ricerca a Trigrammi
+ * 
+ * Infix search for course location, participant name/email and user name. On PostgreSQL the
+ * LIKE queries are served by pg_trgm GIN indexes created at startup; on other databases (H2)
+ * in-process TrigramIndex posting lists answer the lookup and only the matching rows are loaded.
+ * The in-process fallback keeps every participant and user name in memory and is meant for
+ * development databases: above app.search.trigram.max-people rows it is not built and the
+ * plain LIKE queries are used instead.
+ * Ricerca per sottostringa su luogo corso, nome/email partecipante e nome utente. Su PostgreSQL
+ * le query LIKE sono servite da indici GIN pg_trgm creati all'avvio; sugli altri database (H2)
+ * le liste di posting TrigramIndex in-process rispondono e vengono caricate solo le righe corrispondenti.
+ * Il fallback in-process tiene in memoria ogni nome di partecipante e utente ed è pensato per i
+ * database di sviluppo: oltre app.search.trigram.max-people righe non viene costruito e si usano
+ * le normali query LIKE.
+ */
+@Component
+public class TrigramSearchIndex implements CourseIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(TrigramSearchIndex.class);
+    
+    private static final String POSTGRES_SCRIPT = "db/postgres/trigram-indexes.sql";
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    // Largest number of enrollments plus users indexed in memory / Numero massimo di iscrizioni più utenti indicizzati in memoria
+    @Value("${app.search.trigram.max-people:50000}")
+    private long maxPeople;
+    
+    private final TrigramIndex luoghi = new TrigramIndex();
+    private final TrigramIndex partecipantiNome = new TrigramIndex();
+    private final TrigramIndex partecipantiEmail = new TrigramIndex();
+    private final TrigramIndex utentiNome = new TrigramIndex();
+    
+    private boolean databaseTrigrams;
+    private volatile boolean coursesWarm;
+    private volatile boolean peopleWarm;
+    // Set when the people fallback is too large to build / Impostato quando il fallback delle persone è troppo grande da costruire
+    private volatile boolean peopleDisabled;
+    
+    /**
+     * Detect whether the database provides trigram indexes itself
+     * Rileva se il database fornisce direttamente gli indici a trigrammi
+     */
+    @PostConstruct
+    public void detectDatabase() {
+        try (Connection connection = dataSource.getConnection()) {
+            databaseTrigrams = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (Exception e) {
+            log.warn("Could not detect database product / Impossibile rilevare il database: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Create pg_trgm indexes on PostgreSQL, or load participants and users in memory
+     * Crea gli indici pg_trgm su PostgreSQL, o carica partecipanti e utenti in memoria
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (databaseTrigrams) {
+            ensurePostgresIndexes();
+            return;
+        }
+        long people = iscrizioneRepository.count() + userRepository.count();
+        if (people > maxPeople) {
+            peopleDisabled = true;
+            log.warn("In-memory trigram index skipped, {} enrollments and users exceed {}; name and email searches use LIKE scans / "
+                + "Indice a trigrammi in memoria saltato, {} iscrizioni e utenti superano {}; le ricerche per nome ed email usano scansioni LIKE",
+                people, maxPeople, people, maxPeople);
+            return;
+        }
+        partecipantiNome.clear();
+        partecipantiEmail.clear();
+        for (Iscrizione iscrizione : iscrizioneRepository.findAll()) {
+            indexEnrollment(iscrizione);
+        }
+        utentiNome.clear();
+        for (User user : userRepository.findAll()) {
+            indexUser(user);
+        }
+        peopleWarm = true;
+    }
+    
+    @Override
+    public void rebuild(List<Corso> corsi) {
+        if (databaseTrigrams) {
+            return;
+        }
+        luoghi.clear();
+        for (Corso corso : corsi) {
+            luoghi.put(corso.getCorsoId(), corso.getLuogo());
+        }
+        coursesWarm = true;
+    }
+    
+    @Override
+    public void upsert(Corso corso) {
+        if (!databaseTrigrams) {
+            luoghi.put(corso.getCorsoId(), corso.getLuogo());
+        }
+    }
+    
+    @Override
+    public void remove(Long corsoId) {
+        luoghi.remove(corsoId);
+    }
+    
+    /**
+     * True when course locations are served from memory
+     * True quando i luoghi dei corsi sono serviti dalla memoria
+     */
+    @Override
+    public boolean isWarm() {
+        return coursesWarm;
+    }
+    
+    /**
+     * Apply a committed enrollment or user change
+     * Applica una modifica confermata a un'iscrizione o a un utente
+     * 
+     * @param entity Saved entity / Entità salvata
+     */
+    public void onSaved(Object entity) {
+        if (databaseTrigrams || peopleDisabled) {
+            return;
+        }
+        if (entity instanceof Iscrizione iscrizione) {
+            indexEnrollment(iscrizione);
+        } else if (entity instanceof User user) {
+            indexUser(user);
+        }
+    }
+    
+    /**
+     * Apply a committed enrollment or user deletion
+     * Applica una eliminazione confermata di un'iscrizione o di un utente
+     * 
+     * @param entity Deleted entity / Entità eliminata
+     */
+    public void onRemoved(Object entity) {
+        if (entity instanceof Iscrizione iscrizione) {
+            partecipantiNome.remove(iscrizione.getIscrizioneId());
+            partecipantiEmail.remove(iscrizione.getIscrizioneId());
+        } else if (entity instanceof User user) {
+            utentiNome.remove(user.getId());
+        }
+    }
+    
+    /**
+     * Course IDs whose location contains the text
+     * ID dei corsi il cui luogo contiene il testo
+     * 
+     * @param luogo Location text / Testo luogo
+     * @return Matching IDs in ascending order / ID corrispondenti in ordine crescente
+     */
+    public long[] findCourseIdsByLuogo(String luogo) {
+        return luoghi.search(luogo);
+    }
+    
+    /**
+     * Courses whose location contains the text
+     * Corsi il cui luogo contiene il testo
+     * 
+     * @param luogo Location text / Testo luogo
+     * @return Matching courses / Corsi corrispondenti
+     */
+    public List<Corso> findCoursesByLuogo(String luogo) {
+        if (!coursesWarm) {
+            return corsoRepository.findByLuogoContainingIgnoreCase(luogo);
+        }
+        return load(luoghi.search(luogo), corsoRepository::findAllById, Corso::getCorsoId);
+    }
+    
+    /**
+     * Enrollments whose participant name contains the text
+     * Iscrizioni il cui nome partecipante contiene il testo
+     * 
+     * @param nome Name text / Testo nome
+     * @return Matching enrollments / Iscrizioni corrispondenti
+     */
+    public List<Iscrizione> findEnrollmentsByNome(String nome) {
+        if (!peopleWarm) {
+            return iscrizioneRepository.findByPartecipanteNomeContainingIgnoreCase(nome);
+        }
+        return load(partecipantiNome.search(nome), iscrizioneRepository::findAllById, Iscrizione::getIscrizioneId);
+    }
+    
+    /**
+     * Enrollments whose participant email contains the text
+     * Iscrizioni la cui email partecipante contiene il testo
+     * 
+     * @param email Email text / Testo email
+     * @return Matching enrollments / Iscrizioni corrispondenti
+     */
+    public List<Iscrizione> findEnrollmentsByEmail(String email) {
+        if (!peopleWarm) {
+            return iscrizioneRepository.findByPartecipanteEmailContainingIgnoreCase(email);
+        }
+        return load(partecipantiEmail.search(email), iscrizioneRepository::findAllById, Iscrizione::getIscrizioneId);
+    }
+    
+    /**
+     * Users whose first or last name contains the text
+     * Utenti il cui nome o cognome contiene il testo
+     * 
+     * @param name Name text / Testo nome
+     * @return Matching users / Utenti corrispondenti
+     */
+    public List<User> findUsersByName(String name) {
+        if (!peopleWarm) {
+            return userRepository.findByNameContaining(name);
+        }
+        return load(utentiNome.search(name), userRepository::findAllById, User::getId);
+    }
+    
+    // Without pg_trgm the searches still work, as sequential LIKE scans / Senza pg_trgm le ricerche funzionano comunque, come scansioni LIKE sequenziali
+    private void ensurePostgresIndexes() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(POSTGRES_SCRIPT));
+        try {
+            populator.execute(dataSource);
+            log.info("pg_trgm indexes ensured / Indici pg_trgm verificati");
+        } catch (ScriptException e) {
+            log.error("pg_trgm indexes not created, infix searches will scan / Indici pg_trgm non creati, le ricerche per sottostringa faranno scansioni: {}",
+                e.getMostSpecificCause().getMessage());
+        }
+    }
+    
+    private void indexEnrollment(Iscrizione iscrizione) {
+        partecipantiNome.put(iscrizione.getIscrizioneId(), iscrizione.getPartecipanteNome());
+        partecipantiEmail.put(iscrizione.getIscrizioneId(), iscrizione.getPartecipanteEmail());
+    }
+    
+    private void indexUser(User user) {
+        utentiNome.put(user.getId(), user.getNome(), user.getCognome());
+    }
+    
+    private static <T> List<T> load(long[] ids, Function<List<Long>, List<T>> finder, Function<T, Long> idOf) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        List<T> rows = new ArrayList<>(finder.apply(boxed));
+        rows.sort(Comparator.comparing(idOf));
+        return rows;
+    }
+}
@@ -0,0 +1,42 @@
+package com.esame.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Account Details
+ * Dettagli Account
+ * 
+ * Spring Security user that also carries the ID, role and token version written into
+ * access tokens
+ * Utente Spring Security che porta anche ID, ruolo e versione token scritti nei token di accesso
+ */
+public class AccountDetails extends User {
+    
+    private final Long userId;
+    private final String role;
+    private final int tokenVersion;
+    
+    public AccountDetails(Long userId, String username, String password, boolean active, String role, int tokenVersion,
+                          Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, active, true, true, active, authorities);
+        this.userId = userId;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+    }
+    
+    // Getters / Getter
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+}
@@ -0,0 +1,83 @@
+package com.esame.security;
+
+import com.esame.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Account Version Cache
+ * Cache Versioni Account
+ * 
+ * Current token version of every account that has one above zero, so the JWT filter can
+ * reject tokens of deactivated, demoted or deleted accounts without reading users. It is
+ * loaded from users at startup; committed changes arrive through TokenRevocationService,
+ * which stores them in token_revocati so other nodes apply them on their next sync and a
+ * deleted account stays refused after a restart.
+ * Versione token attuale di ogni account che ne ha una maggiore di zero, così il filtro JWT
+ * può rifiutare i token di account disattivati, declassati o eliminati senza leggere users.
+ * Viene caricata da users all'avvio; le modifiche confermate arrivano tramite
+ * TokenRevocationService, che le salva in token_revocati così gli altri nodi le applicano
+ * alla prossima sincronizzazione e un account eliminato resta rifiutato dopo un riavvio.
+ */
+@Component
+public class AccountVersionCache {
+    
+    // Version of a deleted account: no token matches it / Versione di un account eliminato: nessun token corrisponde
+    public static final int DELETED = Integer.MAX_VALUE;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    private final Map<Long, Integer> versions = new ConcurrentHashMap<>();
+    
+    /**
+     * Load the accounts whose tokens were revoked at least once
+     * Carica gli account i cui token sono stati revocati almeno una volta
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        for (Object[] row : userRepository.findTokenVersions()) {
+            versions.merge((Long) row[0], (Integer) row[1], Math::max);
+        }
+    }
+    
+    /**
+     * Check if a token was issued for the current version of its account
+     * Controlla se un token è stato emesso per la versione attuale del suo account
+     * 
+     * @param principal Principal read from the token / Principal letto dal token
+     * @return True if still valid / True se ancora valido
+     */
+    public boolean isCurrent(JwtPrincipal principal) {
+        return principal.getVersion() >= versions.getOrDefault(principal.getUserId(), 0);
+    }
+    
+    /**
+     * Raise the token version of an account
+     * Alza la versione token di un account
+     * 
+     * @param userId User ID / ID utente
+     * @param version Committed token version, DELETED for a deleted account / Versione token confermata, DELETED per un account eliminato
+     * @return True if the version is newer than the known one / True se la versione è più recente di quella nota
+     */
+    public boolean raise(Long userId, int version) {
+        if (version <= 0) {
+            return false;
+        }
+        AtomicBoolean raised = new AtomicBoolean();
+        versions.compute(userId, (id, current) -> {
+            if (current != null && current >= version) {
+                return current;
+            }
+            raised.set(true);
+            return version;
+        });
+        return raised.get();
+    }
+}
@@ -0,0 +1,46 @@
+package com.esame.security;
+
+import com.esame.config.AfterCommit;
+import com.esame.model.User;
+import com.esame.service.TokenRevocationService;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Account Version Listener
+ * Listener Versioni Account
+ * 
+ * JPA entity listener that forwards user token versions and deletions to
+ * TokenRevocationService once the surrounding transaction commits, whichever controller or
+ * service performed them.
+ * Listener di entità JPA che inoltra versioni token ed eliminazioni di utenti a
+ * TokenRevocationService dopo il commit della transazione, qualunque controller o servizio
+ * le abbia eseguite.
+ */
+@Component
+public class AccountVersionListener {
+    
+    // Lazy: the listener is created while the EntityManagerFactory is still building
+    // Lazy: il listener viene creato mentre l'EntityManagerFactory è ancora in costruzione
+    @Autowired
+    @Lazy
+    private TokenRevocationService tokenRevocationService;
+    
+    @PostUpdate
+    public void onUpdated(User user) {
+        Long id = user.getId();
+        int version = user.getTokenVersion() != null ? user.getTokenVersion() : 0;
+        if (version > 0) {
+            AfterCommit.run(() -> tokenRevocationService.revokeAccount(id, version));
+        }
+    }
+    
+    @PostRemove
+    public void onRemoved(User user) {
+        Long id = user.getId();
+        AfterCommit.run(() -> tokenRevocationService.revokeAccount(id, AccountVersionCache.DELETED));
+    }
+}
@@ -0,0 +1,85 @@
+package com.esame.security;
+
+import com.esame.config.Hashing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom Filter
+ * Filtro di Bloom
+ * 
+ * Fixed-size Bloom filter over strings. mightContain never misses an added value and is
+ * wrong about an absent one with about the configured probability; both operations are
+ * lock-free. Bits are picked by double hashing the two halves of a 64-bit FNV-1a hash.
+ * Filtro di Bloom a dimensione fissa su stringhe. mightContain non perde mai un valore
+ * aggiunto e sbaglia su uno assente con circa la probabilità configurata; entrambe le
+ * operazioni sono senza lock. I bit sono scelti con doppio hashing sulle due metà di un
+ * hash FNV-1a a 64 bit.
+ */
+public final class BloomFilter {
+    
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    
+    /**
+     * Size a filter for an expected number of values
+     * Dimensiona un filtro per un numero previsto di valori
+     * 
+     * @param expectedInsertions Expected values / Valori previsti
+     * @param falsePositiveRate Target false positive rate / Tasso di falsi positivi desiderato
+     */
+    public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (m + 63) >>> 6));
+        this.words = new AtomicLongArray(words);
+        this.bits = (long) words << 6;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+    
+    /**
+     * Add a value
+     * Aggiunge un valore
+     * 
+     * @param value Value / Valore
+     */
+    public void add(String value) {
+        long hash = Hashing.fnv1a64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(word);
+            } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+        }
+    }
+    
+    /**
+     * Check if a value may have been added
+     * Controlla se un valore può essere stato aggiunto
+     * 
+     * @param value Value / Valore
+     * @return False if certainly absent / False se sicuramente assente
+     */
+    public boolean mightContain(String value) {
+        long hash = Hashing.fnv1a64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private long index(int combined) {
+        return (combined & 0x7fffffffL) % bits;
+    }
+}
@@ -1,11 +1,9 @@
 package com.esame.security;
 
-import com.esame.service.UserService;
+import com.esame.service.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -22,17 +20,24 @@ import org.springframework.lang.NonNull;
  * JWT Authentication Filter
  * Filtro Autenticazione JWT
  * 
- * Intercepts requests and validates JWT tokens
- * Intercetta richieste e valida token JWT
+ * Intercepts requests and validates JWT tokens. The authentication is built from the token
+ * claims, verified once per token thanks to VerifiedTokenCache; only the in-memory account
+ * versions and the revocation Bloom filter are checked, never the users table.
+ * Intercetta richieste e valida token JWT. L'autenticazione è costruita dai claim del token,
+ * verificati una volta per token grazie a VerifiedTokenCache; vengono controllati solo le
+ * versioni account in memoria e il filtro di Bloom delle revoche, mai la tabella users.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     @Autowired
-    private JwtTokenProvider tokenProvider;
+    private VerifiedTokenCache verifiedTokenCache;
     
     @Autowired
-    private ApplicationContext applicationContext;
+    private AccountVersionCache accountVersionCache;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
     
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, 
@@ -41,15 +46,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-                
-                UserService userService = applicationContext.getBean(UserService.class);
-                UserDetails userDetails = userService.loadUserByUsername(username);
+            if (StringUtils.hasText(jwt)) {
+                JwtPrincipal principal = verifiedTokenCache.getPrincipal(jwt);
                 
-                if (userDetails != null) {
+                // Tokens issued before a deactivation or role change are refused / I token emessi prima di una disattivazione o cambio ruolo sono rifiutati
+                // Tokens revoked by logout are refused too / Anche i token revocati dal logout sono rifiutati
+                if (principal != null && accountVersionCache.isCurrent(principal)
+                        && !tokenRevocationService.isRevoked(principal.getTokenId())) {
                     UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     
                     SecurityContextHolder.getContext().setAuthentication(authentication);
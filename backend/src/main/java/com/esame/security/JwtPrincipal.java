@@ -0,0 +1,77 @@
+package com.esame.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JWT Principal
+ * Principal JWT
+ * 
+ * Authenticated user as described by the claims of an access token
+ * Utente autenticato come descritto dai claim di un token di accesso
+ */
+public final class JwtPrincipal implements Principal {
+    
+    private final String tokenId;
+    private final Long userId;
+    private final String username;
+    private final String role;
+    private final int version;
+    private final long expiresAt;
+    
+    public JwtPrincipal(String tokenId, Long userId, String username, String role, int version, long expiresAt) {
+        this.tokenId = tokenId;
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.version = version;
+        this.expiresAt = expiresAt;
+    }
+    
+    /**
+     * Authorities granted by the role claim
+     * Autorità concesse dal claim del ruolo
+     * 
+     * @return Authorities / Autorità
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+    
+    @Override
+    public String getName() {
+        return username;
+    }
+    
+    // Getters / Getter
+    // JWT ID, used for revocation / ID JWT, usato per la revoca
+    public String getTokenId() {
+        return tokenId;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
+    // Token expiry in epoch milliseconds / Scadenza del token in millisecondi epoch
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+    
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -1,25 +1,46 @@
 package com.esame.security;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.UUID;
 
 /**
  * JWT Token Provider
  * Provider Token JWT
  * 
- * Handles JWT token creation, validation and parsing
- * Gestisce creazione, validazione e parsing dei token JWT
+ * Handles JWT token creation, validation and parsing. Access tokens carry the user ID, role
+ * and token version, so requests are authenticated from the token alone; every token has a
+ * random ID (jti) by which it can be revoked. The signing key, the JSON serializer and the
+ * (immutable, thread-safe) parser are built once, and every read goes through
+ * parseValidClaims so a token is verified a single time.
+ * Gestisce creazione, validazione e parsing dei token JWT. I token di accesso contengono ID
+ * utente, ruolo e versione token, così le richieste sono autenticate dal solo token; ogni
+ * token ha un ID casuale (jti) con cui può essere revocato. La chiave di firma, il
+ * serializer JSON e il parser (immutabile, thread-safe) sono costruiti una volta, e ogni
+ * lettura passa da parseValidClaims così un token viene verificato una sola volta.
  */
 @Component
 public class JwtTokenProvider {
     
+    // Access token claims / Claim del token di accesso
+    private static final String CLAIM_USER_ID = "uid";
+    private static final String CLAIM_ROLE = "role";
+    private static final String CLAIM_VERSION = "ver";
+    
+    // Refresh token claims / Claim del token di refresh
+    public static final String CLAIM_FAMILY = "fam";
+    public static final String CLAIM_GENERATION = "gen";
+    
     @Value("${app.jwt.secret:mySecretKey}")
     private String jwtSecret;
     
@@ -29,6 +50,26 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-expiration:604800000}") // 7 days / 7 giorni
     private int jwtRefreshExpirationInMs;
     
+    private SecretKey signingKey;
+    private Serializer<Map<String, ?>> serializer;
+    private JwtParser parser;
+    
+    /**
+     * Build the signing key, serializer and parser
+     * Costruisce chiave di firma, serializer e parser
+     */
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        // Otherwise every builder discovers and creates its own / Altrimenti ogni builder ne individua e crea uno proprio
+        serializer = ServiceLoader.load(Serializer.class).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JWT JSON serializer on the classpath / Nessun serializer JSON JWT nel classpath"));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
     /**
      * Generate JWT token
      * Genera token JWT
@@ -37,32 +78,29 @@ public class JwtTokenProvider {
      * @return JWT token / Token JWT
      */
     public String generateToken(Authentication authentication) {
-        UserDetails userPrincipal = (UserDetails) authentication.getPrincipal();
-        Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
-        
-        return Jwts.builder()
-                .setSubject(userPrincipal.getUsername())
-                .setIssuedAt(new Date())
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
-                .compact();
+        return generateToken((AccountDetails) authentication.getPrincipal());
     }
     
     /**
-     * Generate JWT token from username
-     * Genera token JWT da username
+     * Generate JWT token for an account
+     * Genera token JWT per un account
      * 
-     * @param username Username / Nome utente
+     * @param account Account details / Dettagli account
      * @return JWT token / Token JWT
      */
-    public String generateTokenFromUsername(String username) {
+    public String generateToken(AccountDetails account) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs);
         
         return Jwts.builder()
-                .setSubject(username)
+                .serializeToJsonWith(serializer)
+                .setId(UUID.randomUUID().toString())
+                .setSubject(account.getUsername())
+                .claim(CLAIM_USER_ID, account.getUserId())
+                .claim(CLAIM_ROLE, account.getRole())
+                .claim(CLAIM_VERSION, account.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
@@ -71,19 +109,40 @@ public class JwtTokenProvider {
      * Genera token di refresh
      * 
      * @param username Username / Nome utente
+     * @param famigliaId Refresh token family / Famiglia del token di refresh
+     * @param generation Position in the family / Posizione nella famiglia
      * @return Refresh token / Token di refresh
      */
-    public String generateRefreshToken(String username) {
+    public String generateRefreshToken(String username, String famigliaId, int generation) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtRefreshExpirationInMs);
         
         return Jwts.builder()
+                .serializeToJsonWith(serializer)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
+                .claim(CLAIM_FAMILY, famigliaId)
+                .claim(CLAIM_GENERATION, generation)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
+    /**
+     * Verify a token and return its claims
+     * Verifica un token e ne restituisce i claim
+     * 
+     * @param token JWT token / Token JWT
+     * @return Claims, or null if the token is invalid or expired / Claim, o null se il token non è valido o è scaduto
+     */
+    public Claims parseValidClaims(String token) {
+        try {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
     /**
      * Get username from JWT token
      * Recupera username da token JWT
@@ -92,13 +151,32 @@ public class JwtTokenProvider {
      * @return Username / Nome utente
      */
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody().getSubject();
+    }
+    
+    /**
+     * Read the principal of a valid access token
+     * Legge il principal di un token di accesso valido
+     * 
+     * @param token JWT token / Token JWT
+     * @return Principal, or null if the token is invalid or is not an access token / Principal, o null se il token non è valido o non è un token di accesso
+     */
+    public JwtPrincipal getPrincipalFromJWT(String token) {
+        Claims claims = parseValidClaims(token);
+        if (claims == null) {
+            return null;
+        }
         
-        return claims.getSubject();
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        Number version = claims.get(CLAIM_VERSION, Number.class);
+        // Refresh tokens have no claims / I token di refresh non hanno claim
+        if (userId == null || role == null || version == null || claims.getSubject() == null || claims.getExpiration() == null
+                || claims.getId() == null) {
+            return null;
+        }
+        return new JwtPrincipal(claims.getId(), userId.longValue(), claims.getSubject(), role, version.intValue(),
+                claims.getExpiration().getTime());
     }
     
     /**
@@ -109,13 +187,7 @@ public class JwtTokenProvider {
      * @return Expiration date / Data scadenza
      */
     public Date getExpirationDateFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        
-        return claims.getExpiration();
+        return parser.parseClaimsJws(token).getBody().getExpiration();
     }
     
     /**
@@ -126,15 +198,7 @@ public class JwtTokenProvider {
      * @return True if valid / True se valido
      */
     public boolean validateToken(String authToken) {
-        try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parseValidClaims(authToken) != null;
     }
     
     /**
@@ -153,17 +217,6 @@ public class JwtTokenProvider {
         }
     }
     
-    /**
-     * Get signing key
-     * Recupera chiave di firma
-     * 
-     * @return Secret key / Chiave segreta
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-    
     /**
      * Get token expiration time in milliseconds
      * Recupera tempo scadenza token in millisecondi
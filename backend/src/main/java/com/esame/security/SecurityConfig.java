@@ -54,7 +54,8 @@ public class SecurityConfig {
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, @Lazy com.esame.service.UserService userService) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, @Lazy com.esame.service.UserService userService,
+                                           JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .csrf(AbstractHttpConfigurer::disable)
@@ -92,7 +93,7 @@ public class SecurityConfig {
                 .requestMatchers("/subscriptions/statistics").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(new JwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,137 @@
+package com.esame.security;
+
+import com.esame.config.Hashing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verified Token Cache
+ * Cache Token Verificati
+ * 
+ * Bounded map from a 64-bit hash of a raw access token to the principal read from it, so a
+ * token sent again and again by the same session has its HS512 signature checked and its
+ * JSON parsed only once. Entries keep the raw token, which is compared on every hit, and
+ * expire at the token's exp. Only valid access tokens are stored; revocation is still
+ * checked by the filter on every request.
+ * Mappa limitata da un hash a 64 bit del token di accesso grezzo al principal letto da esso,
+ * così un token inviato più volte dalla stessa sessione ha la firma HS512 verificata e il
+ * JSON letto una sola volta. Le voci conservano il token grezzo, confrontato a ogni hit, e
+ * scadono all'exp del token. Sono salvati solo token di accesso validi; la revoca viene
+ * comunque controllata dal filtro a ogni richiesta.
+ */
+@Component
+public class VerifiedTokenCache {
+    
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.jwt.verified-cache.max-entries:10000}")
+    private int maxEntries;
+    
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    
+    private Counter hitCounter;
+    private Counter missCounter;
+    
+    @PostConstruct
+    public void init() {
+        hitCounter = Counter.builder("auth.token.cache.hits")
+            .description("Access tokens served from the verified cache / Token di accesso serviti dalla cache dei verificati")
+            .register(meterRegistry);
+        missCounter = Counter.builder("auth.token.cache.misses")
+            .description("Access tokens verified and parsed / Token di accesso verificati e letti")
+            .register(meterRegistry);
+        Gauge.builder("auth.token.cache.size", entries, Map::size)
+            .description("Verified access tokens in memory / Token di accesso verificati in memoria")
+            .register(meterRegistry);
+        Gauge.builder("auth.token.cache.hit.ratio", this, VerifiedTokenCache::hitRatio)
+            .description("Share of lookups served from the cache / Quota di ricerche servite dalla cache")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Read the principal of a valid access token, verifying it only on the first use
+     * Legge il principal di un token di accesso valido, verificandolo solo al primo uso
+     * 
+     * @param token JWT token / Token JWT
+     * @return Principal, or null if the token is invalid, expired or not an access token / Principal, o null se il token non è valido, è scaduto o non è un token di accesso
+     */
+    public JwtPrincipal getPrincipal(String token) {
+        long key = Hashing.fnv1a64(token);
+        long now = System.currentTimeMillis();
+        
+        Entry entry = entries.get(key);
+        if (entry != null && entry.token.equals(token)) {
+            if (now < entry.principal.getExpiresAt()) {
+                hitCounter.increment();
+                return entry.principal;
+            }
+            entries.remove(key, entry);
+        }
+        
+        missCounter.increment();
+        JwtPrincipal principal = tokenProvider.getPrincipalFromJWT(token);
+        if (principal != null && now < principal.getExpiresAt()) {
+            if (entries.size() >= maxEntries) {
+                evict(now);
+            }
+            entries.put(key, new Entry(token, principal));
+        }
+        return principal;
+    }
+    
+    /**
+     * Share of lookups served without verifying the token
+     * Quota di ricerche servite senza verificare il token
+     * 
+     * @return Hit ratio between 0 and 1 / Rapporto di hit tra 0 e 1
+     */
+    public double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+    
+    /**
+     * Number of cached tokens
+     * Numero di token in cache
+     * 
+     * @return Size / Dimensione
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    // Drops expired tokens, then live ones down to three quarters of the bound / Elimina i token scaduti, poi quelli validi fino a tre quarti del limite
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.principal.getExpiresAt() <= now);
+        Iterator<Long> keys = entries.keySet().iterator();
+        while (entries.size() > maxEntries * 3 / 4 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+    
+    private static final class Entry {
+        
+        private final String token;
+        private final JwtPrincipal principal;
+        
+        private Entry(String token, JwtPrincipal principal) {
+            this.token = token;
+            this.principal = principal;
+        }
+    }
+}
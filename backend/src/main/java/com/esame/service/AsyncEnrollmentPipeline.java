@@ -0,0 +1,308 @@
+package com.esame.service;
+
+import com.esame.dto.BatchEnrollmentResultDTO;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.EnrollmentTicketDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous Enrollment Pipeline
+ * Pipeline Asincrona delle Iscrizioni
+ * 
+ * Accepts enrollments without touching the database on the request thread. Requests go to
+ * one of a few bounded queues chosen by course, so a course is always handled in arrival
+ * order; one worker per queue takes micro-batches and enrolls them through the bulk path.
+ * The workers use at most one connection each, and a full queue is reported to the caller
+ * instead of growing without limit.
+ * Accetta iscrizioni senza toccare il database sul thread della richiesta. Le richieste vanno
+ * in una di poche code limitate scelta per corso, così un corso è sempre gestito in ordine di
+ * arrivo; un worker per coda preleva micro-batch e li iscrive con il percorso massivo.
+ * I worker usano al massimo una connessione ciascuno, e una coda piena viene segnalata al
+ * chiamante invece di crescere senza limite.
+ */
+@Component
+public class AsyncEnrollmentPipeline {
+    
+    private static final Logger log = LoggerFactory.getLogger(AsyncEnrollmentPipeline.class);
+    
+    private static final long RETRY_MILLIS = 1000;
+    private static final int MAX_ATTEMPTS = 3;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.enrollment-pipeline.partitions:4}")
+    private int partitionCount;
+    
+    @Value("${app.enrollment-pipeline.capacity:500}")
+    private int capacity;
+    
+    @Value("${app.enrollment-pipeline.batch-size:50}")
+    private int batchSize;
+    
+    // Finished tickets stay readable this long / I ticket terminati restano leggibili per questo tempo
+    @Value("${app.enrollment-pipeline.retention:PT15M}")
+    private Duration retention;
+    
+    // How long shutdown waits for the queues to empty / Quanto lo spegnimento attende lo svuotamento delle code
+    @Value("${app.enrollment-pipeline.shutdown-wait:PT10S}")
+    private Duration shutdownWait;
+    
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    // In completion order, for retention / In ordine di completamento, per la conservazione
+    private final Queue<Ticket> finished = new ConcurrentLinkedQueue<>();
+    
+    private Partition[] partitions;
+    private Counter rejectedCounter;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        running = true;
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i);
+            partitions[i].worker.start();
+        }
+        Gauge.builder("enrollment.pipeline.queued", this, AsyncEnrollmentPipeline::queued)
+            .description("Enrollments waiting for a worker / Iscrizioni in attesa di un worker")
+            .register(meterRegistry);
+        rejectedCounter = Counter.builder("enrollment.pipeline.rejected")
+            .description("Enrollments refused because the queue was full / Iscrizioni rifiutate per coda piena")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Stop accepting and let the workers empty their queues
+     * Smette di accettare e lascia che i worker svuotino le code
+     * 
+     * Workers still busy after shutdown-wait are interrupted and joined; what they had not
+     * enrolled yet is logged as abandoned.
+     * I worker ancora occupati dopo shutdown-wait sono interrotti e attesi; quanto non avevano
+     * ancora iscritto è registrato come abbandonato.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + shutdownWait.toNanos();
+        for (Partition partition : partitions) {
+            partition.worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        for (Partition partition : partitions) {
+            partition.worker.interrupt();
+        }
+        for (Partition partition : partitions) {
+            partition.worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        int abandoned = queued();
+        if (abandoned > 0) {
+            log.warn("Enrollments abandoned at shutdown / Iscrizioni abbandonate allo spegnimento: {}", abandoned);
+        }
+    }
+    
+    /**
+     * Queue an enrollment
+     * Accoda un'iscrizione
+     * 
+     * @param enrollmentDTO Validated enrollment data / Dati iscrizione validati
+     * @return Queued ticket, or null if the course's queue is full / Ticket in coda, o null se la coda del corso è piena
+     */
+    public EnrollmentTicketDTO submit(EnrollmentDTO enrollmentDTO) {
+        pruneFinished();
+        if (!running) {
+            return null;
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), enrollmentDTO, LocalDateTime.now());
+        tickets.put(ticket.id, ticket);
+        // Snapshot before the worker can pick it up / Istantanea prima che il worker possa prenderlo
+        EnrollmentTicketDTO queued = ticket.toDTO();
+        if (!partition(enrollmentDTO.getCorsoId()).queue.offer(ticket)) {
+            tickets.remove(ticket.id);
+            rejectedCounter.increment();
+            return null;
+        }
+        return queued;
+    }
+    
+    /**
+     * Current state of a ticket
+     * Stato attuale di un ticket
+     * 
+     * @param ticketId Ticket ID / ID del ticket
+     * @return Ticket, or null if unknown or expired / Ticket, o null se sconosciuto o scaduto
+     */
+    public EnrollmentTicketDTO getTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        return ticket != null ? ticket.toDTO() : null;
+    }
+    
+    /**
+     * Seconds a refused caller should wait, from the backlog and the last batch time
+     * Secondi che un chiamante rifiutato dovrebbe attendere, dall'arretrato e dal tempo dell'ultimo batch
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Retry-After value / Valore di Retry-After
+     */
+    public long retryAfterSeconds(Long corsoId) {
+        Partition partition = partition(corsoId);
+        double batches = Math.ceil(partition.queue.size() / (double) batchSize);
+        return Math.max(1, (long) Math.ceil(batches * partition.lastBatchMillis / 1000.0));
+    }
+    
+    /**
+     * Enrollments waiting in all queues
+     * Iscrizioni in attesa in tutte le code
+     * 
+     * @return Queued enrollments / Iscrizioni in coda
+     */
+    public int queued() {
+        int queued = 0;
+        for (Partition partition : partitions) {
+            queued += partition.queue.size();
+        }
+        return queued;
+    }
+    
+    private Partition partition(Long corsoId) {
+        return partitions[Math.floorMod(corsoId.hashCode(), partitions.length)];
+    }
+    
+    private void process(Partition partition) {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (running || !partition.queue.isEmpty()) {
+            try {
+                Ticket first = partition.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                partition.queue.drainTo(batch, batchSize - 1);
+                long begin = System.nanoTime();
+                enroll(batch);
+                partition.lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void enroll(List<Ticket> batch) throws InterruptedException {
+        List<EnrollmentDTO> rows = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            rows.add(ticket.request);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<BatchEnrollmentResultDTO> results = enrollmentService.createEnrollments(rows);
+                for (int i = 0; i < batch.size(); i++) {
+                    // A single enrollment, not a row of a request / Una singola iscrizione, non una riga di una richiesta
+                    results.get(i).setRiga(0);
+                    finish(batch.get(i), EnrollmentTicketDTO.STATUS_COMPLETED, results.get(i), null);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    log.error("Enrollment batch failed / Batch di iscrizioni fallito: {} rows", batch.size(), e);
+                    for (Ticket ticket : batch) {
+                        finish(ticket, EnrollmentTicketDTO.STATUS_FAILED, null,
+                            "Enrollment could not be processed, please retry / Impossibile elaborare l'iscrizione, riprovare");
+                    }
+                    return;
+                }
+                log.warn("Enrollment batch failed, retrying / Batch di iscrizioni fallito, nuovo tentativo: {}", e.getMessage());
+                Thread.sleep(RETRY_MILLIS);
+            }
+        }
+    }
+    
+    private void finish(Ticket ticket, String status, BatchEnrollmentResultDTO risultato, String message) {
+        ticket.risultato = risultato;
+        ticket.message = message;
+        ticket.finishedAt = LocalDateTime.now();
+        ticket.status = status;
+        finished.add(ticket);
+    }
+    
+    private void pruneFinished() {
+        LocalDateTime oldest = LocalDateTime.now().minus(retention);
+        Ticket ticket;
+        while ((ticket = finished.peek()) != null && ticket.finishedAt.isBefore(oldest)) {
+            if (finished.remove(ticket)) {
+                tickets.remove(ticket.id);
+            }
+        }
+    }
+    
+    /**
+     * One queue and its worker
+     * Una coda e il suo worker
+     */
+    private final class Partition {
+        
+        private final BlockingQueue<Ticket> queue = new ArrayBlockingQueue<>(capacity);
+        private final Thread worker;
+        // Seeds the Retry-After estimate / Base della stima di Retry-After
+        private volatile long lastBatchMillis = 100;
+        
+        private Partition(int index) {
+            worker = new Thread(() -> process(this), "enrollment-pipeline-" + index);
+            worker.setDaemon(true);
+        }
+    }
+    
+    /**
+     * An accepted enrollment and its outcome
+     * Un'iscrizione accettata e il suo esito
+     */
+    private static final class Ticket {
+        
+        private final String id;
+        private final EnrollmentDTO request;
+        private final LocalDateTime dataOraRichiesta;
+        private volatile String status = EnrollmentTicketDTO.STATUS_QUEUED;
+        private volatile BatchEnrollmentResultDTO risultato;
+        private volatile String message;
+        private volatile LocalDateTime finishedAt;
+        
+        private Ticket(String id, EnrollmentDTO request, LocalDateTime dataOraRichiesta) {
+            this.id = id;
+            this.request = request;
+            this.dataOraRichiesta = dataOraRichiesta;
+        }
+        
+        private EnrollmentTicketDTO toDTO() {
+            EnrollmentTicketDTO dto = new EnrollmentTicketDTO(id, request.getCorsoId(), status, dataOraRichiesta);
+            dto.setRisultato(risultato);
+            dto.setMessage(message);
+            return dto;
+        }
+    }
+}
@@ -1,22 +1,58 @@
 package com.esame.service;
 
+import com.esame.dto.CourseCursor;
 import com.esame.dto.CourseDTO;
+import com.esame.dto.CourseFacetsDTO;
+import com.esame.dto.CourseFields;
+import com.esame.dto.CourseFilter;
+import com.esame.dto.CourseSearchHitDTO;
+import com.esame.dto.CourseSuggestionDTO;
 import com.esame.dto.PagedResponse;
 import com.esame.exception.BusinessLogicException;
 import com.esame.exception.ResourceNotFoundException;
 import com.esame.mapper.CourseMapper;
 import com.esame.model.Corso;
 import com.esame.repository.CorsoRepository;
+import com.esame.repository.CourseCard;
+import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.CorsoSpecifications;
+import com.esame.repository.index.CourseChangedEvent;
+import com.esame.repository.index.CourseFacetIndex;
+import com.esame.repository.index.CourseRangeIndex;
+import com.esame.repository.index.CourseSearchIndex;
+import com.esame.repository.index.CourseSuggestIndex;
+import com.esame.repository.index.TrigramSearchIndex;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Course Service
@@ -35,6 +71,46 @@ public class CourseService {
     @Autowired
     private CourseMapper courseMapper;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private CourseFacetIndex courseFacetIndex;
+    
+    @Autowired
+    private CourseRangeIndex courseRangeIndex;
+    
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+    
+    @Autowired
+    private CourseSuggestIndex courseSuggestIndex;
+    
+    @Autowired
+    private TrigramSearchIndex trigramSearchIndex;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    // Facet bucket lower bounds / Limiti inferiori delle fasce facet
+    private static final double[] PRICE_BUCKETS = {0, 50, 100, 250, 500, 1000};
+    private static final double[] DURATION_BUCKETS = {0, 8, 16, 40, 80};
+    
+    // Search result limits / Limiti risultati ricerca
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+    
+    // Short-lived cache of filtered counts / Cache di breve durata dei conteggi filtrati
+    private static final long COUNT_CACHE_TTL_MS = 30_000;
+    private static final int COUNT_CACHE_MAX_ENTRIES = 1_000;
+    private final Map<String, CachedCount> countCache = new ConcurrentHashMap<>();
+    
     /**
      * Get all courses with optional filtering and pagination
      * Recupera tutti i corsi con filtri opzionali e paginazione
@@ -54,6 +130,22 @@ public class CourseService {
             int page, int size, String sortBy, String sortDir,
             String titolo, String luogo, String docente, String categoria, 
             Boolean disponibili) {
+        return getAllCourses(page, size, sortBy, sortDir, titolo, luogo, docente, categoria, disponibili, null);
+    }
+    
+    /**
+     * Get all courses with optional filters, pagination and sparse fieldset
+     * Recupera tutti i corsi con filtri opzionali, paginazione e insieme ridotto di campi
+     * 
+     * @param fields Requested fields, null for all / Campi richiesti, null per tutti
+     * @return Paged response with courses / Risposta paginata con corsi
+     * @see #getAllCourses(int, int, String, String, String, String, String, String, Boolean)
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<CourseDTO> getAllCourses(
+            int page, int size, String sortBy, String sortDir,
+            String titolo, String luogo, String docente, String categoria, 
+            Boolean disponibili, CourseFields fields) {
         
         // Create sort object / Crea oggetto ordinamento
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
@@ -62,18 +154,473 @@ public class CourseService {
         // Create pageable object / Crea oggetto paginabile
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        // Get courses from repository / Recupera corsi dal repository
-        Page<Corso> coursePage = corsoRepository.findAll(pageable);
+        // Get filtered courses from repository / Recupera corsi filtrati dal repository
+        CourseFilter filter = buildFilter(titolo, luogo, docente, categoria, disponibili);
+        Specification<Corso> spec = CorsoSpecifications.withFilter(filter);
+        List<CourseDTO> courseDTOs;
+        long total;
         
-        // Convert to DTOs / Converte in DTO
-        List<CourseDTO> courseDTOs = courseMapper.toDTOList(coursePage.getContent());
+        if (fields != null && !fields.needsDetail()) {
+            // Card projection: no TEXT columns, no managed entities / Proiezione scheda: niente colonne TEXT né entità gestite
+            courseDTOs = courseMapper.toCardDTOList(corsoRepository.findCards(spec, sort, pageable.getOffset(), size));
+            total = corsoRepository.count(spec);
+        } else {
+            Page<Corso> coursePage = corsoRepository.findAll(spec, pageable);
+            
+            // Convert to DTOs / Converte in DTO
+            courseDTOs = toDTOs(coursePage.getContent());
+            total = coursePage.getTotalElements();
+        }
         
         // Create paging info / Crea informazioni paginazione
-        PagedResponse.PagingInfo pagingInfo = new PagedResponse.PagingInfo(
-            page, size, coursePage.getTotalElements()
-        );
+        PagedResponse.PagingInfo pagingInfo = new PagedResponse.PagingInfo(page, size, total);
+        
+        return PagedResponse.success(select(courseDTOs, fields), pagingInfo);
+    }
+    
+    /**
+     * Get courses with keyset (seek) pagination
+     * Recupera corsi con paginazione keyset (seek)
+     * 
+     * Each page is a single indexed query on (sortField, corsoId) that starts after the
+     * previous page, so its cost does not grow with depth. The total count is optional
+     * and served from a short-lived cache.
+     * Ogni pagina è una singola query indicizzata su (campoOrdinamento, corsoId) che parte
+     * dopo la pagina precedente, quindi il costo non cresce con la profondità. Il conteggio
+     * totale è opzionale e servito da una cache di breve durata.
+     * 
+     * @param cursor Continuation token, null for the first page / Token di continuazione, null per la prima pagina
+     * @param size Page size / Dimensione pagina
+     * @param sortBy Sort field / Campo ordinamento
+     * @param sortDir Sort direction / Direzione ordinamento
+     * @param filter Course filter / Filtro corsi
+     * @param includeTotal Include total count / Includi conteggio totale
+     * @return Paged response with continuation token / Risposta paginata con token di continuazione
+     * @throws BusinessLogicException if sort field or cursor are invalid / se campo ordinamento o cursore non validi
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<CourseDTO> getCoursesByCursor(
+            String cursor, int size, String sortBy, String sortDir,
+            CourseFilter filter, boolean includeTotal) {
+        return getCoursesByCursor(cursor, size, sortBy, sortDir, filter, includeTotal, null);
+    }
+    
+    /**
+     * Get courses with keyset (seek) pagination and sparse fieldset
+     * Recupera corsi con paginazione keyset (seek) e insieme ridotto di campi
+     * 
+     * @param fields Requested fields, null for all / Campi richiesti, null per tutti
+     * @return Paged response with continuation token / Risposta paginata con token di continuazione
+     * @see #getCoursesByCursor(String, int, String, String, CourseFilter, boolean)
+     */
+    @Transactional(readOnly = true)
+    public PagedResponse<CourseDTO> getCoursesByCursor(
+            String cursor, int size, String sortBy, String sortDir,
+            CourseFilter filter, boolean includeTotal, CourseFields fields) {
+        
+        if (size < 1) {
+            throw new BusinessLogicException(
+                "INVALID_PAGE_SIZE", 
+                "Page size must be at least 1 / La dimensione pagina deve essere almeno 1",
+                "size"
+            );
+        }
+        
+        CourseCursor position = null;
+        String sortField = sortBy;
+        boolean descending = sortDir.equalsIgnoreCase("desc");
+        
+        // Cursor carries its own sort key / Il cursore contiene la propria chiave di ordinamento
+        if (cursor != null && !cursor.isBlank()) {
+            position = CourseCursor.decode(cursor);
+            sortField = position.getSortField();
+            descending = position.isDescending();
+        }
+        
+        if (!CourseCursor.SORTABLE_FIELDS.contains(sortField)) {
+            throw new BusinessLogicException(
+                "INVALID_SORT_FIELD", 
+                "Cursor pagination supports sorting by " + CourseCursor.SORTABLE_FIELDS + " / La paginazione a cursore supporta l'ordinamento per " + CourseCursor.SORTABLE_FIELDS,
+                "sortBy"
+            );
+        }
+        
+        // Sort on (sortField, corsoId) so the key is unique / Ordina su (campoOrdinamento, corsoId) per chiave univoca
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = "corsoId".equals(sortField) ? 
+            Sort.by(direction, "corsoId") : Sort.by(direction, sortField).and(Sort.by(direction, "corsoId"));
+        
+        Specification<Corso> spec = CorsoSpecifications.withFilter(filter);
+        if (position != null) {
+            spec = spec.and(CorsoSpecifications.after(position));
+        }
+        
+        // Fetch one extra row to know if there is a next page / Recupera una riga in più per sapere se esiste una pagina successiva
+        List<CourseDTO> rows;
+        if (fields != null && !fields.needsDetail()) {
+            rows = courseMapper.toCardDTOList(corsoRepository.findCards(spec, sort, 0, size + 1));
+        } else {
+            rows = toDTOs(corsoRepository.findBy(spec, q -> q.sortBy(sort).limit(size + 1).all()));
+        }
+        
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = CourseCursor.after(rows.get(size - 1), sortField, descending).encode();
+        }
+        
+        Long total = includeTotal ? countCourses(filter) : null;
+        
+        return PagedResponse.success(select(rows, fields), new PagedResponse.CursorInfo(size, nextCursor, total));
+    }
+    
+    /**
+     * Drop the cached counts after any committed course change, enrollments included
+     * Scarta i conteggi in cache dopo ogni modifica confermata di un corso, iscrizioni incluse
+     * 
+     * Seat changes are published by the enrollment paths too, so filters such as
+     * disponibili never report a count older than the last committed write.
+     * Le variazioni di posti sono pubblicate anche dai percorsi di iscrizione, così filtri
+     * come disponibili non riportano mai un conteggio precedente all'ultima scrittura confermata.
+     * 
+     * @param event Course change / Modifica corso
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        countCache.clear();
+    }
+    
+    /**
+     * Count courses matching a filter, cached for a short time
+     * Conta i corsi che corrispondono a un filtro, con cache di breve durata
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Number of matching courses / Numero di corsi corrispondenti
+     */
+    private long countCourses(CourseFilter filter) {
+        long now = System.currentTimeMillis();
+        String key = filter.cacheKey();
+        
+        CachedCount cached = countCache.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.value;
+        }
+        
+        if (countCache.size() >= COUNT_CACHE_MAX_ENTRIES) {
+            countCache.clear();
+        }
+        
+        long count = corsoRepository.count(CorsoSpecifications.withFilter(filter));
+        countCache.put(key, new CachedCount(count, now + COUNT_CACHE_TTL_MS));
+        return count;
+    }
+    
+    /**
+     * Get courses matching facet and range filters, served from the in-memory indexes when warm
+     * Recupera corsi che corrispondono a filtri facet e a intervallo, serviti dagli indici in memoria se pronti
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return List of courses ordered by ID / Lista corsi ordinata per ID
+     */
+    @Transactional(readOnly = true)
+    public List<CourseDTO> getCoursesInRange(CourseFilter filter) {
+        return toDTOs(findCourses(filter));
+    }
+    
+    /**
+     * Full-text search over title, teachers, program and general information
+     * Ricerca full-text su titolo, docenti, programma e informazioni generali
+     * 
+     * @param query Search text / Testo di ricerca
+     * @param limit Maximum number of results / Numero massimo di risultati
+     * @return Courses ranked by relevance with highlights / Corsi ordinati per rilevanza con evidenziazioni
+     * @throws BusinessLogicException if the query is empty or too long / se la query è vuota o troppo lunga
+     */
+    @Transactional(readOnly = true)
+    public List<CourseSearchHitDTO> searchCourses(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new BusinessLogicException(
+                "INVALID_QUERY", 
+                "Search query is required / La query di ricerca è obbligatoria",
+                "q"
+            );
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new BusinessLogicException(
+                "INVALID_QUERY", 
+                "Search query must not exceed " + MAX_QUERY_LENGTH + " characters / La query di ricerca non deve superare " + MAX_QUERY_LENGTH + " caratteri",
+                "q"
+            );
+        }
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        
+        // Index not built yet: plain title match / Indice non ancora costruito: corrispondenza semplice sul titolo
+        if (!courseSearchIndex.isWarm()) {
+            return toDTOs(corsoRepository.findByTitoloContainingIgnoreCase(query.trim()).stream()
+                    .limit(size)
+                    .collect(Collectors.toList()))
+                .stream()
+                .map(course -> new CourseSearchHitDTO(course, 0, null))
+                .collect(Collectors.toList());
+        }
+        
+        List<CourseSearchIndex.Hit> hits = courseSearchIndex.search(query, size);
+        Map<Long, Corso> corsi = corsoRepository.findAllById(
+                hits.stream().map(CourseSearchIndex.Hit::getCorsoId).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Corso::getCorsoId, Function.identity()));
+        
+        Map<Long, Integer> iscrizioniCounts = countEnrollments(corsi.values());
+        
+        // Keep relevance order / Mantiene l'ordine di rilevanza
+        List<CourseSearchHitDTO> results = new ArrayList<>(hits.size());
+        for (CourseSearchIndex.Hit hit : hits) {
+            Corso corso = corsi.get(hit.getCorsoId());
+            if (corso != null) {
+                CourseDTO course = courseMapper.toDTO(corso, iscrizioniCounts.getOrDefault(corso.getCorsoId(), 0));
+                results.add(new CourseSearchHitDTO(course, hit.getScore(), hit.getHighlights()));
+            }
+        }
+        return results;
+    }
+    
+    /**
+     * Autocomplete titles, locations, teachers and categories, most enrolled first
+     * Completamento automatico di titoli, luoghi, docenti e categorie, i più frequentati per primi
+     * 
+     * @param prefix Typed text / Testo digitato
+     * @param limit Maximum number of suggestions / Numero massimo di suggerimenti
+     * @return Suggestions / Suggerimenti
+     */
+    public List<CourseSuggestionDTO> suggestCourses(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || prefix.length() > MAX_QUERY_LENGTH) {
+            return new ArrayList<>();
+        }
+        int size = Math.max(1, Math.min(limit, CourseSuggestIndex.MAX_SUGGESTIONS));
+        return courseSuggestIndex.suggest(prefix, size).stream()
+            .map(s -> new CourseSuggestionDTO(s.getText(), s.getField(), s.getWeight(), s.getCourseCount()))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Find course entities for a filter, using the indexes when they can answer it
+     * Trova le entità corso per un filtro, usando gli indici quando possono rispondere
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Matching courses / Corsi corrispondenti
+     */
+    public List<Corso> findCourses(CourseFilter filter) {
+        long[] ids = findIndexedCourseIds(filter);
+        if (ids == null) {
+            // All filters run as a single SQL query / Tutti i filtri eseguiti in una singola query SQL
+            return corsoRepository.findAll(CorsoSpecifications.withFilter(filter));
+        }
+        return loadCourses(ids);
+    }
+    
+    /**
+     * Find course cards for a filter, without reading TEXT columns
+     * Trova schede corso per un filtro, senza leggere colonne TEXT
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Matching course cards / Schede corso corrispondenti
+     */
+    public List<CourseCard> findCourseCards(CourseFilter filter) {
+        long[] ids = findIndexedCourseIds(filter);
+        if (ids == null) {
+            return corsoRepository.findCards(CorsoSpecifications.withFilter(filter), Sort.by("corsoId"), 0, 0);
+        }
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        return corsoRepository.findCardsByIdIn(boxed);
+    }
+    
+    /**
+     * Convert course cards to DTOs restricted to a fieldset
+     * Converte schede corso in DTO ristretti a un insieme di campi
+     * 
+     * @param cards Course cards / Schede corso
+     * @param fields Requested fields, null for all / Campi richiesti, null per tutti
+     * @return Course DTOs / DTO corsi
+     */
+    public List<CourseDTO> toCardDTOs(List<CourseCard> cards, CourseFields fields) {
+        return select(courseMapper.toCardDTOList(cards), fields);
+    }
+    
+    /**
+     * Find courses for a filter as DTOs restricted to a fieldset
+     * Trova i corsi per un filtro come DTO ristretti a un insieme di campi
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @param fields Requested fields, null for all / Campi richiesti, null per tutti
+     * @return Course DTOs / DTO corsi
+     */
+    @Transactional(readOnly = true)
+    public List<CourseDTO> findCourseDTOs(CourseFilter filter, CourseFields fields) {
+        if (fields != null && !fields.needsDetail()) {
+            return toCardDTOs(findCourseCards(filter), fields);
+        }
+        return select(toDTOs(findCourses(filter)), fields);
+    }
+    
+    /**
+     * Write all course cards as a JSON array, one row at a time
+     * Scrive tutte le schede corso come array JSON, una riga alla volta
+     * 
+     * @param out Response stream, left open / Stream di risposta, lasciato aperto
+     * @return Number of courses written / Numero di corsi scritti
+     * @throws IOException if the client stream fails / se lo stream del client fallisce
+     */
+    @Transactional(readOnly = true)
+    public long exportCourses(OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<CourseCard> rows = corsoRepository.streamCards();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            
+            Iterator<CourseCard> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(courseMapper.toDTO(iterator.next()));
+                written++;
+            }
+            
+            generator.writeEndArray();
+        }
+        return written;
+    }
+    
+    /**
+     * Facet histograms over a filtered result set, computed in a single pass
+     * Istogrammi facet su un insieme di risultati filtrato, calcolati in un solo passaggio
+     * 
+     * Categories, levels and cities are ordered by count, price and duration buckets by
+     * bound (empty buckets included) and start months chronologically.
+     * Categorie, livelli e città sono ordinati per conteggio, le fasce di prezzo e durata
+     * per limite (incluse quelle vuote) e i mesi di inizio cronologicamente.
+     * 
+     * @param corsi Filtered courses / Corsi filtrati
+     * @return Facet counts / Conteggi facet
+     */
+    public CourseFacetsDTO computeFacets(List<Corso> corsi) {
+        return computeCardFacets(corsi.stream().map(CourseCard::of).collect(Collectors.toList()));
+    }
+    
+    /**
+     * Facet histograms over filtered course cards, computed in a single pass
+     * Istogrammi facet su schede corso filtrate, calcolati in un solo passaggio
+     * 
+     * @param cards Filtered course cards / Schede corso filtrate
+     * @return Facet counts / Conteggi facet
+     */
+    public CourseFacetsDTO computeCardFacets(List<CourseCard> cards) {
+        Map<String, Long> categorie = new HashMap<>();
+        Map<String, Long> livelli = new HashMap<>();
+        Map<String, Long> citta = new HashMap<>();
+        long[] prezzi = new long[PRICE_BUCKETS.length];
+        long[] durate = new long[DURATION_BUCKETS.length];
+        Map<String, Long> mesi = new TreeMap<>();
+        
+        for (CourseCard card : cards) {
+            increment(categorie, card.categoria());
+            increment(livelli, card.livello());
+            increment(citta, cityOf(card.luogo()));
+            if (card.prezzo() != null) {
+                prezzi[bucketOf(PRICE_BUCKETS, card.prezzo())]++;
+            }
+            if (card.durataOre() != null) {
+                durate[bucketOf(DURATION_BUCKETS, card.durataOre())]++;
+            }
+            if (card.dataOraInizio() != null) {
+                increment(mesi, YearMonth.from(card.dataOraInizio()).toString());
+            }
+        }
+        
+        CourseFacetsDTO facets = new CourseFacetsDTO();
+        facets.setCategorie(byCount(categorie));
+        facets.setLivelli(byCount(livelli));
+        facets.setCitta(byCount(citta));
+        facets.setPrezzi(bucketLabels(PRICE_BUCKETS, prezzi));
+        facets.setDurate(bucketLabels(DURATION_BUCKETS, durate));
+        facets.setMesiInizio(new LinkedHashMap<>(mesi));
+        return facets;
+    }
+    
+    /**
+     * Count all courses, from the index when warm
+     * Conta tutti i corsi, dall'indice se pronto
+     * 
+     * @return Number of courses / Numero di corsi
+     */
+    public long countAllCourses() {
+        return courseFacetIndex.isWarm() ? courseFacetIndex.size() : corsoRepository.count();
+    }
+    
+    /**
+     * Resolve facet, range and location filters on the in-memory indexes
+     * Risolve i filtri facet, a intervallo e luogo sugli indici in memoria
+     * 
+     * Title and teacher filters always go to the database.
+     * I filtri su titolo e docente vanno sempre al database.
+     * 
+     * @param filter Course filter / Filtro corsi
+     * @return Matching IDs in ascending order, or null if the database must be queried / ID corrispondenti in ordine crescente, o null se va interrogato il database
+     */
+    private long[] findIndexedCourseIds(CourseFilter filter) {
+        if (filter.isEmpty() || filter.getTitolo() != null || filter.getDocente() != null
+            || (filter.getLuogo() != null && !trigramSearchIndex.isWarm())
+            || (filter.hasFacetFilters() && !courseFacetIndex.isWarm())
+            || (filter.hasRangeFilters() && !courseRangeIndex.isWarm())) {
+            return null;
+        }
         
-        return PagedResponse.success(courseDTOs, pagingInfo);
+        long[] ids = null;
+        if (filter.getLuogo() != null) {
+            ids = trigramSearchIndex.findCourseIdsByLuogo(filter.getLuogo());
+        }
+        if (filter.hasFacetFilters()) {
+            ids = CourseRangeIndex.intersect(ids, courseFacetIndex.findCourseIds(filter));
+        }
+        if (filter.hasRangeFilters()) {
+            ids = CourseRangeIndex.intersect(ids, courseRangeIndex.findCourseIds(filter));
+        }
+        return ids;
+    }
+    
+    /**
+     * Load courses by ID, keeping ascending ID order
+     * Carica corsi per ID, mantenendo l'ordine crescente degli ID
+     */
+    private List<Corso> loadCourses(long[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        List<Corso> corsi = corsoRepository.findAllById(boxed);
+        corsi.sort(Comparator.comparing(Corso::getCorsoId));
+        return corsi;
+    }
+    
+    /**
+     * Build filter from the legacy request parameters
+     * Costruisce filtro dai parametri di richiesta esistenti
+     */
+    private CourseFilter buildFilter(String titolo, String luogo, String docente, String categoria, Boolean disponibili) {
+        CourseFilter filter = new CourseFilter();
+        filter.setTitolo(titolo);
+        filter.setLuogo(luogo);
+        filter.setDocente(docente);
+        filter.setCategoria(categoria);
+        filter.setDisponibili(Boolean.TRUE.equals(disponibili));
+        return filter;
     }
     
     /**
@@ -88,7 +635,7 @@ public class CourseService {
         Corso corso = corsoRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Course", "id", id));
         
-        return courseMapper.toDTO(corso);
+        return toDTO(corso);
     }
     
     /**
@@ -117,8 +664,9 @@ public class CourseService {
         
         // Save course / Salva corso
         Corso savedCorso = corsoRepository.save(corso);
+        eventPublisher.publishEvent(CourseChangedEvent.saved(savedCorso));
         
-        return courseMapper.toDTO(savedCorso);
+        return toDTO(savedCorso);
     }
     
     /**
@@ -153,8 +701,9 @@ public class CourseService {
         
         // Save updated course / Salva corso aggiornato
         Corso savedCorso = corsoRepository.save(updatedCorso);
+        eventPublisher.publishEvent(CourseChangedEvent.saved(savedCorso));
         
-        return courseMapper.toDTO(savedCorso);
+        return toDTO(savedCorso);
     }
     
     /**
@@ -171,7 +720,7 @@ public class CourseService {
             .orElseThrow(() -> new ResourceNotFoundException("Course", "id", id));
         
         // Check if course has enrollments / Controlla se corso ha iscrizioni
-        if (corso.getIscrizioni() != null && !corso.getIscrizioni().isEmpty()) {
+        if (iscrizioneRepository.existsByCorsoId(id)) {
             throw new BusinessLogicException(
                 "COURSE_HAS_ENROLLMENTS", 
                 "Cannot delete course with existing enrollments / Impossibile eliminare corso con iscrizioni esistenti"
@@ -180,6 +729,38 @@ public class CourseService {
         
         // Delete course / Elimina corso
         corsoRepository.deleteById(id);
+        eventPublisher.publishEvent(CourseChangedEvent.deleted(id));
+    }
+    
+    /**
+     * Switch a course in or out of high-demand (flash-sale) enrollment mode
+     * Attiva o disattiva la modalità iscrizione ad alta domanda (flash sale) di un corso
+     * 
+     * Runs outside a transaction: the in-memory inventory is seeded from committed seats when
+     * enabling, and pending admissions are written before the flag is cleared when disabling.
+     * Eseguito fuori transazione: l'inventario in memoria parte dai posti confermati in
+     * attivazione, e le ammissioni in attesa sono scritte prima di azzerare il flag in disattivazione.
+     * 
+     * @param id Course ID / ID del corso
+     * @param enabled New mode / Nuova modalità
+     * @return Updated course DTO / DTO corso aggiornato
+     * @throws ResourceNotFoundException if course not found / se corso non trovato
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CourseDTO setHighDemand(Long id, boolean enabled) {
+        if (!enabled) {
+            seatInventory.disable(id);
+        }
+        Corso corso = corsoRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Course", "id", id));
+        corso.setAltaDomanda(enabled);
+        Corso savedCorso = corsoRepository.save(corso);
+        if (enabled) {
+            seatInventory.enable(corsoRepository.findById(id).orElse(savedCorso));
+        }
+        eventPublisher.publishEvent(CourseChangedEvent.saved(savedCorso));
+        
+        return toDTO(savedCorso);
     }
     
     /**
@@ -192,9 +773,17 @@ public class CourseService {
     public List<CourseDTO> getUpcomingCourses(LocalDateTime startDate) {
         LocalDateTime filterDate = startDate != null ? startDate : LocalDateTime.now();
         
-        List<Corso> corsi = corsoRepository.findAvailableCoursesStartingAfter(filterDate);
+        List<Corso> corsi;
+        if (courseFacetIndex.isWarm() && courseRangeIndex.isWarm()) {
+            CourseFilter available = new CourseFilter();
+            available.setDisponibili(true);
+            corsi = loadCourses(CourseRangeIndex.intersect(
+                courseFacetIndex.findCourseIds(available), courseRangeIndex.findStartingFrom(filterDate)));
+        } else {
+            corsi = corsoRepository.findAvailableCoursesStartingAfter(filterDate);
+        }
         
-        return courseMapper.toDTOList(corsi);
+        return toDTOs(corsi);
     }
     
     /**
@@ -207,7 +796,7 @@ public class CourseService {
     public List<CourseDTO> getCoursesByCategory(String categoria) {
         List<Corso> corsi = corsoRepository.findByCategoria(categoria);
         
-        return courseMapper.toDTOList(corsi);
+        return toDTOs(corsi);
     }
     
     /**
@@ -219,7 +808,7 @@ public class CourseService {
     public List<CourseDTO> getAvailableCourses() {
         List<Corso> corsi = corsoRepository.findByDisponibilitaGreaterThan(0);
         
-        return courseMapper.toDTOList(corsi);
+        return toDTOs(corsi);
     }
     
     /**
@@ -263,4 +852,87 @@ public class CourseService {
             );
         }
     }
+    
+    /**
+     * Convert courses to DTOs, counting their enrollments with one grouped query
+     * Converte i corsi in DTO, contando le iscrizioni con una sola query raggruppata
+     */
+    private List<CourseDTO> toDTOs(List<Corso> corsi) {
+        return courseMapper.toDTOList(corsi, countEnrollments(corsi));
+    }
+    
+    private CourseDTO toDTO(Corso corso) {
+        return courseMapper.toDTO(corso, iscrizioneRepository.countByCorsoId(corso.getCorsoId()).intValue());
+    }
+    
+    private Map<Long, Integer> countEnrollments(Collection<Corso> corsi) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (corsi.isEmpty()) {
+            return counts;
+        }
+        List<Long> ids = corsi.stream().map(Corso::getCorsoId).collect(Collectors.toList());
+        for (Object[] row : iscrizioneRepository.countGroupedByCorsoIdIn(ids)) {
+            counts.put((Long) row[0], ((Long) row[1]).intValue());
+        }
+        return counts;
+    }
+    
+    private static List<CourseDTO> select(List<CourseDTO> courses, CourseFields fields) {
+        return fields != null ? fields.apply(courses) : courses;
+    }
+    
+    // City is the last comma-separated part of the location / La città è l'ultima parte del luogo separata da virgola
+    private static String cityOf(String luogo) {
+        if (luogo == null || luogo.isBlank()) {
+            return null;
+        }
+        return luogo.substring(luogo.lastIndexOf(',') + 1).trim();
+    }
+    
+    private static void increment(Map<String, Long> counts, String key) {
+        if (key != null && !key.isBlank()) {
+            counts.merge(key.trim(), 1L, Long::sum);
+        }
+    }
+    
+    private static int bucketOf(double[] bounds, double value) {
+        int bucket = 0;
+        while (bucket + 1 < bounds.length && value >= bounds[bucket + 1]) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    private static Map<String, Long> bucketLabels(double[] bounds, long[] counts) {
+        Map<String, Long> labelled = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.length; i++) {
+            String label = i + 1 < bounds.length
+                ? (long) bounds[i] + "-" + (long) bounds[i + 1]
+                : (long) bounds[i] + "+";
+            labelled.put(label, counts[i]);
+        }
+        return labelled;
+    }
+    
+    private static Map<String, Long> byCount(Map<String, Long> counts) {
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+        return sorted;
+    }
+    
+    /**
+     * Cached count entry
+     * Voce di conteggio in cache
+     */
+    private static class CachedCount {
+        private final long value;
+        private final long expiresAt;
+        
+        CachedCount(long value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
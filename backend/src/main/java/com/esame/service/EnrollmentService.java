@@ -1,5 +1,6 @@
 package com.esame.service;
 
+import com.esame.dto.BatchEnrollmentResultDTO;
 import com.esame.dto.EnrollmentDTO;
 import com.esame.exception.BusinessLogicException;
 import com.esame.exception.ResourceNotFoundException;
@@ -8,12 +9,29 @@ import com.esame.model.Corso;
 import com.esame.model.Iscrizione;
 import com.esame.repository.CorsoRepository;
 import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.index.CourseChangedEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Enrollment Service
@@ -35,6 +53,24 @@ public class EnrollmentService {
     @Autowired
     private EnrollmentMapper enrollmentMapper;
     
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Rows written between explicit flushes of the export stream / Righe scritte tra due flush dello stream di export
+    private static final int EXPORT_FLUSH_ROWS = 500;
+    
     /**
      * Get all enrollments
      * Recupera tutte le iscrizioni
@@ -54,6 +90,43 @@ public class EnrollmentService {
         return enrollmentMapper.toDTOList(iscrizioni);
     }
     
+    /**
+     * Write all enrollments as a JSON array, one row at a time
+     * Scrive tutte le iscrizioni come array JSON, una riga alla volta
+     * 
+     * Rows come from a database cursor and each entity is detached once serialized, so memory
+     * stays constant whatever the number of enrollments.
+     * Le righe arrivano da un cursore del database e ogni entità viene scollegata dopo la
+     * serializzazione, quindi la memoria resta costante qualunque sia il numero di iscrizioni.
+     * 
+     * @param corsoId Optional course ID filter / Filtro opzionale per ID corso
+     * @param out Response stream, left open / Stream di risposta, lasciato aperto
+     * @return Number of enrollments written / Numero di iscrizioni scritte
+     * @throws IOException if the client stream fails / se lo stream del client fallisce
+     */
+    @Transactional(readOnly = true)
+    public long exportEnrollments(Long corsoId, OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<Iscrizione> rows = iscrizioneRepository.streamForExport(corsoId);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            
+            Iterator<Iscrizione> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Iscrizione iscrizione = iterator.next();
+                generator.writeObject(enrollmentMapper.toDTO(iscrizione));
+                entityManager.detach(iscrizione);
+                if (++written % EXPORT_FLUSH_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+            
+            generator.writeEndArray();
+        }
+        return written;
+    }
+    
     /**
      * Get enrollment by ID
      * Recupera iscrizione per ID
@@ -74,7 +147,7 @@ public class EnrollmentService {
      * Crea nuova iscrizione
      * 
      * @param enrollmentDTO Enrollment data / Dati dell'iscrizione
-     * @return Created enrollment DTO / DTO iscrizione creata
+     * @return Created enrollment DTO, or WAITLISTED if the course is full / DTO iscrizione creata, o WAITLISTED se il corso è completo
      * @throws ResourceNotFoundException if course not found / se corso non trovato
      * @throws BusinessLogicException if enrollment not possible / se iscrizione non possibile
      */
@@ -82,48 +155,207 @@ public class EnrollmentService {
         // Validate enrollment data / Valida dati iscrizione
         validateEnrollmentData(enrollmentDTO);
         
-        // Get course / Recupera corso
-        Corso corso = corsoRepository.findById(enrollmentDTO.getCorsoId())
-            .orElseThrow(() -> new ResourceNotFoundException("Course", "id", enrollmentDTO.getCorsoId()));
+        // High-demand courses are admitted in memory / I corsi ad alta domanda sono ammessi in memoria
+        EnrollmentDTO pending = seatInventory.tryAdmit(enrollmentDTO);
+        if (pending != null) {
+            return pending;
+        }
+        
+        Iscrizione iscrizione = prepareEnrollment(enrollmentDTO);
+        
+        try {
+            return enrollmentMapper.toDTO(reserveSeatAndSave(iscrizione));
+        } catch (BusinessLogicException e) {
+            if (!"COURSE_FULL".equals(e.getErrorCode())) {
+                throw e;
+            }
+            // Full: queue instead of rejecting / Completo: accoda invece di rifiutare
+            return waitlistService.enqueue(enrollmentDTO);
+        }
+    }
+    
+    /**
+     * Create an enrollment on a seat the caller already holds
+     * Crea un'iscrizione su un posto già riservato dal chiamante
+     * 
+     * @param enrollmentDTO Enrollment data / Dati dell'iscrizione
+     * @return Created enrollment DTO / DTO iscrizione creata
+     * @throws ResourceNotFoundException if course not found / se corso non trovato
+     * @throws BusinessLogicException if enrollment not possible / se iscrizione non possibile
+     */
+    public EnrollmentDTO createEnrollmentOnHeldSeat(EnrollmentDTO enrollmentDTO) {
+        validateEnrollmentData(enrollmentDTO);
+        Iscrizione iscrizione = prepareEnrollment(enrollmentDTO);
+        if (!iscrizioneRepository.insertIfAbsent(iscrizione)) {
+            throw alreadyEnrolled();
+        }
+        return enrollmentMapper.toDTO(iscrizione);
+    }
+    
+    /**
+     * Enroll many participants, for one or more courses, in one transaction
+     * Iscrive molti partecipanti, per uno o più corsi, in una transazione
+     * 
+     * Courses are loaded and already-enrolled participants found with one query each, the
+     * seats of every course are taken with a single conditional UPDATE, and the rows are
+     * inserted in JDBC batches. Rows beyond the free seats go to the waitlist; invalid rows
+     * are rejected without affecting the others.
+     * Corsi e partecipanti già iscritti sono recuperati con una query ciascuno, i posti di ogni
+     * corso sono occupati con un singolo UPDATE condizionale e le righe sono inserite in batch
+     * JDBC. Le righe oltre i posti liberi vanno in lista d'attesa; le righe non valide sono
+     * rifiutate senza influire sulle altre.
+     * 
+     * @param enrollments Enrollment rows / Righe di iscrizione
+     * @return One result per row, in request order / Un esito per riga, nell'ordine della richiesta
+     */
+    public List<BatchEnrollmentResultDTO> createEnrollments(List<EnrollmentDTO> enrollments) {
+        BatchEnrollmentResultDTO[] results = new BatchEnrollmentResultDTO[enrollments.size()];
+        
+        // Validate and group rows by course / Valida e raggruppa le righe per corso
+        Map<Long, List<Integer>> rowsByCourse = new LinkedHashMap<>();
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < enrollments.size(); i++) {
+            EnrollmentDTO enrollmentDTO = enrollments.get(i);
+            try {
+                validateEnrollmentData(enrollmentDTO);
+            } catch (BusinessLogicException e) {
+                results[i] = BatchEnrollmentResultDTO.rejected(i, e);
+                continue;
+            }
+            rowsByCourse.computeIfAbsent(enrollmentDTO.getCorsoId(), id -> new ArrayList<>()).add(i);
+            emails.add(Iscrizione.normalizeEmail(enrollmentDTO.getPartecipanteEmail()));
+        }
+        if (rowsByCourse.isEmpty()) {
+            return Arrays.asList(results);
+        }
+        
+        Map<Long, Corso> courses = new HashMap<>();
+        for (Corso corso : corsoRepository.findAllById(rowsByCourse.keySet())) {
+            courses.put(corso.getCorsoId(), corso);
+        }
+        // Already enrolled, then filled with the rows of this batch / Già iscritti, poi riempito con le righe di questo batch
+        Set<String> enrolled = new HashSet<>();
+        for (Object[] row : iscrizioneRepository.findEnrolledEmails(rowsByCourse.keySet(), emails)) {
+            enrolled.add(row[0] + ":" + row[1]);
+        }
         
-        // Check course availability / Controlla disponibilità corso
-        if (corso.getDisponibilita() <= 0) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Iscrizione> inserts = new ArrayList<>();
+        List<Integer> insertRows = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : rowsByCourse.entrySet()) {
+            Long corsoId = entry.getKey();
+            Corso corso = courses.get(corsoId);
+            List<Integer> accepted = new ArrayList<>();
+            for (int i : entry.getValue()) {
+                EnrollmentDTO enrollmentDTO = enrollments.get(i);
+                try {
+                    checkBatchRow(corso, corsoId, enrollmentDTO, enrolled, now);
+                    // High-demand courses are admitted in memory / I corsi ad alta domanda sono ammessi in memoria
+                    EnrollmentDTO pending = seatInventory.tryAdmit(enrollmentDTO);
+                    if (pending != null) {
+                        results[i] = new BatchEnrollmentResultDTO(i, SeatInventory.STATUS_PENDING, pending);
+                    } else {
+                        accepted.add(i);
+                    }
+                } catch (BusinessLogicException e) {
+                    results[i] = BatchEnrollmentResultDTO.rejected(i, e);
+                }
+            }
+            if (accepted.isEmpty()) {
+                continue;
+            }
+            
+            int seats = reserveBatchSeats(corso, accepted.size());
+            for (int k = 0; k < accepted.size(); k++) {
+                int i = accepted.get(k);
+                if (k < seats) {
+                    Iscrizione iscrizione = enrollmentMapper.toEntity(enrollments.get(i));
+                    iscrizione.setCorso(corso);
+                    iscrizione.setDataOraIscrizione(now);
+                    inserts.add(iscrizione);
+                    insertRows.add(i);
+                } else {
+                    // Full: queue instead of rejecting / Completo: accoda invece di rifiutare
+                    EnrollmentDTO waitlisted = waitlistService.enqueue(enrollments.get(i));
+                    results[i] = new BatchEnrollmentResultDTO(i, WaitlistService.STATUS_WAITLISTED, waitlisted);
+                }
+            }
+            if (seats > 0) {
+                publishSeatChange(corsoId);
+            }
+        }
+        
+        // Inserted in batches of hibernate.jdbc.batch_size; a concurrent duplicate fails on
+        // uk_iscrizioni_corso_email and rolls the batch back
+        // Inseriti in batch di hibernate.jdbc.batch_size; un duplicato concorrente fallisce su
+        // uk_iscrizioni_corso_email e annulla il batch
+        List<Iscrizione> saved = iscrizioneRepository.saveAll(inserts);
+        for (int k = 0; k < saved.size(); k++) {
+            int i = insertRows.get(k);
+            results[i] = new BatchEnrollmentResultDTO(i, BatchEnrollmentResultDTO.STATUS_CREATED, enrollmentMapper.toDTO(saved.get(k)));
+        }
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Save an enrollment after atomically reserving one seat of its course
+     * Salva un'iscrizione dopo aver riservato atomicamente un posto del corso
+     * 
+     * The seat is taken by a conditional UPDATE whose affected-row count decides the outcome,
+     * so concurrent requests never oversell and never overwrite each other's decrement. The row
+     * is then inserted only if the unique key on course and email is free: a duplicate costs no
+     * extra query, and the rollback gives its seat back.
+     * Il posto viene occupato da un UPDATE condizionale il cui numero di righe modificate decide
+     * l'esito, così le richieste concorrenti non vendono mai posti in più né si sovrascrivono. La
+     * riga viene poi inserita solo se la chiave unica su corso ed email è libera: un duplicato non
+     * costa query aggiuntive, e il rollback ne restituisce il posto.
+     * 
+     * @param iscrizione Enrollment to save / Iscrizione da salvare
+     * @return Saved enrollment / Iscrizione salvata
+     * @throws BusinessLogicException if no seat is left or the participant is already enrolled / se non restano posti o il partecipante è già iscritto
+     */
+    public Iscrizione reserveSeatAndSave(Iscrizione iscrizione) {
+        if (corsoRepository.reserveSeat(iscrizione.getCorsoId()) == 0) {
             throw new BusinessLogicException(
                 "COURSE_FULL", 
                 "Course is full / Il corso è completo"
             );
         }
         
-        // Check if participant is already enrolled / Controlla se partecipante è già iscritto
-        if (iscrizioneRepository.existsByCorsoIdAndPartecipanteEmail(
-            enrollmentDTO.getCorsoId(), enrollmentDTO.getPartecipanteEmail())) {
-            throw new BusinessLogicException(
-                "ALREADY_ENROLLED", 
-                "Participant is already enrolled in this course / Il partecipante è già iscritto a questo corso"
-            );
+        if (!iscrizioneRepository.insertIfAbsent(iscrizione)) {
+            throw alreadyEnrolled();
         }
-        
-        // Check if course has started / Controlla se corso è iniziato
-        if (corso.getDataOraInizio() != null && corso.getDataOraInizio().isBefore(LocalDateTime.now())) {
+        publishSeatChange(iscrizione.getCorsoId());
+        return iscrizione;
+    }
+    
+    /**
+     * Take one seat for a hold
+     * Occupa un posto per un blocco
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @throws BusinessLogicException if no seat is left / se non restano posti
+     */
+    public void reserveHeldSeat(Long corsoId) {
+        if (corsoRepository.reserveSeat(corsoId) == 0) {
             throw new BusinessLogicException(
-                "COURSE_STARTED", 
-                "Cannot enroll in a course that has already started / Impossibile iscriversi a un corso già iniziato"
+                "COURSE_FULL", 
+                "Course is full / Il corso è completo"
             );
         }
-        
-        // Create enrollment / Crea iscrizione
-        Iscrizione iscrizione = enrollmentMapper.toEntity(enrollmentDTO);
-        iscrizione.setCorso(corso);
-        iscrizione.setDataOraIscrizione(LocalDateTime.now());
-        
-        // Save enrollment / Salva iscrizione
-        Iscrizione savedIscrizione = iscrizioneRepository.save(iscrizione);
-        
-        // Update course availability / Aggiorna disponibilità corso
-        corso.setDisponibilita(corso.getDisponibilita() - 1);
-        corsoRepository.save(corso);
-        
-        return enrollmentMapper.toDTO(savedIscrizione);
+        publishSeatChange(corsoId);
+    }
+    
+    /**
+     * Free the seat of a cancelled or expired hold, first to the waitlist
+     * Libera il posto di un blocco annullato o scaduto, prima alla lista d'attesa
+     * 
+     * @param corsoId Course ID / ID del corso
+     */
+    public void releaseHeldSeat(Long corsoId) {
+        if (waitlistService.promoteNext(corsoId) == null && corsoRepository.releaseSeat(corsoId) > 0) {
+            publishSeatChange(corsoId);
+        }
     }
     
     /**
@@ -183,15 +415,19 @@ public class EnrollmentService {
             );
         }
         
-        // Update course availability / Aggiorna disponibilità corso
-        if (iscrizione.getCorso() != null) {
-            Corso corso = iscrizione.getCorso();
-            corso.setDisponibilita(corso.getDisponibilita() + 1);
-            corsoRepository.save(corso);
-        }
-        
         // Delete enrollment / Elimina iscrizione
         iscrizioneRepository.deleteById(id);
+        
+        // Hand the seat to the first waiting participant, otherwise give it back
+        // Passa il posto al primo partecipante in attesa, altrimenti lo restituisce
+        if (!seatInventory.isHighDemand(iscrizione.getCorsoId())
+            && waitlistService.promoteNext(iscrizione.getCorsoId()) != null) {
+            return;
+        }
+        if (corsoRepository.releaseSeat(iscrizione.getCorsoId()) > 0) {
+            seatInventory.release(iscrizione.getCorsoId(), iscrizione.getPartecipanteEmail());
+            publishSeatChange(iscrizione.getCorsoId());
+        }
     }
     
     /**
@@ -226,6 +462,80 @@ public class EnrollmentService {
         return enrollmentMapper.toDTOList(iscrizioni);
     }
     
+    /**
+     * Build an enrollment after the course and start-date checks; duplicates are caught on insert
+     * Costruisce un'iscrizione dopo i controlli su corso e data di inizio; i duplicati sono rilevati all'inserimento
+     */
+    private Iscrizione prepareEnrollment(EnrollmentDTO enrollmentDTO) {
+        // Get course / Recupera corso
+        Corso corso = corsoRepository.findById(enrollmentDTO.getCorsoId())
+            .orElseThrow(() -> new ResourceNotFoundException("Course", "id", enrollmentDTO.getCorsoId()));
+        
+        // Check if course has started / Controlla se corso è iniziato
+        if (corso.getDataOraInizio() != null && corso.getDataOraInizio().isBefore(LocalDateTime.now())) {
+            throw new BusinessLogicException(
+                "COURSE_STARTED", 
+                "Cannot enroll in a course that has already started / Impossibile iscriversi a un corso già iniziato"
+            );
+        }
+        
+        // Create enrollment / Crea iscrizione
+        Iscrizione iscrizione = enrollmentMapper.toEntity(enrollmentDTO);
+        iscrizione.setCorso(corso);
+        iscrizione.setDataOraIscrizione(LocalDateTime.now());
+        
+        return iscrizione;
+    }
+    
+    /**
+     * Course, start-date and duplicate checks of one bulk row
+     * Controlli su corso, data di inizio e duplicati di una riga massiva
+     */
+    private void checkBatchRow(Corso corso, Long corsoId, EnrollmentDTO enrollmentDTO, Set<String> enrolled, LocalDateTime now) {
+        if (corso == null) {
+            throw new BusinessLogicException(
+                "COURSE_NOT_FOUND", 
+                "Course not found / Corso non trovato: " + corsoId
+            );
+        }
+        if (corso.getDataOraInizio() != null && corso.getDataOraInizio().isBefore(now)) {
+            throw new BusinessLogicException(
+                "COURSE_STARTED", 
+                "Cannot enroll in a course that has already started / Impossibile iscriversi a un corso già iniziato"
+            );
+        }
+        if (!enrolled.add(corsoId + ":" + Iscrizione.normalizeEmail(enrollmentDTO.getPartecipanteEmail()))) {
+            throw alreadyEnrolled();
+        }
+    }
+    
+    private static BusinessLogicException alreadyEnrolled() {
+        return new BusinessLogicException(
+            "ALREADY_ENROLLED", 
+            "Participant is already enrolled in this course / Il partecipante è già iscritto a questo corso"
+        );
+    }
+    
+    /**
+     * Take up to the requested seats of a course with one conditional UPDATE
+     * Occupa fino ai posti richiesti di un corso con un UPDATE condizionale
+     * 
+     * A concurrent enrollment can make the UPDATE miss; the course is then reloaded and the
+     * attempt repeated with the seats still free.
+     * Un'iscrizione concorrente può far fallire l'UPDATE; il corso viene allora ricaricato e il
+     * tentativo ripetuto con i posti ancora liberi.
+     * 
+     * @return Seats taken / Posti occupati
+     */
+    private int reserveBatchSeats(Corso corso, int wanted) {
+        int seats = Math.min(wanted, corso.getDisponibilita() != null ? corso.getDisponibilita() : 0);
+        while (seats > 0 && corsoRepository.reserveSeats(corso.getCorsoId(), seats) == 0) {
+            entityManager.refresh(corso);
+            seats = Math.min(wanted, corso.getDisponibilita() != null ? corso.getDisponibilita() : 0);
+        }
+        return seats;
+    }
+    
     /**
      * Validate enrollment data
      * Valida dati iscrizione
@@ -272,4 +582,20 @@ public class EnrollmentService {
             );
         }
     }
+    
+    /**
+     * Notify the indexes of the seats left after a conditional UPDATE
+     * Notifica agli indici i posti rimasti dopo un UPDATE condizionale
+     * 
+     * Only disponibilita is read back: the row is still locked by the UPDATE, so the value is
+     * the one this transaction commits.
+     * Viene riletta solo disponibilita: la riga è ancora bloccata dall'UPDATE, quindi il valore
+     * è quello che questa transazione conferma.
+     */
+    private void publishSeatChange(Long corsoId) {
+        Integer disponibilita = corsoRepository.findDisponibilitaById(corsoId);
+        if (disponibilita != null) {
+            eventPublisher.publishEvent(CourseChangedEvent.seats(corsoId, disponibilita));
+        }
+    }
 }
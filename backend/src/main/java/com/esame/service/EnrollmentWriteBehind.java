@@ -0,0 +1,371 @@
+package com.esame.service;
+
+import com.esame.dto.EnrollmentDTO;
+import com.esame.model.Corso;
+import com.esame.model.Iscrizione;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.index.CourseChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Enrollment Write-Behind
+ * Write-Behind delle Iscrizioni
+ * 
+ * Background worker that writes admitted high-demand enrollments to the database in batches:
+ * one transaction per batch, one conditional seat UPDATE per course and batched inserts.
+ * Admissions that no longer find a seat are moved to the waitlist. A batch failing on an
+ * unavailable database is retried until it goes through; any other failure is retried a few
+ * times, then the batch is split in halves until the failing admissions are isolated and
+ * moved to the dead-letter file.
+ * Worker in background che scrive a blocchi nel database le iscrizioni ad alta domanda
+ * ammesse: una transazione per blocco, un UPDATE condizionale dei posti per corso e
+ * inserimenti raggruppati. Le ammissioni che non trovano più un posto passano alla lista
+ * d'attesa. Un blocco che fallisce per database non disponibile viene ritentato finché non
+ * passa; ogni altro errore è ritentato poche volte, poi il blocco è diviso a metà finché le
+ * ammissioni in errore non sono isolate e spostate nel file dead-letter.
+ */
+@Component
+public class EnrollmentWriteBehind {
+    
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentWriteBehind.class);
+    
+    // Largest batch written in one transaction / Blocco più grande scritto in una transazione
+    private static final int BATCH_SIZE = 200;
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_MILLIS = 1000;
+    // Attempts of a batch before it is split / Tentativi di un blocco prima di dividerlo
+    private static final int MAX_ATTEMPTS = 3;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private SeatJournal seatJournal;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final BlockingDeque<PendingEnrollment> queue = new LinkedBlockingDeque<>();
+    // Queued or being written / In coda o in scrittura
+    private final AtomicInteger unwritten = new AtomicInteger();
+    // Per course, admissions holding an in-memory seat that are not in the database yet
+    // Per corso, ammissioni con un posto in memoria non ancora nel database
+    private final Map<Long, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Object drainLock = new Object();
+    
+    private TransactionTemplate transactionTemplate;
+    private Counter waitlistedCounter;
+    private Counter deadLetterCounter;
+    private Thread worker;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        waitlistedCounter = Counter.builder("enrollment.writebehind.waitlisted")
+            .description("Admitted enrollments moved to the waitlist for lack of seats / Iscrizioni ammesse spostate in lista d'attesa per mancanza di posti")
+            .register(meterRegistry);
+        deadLetterCounter = Counter.builder("enrollment.writebehind.dead.letters")
+            .description("Admitted enrollments that could not be written / Iscrizioni ammesse che non è stato possibile scrivere")
+            .register(meterRegistry);
+        running = true;
+        worker = new Thread(this::run, "enrollment-write-behind");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /**
+     * Stop after writing what is already queued
+     * Si ferma dopo aver scritto quanto già in coda
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(30));
+    }
+    
+    /**
+     * Count an admission before it takes an in-memory seat
+     * Conta un'ammissione prima che occupi un posto in memoria
+     * 
+     * @param corsoId Course ID / ID del corso
+     */
+    public void expect(Long corsoId) {
+        inFlight.computeIfAbsent(corsoId, id -> new AtomicInteger()).incrementAndGet();
+    }
+    
+    /**
+     * Forget an expected admission that got no seat or was not journaled
+     * Dimentica un'ammissione attesa che non ha avuto un posto o non è stata registrata
+     * 
+     * @param corsoId Course ID / ID del corso
+     */
+    public void abandon(Long corsoId) {
+        AtomicInteger count = inFlight.get(corsoId);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Admissions of a course holding a seat in memory but not yet in the database
+     * Ammissioni di un corso con un posto in memoria ma non ancora nel database
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return In-flight admissions / Ammissioni in volo
+     */
+    public int inFlight(Long corsoId) {
+        AtomicInteger count = inFlight.get(corsoId);
+        return count != null ? count.get() : 0;
+    }
+    
+    /**
+     * Queue a journaled admission
+     * Mette in coda un'ammissione registrata nel journal
+     * 
+     * @param pending Admitted enrollment / Iscrizione ammessa
+     */
+    public void enqueue(PendingEnrollment pending) {
+        unwritten.incrementAndGet();
+        queue.addLast(pending);
+    }
+    
+    /**
+     * Wait until every queued admission is in the database
+     * Attende che ogni ammissione in coda sia nel database
+     */
+    public void drain() throws InterruptedException {
+        synchronized (drainLock) {
+            while (unwritten.get() > 0) {
+                drainLock.wait(POLL_MILLIS);
+            }
+        }
+    }
+    
+    /**
+     * Write admissions in one transaction
+     * Scrive le ammissioni in una transazione
+     * 
+     * Replayed admissions already present (same course and email) are skipped, so a batch
+     * interrupted after commit but before its journal mark is not written twice. Admissions
+     * left without a seat are queued on the waitlist in the same transaction.
+     * Le ammissioni rieseguite già presenti (stesso corso ed email) sono saltate, così un
+     * blocco interrotto dopo il commit ma prima del marcatore nel journal non è scritto due
+     * volte. Le ammissioni rimaste senza posto sono messe in lista d'attesa nella stessa transazione.
+     * 
+     * @param batch Admissions to write / Ammissioni da scrivere
+     * @param replay True when recovering from the journal / True durante il recupero dal journal
+     * @return Number of enrollments inserted / Numero di iscrizioni inserite
+     */
+    public int flush(List<PendingEnrollment> batch, boolean replay) {
+        Map<Long, List<PendingEnrollment>> byCourse = new LinkedHashMap<>();
+        for (PendingEnrollment pending : batch) {
+            if (replay && iscrizioneRepository.existsByCorsoIdAndPartecipanteEmail(pending.corsoId(), pending.email())) {
+                continue;
+            }
+            byCourse.computeIfAbsent(pending.corsoId(), id -> new ArrayList<>()).add(pending);
+        }
+        
+        Integer inserted = transactionTemplate.execute(status -> {
+            List<Iscrizione> rows = new ArrayList<>();
+            for (Map.Entry<Long, List<PendingEnrollment>> course : byCourse.entrySet()) {
+                List<PendingEnrollment> admitted = reserve(course.getKey(), course.getValue());
+                Corso corso = corsoRepository.getReferenceById(course.getKey());
+                for (PendingEnrollment pending : admitted) {
+                    Iscrizione iscrizione = new Iscrizione(pending.corsoId(), pending.nome(), pending.cognome(), pending.email());
+                    iscrizione.setCorso(corso);
+                    iscrizione.setDataOraIscrizione(pending.dataOraIscrizione());
+                    rows.add(iscrizione);
+                }
+            }
+            iscrizioneRepository.saveAll(rows);
+            return rows.size();
+        });
+        
+        if (!replay) {
+            settle(batch);
+        }
+        publishSeatChanges(byCourse.keySet());
+        return inserted != null ? inserted : 0;
+    }
+    
+    /**
+     * Take the seats of a course's admissions, one UPDATE for the whole group when possible
+     * Occupa i posti delle ammissioni di un corso, con un solo UPDATE per il gruppo se possibile
+     */
+    private List<PendingEnrollment> reserve(Long corsoId, List<PendingEnrollment> admitted) {
+        if (corsoRepository.reserveSeats(corsoId, admitted.size()) > 0) {
+            return admitted;
+        }
+        // Seats changed outside the inventory: admit what still fits / Posti cambiati fuori dall'inventario: ammette ciò che entra
+        List<PendingEnrollment> seated = new ArrayList<>();
+        for (PendingEnrollment pending : admitted) {
+            if (corsoRepository.reserveSeat(corsoId) > 0) {
+                seated.add(pending);
+            } else {
+                waitlist(pending);
+            }
+        }
+        return seated;
+    }
+    
+    private void waitlist(PendingEnrollment pending) {
+        // Checked first: a rejection inside enqueue would mark the batch rollback-only
+        // Controllato prima: un rifiuto dentro enqueue marcherebbe il blocco come rollback-only
+        if (iscrizioneRepository.existsByCorsoIdAndPartecipanteEmail(pending.corsoId(), pending.email())) {
+            return;
+        }
+        waitlistService.enqueue(new EnrollmentDTO(pending.corsoId(), pending.nome(), pending.cognome(), pending.email()));
+        waitlistedCounter.increment();
+        log.warn("No seat left for admitted enrollment, waitlisted / Nessun posto per l'iscrizione ammessa, in lista d'attesa: {} (course {})",
+            pending.email(), pending.corsoId());
+    }
+    
+    private void run() {
+        List<PendingEnrollment> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEnrollment first = queue.pollFirst(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                write(batch, MAX_ATTEMPTS);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Write a batch, splitting it when it keeps failing
+     * Scrive un blocco, dividendolo quando continua a fallire
+     * 
+     * @param batch Admissions to write / Ammissioni da scrivere
+     * @param attempts Attempts before splitting / Tentativi prima della divisione
+     */
+    private void write(List<PendingEnrollment> batch, int attempts) throws InterruptedException {
+        int failures = 0;
+        while (true) {
+            try {
+                flush(batch, false);
+                break;
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    if (!running) {
+                        // Left in the journal for the next start / Lasciate nel journal per il prossimo avvio
+                        return;
+                    }
+                    log.warn("Database unavailable for write-behind, retrying / Database non disponibile per il write-behind, nuovo tentativo: {}",
+                        e.getMessage());
+                    Thread.sleep(RETRY_MILLIS);
+                    continue;
+                }
+                if (++failures < attempts) {
+                    log.warn("Write-behind batch failed, retrying / Blocco write-behind fallito, nuovo tentativo: {}", e.getMessage());
+                    Thread.sleep(RETRY_MILLIS);
+                    continue;
+                }
+                if (batch.size() > 1) {
+                    // Each half gets one attempt: the failure is already known not to be transient
+                    // Ogni metà ha un tentativo: l'errore è già noto come non transitorio
+                    int half = batch.size() / 2;
+                    write(new ArrayList<>(batch.subList(0, half)), 1);
+                    write(new ArrayList<>(batch.subList(half, batch.size())), 1);
+                    return;
+                }
+                deadLetter(batch, e);
+                return;
+            }
+        }
+        seatJournal.markFlushed(batch);
+        written(batch);
+    }
+    
+    private void deadLetter(List<PendingEnrollment> batch, RuntimeException e) {
+        PendingEnrollment pending = batch.get(0);
+        log.error("Admitted enrollment cannot be written, moved to dead letters / Iscrizione ammessa non scrivibile, spostata nei dead letter: {} (course {}): {}",
+            pending.email(), pending.corsoId(), e.getMessage());
+        seatJournal.deadLetter(batch, e.getMessage());
+        deadLetterCounter.increment(batch.size());
+        settle(batch);
+        written(batch);
+        // The seat it held in memory is free again / Il posto che occupava in memoria è di nuovo libero
+        publishSeatChanges(Set.of(pending.corsoId()));
+    }
+    
+    private void settle(List<PendingEnrollment> batch) {
+        for (PendingEnrollment pending : batch) {
+            abandon(pending.corsoId());
+        }
+    }
+    
+    private void written(List<PendingEnrollment> batch) {
+        unwritten.addAndGet(-batch.size());
+        synchronized (drainLock) {
+            drainLock.notifyAll();
+        }
+    }
+    
+    private void publishSeatChanges(Set<Long> corsoIds) {
+        try {
+            for (Long corsoId : corsoIds) {
+                Integer disponibilita = corsoRepository.findDisponibilitaById(corsoId);
+                if (disponibilita != null) {
+                    eventPublisher.publishEvent(CourseChangedEvent.seats(corsoId, disponibilita));
+                }
+            }
+        } catch (RuntimeException e) {
+            // The batch is committed: the next change refreshes the course / Il blocco è confermato: la prossima modifica aggiorna il corso
+            log.warn("Course change not published after write-behind / Modifica corso non pubblicata dopo il write-behind: {}", e.getMessage());
+        }
+    }
+    
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+            || e instanceof RecoverableDataAccessException
+            || e instanceof DataAccessResourceFailureException
+            || e instanceof CannotCreateTransactionException;
+    }
+}
@@ -0,0 +1,326 @@
+package com.esame.service;
+
+import com.esame.config.Hashing;
+import com.esame.config.Transactions;
+import com.esame.exception.BusinessLogicException;
+import com.esame.model.RispostaIdempotente;
+import com.esame.repository.RispostaIdempotenteRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency Service
+ * Servizio Idempotenza
+ * 
+ * Makes POST endpoints safe to retry with an Idempotency-Key header. The first response for
+ * a key is kept in a bounded in-memory LRU and in the risposte_idempotenti table until its
+ * TTL runs out; retries get that response back without running the request again, and
+ * duplicates arriving while the first one is still running wait for its result.
+ * Rende gli endpoint POST ripetibili in sicurezza con l'header Idempotency-Key. La prima
+ * risposta per una chiave è conservata in una LRU limitata in memoria e nella tabella
+ * risposte_idempotenti fino alla scadenza del TTL; i tentativi successivi ricevono quella
+ * risposta senza rieseguire la richiesta, e i duplicati che arrivano mentre la prima è
+ * ancora in corso ne attendono il risultato.
+ * 
+ * Keys are scoped to the caller: the authenticated user, or the client IP for anonymous
+ * calls, so two clients picking the same key never see each other's responses.
+ * Le chiavi sono limitate al chiamante: l'utente autenticato, o l'IP del client per le
+ * chiamate anonime, così due client che scelgono la stessa chiave non vedono mai le risposte
+ * l'uno dell'altro.
+ */
+@Service
+public class IdempotencyService {
+    
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    // Expired rows are purged once every this many stored responses / Le righe scadute sono eliminate una volta ogni tante risposte salvate
+    private static final int PURGE_EVERY = 500;
+    
+    // How long a duplicate waits for the first execution / Quanto un duplicato attende la prima esecuzione
+    private static final long IN_FLIGHT_TIMEOUT_SECONDS = 60;
+    
+    @Autowired
+    private RispostaIdempotenteRepository rispostaIdempotenteRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${app.idempotency.ttl:PT24H}")
+    private Duration ttl;
+    
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+    
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger stored = new AtomicInteger();
+    
+    // Access-ordered, guarded by itself / In ordine di accesso, protetta da sé stessa
+    private Map<String, StoredResponse> recent;
+    private TransactionTemplate transactionTemplate;
+    
+    @PostConstruct
+    public void init() {
+        recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        transactionTemplate = Transactions.requiresNew(transactionManager);
+    }
+    
+    /**
+     * Remove the responses that expired while the application was down
+     * Rimuove le risposte scadute mentre l'applicazione era ferma
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+            rispostaIdempotenteRepository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.info("Expired idempotency keys removed / Chiavi di idempotenza scadute rimosse: {}", removed);
+        }
+    }
+    
+    /**
+     * Run a request once per idempotency key
+     * Esegue una richiesta una volta per chiave di idempotenza
+     * 
+     * Without a key the action simply runs. Server errors (5xx) and backpressure (429) are not
+     * stored, so a retry after one runs the action again.
+     * Senza chiave l'azione viene semplicemente eseguita. Gli errori del server (5xx) e la
+     * contropressione (429) non sono salvati, quindi un nuovo tentativo dopo uno di essi
+     * riesegue l'azione.
+     * 
+     * @param endpoint Endpoint the key belongs to / Endpoint a cui appartiene la chiave
+     * @param key Idempotency-Key header, may be null / Header Idempotency-Key, può essere null
+     * @param request Request body, compared on replay / Corpo della richiesta, confrontato nel replay
+     * @param action Request handling / Gestione della richiesta
+     * @return Fresh or replayed response / Risposta nuova o ripetuta
+     * @throws BusinessLogicException if the key is invalid or was used for a different request / se la chiave non è valida o è stata usata per una richiesta diversa
+     */
+    public <T> ResponseEntity<T> execute(String endpoint, String key, Object request, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new BusinessLogicException(
+                "INVALID_IDEMPOTENCY_KEY",
+                "Idempotency-Key must not exceed " + MAX_KEY_LENGTH + " characters / Idempotency-Key non deve superare i " + MAX_KEY_LENGTH + " caratteri",
+                HEADER
+            );
+        }
+        // Fixed length, and no e-mail addresses in the table / Lunghezza fissa, e nessun indirizzo e-mail nella tabella
+        String chiave = endpoint + " " + Hashing.sha256Hex(caller() + "\n" + key);
+        String impronta = fingerprint(request);
+        
+        while (true) {
+            StoredResponse response = lookup(chiave);
+            if (response != null) {
+                return replay(response, impronta);
+            }
+            
+            CompletableFuture<StoredResponse> mine = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(chiave, mine);
+            if (running != null) {
+                // Coalesce onto the first execution / Si unisce alla prima esecuzione
+                StoredResponse shared = await(running);
+                if (shared != null) {
+                    return replay(shared, impronta);
+                }
+                // It failed without a response to share: try again / È fallita senza una risposta da condividere: riprova
+                continue;
+            }
+            
+            try {
+                // It may have completed between the lookup and the claim / Potrebbe essere terminata tra la ricerca e la presa
+                response = lookup(chiave);
+                if (response != null) {
+                    mine.complete(response);
+                    return replay(response, impronta);
+                }
+                ResponseEntity<T> fresh = action.get();
+                mine.complete(store(chiave, impronta, fresh));
+                return fresh;
+            } finally {
+                // Waiters retry if nothing was stored / Chi attende riprova se non è stato salvato nulla
+                mine.complete(null);
+                inFlight.remove(chiave, mine);
+            }
+        }
+    }
+    
+    private StoredResponse lookup(String chiave) {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (recent) {
+            StoredResponse response = recent.get(chiave);
+            if (response != null) {
+                if (response.scadenza().isAfter(now)) {
+                    return response;
+                }
+                recent.remove(chiave);
+            }
+        }
+        
+        RispostaIdempotente risposta = rispostaIdempotenteRepository.findById(chiave).orElse(null);
+        if (risposta == null || !risposta.getScadenza().isAfter(now)) {
+            return null;
+        }
+        StoredResponse response = new StoredResponse(risposta.getImpronta(), risposta.getStatoHttp(),
+            readBody(risposta.getCorpo()), risposta.getScadenza());
+        synchronized (recent) {
+            recent.put(chiave, response);
+        }
+        return response;
+    }
+    
+    private StoredResponse store(String chiave, String impronta, ResponseEntity<?> fresh) {
+        if (!isFinal(fresh)) {
+            return null;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        JsonNode body = fresh.getBody() != null ? objectMapper.valueToTree(fresh.getBody()) : null;
+        StoredResponse response = new StoredResponse(impronta, fresh.getStatusCode().value(), body, now.plus(ttl));
+        synchronized (recent) {
+            recent.put(chiave, response);
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                rispostaIdempotenteRepository.save(new RispostaIdempotente(chiave, impronta, response.status(),
+                    body != null ? body.toString() : null, now, response.scadenza()));
+                if (stored.incrementAndGet() % PURGE_EVERY == 0) {
+                    rispostaIdempotenteRepository.deleteExpired(now);
+                }
+            });
+        } catch (DataAccessException e) {
+            // Still replayed from memory / Ancora ripetuta dalla memoria
+            log.warn("Idempotent response not persisted / Risposta idempotente non salvata: {}", e.getMessage());
+        }
+        return response;
+    }
+    
+    // Transient answers that ask the client to retry / Risposte transitorie che chiedono al client di riprovare
+    private static boolean isFinal(ResponseEntity<?> response) {
+        return !response.getStatusCode().is5xxServerError()
+            && response.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(StoredResponse response, String impronta) {
+        if (!response.impronta().equals(impronta)) {
+            throw new BusinessLogicException(
+                "IDEMPOTENCY_KEY_REUSED",
+                "Idempotency-Key already used for a different request / Idempotency-Key già usata per una richiesta diversa",
+                HEADER
+            );
+        }
+        JsonNode body = response.body();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.status()).header(REPLAYED_HEADER, "true");
+        if (body == null || body.isNull()) {
+            return (ResponseEntity<T>) builder.build();
+        }
+        // Plain-text bodies go back as text / I corpi di solo testo tornano come testo
+        return (ResponseEntity<T>) builder.body(body.isTextual() ? body.asText() : body);
+    }
+    
+    private StoredResponse await(CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(IN_FLIGHT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw inProgress();
+        } catch (ExecutionException | TimeoutException e) {
+            throw inProgress();
+        }
+    }
+    
+    private static BusinessLogicException inProgress() {
+        return new BusinessLogicException(
+            "IDEMPOTENCY_REQUEST_IN_PROGRESS",
+            "A request with this Idempotency-Key is still in progress / Una richiesta con questa Idempotency-Key è ancora in corso",
+            HEADER
+        );
+    }
+    
+    /**
+     * Who owns the keys of the current request
+     * A chi appartengono le chiavi della richiesta corrente
+     */
+    private static String caller() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return "ip:" + attributes.getRequest().getRemoteAddr();
+        }
+        return "anonymous";
+    }
+    
+    private String fingerprint(Object request) {
+        try {
+            return Hashing.sha256Hex(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request / Impossibile calcolare l'impronta della richiesta", e);
+        }
+    }
+    
+    private JsonNode readBody(String corpo) {
+        if (corpo == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(corpo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted idempotent response / Risposta idempotente corrotta", e);
+        }
+    }
+    
+    /**
+     * A response kept for replay
+     * Una risposta conservata per il replay
+     */
+    private record StoredResponse(String impronta, int status, JsonNode body, LocalDateTime scadenza) {
+    }
+}
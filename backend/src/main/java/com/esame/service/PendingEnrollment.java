@@ -0,0 +1,29 @@
+package com.esame.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pending Enrollment
+ * Iscrizione in Attesa
+ * 
+ * An enrollment admitted in memory for a high-demand course and journaled, waiting to be
+ * written to the iscrizioni table by the write-behind worker.
+ * Un'iscrizione ammessa in memoria per un corso ad alta domanda e registrata nel journal,
+ * in attesa di essere scritta nella tabella iscrizioni dal worker write-behind.
+ * 
+ * @param ticket Unique journal ticket / Ticket univoco del journal
+ * @param corsoId Course ID / ID del corso
+ * @param nome Participant first name / Nome del partecipante
+ * @param cognome Participant last name / Cognome del partecipante
+ * @param email Participant email / Email del partecipante
+ * @param dataOraIscrizione Admission time / Momento dell'ammissione
+ */
+public record PendingEnrollment(
+    String ticket,
+    Long corsoId,
+    String nome,
+    String cognome,
+    String email,
+    LocalDateTime dataOraIscrizione
+) {
+}
@@ -0,0 +1,222 @@
+package com.esame.service;
+
+import com.esame.config.Hashing;
+import com.esame.config.Transactions;
+import com.esame.exception.BusinessLogicException;
+import com.esame.model.FamigliaRefresh;
+import com.esame.repository.FamigliaRefreshRepository;
+import com.esame.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Refresh Token Service
+ * Servizio Token di Refresh
+ * 
+ * Persists refresh token families and rotates them. A refresh is one atomic UPDATE on the
+ * unique token_hash index, conditioned on the presented token still being the current one;
+ * if it is not, the token was already used and the whole family is revoked. Hot families
+ * are cached with their last known generation and revocation, which only ever grow, so a
+ * replayed older token or a revoked family is refused without touching the database.
+ * A family stops rotating max-lifetime after its login, however often it is refreshed.
+ * Salva le famiglie di token di refresh e le ruota. Un refresh è un solo UPDATE atomico
+ * sull'indice univoco token_hash, condizionato al fatto che il token presentato sia ancora
+ * quello attuale; se non lo è, il token è già stato usato e l'intera famiglia viene revocata.
+ * Le famiglie più usate sono in cache con l'ultima generazione e revoca note, che possono
+ * solo crescere, così un token precedente riusato o una famiglia revocata sono rifiutati
+ * senza toccare il database. Una famiglia smette di ruotare max-lifetime dopo il suo accesso,
+ * per quanto spesso venga rinnovata.
+ */
+@Service
+public class RefreshTokenService {
+    
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    
+    // Expired families are purged once every this many logins / Le famiglie scadute sono eliminate una volta ogni tanti accessi
+    private static final int PURGE_EVERY = 500;
+    
+    @Autowired
+    private FamigliaRefreshRepository famigliaRefreshRepository;
+    
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.jwt.refresh-families.max-entries:10000}")
+    private int maxEntries;
+    
+    // Login is required again after this, counted from the family's creation / Dopo questo tempo, contato dalla creazione della famiglia, serve un nuovo accesso
+    @Value("${app.jwt.refresh-families.max-lifetime:P30D}")
+    private Duration maxLifetime;
+    
+    private final Map<String, FamilyState> families = new ConcurrentHashMap<>();
+    private final AtomicInteger issued = new AtomicInteger();
+    
+    private TransactionTemplate transactionTemplate;
+    private Counter reuseCounter;
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = Transactions.requiresNew(transactionManager);
+        reuseCounter = Counter.builder("auth.refresh.reuse.detected")
+            .description("Refresh token families revoked for reuse / Famiglie di token di refresh revocate per riuso")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Remove the families that expired while the application was down
+     * Rimuove le famiglie scadute mentre l'applicazione era ferma
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+            famigliaRefreshRepository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.info("Expired refresh token families removed / Famiglie di token di refresh scadute rimosse: {}", removed);
+        }
+    }
+    
+    /**
+     * Start a new family for a login
+     * Avvia una nuova famiglia per un accesso
+     * 
+     * @param username Username / Nome utente
+     * @return First refresh token of the family / Primo token di refresh della famiglia
+     */
+    public String issue(String username) {
+        String famigliaId = UUID.randomUUID().toString();
+        String token = jwtTokenProvider.generateRefreshToken(username, famigliaId, 0);
+        LocalDateTime now = LocalDateTime.now();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            famigliaRefreshRepository.save(new FamigliaRefresh(famigliaId, username, Hashing.sha256Hex(token), now, expiry(now)));
+            if (issued.incrementAndGet() % PURGE_EVERY == 0) {
+                famigliaRefreshRepository.deleteExpired(now);
+            }
+        });
+        remember(famigliaId, new FamilyState(0, false));
+        return token;
+    }
+    
+    /**
+     * Replace a refresh token with the next one of its family
+     * Sostituisce un token di refresh con il successivo della sua famiglia
+     * 
+     * @param token Presented refresh token / Token di refresh presentato
+     * @param claims Its verified claims / I suoi claim verificati
+     * @return Next refresh token / Token di refresh successivo
+     * @throws BusinessLogicException if the token is not the current one of a live family / se il token non è l'attuale di una famiglia valida
+     */
+    public String rotate(String token, Claims claims) {
+        String famigliaId = claims.get(JwtTokenProvider.CLAIM_FAMILY, String.class);
+        Number generation = claims.get(JwtTokenProvider.CLAIM_GENERATION, Number.class);
+        if (famigliaId == null || generation == null) {
+            throw invalidRefreshToken();
+        }
+        
+        // The cache may lag behind other nodes, never lead / La cache può essere indietro rispetto agli altri nodi, mai avanti
+        FamilyState known = families.get(famigliaId);
+        if (known != null && known.revoked()) {
+            throw invalidRefreshToken();
+        }
+        if (known != null && generation.intValue() < known.generation()) {
+            revokeForReuse(famigliaId);
+            throw invalidRefreshToken();
+        }
+        
+        int next = generation.intValue() + 1;
+        String nextToken = jwtTokenProvider.generateRefreshToken(claims.getSubject(), famigliaId, next);
+        LocalDateTime now = LocalDateTime.now();
+        Integer rotated = transactionTemplate.execute(status ->
+            famigliaRefreshRepository.rotate(Hashing.sha256Hex(token), Hashing.sha256Hex(nextToken), next, expiry(now), now, now.minus(maxLifetime)));
+        
+        if (rotated == null || rotated == 0) {
+            if (isCurrent(famigliaId, token)) {
+                // Current token of an expired family: log in again / Token attuale di una famiglia scaduta: nuovo accesso
+                throw invalidRefreshToken();
+            }
+            // Already rotated or revoked: treated as reuse / Già ruotata o revocata: trattata come riuso
+            revokeForReuse(famigliaId);
+            throw invalidRefreshToken();
+        }
+        remember(famigliaId, new FamilyState(next, false));
+        return nextToken;
+    }
+    
+    /**
+     * Revoke the family of a refresh token, e.g. on logout
+     * Revoca la famiglia di un token di refresh, ad es. al logout
+     * 
+     * @param claims Verified refresh token claims / Claim verificati del token di refresh
+     */
+    public void revoke(Claims claims) {
+        String famigliaId = claims.get(JwtTokenProvider.CLAIM_FAMILY, String.class);
+        if (famigliaId != null) {
+            transactionTemplate.execute(status -> famigliaRefreshRepository.revoke(famigliaId));
+            remember(famigliaId, new FamilyState(Integer.MAX_VALUE, true));
+        }
+    }
+    
+    private boolean isCurrent(String famigliaId, String token) {
+        FamigliaRefresh famiglia = famigliaRefreshRepository.findById(famigliaId).orElse(null);
+        return famiglia != null && !famiglia.isRevocata() && famiglia.getTokenHash().equals(Hashing.sha256Hex(token));
+    }
+    
+    private void revokeForReuse(String famigliaId) {
+        Integer revoked = transactionTemplate.execute(status -> famigliaRefreshRepository.revoke(famigliaId));
+        remember(famigliaId, new FamilyState(Integer.MAX_VALUE, true));
+        if (revoked != null && revoked > 0) {
+            reuseCounter.increment();
+            log.warn("Refresh token reuse, family revoked / Riuso di token di refresh, famiglia revocata: {}", famigliaId);
+        }
+    }
+    
+    private void remember(String famigliaId, FamilyState state) {
+        if (families.size() >= maxEntries && !families.containsKey(famigliaId)) {
+            // Drop a quarter of the families; they are reloaded by their next refresh / Elimina un quarto delle famiglie; sono ricaricate al loro prossimo refresh
+            Iterator<String> ids = families.keySet().iterator();
+            while (families.size() > maxEntries * 3 / 4 && ids.hasNext()) {
+                ids.next();
+                ids.remove();
+            }
+        }
+        families.merge(famigliaId, state, (current, update) ->
+            update.revoked() || update.generation() > current.generation() ? update : current);
+    }
+    
+    private LocalDateTime expiry(LocalDateTime now) {
+        return now.plusNanos(jwtTokenProvider.getJwtRefreshExpirationInMs() * 1_000_000L);
+    }
+    
+    private static BusinessLogicException invalidRefreshToken() {
+        return new BusinessLogicException("INVALID_REFRESH_TOKEN", "Invalid refresh token / Refresh token non valido");
+    }
+    
+    // Last generation and revocation seen for a family / Ultima generazione e revoca viste per una famiglia
+    private record FamilyState(int generation, boolean revoked) {
+    }
+}
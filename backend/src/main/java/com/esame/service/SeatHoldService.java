@@ -0,0 +1,302 @@
+package com.esame.service;
+
+import com.esame.config.AfterCommit;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.SeatHoldDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.exception.ResourceNotFoundException;
+import com.esame.model.BloccoPosto;
+import com.esame.model.Corso;
+import com.esame.repository.BloccoPostoRepository;
+import com.esame.repository.CorsoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seat Hold Service
+ * Servizio Blocco Posti
+ * 
+ * Reserves a seat for a few minutes while a participant completes enrollment. Holds are
+ * stored in blocchi_posto and their expiry is driven by an in-memory hashed timing wheel, so
+ * an expired hold gives its seat back (to the waitlist first) without any table scan.
+ * Pending holds are put back on the wheel at startup.
+ * Riserva un posto per alcuni minuti mentre un partecipante completa l'iscrizione. I blocchi
+ * sono salvati in blocchi_posto e la loro scadenza è gestita da una ruota temporizzata a hash
+ * in memoria, così un blocco scaduto restituisce il posto (prima alla lista d'attesa) senza
+ * scansioni di tabella. I blocchi pendenti tornano sulla ruota all'avvio.
+ */
+@Service
+@Transactional
+public class SeatHoldService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SeatHoldService.class);
+    
+    public static final int DEFAULT_HOLD_MINUTES = 10;
+    public static final int MAX_HOLD_MINUTES = 30;
+    
+    // One-second ticks, 512 buckets: a turn covers 8.5 minutes / Tick di un secondo, 512 bucket: un giro copre 8,5 minuti
+    private static final int WHEEL_SIZE = 512;
+    private static final long RETRY_SECONDS = 5;
+    
+    @Autowired
+    private BloccoPostoRepository bloccoPostoRepository;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<Long, TimingWheel.Timeout<Long>> timeouts = new ConcurrentHashMap<>();
+    private final ExpiryRate expiryRate = new ExpiryRate();
+    
+    private TimingWheel<Long> wheel;
+    private TransactionTemplate transactionTemplate;
+    private Counter expiredCounter;
+    
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        wheel = new TimingWheel<>("seat-hold-expiry", 1, TimeUnit.SECONDS, WHEEL_SIZE, this::expire);
+        Gauge.builder("enrollment.holds.active", timeouts, Map::size)
+            .description("Seat holds waiting for confirmation / Blocchi posto in attesa di conferma")
+            .register(meterRegistry);
+        Gauge.builder("enrollment.holds.expirations.per.second", expiryRate, ExpiryRate::perSecond)
+            .description("Hold expirations per second over the last minute / Scadenze di blocchi al secondo nell'ultimo minuto")
+            .register(meterRegistry);
+        expiredCounter = Counter.builder("enrollment.holds.expired")
+            .description("Seat holds released by expiry / Blocchi posto rilasciati per scadenza")
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        wheel.stop();
+    }
+    
+    /**
+     * Put the holds of a previous run back on the wheel
+     * Rimette sulla ruota i blocchi di un'esecuzione precedente
+     * 
+     * Holds that expired while the application was down fire on the first tick.
+     * I blocchi scaduti mentre l'applicazione era ferma scattano al primo tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        LocalDateTime now = LocalDateTime.now();
+        for (BloccoPosto blocco : bloccoPostoRepository.findAll()) {
+            schedule(blocco, now);
+        }
+    }
+    
+    /**
+     * Hold a seat for a few minutes
+     * Blocca un posto per alcuni minuti
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param minuti Hold duration / Durata del blocco
+     * @return Hold with its code and expiry / Blocco con codice e scadenza
+     * @throws ResourceNotFoundException if course not found / se corso non trovato
+     * @throws BusinessLogicException if the course is full, started or in high-demand mode / se il corso è completo, iniziato o ad alta domanda
+     */
+    public SeatHoldDTO createHold(Long corsoId, int minuti) {
+        if (minuti < 1 || minuti > MAX_HOLD_MINUTES) {
+            throw new BusinessLogicException(
+                "INVALID_HOLD_DURATION",
+                "Hold duration must be between 1 and " + MAX_HOLD_MINUTES + " minutes / La durata del blocco deve essere tra 1 e " + MAX_HOLD_MINUTES + " minuti",
+                "minuti"
+            );
+        }
+        Corso corso = corsoRepository.findById(corsoId)
+            .orElseThrow(() -> new ResourceNotFoundException("Course", "id", corsoId));
+        LocalDateTime now = LocalDateTime.now();
+        if (corso.getDataOraInizio() != null && corso.getDataOraInizio().isBefore(now)) {
+            throw new BusinessLogicException(
+                "COURSE_STARTED",
+                "Cannot hold a seat of a course that has already started / Impossibile bloccare un posto di un corso già iniziato"
+            );
+        }
+        if (seatInventory.isHighDemand(corsoId)) {
+            throw new BusinessLogicException(
+                "HOLD_NOT_AVAILABLE",
+                "Seat holds are not available in high-demand mode / I blocchi posto non sono disponibili in modalità alta domanda"
+            );
+        }
+        
+        enrollmentService.reserveHeldSeat(corsoId);
+        BloccoPosto blocco = bloccoPostoRepository.save(
+            new BloccoPosto(UUID.randomUUID().toString(), corsoId, now, now.plusMinutes(minuti)));
+        AfterCommit.run(() -> schedule(blocco, LocalDateTime.now()));
+        return toDTO(blocco, now);
+    }
+    
+    /**
+     * Turn a hold into an enrollment
+     * Trasforma un blocco in un'iscrizione
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param codice Hold code / Codice del blocco
+     * @param enrollmentDTO Participant data / Dati del partecipante
+     * @return Created enrollment / Iscrizione creata
+     * @throws ResourceNotFoundException if the hold does not exist / se il blocco non esiste
+     * @throws BusinessLogicException if the hold expired or enrollment is not possible / se il blocco è scaduto o l'iscrizione non è possibile
+     */
+    public EnrollmentDTO confirmHold(Long corsoId, String codice, EnrollmentDTO enrollmentDTO) {
+        BloccoPosto blocco = findHold(corsoId, codice);
+        if (!blocco.getScadenza().isAfter(LocalDateTime.now()) || bloccoPostoRepository.claim(blocco.getBloccoId()) == 0) {
+            throw new BusinessLogicException(
+                "HOLD_EXPIRED",
+                "Seat hold has expired / Il blocco del posto è scaduto"
+            );
+        }
+        
+        enrollmentDTO.setCorsoId(corsoId);
+        EnrollmentDTO created = enrollmentService.createEnrollmentOnHeldSeat(enrollmentDTO);
+        AfterCommit.run(() -> cancel(blocco.getBloccoId()));
+        return created;
+    }
+    
+    /**
+     * Give a held seat back before expiry
+     * Restituisce un posto bloccato prima della scadenza
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param codice Hold code / Codice del blocco
+     * @throws ResourceNotFoundException if the hold does not exist / se il blocco non esiste
+     */
+    public void releaseHold(Long corsoId, String codice) {
+        BloccoPosto blocco = findHold(corsoId, codice);
+        if (bloccoPostoRepository.claim(blocco.getBloccoId()) > 0) {
+            enrollmentService.releaseHeldSeat(corsoId);
+        }
+        AfterCommit.run(() -> cancel(blocco.getBloccoId()));
+    }
+    
+    /**
+     * Number of holds waiting for confirmation
+     * Numero di blocchi in attesa di conferma
+     * 
+     * @return Active holds / Blocchi attivi
+     */
+    public int activeHolds() {
+        return timeouts.size();
+    }
+    
+    private BloccoPosto findHold(Long corsoId, String codice) {
+        return bloccoPostoRepository.findByCodice(codice)
+            .filter(blocco -> blocco.getCorsoId().equals(corsoId))
+            .orElseThrow(() -> new ResourceNotFoundException("Seat hold", "codice", codice));
+    }
+    
+    private void schedule(BloccoPosto blocco, LocalDateTime now) {
+        long delayMillis = Math.max(0, Duration.between(now, blocco.getScadenza()).toMillis());
+        timeouts.put(blocco.getBloccoId(), wheel.schedule(blocco.getBloccoId(), delayMillis, TimeUnit.MILLISECONDS));
+    }
+    
+    private void cancel(Long bloccoId) {
+        TimingWheel.Timeout<Long> timeout = timeouts.remove(bloccoId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+    
+    /**
+     * Release an expired hold; runs on the wheel thread
+     * Rilascia un blocco scaduto; eseguito sul thread della ruota
+     */
+    private void expire(Long bloccoId) {
+        timeouts.remove(bloccoId);
+        Boolean released;
+        try {
+            released = transactionTemplate.execute(status -> {
+                BloccoPosto blocco = bloccoPostoRepository.findById(bloccoId).orElse(null);
+                if (blocco == null) {
+                    // Confirmed or released meanwhile / Confermato o rilasciato nel frattempo
+                    return false;
+                }
+                if (bloccoPostoRepository.claimExpired(bloccoId, LocalDateTime.now()) == 0) {
+                    // The wheel fired a little early / La ruota è scattata un po' in anticipo
+                    schedule(blocco, LocalDateTime.now());
+                    return false;
+                }
+                enrollmentService.releaseHeldSeat(blocco.getCorsoId());
+                return true;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Seat hold expiry failed, retrying / Scadenza blocco posto fallita, nuovo tentativo: {}", e.getMessage());
+            timeouts.put(bloccoId, wheel.schedule(bloccoId, RETRY_SECONDS, TimeUnit.SECONDS));
+            return;
+        }
+        if (!Boolean.TRUE.equals(released)) {
+            return;
+        }
+        expiredCounter.increment();
+        expiryRate.record();
+    }
+    
+    private SeatHoldDTO toDTO(BloccoPosto blocco, LocalDateTime now) {
+        return new SeatHoldDTO(blocco.getCodice(), blocco.getCorsoId(), blocco.getScadenza(),
+            Math.max(0, Duration.between(now, blocco.getScadenza()).getSeconds()));
+    }
+    
+    /**
+     * Expirations per second over a sliding minute, one slot per second
+     * Scadenze al secondo su un minuto scorrevole, uno slot per secondo
+     */
+    private static final class ExpiryRate {
+        
+        private static final int WINDOW_SECONDS = 60;
+        
+        private final long[] seconds = new long[WINDOW_SECONDS];
+        private final long[] counts = new long[WINDOW_SECONDS];
+        
+        synchronized void record() {
+            long second = System.currentTimeMillis() / 1000;
+            int slot = (int) (second % WINDOW_SECONDS);
+            if (seconds[slot] != second) {
+                seconds[slot] = second;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+        }
+        
+        synchronized double perSecond() {
+            long oldest = System.currentTimeMillis() / 1000 - WINDOW_SECONDS;
+            long total = 0;
+            for (int i = 0; i < WINDOW_SECONDS; i++) {
+                if (seconds[i] > oldest) {
+                    total += counts[i];
+                }
+            }
+            return (double) total / WINDOW_SECONDS;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.esame.service;
+
+import com.esame.dto.EnrollmentDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.model.Corso;
+import com.esame.model.Iscrizione;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.index.CourseChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat Inventory
+ * Inventario dei Posti
+ * 
+ * In-memory admission for courses in high-demand (flash-sale) mode. Seats live in striped
+ * lock-free counters seeded from corsi.disponibilita; an admission takes a seat with a CAS,
+ * is journaled and acknowledged as PENDING, and the write-behind worker inserts it later.
+ * On startup unflushed journal entries are replayed before the counters are rebuilt, and after
+ * every committed course change the counters are reconciled with the database seats.
+ * Ammissione in memoria per i corsi in modalità alta domanda (flash sale). I posti vivono in
+ * contatori lock-free a strisce inizializzati da corsi.disponibilita; un'ammissione occupa un
+ * posto con una CAS, è registrata nel journal e confermata come PENDING, e il worker
+ * write-behind la inserisce in seguito. All'avvio le voci non scritte del journal sono
+ * rieseguite prima di ricostruire i contatori, e dopo ogni modifica confermata di un corso i
+ * contatori sono riallineati con i posti del database.
+ */
+@Component
+public class SeatInventory {
+    
+    private static final Logger log = LoggerFactory.getLogger(SeatInventory.class);
+    
+    public static final String STATUS_PENDING = "PENDING";
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private SeatJournal seatJournal;
+    
+    @Autowired
+    private EnrollmentWriteBehind writeBehind;
+    
+    private final Map<Long, HighDemandCourse> courses = new ConcurrentHashMap<>();
+    
+    /**
+     * Replay unflushed admissions, then open every high-demand course
+     * Riesegue le ammissioni non scritte, poi apre ogni corso ad alta domanda
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        List<PendingEnrollment> unflushed = seatJournal.unflushed();
+        if (!unflushed.isEmpty()) {
+            int inserted = writeBehind.flush(unflushed, true);
+            log.info("Seat journal replayed / Journal dei posti rieseguito: {} entries, {} inserted", unflushed.size(), inserted);
+        }
+        seatJournal.reset();
+        for (Corso corso : corsoRepository.findByAltaDomandaTrue()) {
+            enable(corso);
+        }
+    }
+    
+    /**
+     * Start admitting a course in memory
+     * Inizia ad ammettere un corso in memoria
+     * 
+     * @param corso Course as committed / Corso come confermato
+     */
+    public void enable(Corso corso) {
+        courses.computeIfAbsent(corso.getCorsoId(), id -> {
+            HighDemandCourse course = new HighDemandCourse(corso);
+            for (Iscrizione iscrizione : iscrizioneRepository.findByCorsoId(id)) {
+                course.emails.add(normalize(iscrizione.getPartecipanteEmail()));
+            }
+            return course;
+        });
+    }
+    
+    /**
+     * Stop admitting a course in memory once its admissions are in the database
+     * Smette di ammettere un corso in memoria quando le sue ammissioni sono nel database
+     * 
+     * Requests arriving meanwhile wait and then take the transactional path.
+     * Le richieste che arrivano nel frattempo attendono e poi seguono il percorso transazionale.
+     * 
+     * @param corsoId Course ID / ID del corso
+     */
+    public void disable(Long corsoId) {
+        HighDemandCourse course = courses.get(corsoId);
+        if (course == null) {
+            return;
+        }
+        course.closing = true;
+        try {
+            while (course.admitting.get() > 0) {
+                Thread.onSpinWait();
+            }
+            writeBehind.drain();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            courses.remove(corsoId);
+            course.closed.countDown();
+        }
+    }
+    
+    /**
+     * Reconcile the counters of a high-demand course after a committed change
+     * Riallinea i contatori di un corso ad alta domanda dopo una modifica confermata
+     * 
+     * Free seats in memory are the committed seats minus the admissions not yet written.
+     * Reading the counter, then the in-flight admissions, then the database means a race can
+     * only under-count; the next committed change corrects it.
+     * I posti liberi in memoria sono i posti confermati meno le ammissioni non ancora scritte.
+     * Leggere il contatore, poi le ammissioni in volo, poi il database fa sì che una corsa possa
+     * solo sottostimare; la modifica confermata successiva la corregge.
+     * 
+     * @param event Course change / Modifica corso
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(CourseChangedEvent event) {
+        HighDemandCourse course = courses.get(event.getCorsoId());
+        if (course == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            courses.remove(event.getCorsoId());
+            return;
+        }
+        long counted = course.seats.sum();
+        int inFlight = writeBehind.inFlight(course.corsoId);
+        Integer disponibilita = corsoRepository.findDisponibilitaById(course.corsoId);
+        if (disponibilita == null) {
+            return;
+        }
+        long drift = (disponibilita - inFlight) - counted;
+        if (drift != 0) {
+            course.seats.adjust(drift);
+            log.debug("Seat counters reconciled / Contatori dei posti riallineati: course {}, {} seats", course.corsoId, drift);
+        }
+    }
+    
+    /**
+     * True when the course is admitted in memory
+     * True quando il corso è ammesso in memoria
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return High-demand flag / Flag alta domanda
+     */
+    public boolean isHighDemand(Long corsoId) {
+        return corsoId != null && courses.containsKey(corsoId);
+    }
+    
+    /**
+     * Seats left in memory
+     * Posti rimasti in memoria
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Seats left, or -1 if not high-demand / Posti rimasti, o -1 se non ad alta domanda
+     */
+    public long available(Long corsoId) {
+        HighDemandCourse course = courses.get(corsoId);
+        return course != null ? course.seats.sum() : -1;
+    }
+    
+    /**
+     * Admit an enrollment in memory if its course is in high-demand mode
+     * Ammette un'iscrizione in memoria se il suo corso è in modalità alta domanda
+     * 
+     * The response is sent once the admission is durable in the journal; the row is inserted
+     * by the write-behind worker.
+     * La risposta è inviata quando l'ammissione è persistente nel journal; la riga è inserita
+     * dal worker write-behind.
+     * 
+     * @param enrollmentDTO Validated enrollment data / Dati iscrizione validati
+     * @return PENDING enrollment, or null to use the transactional path / Iscrizione PENDING, o null per il percorso transazionale
+     * @throws BusinessLogicException if started, already enrolled or full / se iniziato, già iscritto o completo
+     */
+    public EnrollmentDTO tryAdmit(EnrollmentDTO enrollmentDTO) {
+        HighDemandCourse course = courses.get(enrollmentDTO.getCorsoId());
+        if (course == null) {
+            return null;
+        }
+        course.admitting.incrementAndGet();
+        if (course.closing) {
+            // Being drained: wait, then go transactional / In svuotamento: attende, poi percorso transazionale
+            course.admitting.decrementAndGet();
+            course.awaitClosed();
+            return null;
+        }
+        try {
+            return admit(course, enrollmentDTO);
+        } finally {
+            course.admitting.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Give a seat back after an enrollment was deleted
+     * Restituisce un posto dopo l'eliminazione di un'iscrizione
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @param email Participant email / Email del partecipante
+     */
+    public void release(Long corsoId, String email) {
+        HighDemandCourse course = courses.get(corsoId);
+        if (course != null && course.emails.remove(normalize(email))) {
+            course.seats.release();
+        }
+    }
+    
+    private EnrollmentDTO admit(HighDemandCourse course, EnrollmentDTO enrollmentDTO) {
+        LocalDateTime now = LocalDateTime.now();
+        if (course.dataOraInizio != null && course.dataOraInizio.isBefore(now)) {
+            throw new BusinessLogicException(
+                "COURSE_STARTED",
+                "Cannot enroll in a course that has already started / Impossibile iscriversi a un corso già iniziato"
+            );
+        }
+        String email = normalize(enrollmentDTO.getPartecipanteEmail());
+        if (!course.emails.add(email)) {
+            throw new BusinessLogicException(
+                "ALREADY_ENROLLED",
+                "Participant is already enrolled in this course / Il partecipante è già iscritto a questo corso"
+            );
+        }
+        // Counted before the seat is taken so a reconcile never sees the seat without it
+        // Contata prima di occupare il posto così un riallineamento non vede mai il posto senza di essa
+        writeBehind.expect(course.corsoId);
+        if (!course.seats.tryAcquire()) {
+            writeBehind.abandon(course.corsoId);
+            course.emails.remove(email);
+            throw new BusinessLogicException(
+                "COURSE_FULL",
+                "Course is full / Il corso è completo"
+            );
+        }
+        
+        PendingEnrollment pending = new PendingEnrollment(UUID.randomUUID().toString(), course.corsoId,
+            enrollmentDTO.getPartecipanteNome(), enrollmentDTO.getPartecipanteCognome(),
+            enrollmentDTO.getPartecipanteEmail(), now);
+        try {
+            seatJournal.admit(pending);
+        } catch (RuntimeException e) {
+            // Not durable: give the seat back / Non persistente: restituisce il posto
+            course.seats.release();
+            writeBehind.abandon(course.corsoId);
+            course.emails.remove(email);
+            throw e;
+        }
+        writeBehind.enqueue(pending);
+        
+        EnrollmentDTO dto = new EnrollmentDTO(course.corsoId, pending.nome(), pending.cognome(), pending.email());
+        dto.setDataOraIscrizione(now);
+        dto.setCorsoTitolo(course.titolo);
+        dto.setCorsoLuogo(course.luogo);
+        dto.setCorsoDataOraInizio(course.dataOraInizio);
+        dto.setStatus(STATUS_PENDING);
+        dto.setFullName(pending.nome() + " " + pending.cognome());
+        return dto;
+    }
+    
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Admission state of one high-demand course
+     * Stato di ammissione di un corso ad alta domanda
+     */
+    private static final class HighDemandCourse {
+        
+        private final Long corsoId;
+        private final String titolo;
+        private final String luogo;
+        private final LocalDateTime dataOraInizio;
+        private final StripedSeatCounter seats;
+        private final Set<String> emails = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger admitting = new AtomicInteger();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile boolean closing;
+        
+        private HighDemandCourse(Corso corso) {
+            this.corsoId = corso.getCorsoId();
+            this.titolo = corso.getTitolo();
+            this.luogo = corso.getLuogo();
+            this.dataOraInizio = corso.getDataOraInizio();
+            this.seats = new StripedSeatCounter(corso.getDisponibilita() != null ? corso.getDisponibilita() : 0);
+        }
+        
+        private void awaitClosed() {
+            try {
+                closed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Seat counter split across stripes so concurrent admissions rarely touch the same slot
+     * Contatore di posti diviso in strisce così le ammissioni concorrenti toccano raramente lo stesso slot
+     * 
+     * Each thread starts from its own stripe and moves to the next ones when it is empty;
+     * a decrement is a compare-and-set that never goes below zero.
+     * Ogni thread parte dalla propria striscia e passa alle successive quando è vuota;
+     * un decremento è un compare-and-set che non scende mai sotto zero.
+     */
+    static final class StripedSeatCounter {
+        
+        private static final int STRIPES = 16;
+        
+        // One stripe every 8 longs to keep them on separate cache lines / Una striscia ogni 8 long per tenerle su linee di cache separate
+        private static final int PAD = 8;
+        
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PAD);
+        
+        StripedSeatCounter(long seats) {
+            for (int i = 0; i < STRIPES; i++) {
+                cells.set(i * PAD, seats / STRIPES + (i < seats % STRIPES ? 1 : 0));
+            }
+        }
+        
+        boolean tryAcquire() {
+            int home = (int) (Thread.currentThread().getId() % STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                int slot = ((home + i) % STRIPES) * PAD;
+                long seats;
+                while ((seats = cells.get(slot)) > 0) {
+                    if (cells.compareAndSet(slot, seats, seats - 1)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        
+        void release() {
+            cells.incrementAndGet((int) (Thread.currentThread().getId() % STRIPES) * PAD);
+        }
+        
+        /**
+         * Add or take seats; taking stops at zero
+         * Aggiunge o toglie posti; la rimozione si ferma a zero
+         */
+        void adjust(long seats) {
+            if (seats > 0) {
+                cells.addAndGet((int) (Thread.currentThread().getId() % STRIPES) * PAD, seats);
+                return;
+            }
+            long missing = -seats;
+            while (missing > 0 && tryAcquire()) {
+                missing--;
+            }
+        }
+        
+        long sum() {
+            long total = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                total += cells.get(i * PAD);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.esame.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seat Journal
+ * Journal dei Posti
+ * 
+ * Append-only file of high-demand admissions not yet written to the database. An admission
+ * is acknowledged only once its line is forced to disk; concurrent admissions share one
+ * fsync (group commit). Flushed tickets are marked, and the file is truncated whenever no
+ * admission is outstanding, so after a crash only the unflushed tail is replayed.
+ * File append-only delle ammissioni ad alta domanda non ancora scritte nel database.
+ * Un'ammissione è confermata solo quando la sua riga è forzata su disco; le ammissioni
+ * concorrenti condividono un solo fsync (group commit). I ticket scritti vengono marcati e il
+ * file è troncato quando nessuna ammissione è in sospeso, così dopo un crash viene
+ * rieseguita solo la coda non scritta.
+ */
+@Component
+public class SeatJournal {
+    
+    private static final Logger log = LoggerFactory.getLogger(SeatJournal.class);
+    
+    private static final String ADMITTED = "A";
+    private static final String FLUSHED = "F";
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.seat-journal.path:data/seat-journal.log}")
+    private String path;
+    
+    // Admissions that could not be written, kept for manual recovery / Ammissioni non scrivibili, conservate per il recupero manuale
+    @Value("${app.seat-journal.dead-letter-path:data/seat-dead-letter.log}")
+    private String deadLetterPath;
+    
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    
+    private FileChannel channel;
+    private long written;
+    private long outstanding;
+    private volatile long synced;
+    
+    /**
+     * Open the journal file, creating it if needed
+     * Apre il file del journal, creandolo se necessario
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Path file = Paths.get(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        written = channel.size();
+        synced = written;
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            channel.force(true);
+            channel.close();
+        }
+    }
+    
+    /**
+     * Append an admission and wait until it is durable
+     * Aggiunge un'ammissione e attende che sia persistente
+     * 
+     * @param pending Admitted enrollment / Iscrizione ammessa
+     */
+    public void admit(PendingEnrollment pending) {
+        long position;
+        synchronized (appendLock) {
+            position = write(ADMITTED, pending);
+            outstanding++;
+        }
+        syncTo(position);
+    }
+    
+    /**
+     * Mark admissions as written to the database
+     * Marca le ammissioni come scritte nel database
+     * 
+     * The marks are not forced: losing them only means an idempotent replay.
+     * I marcatori non sono forzati: perderli comporta solo una riesecuzione idempotente.
+     * 
+     * @param flushed Flushed admissions / Ammissioni scritte
+     */
+    public void markFlushed(List<PendingEnrollment> flushed) {
+        synchronized (appendLock) {
+            outstanding -= flushed.size();
+            if (outstanding <= 0) {
+                // Nothing left to recover: start over / Niente da recuperare: si riparte da zero
+                truncate();
+                return;
+            }
+            for (PendingEnrollment pending : flushed) {
+                write(FLUSHED, pending);
+            }
+        }
+    }
+    
+    /**
+     * Move admissions that keep failing out of the journal
+     * Sposta fuori dal journal le ammissioni che continuano a fallire
+     * 
+     * They are appended to the dead-letter file, forced, and then marked as flushed so a
+     * restart does not replay them.
+     * Sono aggiunte al file dead-letter, forzate, e poi marcate come scritte così un riavvio
+     * non le riesegue.
+     * 
+     * @param failed Admissions that could not be written / Ammissioni non scrivibili
+     * @param reason Last error / Ultimo errore
+     */
+    public void deadLetter(List<PendingEnrollment> failed, String reason) {
+        Path file = Paths.get(deadLetterPath);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            StringBuilder lines = new StringBuilder();
+            for (PendingEnrollment pending : failed) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("e", pending);
+                entry.put("reason", reason);
+                lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+            }
+            try (FileChannel deadLetters = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    deadLetters.write(buffer);
+                }
+                deadLetters.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        markFlushed(failed);
+    }
+    
+    /**
+     * Read admissions that never reached the database
+     * Legge le ammissioni che non hanno mai raggiunto il database
+     * 
+     * @return Unflushed admissions in journal order / Ammissioni non scritte in ordine di journal
+     */
+    public List<PendingEnrollment> unflushed() {
+        Map<String, PendingEnrollment> admitted = new LinkedHashMap<>();
+        synchronized (appendLock) {
+            try {
+                for (String line : Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode entry;
+                    try {
+                        entry = objectMapper.readTree(line);
+                    } catch (IOException e) {
+                        // Torn last line of a crash / Ultima riga troncata da un crash
+                        log.warn("Skipping corrupt seat journal line / Riga del journal dei posti corrotta ignorata");
+                        continue;
+                    }
+                    PendingEnrollment pending = objectMapper.treeToValue(entry.get("e"), PendingEnrollment.class);
+                    if (ADMITTED.equals(entry.path("t").asText())) {
+                        admitted.put(pending.ticket(), pending);
+                    } else {
+                        admitted.remove(pending.ticket());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return new ArrayList<>(admitted.values());
+    }
+    
+    /**
+     * Drop every entry once recovered admissions are in the database
+     * Elimina ogni voce una volta che le ammissioni recuperate sono nel database
+     */
+    public void reset() {
+        synchronized (appendLock) {
+            outstanding = 0;
+            truncate();
+        }
+    }
+    
+    private long write(String type, PendingEnrollment pending) {
+        try {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("t", type);
+            entry.put("e", pending);
+            ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                written += channel.write(line);
+            }
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void syncTo(long position) {
+        if (synced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            // A previous force may already cover this line / Un force precedente può già coprire questa riga
+            if (synced >= position) {
+                return;
+            }
+            long target;
+            synchronized (appendLock) {
+                target = written;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synced = target;
+        }
+    }
+    
+    private void truncate() {
+        try {
+            channel.truncate(0);
+            written = 0;
+            synced = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
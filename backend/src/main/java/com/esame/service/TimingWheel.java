@@ -0,0 +1,188 @@
+package com.esame.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Timing Wheel
+ * Ruota Temporizzata
+ * 
+ * Hashed timing wheel for large numbers of cancellable timeouts. A deadline is hashed into
+ * one of a power-of-two number of buckets together with the number of full turns left; one
+ * thread advances a bucket per tick and fires the entries whose turns ran out. Scheduling and
+ * cancelling are O(1) and never touch the buckets from the caller thread.
+ * Ruota temporizzata a hash per grandi quantità di timeout annullabili. Una scadenza è
+ * assegnata a uno dei bucket (in numero potenza di due) insieme al numero di giri completi
+ * rimasti; un thread avanza di un bucket per tick e scatena le voci i cui giri sono esauriti.
+ * Pianificare e annullare costano O(1) e non toccano mai i bucket dal thread chiamante.
+ * 
+ * @param <T> Payload handed to the expiry callback / Dato passato alla callback di scadenza
+ */
+public class TimingWheel<T> {
+    
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+    
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Timeout<T>>[] buckets;
+    // Handed over by callers, moved into buckets by the worker / Consegnati dai chiamanti, spostati nei bucket dal worker
+    private final Queue<Timeout<T>> incoming = new ConcurrentLinkedQueue<>();
+    private final Consumer<T> onExpiry;
+    private final Thread worker;
+    
+    private volatile boolean running = true;
+    private final long startNanos;
+    private long tick;
+    
+    /**
+     * Create and start a wheel
+     * Crea e avvia una ruota
+     * 
+     * @param name Worker thread name / Nome del thread worker
+     * @param tickDuration Tick length / Durata del tick
+     * @param unit Tick unit / Unità del tick
+     * @param wheelSize Bucket count, rounded up to a power of two / Numero di bucket, arrotondato a potenza di due
+     * @param onExpiry Callback run on the worker thread / Callback eseguita sul thread worker
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> onExpiry) {
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.onExpiry = onExpiry;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /**
+     * Schedule a payload to expire after a delay
+     * Pianifica la scadenza di un dato dopo un ritardo
+     * 
+     * @param payload Payload / Dato
+     * @param delay Delay / Ritardo
+     * @param unit Delay unit / Unità del ritardo
+     * @return Handle to cancel the timeout / Riferimento per annullare il timeout
+     */
+    public Timeout<T> schedule(T payload, long delay, TimeUnit unit) {
+        Timeout<T> timeout = new Timeout<>(payload, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        incoming.add(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Stop the worker; pending timeouts never fire
+     * Ferma il worker; i timeout pendenti non scattano più
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+    
+    private void run() {
+        while (running) {
+            long deadline = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferIncoming();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+    
+    private void transferIncoming() {
+        Timeout<T> timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            // First tick processed at or after the deadline, never a past one / Primo tick elaborato alla scadenza o dopo, mai uno passato
+            long ticks = Math.max(tick, (timeout.deadlineNanos - startNanos + tickNanos - 1) / tickNanos - 1);
+            timeout.remainingRounds = (ticks - tick) / buckets.length;
+            buckets[(int) (ticks & mask)].add(timeout);
+        }
+    }
+    
+    private void expire(Queue<Timeout<T>> bucket) {
+        Iterator<Timeout<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout<T> timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                if (timeout.state.compareAndSet(false, true)) {
+                    try {
+                        onExpiry.accept(timeout.payload);
+                    } catch (RuntimeException e) {
+                        log.error("Timeout callback failed / Callback di timeout fallita", e);
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+    
+    /**
+     * A scheduled timeout
+     * Un timeout pianificato
+     * 
+     * @param <T> Payload type / Tipo del dato
+     */
+    public static final class Timeout<T> {
+        
+        private final T payload;
+        private final long deadlineNanos;
+        // Fired or cancelled / Scattato o annullato
+        private final AtomicBoolean state = new AtomicBoolean();
+        private volatile boolean cancelled;
+        private long remainingRounds;
+        
+        private Timeout(T payload, long deadlineNanos) {
+            this.payload = payload;
+            this.deadlineNanos = deadlineNanos;
+        }
+        
+        /**
+         * Cancel unless already fired
+         * Annulla se non già scattato
+         * 
+         * @return True if cancelled by this call / True se annullato da questa chiamata
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(false, true)) {
+                cancelled = true;
+                return true;
+            }
+            return false;
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        public T getPayload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.esame.service;
+
+import com.esame.config.Transactions;
+import com.esame.model.TokenRevocato;
+import com.esame.repository.TokenRevocatoRepository;
+import com.esame.security.AccountVersionCache;
+import com.esame.security.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token Revocation Service
+ * Servizio Revoca Token
+ * 
+ * Revoked JWT IDs are stored in token_revocati until the token expires. A Bloom filter of
+ * those IDs sits in front of the table, so the common "not revoked" answer costs a few
+ * memory reads; only a filter hit, revoked or false positive, queries the table. A daemon
+ * thread adds the rows other nodes insert and periodically rebuilds the filter from the live
+ * rows, dropping expired ones.
+ * Gli ID JWT revocati sono salvati in token_revocati fino alla scadenza del token. Un filtro
+ * di Bloom di quegli ID sta davanti alla tabella, così la risposta comune "non revocato"
+ * costa poche letture in memoria; solo un riscontro nel filtro, revocato o falso positivo,
+ * interroga la tabella. Un thread daemon aggiunge le righe inserite dagli altri nodi e
+ * ricostruisce periodicamente il filtro dalle righe valide, scartando quelle scadute.
+ * 
+ * The same table carries account token versions (deactivation, role change, deletion) as
+ * rows keyed "acct:{userId}:{version}", kept as long as an access token lives; syncing nodes
+ * hand them to AccountVersionCache instead of the filter.
+ * La stessa tabella porta le versioni token degli account (disattivazione, cambio ruolo,
+ * eliminazione) come righe con chiave "acct:{userId}:{version}", conservate quanto vive un
+ * token di accesso; i nodi in sincronizzazione le passano a AccountVersionCache invece che al filtro.
+ * 
+ * Sync polls by revocation time, not by ID: IDs are drawn before commit, so a row with a
+ * lower ID can become visible after a higher one. Each poll reaches back sync-overlap before
+ * the previous one, which must cover the longest revoking transaction plus the clock skew
+ * between nodes; rows seen twice are skipped by JWT ID.
+ * La sincronizzazione legge per ora di revoca, non per ID: gli ID sono assegnati prima del
+ * commit, quindi una riga con ID minore può diventare visibile dopo una con ID maggiore. Ogni
+ * lettura risale di sync-overlap prima della precedente, che deve coprire la transazione di
+ * revoca più lunga più lo scarto di orologio tra i nodi; le righe viste due volte sono
+ * saltate per ID JWT.
+ */
+@Service
+public class TokenRevocationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+    
+    // Rows carrying an account token version instead of a JWT ID / Righe con una versione token di account invece di un ID JWT
+    private static final String ACCOUNT_PREFIX = "acct:";
+    
+    @Autowired
+    private TokenRevocatoRepository tokenRevocatoRepository;
+    
+    @Autowired
+    private AccountVersionCache accountVersionCache;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.jwt.expiration:86400000}")
+    private long accessTokenMillis;
+    
+    @Value("${app.jwt.revocation.sync-interval:PT5S}")
+    private Duration syncInterval;
+    
+    @Value("${app.jwt.revocation.sync-overlap:PT1M}")
+    private Duration syncOverlap;
+    
+    @Value("${app.jwt.revocation.rebuild-interval:PT10M}")
+    private Duration rebuildInterval;
+    
+    @Value("${app.jwt.revocation.expected-revocations:100000}")
+    private int expectedRevocations;
+    
+    @Value("${app.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+    
+    // Swapped by rebuild, guarded by itself for adds / Sostituito da rebuild, protetto da sé stesso per le aggiunte
+    private final Object filterLock = new Object();
+    private volatile BloomFilter filter;
+    // Start of the last poll, and the IDs read within the overlap window / Inizio dell'ultima lettura, e gli ID letti nella finestra di sovrapposizione
+    private LocalDateTime lastSync;
+    private final Map<String, LocalDateTime> recent = new HashMap<>();
+    
+    private TransactionTemplate transactionTemplate;
+    private Counter lookupCounter;
+    private Thread worker;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedRevocations, falsePositiveRate);
+        lastSync = LocalDateTime.now();
+        transactionTemplate = Transactions.requiresNew(transactionManager);
+        lookupCounter = Counter.builder("auth.revocation.store.lookups")
+            .description("Bloom filter hits checked against token_revocati / Riscontri del filtro di Bloom verificati su token_revocati")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Load the revocations and start following the change log
+     * Carica le revoche e inizia a seguire il registro delle modifiche
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        rebuild();
+        running = true;
+        worker = new Thread(this::run, "token-revocation-sync");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+    
+    /**
+     * Revoke a token until it expires
+     * Revoca un token fino alla sua scadenza
+     * 
+     * @param jti JWT ID / ID JWT
+     * @param expiresAt Token expiry / Scadenza del token
+     */
+    public void revoke(String jti, Date expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime scadenza = LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        if (jti == null || !scadenza.isAfter(now)) {
+            return;
+        }
+        store(jti, scadenza, now);
+        // Visible on this node at once / Visibile subito su questo nodo
+        synchronized (filterLock) {
+            filter.add(jti);
+        }
+    }
+    
+    /**
+     * Refuse the tokens an account was issued before a committed version, on every node
+     * Rifiuta su ogni nodo i token emessi a un account prima di una versione confermata
+     * 
+     * Applied on this node at once. The row outlives every token it refuses; by then the
+     * version is in users, and a deleted account can no longer obtain tokens.
+     * Applicata subito su questo nodo. La riga sopravvive a ogni token che rifiuta; a quel
+     * punto la versione è in users, e un account eliminato non può più ottenere token.
+     * 
+     * @param userId User ID / ID utente
+     * @param version Token version, AccountVersionCache.DELETED for a deleted account / Versione token, AccountVersionCache.DELETED per un account eliminato
+     */
+    public void revokeAccount(Long userId, int version) {
+        if (!accountVersionCache.raise(userId, version)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            store(ACCOUNT_PREFIX + userId + ":" + version, now.plus(Duration.ofMillis(accessTokenMillis)), now);
+        } catch (DataAccessException e) {
+            log.error("Account token version not shared with other nodes / Versione token dell'account non condivisa con gli altri nodi: user {}, version {}: {}",
+                userId, version, e.getMessage());
+        }
+    }
+    
+    /**
+     * Check if a token was revoked
+     * Controlla se un token è stato revocato
+     * 
+     * @param jti JWT ID / ID JWT
+     * @return True if revoked / True se revocato
+     */
+    public boolean isRevoked(String jti) {
+        if (!filter.mightContain(jti)) {
+            return false;
+        }
+        lookupCounter.increment();
+        return tokenRevocatoRepository.existsByJtiAndScadenzaAfter(jti, LocalDateTime.now());
+    }
+    
+    /**
+     * Add the revocations made on any node since the last sync
+     * Aggiunge le revoche fatte su qualunque nodo dall'ultima sincronizzazione
+     */
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since;
+        synchronized (filterLock) {
+            since = lastSync.minus(syncOverlap);
+        }
+        List<Object[]> changes = tokenRevocatoRepository.findRevokedSince(since);
+        synchronized (filterLock) {
+            for (Object[] change : changes) {
+                String jti = (String) change[0];
+                if (recent.putIfAbsent(jti, (LocalDateTime) change[1]) == null) {
+                    track(filter, jti);
+                }
+            }
+            // Older rows are never read again / Le righe più vecchie non sono più lette
+            recent.values().removeIf(revocata -> revocata.isBefore(since));
+            lastSync = now;
+        }
+    }
+    
+    /**
+     * Rebuild the filter from the revocations still in force
+     * Ricostruisce il filtro dalle revoche ancora in vigore
+     * 
+     * Expired rows are purged first. The sync window restarts at the time taken before the
+     * live rows are read, so rows committed meanwhile are picked up by the next sync.
+     * Le righe scadute sono eliminate prima. La finestra di sincronizzazione riparte dall'ora
+     * presa prima della lettura delle righe valide, così le righe confermate nel frattempo
+     * sono prese dalla prossima sincronizzazione.
+     */
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer removed = transactionTemplate.execute(status -> tokenRevocatoRepository.deleteExpired(now));
+        
+        // Adds made while the rows are read must land in the new filter / Le aggiunte fatte durante la lettura devono finire nel nuovo filtro
+        synchronized (filterLock) {
+            List<String> active = tokenRevocatoRepository.findActiveJtis(now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedRevocations, active.size() * 2), falsePositiveRate);
+            for (String jti : active) {
+                track(rebuilt, jti);
+            }
+            filter = rebuilt;
+            recent.clear();
+            lastSync = now;
+        }
+        if (removed != null && removed > 0) {
+            log.info("Expired token revocations removed / Revoche di token scadute rimosse: {}", removed);
+        }
+    }
+    
+    private void store(String jti, LocalDateTime scadenza, LocalDateTime now) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!tokenRevocatoRepository.existsByJti(jti)) {
+                    tokenRevocatoRepository.save(new TokenRevocato(jti, scadenza, now));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Revoked concurrently, e.g. a double logout / Revocato in concorrenza, ad es. un doppio logout
+        }
+    }
+    
+    /**
+     * Put a revoked token ID in the filter, or hand an account version to its cache
+     * Mette un ID token revocato nel filtro, o passa una versione di account alla sua cache
+     */
+    private void track(BloomFilter target, String jti) {
+        if (!jti.startsWith(ACCOUNT_PREFIX)) {
+            target.add(jti);
+            return;
+        }
+        int separator = jti.lastIndexOf(':');
+        accountVersionCache.raise(Long.valueOf(jti.substring(ACCOUNT_PREFIX.length(), separator)),
+            Integer.parseInt(jti.substring(separator + 1)));
+    }
+    
+    private void run() {
+        long nextRebuild = System.nanoTime() + rebuildInterval.toNanos();
+        while (running) {
+            try {
+                Thread.sleep(syncInterval.toMillis());
+                if (System.nanoTime() - nextRebuild >= 0) {
+                    rebuild();
+                    nextRebuild = System.nanoTime() + rebuildInterval.toNanos();
+                } else {
+                    sync();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                log.warn("Token revocation sync failed, retrying / Sincronizzazione revoche token fallita, nuovo tentativo: {}", e.getMessage());
+            }
+        }
+    }
+}
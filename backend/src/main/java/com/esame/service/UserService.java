@@ -8,9 +8,10 @@ import com.esame.exception.ResourceNotFoundException;
 import com.esame.mapper.UserMapper;
 import com.esame.model.User;
 import com.esame.repository.UserRepository;
+import com.esame.repository.index.TrigramSearchIndex;
+import com.esame.security.AccountDetails;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -41,28 +42,31 @@ public class UserService implements UserDetailsService {
     @Autowired
     private PasswordService passwordService;
     
+    @Autowired
+    private TrigramSearchIndex trigramSearchIndex;
+    
     /**
      * Load user by username for Spring Security
      * Carica utente per username per Spring Security
      * 
      * @param username Username / Nome utente
-     * @return UserDetails / Dettagli utente
+     * @return UserDetails with the claims of its access tokens / UserDetails con i claim dei suoi token di accesso
      * @throws UsernameNotFoundException if user not found / se utente non trovato
      */
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    public AccountDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
         
-        return org.springframework.security.core.userdetails.User.builder()
-            .username(user.getEmail())
-            .password(user.getPassword())
-            .authorities(Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())))
-            .accountExpired(false)
-            .accountLocked(!user.getIsActive())
-            .credentialsExpired(false)
-            .disabled(!user.getIsActive())
-            .build();
+        return new AccountDetails(
+            user.getId(),
+            user.getEmail(),
+            user.getPassword(),
+            Boolean.TRUE.equals(user.getIsActive()),
+            user.getRole().name(),
+            user.getTokenVersion() != null ? user.getTokenVersion() : 0,
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+        );
     }
     
     /**
@@ -106,6 +110,20 @@ public class UserService implements UserDetailsService {
         return userMapper.toDTO(user);
     }
     
+    /**
+     * Search users whose first or last name contains the text
+     * Cerca utenti il cui nome o cognome contiene il testo
+     * 
+     * @param name Name text / Testo nome
+     * @return List of user DTOs / Lista DTO utenti
+     */
+    public List<UserDTO> searchUsersByName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return getAllUsers();
+        }
+        return userMapper.toDTOList(trigramSearchIndex.findUsersByName(name.trim()));
+    }
+    
     /**
      * Create new user
      * Crea nuovo utente
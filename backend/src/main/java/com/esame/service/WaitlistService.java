@@ -0,0 +1,196 @@
+package com.esame.service;
+
+import com.esame.config.AfterCommit;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.exception.ResourceNotFoundException;
+import com.esame.model.Corso;
+import com.esame.model.Iscrizione;
+import com.esame.model.ListaAttesa;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import com.esame.repository.ListaAttesaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Waitlist Service
+ * Servizio Lista d'Attesa
+ * 
+ * Full-course enrollment requests are queued in the lista_attesa table and mirrored in a
+ * per-course FIFO in memory. When an enrollment is deleted its seat goes to the head of the
+ * queue in the same transaction, so the seat is never visible as free in between.
+ * Le richieste di iscrizione a corsi completi sono accodate nella tabella lista_attesa e
+ * replicate in una FIFO per corso in memoria. Quando un'iscrizione viene eliminata il suo
+ * posto passa al primo della coda nella stessa transazione, così il posto non appare mai libero.
+ */
+@Service
+@Transactional
+public class WaitlistService {
+    
+    public static final String STATUS_WAITLISTED = "WAITLISTED";
+    
+    @Autowired
+    private ListaAttesaRepository listaAttesaRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    // Committed entry IDs per course; IDs grow with arrival / ID delle voci confermate per corso; gli ID crescono con l'arrivo
+    private final Map<Long, NavigableSet<Long>> queues = new ConcurrentHashMap<>();
+    
+    /**
+     * Load the committed waitlists in memory
+     * Carica in memoria le liste d'attesa confermate
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        queues.clear();
+        for (ListaAttesa attesa : listaAttesaRepository.findAllByOrderByAttesaIdAsc()) {
+            queue(attesa.getCorsoId()).add(attesa.getAttesaId());
+        }
+    }
+    
+    /**
+     * Queue a request for a full course, once per participant
+     * Accoda una richiesta per un corso completo, una volta per partecipante
+     * 
+     * Participants are matched on the normalized email. Repeating the request returns the
+     * existing entry and its current position.
+     * I partecipanti sono confrontati sull'email normalizzata. Ripetere la richiesta
+     * restituisce la voce esistente e la sua posizione attuale.
+     * 
+     * @param enrollmentDTO Enrollment data / Dati dell'iscrizione
+     * @return WAITLISTED enrollment with its position / Iscrizione WAITLISTED con la sua posizione
+     * @throws BusinessLogicException if the participant is already enrolled / se il partecipante è già iscritto
+     */
+    public EnrollmentDTO enqueue(EnrollmentDTO enrollmentDTO) {
+        Long corsoId = enrollmentDTO.getCorsoId();
+        // Only reached for full courses, off the insert path / Raggiunto solo per corsi completi, fuori dal percorso di inserimento
+        if (iscrizioneRepository.existsByCorsoIdAndPartecipanteEmail(corsoId, enrollmentDTO.getPartecipanteEmail())) {
+            throw new BusinessLogicException(
+                "ALREADY_ENROLLED", 
+                "Participant is already enrolled in this course / Il partecipante è già iscritto a questo corso"
+            );
+        }
+        String emailNorm = Iscrizione.normalizeEmail(enrollmentDTO.getPartecipanteEmail());
+        ListaAttesa existing = listaAttesaRepository.findByCorsoIdAndPartecipanteEmailNorm(corsoId, emailNorm).orElse(null);
+        if (existing != null) {
+            return toDTO(existing, position(corsoId, existing.getAttesaId()));
+        }
+        
+        // A concurrent identical request may insert first: its entry is returned / Una richiesta identica concorrente può inserire prima: viene restituita la sua voce
+        boolean inserted = listaAttesaRepository.insertIfAbsent(new ListaAttesa(corsoId,
+            enrollmentDTO.getPartecipanteNome(), enrollmentDTO.getPartecipanteCognome(), enrollmentDTO.getPartecipanteEmail()));
+        ListaAttesa attesa = listaAttesaRepository.findByCorsoIdAndPartecipanteEmailNorm(corsoId, emailNorm).orElseThrow();
+        if (inserted) {
+            AfterCommit.run(() -> queue(corsoId).add(attesa.getAttesaId()));
+        }
+        return toDTO(attesa, position(corsoId, attesa.getAttesaId()));
+    }
+    
+    /**
+     * Give a freed seat to the first participant still waiting
+     * Assegna un posto liberato al primo partecipante ancora in attesa
+     * 
+     * Must run in the transaction that freed the seat. Entries taken by a concurrent
+     * promotion or whose participant enrolled meanwhile are skipped.
+     * Deve essere eseguito nella transazione che ha liberato il posto. Le voci prese da una
+     * promozione concorrente o il cui partecipante si è iscritto nel frattempo sono saltate.
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Promoted enrollment, or null if nobody is waiting / Iscrizione promossa, o null se nessuno è in attesa
+     */
+    public Iscrizione promoteNext(Long corsoId) {
+        for (Long attesaId : queue(corsoId)) {
+            ListaAttesa attesa = listaAttesaRepository.findById(attesaId).orElse(null);
+            if (attesa == null || listaAttesaRepository.claim(attesaId) == 0) {
+                continue;
+            }
+            AfterCommit.run(() -> queue(corsoId).remove(attesaId));
+            
+            Corso corso = corsoRepository.getReferenceById(corsoId);
+            Iscrizione iscrizione = new Iscrizione(corso, attesa.getPartecipanteNome(),
+                attesa.getPartecipanteCognome(), attesa.getPartecipanteEmail());
+            // Enrolled meanwhile: the unique key skips the entry / Iscritto nel frattempo: la chiave unica salta la voce
+            if (iscrizioneRepository.insertIfAbsent(iscrizione)) {
+                return iscrizione;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Get the waitlist of a course
+     * Recupera la lista d'attesa di un corso
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Waiting entries with their positions / Voci in attesa con le loro posizioni
+     */
+    @Transactional(readOnly = true)
+    public List<EnrollmentDTO> getWaitlist(Long corsoId) {
+        List<EnrollmentDTO> waitlist = new ArrayList<>();
+        for (ListaAttesa attesa : listaAttesaRepository.findByCorsoIdOrderByAttesaIdAsc(corsoId)) {
+            waitlist.add(toDTO(attesa, waitlist.size() + 1));
+        }
+        return waitlist;
+    }
+    
+    /**
+     * Leave the waitlist
+     * Lascia la lista d'attesa
+     * 
+     * @param attesaId Entry ID / ID della voce
+     * @throws ResourceNotFoundException if entry not found / se voce non trovata
+     */
+    public void leave(Long attesaId) {
+        ListaAttesa attesa = listaAttesaRepository.findById(attesaId)
+            .orElseThrow(() -> new ResourceNotFoundException("Waitlist entry", "id", attesaId));
+        listaAttesaRepository.claim(attesaId);
+        AfterCommit.run(() -> queue(attesa.getCorsoId()).remove(attesaId));
+    }
+    
+    /**
+     * Number of participants waiting for a course
+     * Numero di partecipanti in attesa per un corso
+     * 
+     * @param corsoId Course ID / ID del corso
+     * @return Queue length / Lunghezza della coda
+     */
+    public int size(Long corsoId) {
+        NavigableSet<Long> queue = queues.get(corsoId);
+        return queue != null ? queue.size() : 0;
+    }
+    
+    private EnrollmentDTO toDTO(ListaAttesa attesa, int position) {
+        EnrollmentDTO dto = new EnrollmentDTO(attesa.getCorsoId(), attesa.getPartecipanteNome(),
+            attesa.getPartecipanteCognome(), attesa.getPartecipanteEmail());
+        dto.setAttesaId(attesa.getAttesaId());
+        dto.setPosizioneAttesa(position);
+        dto.setStatus(STATUS_WAITLISTED);
+        dto.setFullName(attesa.getPartecipanteNome() + " " + attesa.getPartecipanteCognome());
+        return dto;
+    }
+    
+    private int position(Long corsoId, Long attesaId) {
+        // Everyone who arrived earlier is ahead / Chi è arrivato prima è davanti
+        return queue(corsoId).headSet(attesaId, false).size() + 1;
+    }
+    
+    private NavigableSet<Long> queue(Long corsoId) {
+        return queues.computeIfAbsent(corsoId, id -> new ConcurrentSkipListSet<>());
+    }
+}
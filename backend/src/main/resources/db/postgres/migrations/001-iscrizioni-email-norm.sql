@@ -0,0 +1,12 @@
+-- Normalized participant email behind uk_iscrizioni_corso_email / Email del partecipante normalizzata dietro uk_iscrizioni_corso_email
+-- Idempotent; applied at startup by PostgresMigrations / Idempotente; applicata all'avvio da PostgresMigrations
+-- Backfill uses the same trim + lower-case as Iscrizione.normalizeEmail / Il riempimento usa lo stesso trim + minuscolo di Iscrizione.normalizeEmail
+-- Existing duplicates make the unique index fail and must be merged first / I duplicati esistenti fanno fallire l'indice univoco e vanno prima accorpati
+
+ALTER TABLE iscrizioni ADD COLUMN IF NOT EXISTS partecipante_email_norm VARCHAR(50);
+
+UPDATE iscrizioni SET partecipante_email_norm = lower(trim(partecipante_email)) WHERE partecipante_email_norm IS NULL;
+
+ALTER TABLE iscrizioni ALTER COLUMN partecipante_email_norm SET NOT NULL;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_iscrizioni_corso_email ON iscrizioni (corso_id, partecipante_email_norm);
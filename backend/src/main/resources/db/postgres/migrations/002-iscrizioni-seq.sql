@@ -0,0 +1,12 @@
+-- Enrollment ID sequence, allocated 50 at a time by Hibernate's pooled optimizer / Sequenza degli ID iscrizione, allocata 50 alla volta dall'ottimizzatore pooled di Hibernate
+-- Idempotent; applied at startup by PostgresMigrations / Idempotente; applicata all'avvio da PostgresMigrations
+-- A fetched value V hands out the IDs V-49..V, so the next value must be at least max(iscrizione_id) + 50
+-- Un valore letto V assegna gli ID V-49..V, quindi il valore successivo deve essere almeno max(iscrizione_id) + 50
+-- The sequence never moves backwards / La sequenza non torna mai indietro
+
+CREATE SEQUENCE IF NOT EXISTS iscrizioni_seq START WITH 1 INCREMENT BY 50;
+
+SELECT setval('iscrizioni_seq', GREATEST(
+    (SELECT COALESCE(MAX(iscrizione_id), 0) + 50 FROM iscrizioni),
+    (SELECT last_value + CASE WHEN is_called THEN 50 ELSE 0 END FROM iscrizioni_seq)
+), false);
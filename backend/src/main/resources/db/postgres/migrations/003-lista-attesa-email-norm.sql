@@ -0,0 +1,18 @@
+-- Normalized participant email behind uk_lista_attesa_corso_email / Email del partecipante normalizzata dietro uk_lista_attesa_corso_email
+-- Idempotent; applied at startup by PostgresMigrations / Idempotente; applicata all'avvio da PostgresMigrations
+-- Backfill uses the same trim + lower-case as Iscrizione.normalizeEmail / Il riempimento usa lo stesso trim + minuscolo di Iscrizione.normalizeEmail
+-- Entries differing only in case keep the earliest one / Delle voci che differiscono solo per maiuscole resta la prima
+
+ALTER TABLE lista_attesa ADD COLUMN IF NOT EXISTS partecipante_email_norm VARCHAR(50);
+
+UPDATE lista_attesa SET partecipante_email_norm = lower(trim(partecipante_email)) WHERE partecipante_email_norm IS NULL;
+
+DELETE FROM lista_attesa a USING lista_attesa b
+WHERE a.corso_id = b.corso_id AND a.partecipante_email_norm = b.partecipante_email_norm AND a.attesa_id > b.attesa_id;
+
+ALTER TABLE lista_attesa ALTER COLUMN partecipante_email_norm SET NOT NULL;
+
+-- The raw-email key of earlier schemas / La chiave sull'email grezza degli schemi precedenti
+ALTER TABLE lista_attesa DROP CONSTRAINT IF EXISTS uk_lista_attesa_corso_email;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_lista_attesa_corso_email ON lista_attesa (corso_id, partecipante_email_norm);
@@ -0,0 +1,13 @@
+-- Composite indexes behind CourseCursor keyset pagination / Indici composti dietro la paginazione keyset di CourseCursor
+-- Idempotent; applied at startup by PostgresMigrations / Idempotente; applicata all'avvio da PostgresMigrations
+-- Each sort column is paired with the corso_id tie-breaker so the seek predicate and ORDER BY use one index / Ogni colonna di ordinamento è abbinata allo spareggio corso_id così predicato di seek e ORDER BY usano un solo indice
+
+CREATE INDEX IF NOT EXISTS idx_corsi_data_inizio_corso ON corsi (data_ora_inizio, corso_id);
+CREATE INDEX IF NOT EXISTS idx_corsi_titolo_corso ON corsi (titolo, corso_id);
+CREATE INDEX IF NOT EXISTS idx_corsi_luogo_corso ON corsi (luogo, corso_id);
+CREATE INDEX IF NOT EXISTS idx_corsi_disponibilita_corso ON corsi (disponibilita, corso_id);
+
+-- Single-column indexes now covered by the composite prefixes / Indici a colonna singola ora coperti dai prefissi composti
+DROP INDEX IF EXISTS idx_corsi_data_inizio;
+DROP INDEX IF EXISTS idx_corsi_luogo;
+DROP INDEX IF EXISTS idx_corsi_disponibilita;
@@ -0,0 +1,11 @@
+-- Trigram indexes for infix LIKE searches / Indici a trigrammi per ricerche LIKE per sottostringa
+-- Applied at startup on PostgreSQL by TrigramSearchIndex / Applicato all'avvio su PostgreSQL da TrigramSearchIndex
+-- Expressions match the LOWER(column) LIKE '%...%' repository queries / Le espressioni corrispondono alle query LOWER(colonna) LIKE '%...%' dei repository
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_corsi_luogo_trgm ON corsi USING gin (lower(luogo) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_iscrizioni_nome_trgm ON iscrizioni USING gin (lower(partecipante_nome) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_iscrizioni_email_trgm ON iscrizioni USING gin (lower(partecipante_email) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_nome_trgm ON users USING gin (lower(nome) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_cognome_trgm ON users USING gin (lower(cognome) gin_trgm_ops);
@@ -0,0 +1,99 @@
+package com.esame.controller;
+
+import com.esame.model.Corso;
+import com.esame.model.Iscrizione;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Concurrency Tests for the one-enrollment-per-course unique key
+ * Test di Concorrenza per la chiave unica di un'iscrizione per corso
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:duplicate_enrollment;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@ActiveProfiles("test")
+public class DuplicateEnrollmentConcurrencyTest {
+    
+    private static final int ROUNDS = 20;
+    private static final int SEATS = 10;
+    
+    @Autowired
+    private WebApplicationContext context;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+    
+    @Test
+    void testConcurrentIdenticalEnrollmentsCreateOneAndRejectOne() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Corso corso = new Corso("Duplicate Course " + round, LocalDateTime.now().plusDays(30), "Aula Test", SEATS);
+                Long corsoId = corsoRepository.save(corso).getCorsoId();
+                // Same participant, different email case / Stesso partecipante, maiuscole dell'email diverse
+                String[] emails = {"mario.rossi@example.com", "Mario.Rossi@Example.com"};
+                
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> statuses = new ArrayList<>();
+                for (String email : emails) {
+                    String body = objectMapper.writeValueAsString(new Iscrizione(corsoId, "Mario", "Rossi", email));
+                    statuses.add(pool.submit(() -> {
+                        start.await();
+                        return mockMvc.perform(post("/enrollments")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                            .andReturn().getResponse().getStatus();
+                    }));
+                }
+                start.countDown();
+                
+                List<Integer> results = new ArrayList<>();
+                for (Future<Integer> status : statuses) {
+                    results.add(status.get(30, TimeUnit.SECONDS));
+                }
+                results.sort(null);
+                
+                // One created, one rejected, one seat taken / Una creata, una respinta, un posto occupato
+                assertEquals(List.of(201, 409), results, "round " + round);
+                assertEquals(1, iscrizioneRepository.countByCorsoId(corsoId));
+                assertEquals(SEATS - 1, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.esame.repository.index;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the roaring-style bitmap
+ * Test per la bitmap in stile Roaring
+ */
+public class CompressedBitmapTest {
+    
+    @Test
+    void testArrayContainerTurnsIntoBitmapPastFourThousandNinetySix() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value < 4096; value++) {
+            bitmap.add(value * 2);
+        }
+        assertEquals("ArrayContainer", containerType(bitmap, 0));
+        
+        bitmap.add(1);
+        assertEquals("BitmapContainer", containerType(bitmap, 0));
+        assertEquals(4097, bitmap.cardinality());
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(8190));
+        assertFalse(bitmap.contains(3));
+        
+        // Back at the threshold the chunk is sparse again / Tornato alla soglia il blocco è di nuovo sparso
+        bitmap.remove(1);
+        assertEquals("ArrayContainer", containerType(bitmap, 0));
+        int[] values = bitmap.toArray();
+        assertEquals(4096, values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(i * 2, values[i]);
+        }
+    }
+    
+    @Test
+    void testEmptyResults() {
+        CompressedBitmap empty = new CompressedBitmap();
+        CompressedBitmap sparse = CompressedBitmap.of(1, 2, 3);
+        CompressedBitmap disjoint = CompressedBitmap.of(4, 5, 70_000);
+        
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.toArray().length);
+        assertTrue(sparse.and(empty).isEmpty());
+        assertTrue(sparse.and(disjoint).isEmpty());
+        assertEquals(0, sparse.and(disjoint).toArray().length);
+        assertTrue(sparse.andNot(sparse).isEmpty());
+        assertTrue(empty.andNot(sparse).isEmpty());
+        assertArrayEquals(new int[] {1, 2, 3}, empty.or(sparse).toArray());
+        
+        CompressedBitmap dense = dense(0, 5_000);
+        assertTrue(dense.andNot(dense).isEmpty());
+        assertTrue(dense.and(CompressedBitmap.of(5_001, 65_536)).isEmpty());
+    }
+    
+    @Test
+    void testAndOrAcrossContainers() {
+        // Chunk 0 dense, chunk 1 sparse, chunk 3 only on the right / Blocco 0 denso, blocco 1 sparso, blocco 3 solo a destra
+        CompressedBitmap left = dense(0, 6_000);
+        left.add(65_536 + 10);
+        left.add(65_536 + 20);
+        CompressedBitmap right = CompressedBitmap.of(5, 5_999, 6_000, 65_536 + 20, 3 * 65_536 + 1);
+        
+        assertArrayEquals(new int[] {5, 5_999, 65_536 + 20}, left.and(right).toArray());
+        
+        CompressedBitmap union = left.or(right);
+        assertEquals(6_000 + 2 + 2, union.cardinality());
+        assertTrue(union.contains(6_000));
+        assertTrue(union.contains(3 * 65_536 + 1));
+        assertTrue(union.contains(65_536 + 10));
+        
+        CompressedBitmap difference = left.andNot(right);
+        assertEquals(6_000 - 2 + 1, difference.cardinality());
+        assertFalse(difference.contains(5));
+        assertTrue(difference.contains(65_536 + 10));
+        
+        // Operands are left untouched / Gli operandi restano invariati
+        assertEquals(6_002, left.cardinality());
+        assertEquals(5, right.cardinality());
+    }
+    
+    @Test
+    void testRemoveDownToEmpty() {
+        CompressedBitmap bitmap = dense(0, 5_000);
+        bitmap.add(200_000);
+        bitmap.add(1_000_000);
+        
+        for (int value : bitmap.toArray()) {
+            bitmap.remove(value);
+        }
+        
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.cardinality());
+        assertEquals(0, bitmap.toArray().length);
+        assertFalse(bitmap.contains(200_000));
+        bitmap.remove(42);
+        bitmap.add(7);
+        assertArrayEquals(new int[] {7}, bitmap.toArray());
+    }
+    
+    @Test
+    void testRandomOperationsMatchBitSet() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            BitSet leftBits = new BitSet();
+            BitSet rightBits = new BitSet();
+            CompressedBitmap left = randomBitmap(random, leftBits);
+            CompressedBitmap right = randomBitmap(random, rightBits);
+            
+            BitSet and = (BitSet) leftBits.clone();
+            and.and(rightBits);
+            BitSet or = (BitSet) leftBits.clone();
+            or.or(rightBits);
+            BitSet andNot = (BitSet) leftBits.clone();
+            andNot.andNot(rightBits);
+            
+            assertArrayEquals(and.stream().toArray(), left.and(right).toArray());
+            assertArrayEquals(or.stream().toArray(), left.or(right).toArray());
+            assertArrayEquals(andNot.stream().toArray(), left.andNot(right).toArray());
+            assertEquals(leftBits.cardinality(), left.cardinality());
+        }
+    }
+    
+    private static CompressedBitmap dense(int from, int to) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = from; value < to; value++) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+    
+    // Mix of sparse and dense chunks over the first four containers / Misto di blocchi sparsi e densi sui primi quattro contenitori
+    private static CompressedBitmap randomBitmap(Random random, BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int chunk = 0; chunk < 4; chunk++) {
+            int count = random.nextBoolean() ? random.nextInt(200) : 3_000 + random.nextInt(4_000);
+            for (int i = 0; i < count; i++) {
+                int value = chunk * 65_536 + random.nextInt(8_192);
+                bitmap.add(value);
+                bits.set(value);
+            }
+            for (int i = 0; i < count / 10; i++) {
+                int value = chunk * 65_536 + random.nextInt(8_192);
+                bitmap.remove(value);
+                bits.clear(value);
+            }
+        }
+        return bitmap;
+    }
+    
+    private static String containerType(CompressedBitmap bitmap, int index) {
+        Object[] containers = (Object[]) ReflectionTestUtils.getField(bitmap, "containers");
+        return containers[index].getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,105 @@
+package com.esame.repository.index;
+
+import com.esame.dto.CourseFilter;
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.CorsoSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the facet bitmaps against the SQL filter
+ * Test per le bitmap dei facet rispetto al filtro SQL
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:course_facet_index;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+public class CourseFacetIndexTest {
+    
+    private static final String[] CATEGORIE = {"Informatica", "Informatica Avanzata", "Lingue", "Marketing", null};
+    private static final String[] LIVELLI = {"Base", "Intermedio", "Avanzato", null};
+    private static final Boolean[] CERTIFICAZIONI = {true, false, null};
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    private CourseFacetIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        List<Corso> corsi = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            Corso corso = new Corso("Facet Course " + i, LocalDateTime.now().plusDays(30), "Aula Test", i % 4);
+            corso.setCategoria(CATEGORIE[i % CATEGORIE.length]);
+            corso.setLivello(LIVELLI[(i / 5) % LIVELLI.length]);
+            corso.setCertificazione(CERTIFICAZIONI[(i / 3) % CERTIFICAZIONI.length]);
+            corsi.add(corso);
+        }
+        corsoRepository.saveAll(corsi);
+        index = new CourseFacetIndex();
+        index.rebuild(corsoRepository.findAll());
+    }
+    
+    @Test
+    void testEveryFacetCombinationMatchesSql() {
+        String[] categorie = {null, "informatica", "AVANZATA", "lingue", "assente"};
+        String[] livelli = {null, "base", "medio", "avanzato"};
+        Boolean[] certificazioni = {null, true, false};
+        
+        for (String categoria : categorie) {
+            for (String livello : livelli) {
+                for (Boolean certificazione : certificazioni) {
+                    for (boolean disponibili : new boolean[] {false, true}) {
+                        CourseFilter filter = new CourseFilter();
+                        filter.setCategoria(categoria);
+                        filter.setLivello(livello);
+                        filter.setCertificazione(certificazione);
+                        filter.setDisponibili(disponibili);
+                        
+                        assertArrayEquals(sqlIds(filter), index.findCourseIds(filter), filter.cacheKey());
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testUpsertAndRemoveFollowTheRow() {
+        Corso corso = corsoRepository.findAll().get(0);
+        CourseFilter filter = new CourseFilter();
+        filter.setCategoria("Design");
+        filter.setCertificazione(true);
+        filter.setDisponibili(true);
+        assertEquals(0, index.findCourseIds(filter).length);
+        
+        corso.setCategoria("Design");
+        corso.setCertificazione(true);
+        corso.setDisponibilita(3);
+        index.upsert(corso);
+        assertArrayEquals(new long[] {corso.getCorsoId()}, index.findCourseIds(filter));
+        
+        index.seatsChanged(corso.getCorsoId(), 0);
+        assertEquals(0, index.findCourseIds(filter).length);
+        
+        index.remove(corso.getCorsoId());
+        filter.setDisponibili(false);
+        assertEquals(0, index.findCourseIds(filter).length);
+        assertFalse(Arrays.stream(index.findCourseIds(new CourseFilter())).anyMatch(id -> id == corso.getCorsoId()));
+    }
+    
+    private long[] sqlIds(CourseFilter filter) {
+        return corsoRepository.findAll(CorsoSpecifications.withFilter(filter)).stream()
+            .mapToLong(Corso::getCorsoId)
+            .sorted()
+            .toArray();
+    }
+}
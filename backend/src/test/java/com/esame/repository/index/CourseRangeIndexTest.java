@@ -0,0 +1,104 @@
+package com.esame.repository.index;
+
+import com.esame.dto.CourseFilter;
+import com.esame.model.Corso;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the sorted range columns
+ * Test per le colonne a intervallo ordinate
+ */
+public class CourseRangeIndexTest {
+    
+    @Test
+    void testSplicedChangesMatchAFullRebuild() {
+        Random random = new Random(42);
+        Map<Long, Corso> catalog = new HashMap<>();
+        CourseRangeIndex index = new CourseRangeIndex();
+        index.rebuild(List.of());
+        
+        for (int step = 0; step < 2_000; step++) {
+            long corsoId = 1 + random.nextInt(60);
+            if (random.nextInt(5) == 0) {
+                catalog.remove(corsoId);
+                index.remove(corsoId);
+            } else {
+                Corso corso = course(corsoId, random);
+                catalog.put(corsoId, corso);
+                index.upsert(corso);
+            }
+            
+            if (step % 50 == 0) {
+                CourseRangeIndex rebuilt = new CourseRangeIndex();
+                rebuilt.rebuild(new ArrayList<>(catalog.values()));
+                for (CourseFilter filter : filters(random)) {
+                    assertArrayEquals(rebuilt.findCourseIds(filter), index.findCourseIds(filter));
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testUnchangedValuesKeepTheSnapshot() {
+        Corso corso = new Corso("Range Course", LocalDateTime.of(2030, 5, 1, 9, 0), "Aula Test", 10);
+        corso.setCorsoId(1L);
+        corso.setPrezzo(100.0);
+        corso.setDurataOre(8);
+        CourseRangeIndex index = new CourseRangeIndex();
+        index.rebuild(List.of(corso));
+        Object before = snapshotOf(index);
+        
+        // Only disponibilita moves / Si sposta solo disponibilita
+        corso.setDisponibilita(9);
+        index.upsert(corso);
+        assertSame(before, snapshotOf(index));
+        
+        corso.setPrezzo(-0.0);
+        index.upsert(corso);
+        CourseFilter free = new CourseFilter();
+        free.setPrezzoMin(0.0);
+        free.setPrezzoMax(0.0);
+        assertArrayEquals(new long[] {1L}, index.findCourseIds(free));
+    }
+    
+    private static Corso course(long corsoId, Random random) {
+        LocalDateTime inizio = random.nextInt(6) == 0 ? null :
+            LocalDateTime.of(2030, 1, 1, 9, 0).plusDays(random.nextInt(40)).plusHours(random.nextInt(8));
+        Corso corso = new Corso("Course " + corsoId, inizio, "Aula Test", random.nextInt(5));
+        corso.setCorsoId(corsoId);
+        corso.setPrezzo(random.nextInt(6) == 0 ? null : (double) random.nextInt(20) * 25);
+        corso.setDurataOre(random.nextInt(6) == 0 ? null : random.nextInt(12));
+        return corso;
+    }
+    
+    private static List<CourseFilter> filters(Random random) {
+        List<CourseFilter> filters = new ArrayList<>();
+        filters.add(new CourseFilter());
+        for (int i = 0; i < 10; i++) {
+            CourseFilter filter = new CourseFilter();
+            filter.setPrezzoMin(random.nextBoolean() ? (double) random.nextInt(300) : null);
+            filter.setPrezzoMax(random.nextBoolean() ? (double) random.nextInt(500) : null);
+            filter.setDurataMin(random.nextBoolean() ? random.nextInt(6) : null);
+            filter.setDurataMax(random.nextBoolean() ? 4 + random.nextInt(8) : null);
+            filter.setDataInizio(random.nextBoolean() ? LocalDate.of(2030, 1, 1).plusDays(random.nextInt(20)) : null);
+            filter.setDataFine(random.nextBoolean() ? LocalDate.of(2030, 1, 10).plusDays(random.nextInt(30)) : null);
+            filters.add(filter);
+        }
+        return filters;
+    }
+    
+    private static Object snapshotOf(CourseRangeIndex index) {
+        return ReflectionTestUtils.getField(index, "snapshot");
+    }
+}
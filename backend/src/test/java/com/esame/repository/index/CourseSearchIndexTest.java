@@ -0,0 +1,76 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for full-text course search
+ * Test per la ricerca full-text dei corsi
+ */
+public class CourseSearchIndexTest {
+    
+    private CourseSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        index = new CourseSearchIndex();
+        index.rebuild(List.of(
+            course(1L, "Fotografia digitale", "Anna Bianchi", "Esposizione, luce e Python per il ritocco"),
+            course(2L, "Python da zero", "Mario Rossi", "Variabili, funzioni e moduli"),
+            course(3L, "Cucina regionale", "Python Verdi", "Primi piatti e dolci"),
+            course(4L, "Impara <Java> & Spring", "Luca Neri", "Usa <script> & Java insieme")));
+    }
+    
+    @Test
+    void testTitleHitOutranksDocentiAndProgramma() {
+        List<CourseSearchIndex.Hit> hits = index.search("python", 10);
+        
+        assertEquals(List.of(2L, 3L, 1L), hits.stream().map(CourseSearchIndex.Hit::getCorsoId).toList());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        assertTrue(hits.get(1).getScore() > hits.get(2).getScore());
+    }
+    
+    @Test
+    void testPluralQueryFindsSingularText() {
+        index.upsert(course(5L, "Corso avanzato di Excel", "Sara Neri", "Tabelle pivot"));
+        
+        List<CourseSearchIndex.Hit> hits = index.search("corsi avanzati", 10);
+        
+        assertEquals(1, hits.size());
+        assertEquals(5L, hits.get(0).getCorsoId());
+        assertEquals("<em>Corso</em> <em>avanzato</em> di Excel", hits.get(0).getHighlights().get("titolo"));
+    }
+    
+    @Test
+    void testHighlightsEscapeMarkup() {
+        CourseSearchIndex.Hit hit = index.search("java", 10).get(0);
+        
+        assertEquals(4L, hit.getCorsoId());
+        assertEquals("Impara &lt;<em>Java</em>&gt; &amp; Spring", hit.getHighlights().get("titolo"));
+        assertEquals("Usa &lt;script&gt; &amp; <em>Java</em> insieme", hit.getHighlights().get("programma"));
+        assertFalse(hit.getHighlights().containsKey("docenti"));
+    }
+    
+    @Test
+    void testRemovedCourseIsNotFound() {
+        index.remove(2L);
+        
+        assertEquals(List.of(3L, 1L), index.search("python", 10).stream().map(CourseSearchIndex.Hit::getCorsoId).toList());
+        assertTrue(index.search("variabili", 10).isEmpty());
+        assertTrue(index.search("di per la", 10).isEmpty());
+    }
+    
+    private static Corso course(Long corsoId, String titolo, String docenti, String programma) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", 10);
+        corso.setCorsoId(corsoId);
+        corso.setDocenti(docenti);
+        corso.setProgramma(programma);
+        return corso;
+    }
+}
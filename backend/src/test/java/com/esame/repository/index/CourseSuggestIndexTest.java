@@ -0,0 +1,166 @@
+package com.esame.repository.index;
+
+import com.esame.model.Corso;
+import com.esame.repository.IscrizioneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the suggestion radix trie
+ * Test per il trie radix dei suggerimenti
+ */
+public class CourseSuggestIndexTest {
+    
+    private IscrizioneRepository iscrizioneRepository;
+    private CourseSuggestIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        iscrizioneRepository = mock(IscrizioneRepository.class);
+        index = new CourseSuggestIndex();
+        ReflectionTestUtils.setField(index, "iscrizioneRepository", iscrizioneRepository);
+    }
+    
+    @Test
+    void testInsertThenDeleteRestoresTheTrie() {
+        index.rebuild(List.of(course(1L, "Java Base", null)));
+        String before = dump();
+        
+        index.upsert(course(2L, "Introduzione a React", null));
+        assertEquals(List.of("Introduzione a React"), texts("rea"));
+        assertEquals(List.of("Introduzione a React"), texts("Intro"));
+        
+        index.remove(2L);
+        assertTrue(texts("rea").isEmpty());
+        assertEquals(before, dump());
+        
+        index.remove(1L);
+        assertEquals("", dump());
+    }
+    
+    @Test
+    void testSharedPrefixesSplitAndMergeEdges() {
+        index.rebuild(List.of(
+            course(1L, "Java Base", null),
+            course(2L, "JavaScript", null),
+            course(3L, "Java Avanzato", null)));
+        
+        assertEquals(3, texts("java").size());
+        assertEquals(List.of("JavaScript"), texts("javas"));
+        assertEquals(List.of("Java Base"), texts("java b"));
+        assertTrue(texts("javax").isEmpty());
+        
+        index.remove(2L);
+        assertEquals(2, texts("jav").size());
+        assertTrue(texts("javas").isEmpty());
+        // The edge left with a single child is merged back / L'arco rimasto con un solo figlio viene riunito
+        index.remove(1L);
+        index.upsert(course(3L, "Java Avanzato", null));
+        CourseSuggestIndex fresh = new CourseSuggestIndex();
+        ReflectionTestUtils.setField(fresh, "iscrizioneRepository", iscrizioneRepository);
+        fresh.rebuild(List.of(course(3L, "Java Avanzato", null)));
+        assertEquals(dump(fresh), dump());
+    }
+    
+    @Test
+    void testTopSuggestionsAreOrderedByEnrollments() {
+        List<Corso> corsi = new ArrayList<>();
+        List<Object[]> counts = new ArrayList<>();
+        for (long id = 1; id <= 25; id++) {
+            corsi.add(course(id, "Python modulo " + id, null));
+            counts.add(new Object[] {id, id * 10});
+        }
+        when(iscrizioneRepository.countGroupedByCorsoId()).thenReturn(counts);
+        index.rebuild(corsi);
+        
+        List<CourseSuggestIndex.Suggestion> top = index.suggest("py", CourseSuggestIndex.MAX_SUGGESTIONS);
+        assertEquals(CourseSuggestIndex.MAX_SUGGESTIONS, top.size());
+        assertEquals("Python modulo 25", top.get(0).getText());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).getWeight() >= top.get(i).getWeight());
+        }
+        assertEquals(List.of("Python modulo 25", "Python modulo 24"), texts("modulo", 2));
+        
+        // A re-weighted course moves up / Un corso ricalcolato sale in classifica
+        List<Object[]> reweighted = new ArrayList<>();
+        reweighted.add(new Object[] {3L, 1_000L});
+        when(iscrizioneRepository.countGroupedByCorsoIdIn(anyCollection())).thenReturn(reweighted);
+        index.markDirty(3L);
+        index.reweightDirty();
+        assertEquals("Python modulo 3", texts("python", 1).get(0));
+        assertEquals(1_000L, index.suggest("python modulo 3", 1).get(0).getWeight());
+    }
+    
+    @Test
+    void testRemovingACourseDropsOnlyItsPhrases() {
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[] {1L, 5L});
+        counts.add(new Object[] {2L, 7L});
+        when(iscrizioneRepository.countGroupedByCorsoId()).thenReturn(counts);
+        Corso react = course(1L, "Corso React", "Milano");
+        react.setDocenti("Anna Bianchi; Marco Verdi");
+        react.setCategoria("Informatica");
+        index.rebuild(List.of(react, course(2L, "Corso Excel", "Milano")));
+        assertEquals(12L, index.suggest("milano", 1).get(0).getWeight());
+        assertEquals(2, index.suggest("milano", 1).get(0).getCourseCount());
+        
+        index.remove(1L);
+        
+        assertTrue(texts("react").isEmpty());
+        assertTrue(texts("marco").isEmpty());
+        assertTrue(texts("bianchi").isEmpty());
+        assertTrue(texts("informatica").isEmpty());
+        assertEquals(List.of("Corso Excel"), texts("corso"));
+        // The shared luogo keeps the other course's weight / Il luogo condiviso mantiene il peso dell'altro corso
+        CourseSuggestIndex.Suggestion milano = index.suggest("milano", 1).get(0);
+        assertEquals(7L, milano.getWeight());
+        assertEquals(1, milano.getCourseCount());
+    }
+    
+    private List<String> texts(String prefix) {
+        return texts(prefix, CourseSuggestIndex.MAX_SUGGESTIONS);
+    }
+    
+    private List<String> texts(String prefix, int limit) {
+        return index.suggest(prefix, limit).stream().map(CourseSuggestIndex.Suggestion::getText).toList();
+    }
+    
+    private String dump() {
+        return dump(index);
+    }
+    
+    // Edge labels and entry counts in key order / Etichette degli archi e numero di voci in ordine di chiave
+    private static String dump(CourseSuggestIndex index) {
+        StringBuilder out = new StringBuilder();
+        dumpChildren(ReflectionTestUtils.getField(index, "root"), out);
+        return out.toString();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void dumpChildren(Object node, StringBuilder out) {
+        Map<Character, Object> children = new TreeMap<>((Map<Character, Object>) ReflectionTestUtils.getField(node, "children"));
+        for (Object child : children.values()) {
+            out.append('(').append(ReflectionTestUtils.getField(child, "label"))
+                .append(':').append(((List<?>) ReflectionTestUtils.getField(child, "entries")).size());
+            dumpChildren(child, out);
+            out.append(')');
+        }
+    }
+    
+    private static Corso course(Long corsoId, String titolo, String luogo) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), luogo, 10);
+        corso.setCorsoId(corsoId);
+        return corso;
+    }
+}
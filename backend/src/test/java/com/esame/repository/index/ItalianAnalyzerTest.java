@@ -0,0 +1,46 @@
+package com.esame.repository.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Italian analyzer
+ * Test per l'analizzatore italiano
+ */
+public class ItalianAnalyzerTest {
+    
+    @Test
+    void testSingularAndPluralShareAStem() {
+        assertEquals(ItalianAnalyzer.terms("corso"), ItalianAnalyzer.terms("corsi"));
+        assertEquals(ItalianAnalyzer.terms("lezione"), ItalianAnalyzer.terms("lezioni"));
+        assertEquals(ItalianAnalyzer.terms("lingua"), ItalianAnalyzer.terms("lingue"));
+        assertEquals(ItalianAnalyzer.terms("banca"), ItalianAnalyzer.terms("banche"));
+        assertEquals(ItalianAnalyzer.terms("avanzato"), ItalianAnalyzer.terms("avanzati"));
+    }
+    
+    @Test
+    void testShortWordsAreKept() {
+        assertEquals(List.of("java", "web"), ItalianAnalyzer.terms("Java WEB"));
+    }
+    
+    @Test
+    void testAccentsFoldAndStopWordsDrop() {
+        assertEquals(ItalianAnalyzer.terms("universita"), ItalianAnalyzer.terms("Università"));
+        assertEquals(List.of("cors", "java", "programmazion"),
+            ItalianAnalyzer.terms("Corso di Java per la programmazione"));
+        assertTrue(ItalianAnalyzer.terms("di, per; la").isEmpty());
+        assertTrue(ItalianAnalyzer.terms(null).isEmpty());
+    }
+    
+    @Test
+    void testOffsetsPointIntoTheSourceText() {
+        String text = "Ciao, Università!";
+        List<ItalianAnalyzer.Token> tokens = ItalianAnalyzer.analyze(text);
+        
+        assertEquals(2, tokens.size());
+        assertEquals("Università", text.substring(tokens.get(1).getStart(), tokens.get(1).getEnd()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.esame.repository.index;
+
+import com.esame.dto.CourseFilter;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.SeatHoldDTO;
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import com.esame.service.EnrollmentService;
+import com.esame.service.SeatHoldService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for the sold-out course bitset
+ * Test per il bitset dei corsi esauriti
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sold_out_index;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+public class SoldOutIndexTest {
+    
+    @Autowired
+    private SoldOutIndex soldOutIndex;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private SeatHoldService seatHoldService;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Test
+    void testLastEnrollmentSetsBitAndCancellationClearsIt() {
+        Long corsoId = newCourse("Sold-out Course", 2);
+        
+        enrollmentService.createEnrollment(new EnrollmentDTO(corsoId, "Mario", "Rossi", "mario.rossi@example.com"));
+        assertFalse(soldOutIndex.isSoldOut(corsoId));
+        EnrollmentDTO last = enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Anna", "Bianchi", "anna.bianchi@example.com"));
+        assertTrue(soldOutIndex.isSoldOut(corsoId));
+        
+        enrollmentService.deleteEnrollment(last.getIscrizioneId());
+        assertFalse(soldOutIndex.isSoldOut(corsoId));
+    }
+    
+    @Test
+    void testLastHoldSetsBitAndReleaseClearsIt() {
+        Long corsoId = newCourse("Held Course", 1);
+        
+        SeatHoldDTO hold = seatHoldService.createHold(corsoId, 5);
+        assertTrue(soldOutIndex.isSoldOut(corsoId));
+        
+        seatHoldService.releaseHold(corsoId, hold.getCodice());
+        assertFalse(soldOutIndex.isSoldOut(corsoId));
+    }
+    
+    @Test
+    void testBitsetGrowsForLargeIds() {
+        SoldOutIndex index = new SoldOutIndex();
+        Corso corso = new Corso("Far Course", LocalDateTime.now().plusDays(30), "Aula Test", 0);
+        corso.setCorsoId(100_000L);
+        
+        index.upsert(corso);
+        assertTrue(index.isSoldOut(100_000L));
+        assertFalse(index.isSoldOut(99_999L));
+        
+        corso.setDisponibilita(1);
+        index.upsert(corso);
+        assertFalse(index.isSoldOut(100_000L));
+    }
+    
+    @Test
+    void testSeatChangeReachesOnlyTheSeatIndexes() {
+        SoldOutIndex soldOut = new SoldOutIndex();
+        CourseFacetIndex facets = new CourseFacetIndex();
+        CourseIndex search = mock(CourseIndex.class);
+        CourseIndexMaintainer maintainer = new CourseIndexMaintainer();
+        ReflectionTestUtils.setField(maintainer, "indexes", List.of(soldOut, facets, search));
+        Corso corso = new Corso("Seat Course", LocalDateTime.now().plusDays(30), "Aula Test", 1);
+        corso.setCorsoId(7L);
+        facets.rebuild(List.of(corso));
+        CourseFilter disponibili = new CourseFilter();
+        disponibili.setDisponibili(true);
+        
+        maintainer.onCourseChanged(CourseChangedEvent.seats(7L, 0));
+        assertTrue(soldOut.isSoldOut(7L));
+        assertEquals(0, facets.findCourseIds(disponibili).length);
+        
+        maintainer.onCourseChanged(CourseChangedEvent.seats(7L, 1));
+        assertFalse(soldOut.isSoldOut(7L));
+        assertArrayEquals(new long[] {7L}, facets.findCourseIds(disponibili));
+        
+        // Indexes without disponibilita are not rewritten / Gli indici senza disponibilita non sono riscritti
+        verify(search, never()).upsert(any());
+        verify(search, times(2)).seatsChanged(eq(7L), anyInt());
+    }
+    
+    private Long newCourse(String titolo, int seats) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", seats);
+        return corsoRepository.save(corso).getCorsoId();
+    }
+}
@@ -0,0 +1,114 @@
+package com.esame.security;
+
+import com.esame.model.User;
+import com.esame.repository.TokenRevocatoRepository;
+import com.esame.repository.UserRepository;
+import com.esame.service.TokenRevocationService;
+import com.esame.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for token invalidation on account changes
+ * Test per l'invalidazione dei token alle modifiche dell'account
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:account_token_version;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+public class AccountTokenVersionTest {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    
+    @Autowired
+    private AccountVersionCache accountVersionCache;
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private TokenRevocatoRepository tokenRevocatoRepository;
+    
+    @Test
+    void testDeactivationInvalidatesIssuedToken() {
+        User user = newUser();
+        JwtPrincipal issued = issueToken(user);
+        assertTrue(accountVersionCache.isCurrent(issued));
+        
+        user = userRepository.findById(user.getId()).orElseThrow();
+        user.setIsActive(false);
+        userRepository.save(user);
+        
+        assertFalse(accountVersionCache.isCurrent(issued));
+        assertTrue(tokenRevocatoRepository.existsByJti("acct:" + user.getId() + ":1"));
+    }
+    
+    @Test
+    void testRoleChangeInvalidatesIssuedToken() {
+        User user = newUser();
+        JwtPrincipal issued = issueToken(user);
+        
+        user = userRepository.findById(user.getId()).orElseThrow();
+        user.setRole(User.UserRole.ADMIN);
+        userRepository.save(user);
+        
+        assertFalse(accountVersionCache.isCurrent(issued));
+        // A token issued after the change is accepted / Un token emesso dopo la modifica è accettato
+        assertTrue(accountVersionCache.isCurrent(issueToken(user)));
+    }
+    
+    @Test
+    void testDeletionInvalidatesIssuedTokenAcrossRestarts() {
+        User user = newUser();
+        JwtPrincipal issued = issueToken(user);
+        
+        userService.deleteUser(user.getId());
+        assertFalse(accountVersionCache.isCurrent(issued));
+        
+        // A restarted node rebuilds from users and token_revocati / Un nodo riavviato ricostruisce da users e token_revocati
+        @SuppressWarnings("unchecked")
+        Map<Long, Integer> versions = (Map<Long, Integer>) ReflectionTestUtils.getField(accountVersionCache, "versions");
+        versions.clear();
+        assertTrue(accountVersionCache.isCurrent(issued));
+        accountVersionCache.warmUp();
+        tokenRevocationService.rebuild();
+        assertFalse(accountVersionCache.isCurrent(issued));
+    }
+    
+    @Test
+    void testUnrelatedUpdateKeepsTokenAndStoresNothing() {
+        User user = newUser();
+        JwtPrincipal issued = issueToken(user);
+        long rows = tokenRevocatoRepository.count();
+        
+        user = userRepository.findById(user.getId()).orElseThrow();
+        user.setNome("Renamed");
+        userRepository.save(user);
+        
+        assertTrue(accountVersionCache.isCurrent(issued));
+        assertEquals(rows, tokenRevocatoRepository.count());
+    }
+    
+    private User newUser() {
+        User user = new User("Mario", "Rossi", UUID.randomUUID() + "@email.com", "password-hash");
+        return userRepository.save(user);
+    }
+    
+    private JwtPrincipal issueToken(User user) {
+        String token = tokenProvider.generateToken(userService.loadUserByUsername(user.getEmail()));
+        return tokenProvider.getPrincipalFromJWT(token);
+    }
+}
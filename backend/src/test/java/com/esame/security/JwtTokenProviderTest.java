@@ -0,0 +1,101 @@
+package com.esame.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for JWT issuing and validation
+ * Test per emissione e validazione JWT
+ * 
+ * The throughput comparison with the previous path, which rebuilt key and parser and
+ * verified each token twice (validate, then extract), is tagged benchmark and runs with
+ * mvn test -Pbenchmark.
+ * Il confronto di throughput con il percorso precedente, che ricostruiva chiave e parser e
+ * verificava ogni token due volte (validazione, poi estrazione), ha il tag benchmark e
+ * gira con mvn test -Pbenchmark.
+ */
+class JwtTokenProviderTest {
+    
+    private static final String SECRET =
+        "myVerySecureJWTSecretKeyForCourseManagementSystem2024WithAtLeast512BitsLengthToMeetHS512Requirements";
+    private static final int WARMUP = 5_000;
+    private static final int ITERATIONS = 20_000;
+    
+    private JwtTokenProvider tokenProvider;
+    private AccountDetails account;
+    
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtRefreshExpirationInMs", 3_600_000);
+        tokenProvider.init();
+        account = new AccountDetails(42L, "mario.rossi@email.com", "hash", true, "STUDENT", 3,
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_STUDENT")));
+    }
+    
+    @Test
+    void testParseValidClaimsReadsEveryClaimFromOneVerification() {
+        String token = tokenProvider.generateToken(account);
+        
+        Claims claims = tokenProvider.parseValidClaims(token);
+        assertNotNull(claims);
+        assertEquals("mario.rossi@email.com", claims.getSubject());
+        
+        JwtPrincipal principal = tokenProvider.getPrincipalFromJWT(token);
+        assertEquals(42L, principal.getUserId());
+        assertEquals("STUDENT", principal.getRole());
+        assertEquals(3, principal.getVersion());
+        
+        assertNull(tokenProvider.parseValidClaims(token.substring(0, token.length() - 2) + "xx"));
+        assertNull(tokenProvider.parseValidClaims("not-a-token"));
+        // Refresh tokens are valid but are not access tokens / I token di refresh sono validi ma non sono token di accesso
+        assertNull(tokenProvider.getPrincipalFromJWT(tokenProvider.generateRefreshToken("mario.rossi@email.com", "famiglia", 0)));
+    }
+    
+    @Test
+    @Tag("benchmark")
+    void testValidationThroughputOutpacesPerCallParsers() {
+        String token = tokenProvider.generateToken(account);
+        
+        double legacyRate = throughput(i -> legacyValidateAndExtract(token));
+        double validateRate = throughput(i -> tokenProvider.getPrincipalFromJWT(token).getName());
+        
+        // Half the HMAC work per request, with margin for a noisy machine / Metà del lavoro HMAC per richiesta, con margine per una macchina rumorosa
+        assertTrue(validateRate > legacyRate * 1.3,
+            "Expected cached validation to be faster: " + validateRate + " vs " + legacyRate);
+    }
+    
+    // Previous filter path: validateToken, then getUsernameFromJWT / Percorso precedente del filtro: validateToken, poi getUsernameFromJWT
+    private static String legacyValidateAndExtract(String token) {
+        Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build().parseClaimsJws(token);
+        return Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build()
+            .parseClaimsJws(token).getBody().getSubject();
+    }
+    
+    private static double throughput(Function<Integer, String> operation) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.apply(i).length();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.apply(i).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return ITERATIONS / (elapsed / 1_000_000_000.0);
+    }
+}
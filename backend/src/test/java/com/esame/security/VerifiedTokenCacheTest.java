@@ -0,0 +1,144 @@
+package com.esame.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the verified-token micro-cache
+ * Test per la micro-cache dei token verificati
+ */
+class VerifiedTokenCacheTest {
+    
+    private static final String SECRET =
+        "myVerySecureJWTSecretKeyForCourseManagementSystem2024WithAtLeast512BitsLengthToMeetHS512Requirements";
+    private static final int SESSIONS = 200;
+    private static final int REQUESTS = 50_000;
+    
+    private JwtTokenProvider tokenProvider;
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtRefreshExpirationInMs", 3_600_000);
+        tokenProvider.init();
+        
+        meterRegistry = new SimpleMeterRegistry();
+        cache = newCache(1_000);
+    }
+    
+    @Test
+    void testRepeatedTokenIsVerifiedOnce() {
+        String token = tokenProvider.generateToken(account(1L));
+        
+        for (int i = 0; i < 10; i++) {
+            JwtPrincipal principal = cache.getPrincipal(token);
+            assertEquals(1L, principal.getUserId());
+            assertEquals("user1@email.com", principal.getName());
+        }
+        
+        assertEquals(9.0, meterRegistry.get("auth.token.cache.hits").counter().count());
+        assertEquals(1.0, meterRegistry.get("auth.token.cache.misses").counter().count());
+        assertEquals(0.9, meterRegistry.get("auth.token.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(1, cache.size());
+    }
+    
+    @Test
+    void testInvalidAndRefreshTokensAreNotCached() {
+        String token = tokenProvider.generateToken(account(1L));
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+        
+        assertNull(cache.getPrincipal(tampered));
+        assertNull(cache.getPrincipal(tampered));
+        assertNull(cache.getPrincipal(tokenProvider.generateRefreshToken("user1@email.com", "famiglia", 0)));
+        assertEquals(0, cache.size());
+        
+        // A cached neighbour does not vouch for a different token / Un vicino in cache non garantisce per un token diverso
+        assertNotNull(cache.getPrincipal(token));
+        assertNull(cache.getPrincipal(tampered));
+    }
+    
+    @Test
+    void testEntriesExpireWithTheirToken() throws Exception {
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 1_000);
+        String token = tokenProvider.generateToken(account(1L));
+        JwtPrincipal principal = cache.getPrincipal(token);
+        assertNotNull(principal);
+        
+        Thread.sleep(Math.max(0, principal.getExpiresAt() - System.currentTimeMillis()) + 50);
+        
+        assertNull(cache.getPrincipal(token));
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    void testCacheStaysWithinBound() {
+        cache = newCache(100);
+        for (long id = 1; id <= 1_000; id++) {
+            assertNotNull(cache.getPrincipal(tokenProvider.generateToken(account(id))));
+            assertTrue(cache.size() <= 100);
+        }
+    }
+    
+    // Runs with mvn test -Pbenchmark / Gira con mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void testSustainedLoadUsesLessCpuPerRequest() {
+        List<String> tokens = new ArrayList<>();
+        for (long id = 1; id <= SESSIONS; id++) {
+            tokens.add(tokenProvider.generateToken(account(id)));
+        }
+        
+        // Each request carries a fresh copy of its session's token, as read from a header / Ogni richiesta porta una copia nuova del token della sessione, come letto da un header
+        long uncachedNanos = cpuPerRequest(tokens, tokenProvider::getPrincipalFromJWT);
+        long cachedNanos = cpuPerRequest(tokens, cache::getPrincipal);
+        
+        assertTrue(cache.hitRatio() > 0.99);
+        assertTrue(cachedNanos * 2 < uncachedNanos,
+            "Expected the cache to at least halve CPU per request: " + cachedNanos + " vs " + uncachedNanos);
+    }
+    
+    private long cpuPerRequest(List<String> tokens, Function<String, JwtPrincipal> verify) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        // Warm-up / Riscaldamento
+        for (int i = 0; i < REQUESTS / 5; i++) {
+            assertNotNull(verify.apply(new String(tokens.get(i % SESSIONS))));
+        }
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            assertNotNull(verify.apply(new String(tokens.get(i % SESSIONS))));
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / REQUESTS;
+    }
+    
+    private VerifiedTokenCache newCache(int maxEntries) {
+        meterRegistry = new SimpleMeterRegistry();
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(verifiedTokenCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxEntries", maxEntries);
+        verifiedTokenCache.init();
+        return verifiedTokenCache;
+    }
+    
+    private static AccountDetails account(long id) {
+        return new AccountDetails(id, "user" + id + "@email.com", "hash", true, "STUDENT", 0,
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_STUDENT")));
+    }
+}
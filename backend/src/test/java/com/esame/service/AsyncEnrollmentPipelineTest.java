@@ -0,0 +1,177 @@
+package com.esame.service;
+
+import com.esame.controller.EnhancedEnrollmentController;
+import com.esame.dto.BatchEnrollmentResultDTO;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.EnrollmentTicketDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the asynchronous enrollment pipeline
+ * Test per la pipeline asincrona delle iscrizioni
+ */
+class AsyncEnrollmentPipelineTest {
+    
+    private static final Long CORSO_ID = 1L;
+    
+    private EnrollmentService enrollmentService;
+    private AsyncEnrollmentPipeline pipeline;
+    
+    // Holds the worker inside createEnrollments / Trattiene il worker dentro createEnrollments
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    
+    @BeforeEach
+    void setUp() {
+        enrollmentService = mock(EnrollmentService.class);
+        pipeline = new AsyncEnrollmentPipeline();
+        ReflectionTestUtils.setField(pipeline, "enrollmentService", enrollmentService);
+        ReflectionTestUtils.setField(pipeline, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(pipeline, "partitionCount", 1);
+        ReflectionTestUtils.setField(pipeline, "capacity", 1);
+        ReflectionTestUtils.setField(pipeline, "batchSize", 50);
+        ReflectionTestUtils.setField(pipeline, "retention", Duration.ofMinutes(15));
+        ReflectionTestUtils.setField(pipeline, "shutdownWait", Duration.ofSeconds(5));
+        pipeline.start();
+    }
+    
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        pipeline.stop();
+    }
+    
+    @Test
+    void testFullQueueIsRefusedWith429AndRetryAfter() throws Exception {
+        when(enrollmentService.createEnrollments(anyList())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return created(invocation.getArgument(0));
+        });
+        assertNotNull(pipeline.submit(enrollment("first@example.com")));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        assertNotNull(pipeline.submit(enrollment("second@example.com")));
+        
+        EnhancedEnrollmentController controller = new EnhancedEnrollmentController();
+        ReflectionTestUtils.setField(controller, "idempotencyService", new IdempotencyService());
+        ReflectionTestUtils.setField(controller, "asyncEnrollmentPipeline", pipeline);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        
+        mockMvc.perform(post("/api/v1/enrollments/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(enrollment("third@example.com"))))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        assertTrue(pipeline.retryAfterSeconds(CORSO_ID) >= 1);
+    }
+    
+    @Test
+    void testTicketCompletesWithItsResult() throws Exception {
+        when(enrollmentService.createEnrollments(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        
+        EnrollmentTicketDTO ticket = pipeline.submit(enrollment("mario.rossi@example.com"));
+        assertEquals(EnrollmentTicketDTO.STATUS_QUEUED, ticket.getStatus());
+        
+        EnrollmentTicketDTO done = awaitFinished(ticket.getTicket());
+        assertEquals(EnrollmentTicketDTO.STATUS_COMPLETED, done.getStatus());
+        assertEquals(BatchEnrollmentResultDTO.STATUS_CREATED, done.getRisultato().getStatus());
+        assertEquals("mario.rossi@example.com", done.getRisultato().getEnrollment().getPartecipanteEmail());
+    }
+    
+    @Test
+    void testTicketFailsAfterMaxAttempts() throws Exception {
+        when(enrollmentService.createEnrollments(anyList())).thenThrow(new IllegalStateException("database down"));
+        
+        EnrollmentTicketDTO ticket = pipeline.submit(enrollment("mario.rossi@example.com"));
+        
+        EnrollmentTicketDTO done = awaitFinished(ticket.getTicket());
+        assertEquals(EnrollmentTicketDTO.STATUS_FAILED, done.getStatus());
+        assertNotNull(done.getMessage());
+        verify(enrollmentService, times(3)).createEnrollments(anyList());
+    }
+    
+    @Test
+    void testShutdownDrainsQueuedEnrollments() throws Exception {
+        when(enrollmentService.createEnrollments(anyList())).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return created(invocation.getArgument(0));
+        });
+        EnrollmentTicketDTO first = pipeline.submit(enrollment("first@example.com"));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        EnrollmentTicketDTO second = pipeline.submit(enrollment("second@example.com"));
+        
+        release.countDown();
+        pipeline.stop();
+        
+        assertNull(pipeline.submit(enrollment("late@example.com")));
+        assertEquals(EnrollmentTicketDTO.STATUS_COMPLETED, pipeline.getTicket(first.getTicket()).getStatus());
+        assertEquals(EnrollmentTicketDTO.STATUS_COMPLETED, pipeline.getTicket(second.getTicket()).getStatus());
+        assertEquals(0, pipeline.queued());
+    }
+    
+    @Test
+    void testShutdownInterruptsStuckWorker() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "shutdownWait", Duration.ofMillis(200));
+        when(enrollmentService.createEnrollments(anyList())).thenAnswer(invocation -> {
+            entered.countDown();
+            // Only an interrupt ends the wait / Solo un'interruzione termina l'attesa
+            new CountDownLatch(1).await();
+            return created(invocation.getArgument(0));
+        });
+        pipeline.submit(enrollment("stuck@example.com"));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        
+        long begin = System.nanoTime();
+        pipeline.stop();
+        
+        assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - begin) < 5);
+        for (Object partition : (Object[]) ReflectionTestUtils.getField(pipeline, "partitions")) {
+            assertFalse(((Thread) ReflectionTestUtils.getField(partition, "worker")).isAlive());
+        }
+    }
+    
+    private EnrollmentTicketDTO awaitFinished(String ticketId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        EnrollmentTicketDTO ticket = pipeline.getTicket(ticketId);
+        while (EnrollmentTicketDTO.STATUS_QUEUED.equals(ticket.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            ticket = pipeline.getTicket(ticketId);
+        }
+        return ticket;
+    }
+    
+    private static List<BatchEnrollmentResultDTO> created(List<EnrollmentDTO> rows) {
+        List<BatchEnrollmentResultDTO> results = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            results.add(new BatchEnrollmentResultDTO(i, BatchEnrollmentResultDTO.STATUS_CREATED, rows.get(i)));
+        }
+        return results;
+    }
+    
+    private static EnrollmentDTO enrollment(String email) {
+        return new EnrollmentDTO(CORSO_ID, "Mario", "Rossi", email);
+    }
+}
@@ -0,0 +1,134 @@
+package com.esame.service;
+
+import com.esame.dto.BatchEnrollmentResultDTO;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for bulk enrollment
+ * Test per l'iscrizione massiva
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batch_enrollment;DB_CLOSE_DELAY=-1",
+    "app.seat-journal.path=target/batch-enrollment/seat-journal.log"
+})
+@ActiveProfiles("test")
+public class BatchEnrollmentTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(BatchEnrollmentTest.class);
+    
+    private static final int TEAM = 300;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Test
+    void testBatchEnrollsWholeTeam() {
+        Long batchId = newCourse("Batch Course", TEAM);
+        List<BatchEnrollmentResultDTO> results = enrollmentService.createEnrollments(team(batchId, "batch", TEAM));
+        
+        assertEquals(TEAM, results.size());
+        for (int i = 0; i < TEAM; i++) {
+            assertEquals(i, results.get(i).getRiga());
+            assertEquals(BatchEnrollmentResultDTO.STATUS_CREATED, results.get(i).getStatus());
+            assertNotNull(results.get(i).getEnrollment().getIscrizioneId());
+        }
+        assertEquals(TEAM, iscrizioneRepository.countByCorsoId(batchId));
+        assertEquals(0, corsoRepository.findById(batchId).orElseThrow().getDisponibilita());
+    }
+    
+    // Runs with mvn test -Pbenchmark / Gira con mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void testBatchEnrollsWholeTeamFasterThanPerRowPath() {
+        // Warm up both paths / Riscalda entrambi i percorsi
+        enrollmentService.createEnrollments(team(newCourse("Warm-up Batch", 20), "warm", 20));
+        for (EnrollmentDTO enrollment : team(newCourse("Warm-up Row", 20), "warm", 20)) {
+            enrollmentService.createEnrollment(enrollment);
+        }
+        
+        Long perRowId = newCourse("Per-row Course", TEAM);
+        long begin = System.nanoTime();
+        for (EnrollmentDTO enrollment : team(perRowId, "row", TEAM)) {
+            enrollmentService.createEnrollment(enrollment);
+        }
+        long perRowNanos = System.nanoTime() - begin;
+        
+        Long batchId = newCourse("Batch Course", TEAM);
+        begin = System.nanoTime();
+        enrollmentService.createEnrollments(team(batchId, "batch", TEAM));
+        long batchNanos = System.nanoTime() - begin;
+        
+        assertEquals(TEAM, iscrizioneRepository.countByCorsoId(perRowId));
+        assertEquals(TEAM, iscrizioneRepository.countByCorsoId(batchId));
+        log.info("Bulk enrollment / Iscrizione massiva: {} participants, per-row {} ms, batch {} ms",
+            TEAM, perRowNanos / 1_000_000, batchNanos / 1_000_000);
+        // One transaction and set-based checks instead of one per row / Una transazione e controlli per insiemi invece di uno per riga
+        assertTrue(batchNanos * 2 < perRowNanos,
+            "Expected the batch to take at most half the per-row time: " + batchNanos + " vs " + perRowNanos);
+    }
+    
+    @Test
+    void testBatchReportsEveryRowOutcome() {
+        Long corsoId = newCourse("Small Course", 2);
+        Long otherId = newCourse("Other Course", 5);
+        enrollmentService.createEnrollment(new EnrollmentDTO(corsoId, "Anna", "Bianchi", "anna@example.com"));
+        
+        List<EnrollmentDTO> rows = List.of(
+            new EnrollmentDTO(corsoId, "Anna", "Bianchi", "anna@example.com"),
+            new EnrollmentDTO(corsoId, "Luca", "Verdi", "luca@example.com"),
+            new EnrollmentDTO(corsoId, "Luca", "Verdi", "luca@example.com"),
+            new EnrollmentDTO(corsoId, "Sara", "Neri", "sara@example.com"),
+            new EnrollmentDTO(otherId, "Sara", "Neri", "not-an-email"),
+            new EnrollmentDTO(999_999L, "Sara", "Neri", "sara@example.com"),
+            new EnrollmentDTO(otherId, "Sara", "Neri", "sara@example.com")
+        );
+        List<BatchEnrollmentResultDTO> results = enrollmentService.createEnrollments(rows);
+        
+        assertEquals("ALREADY_ENROLLED", results.get(0).getErrorCode());
+        assertEquals(BatchEnrollmentResultDTO.STATUS_CREATED, results.get(1).getStatus());
+        assertEquals("ALREADY_ENROLLED", results.get(2).getErrorCode());
+        assertEquals(WaitlistService.STATUS_WAITLISTED, results.get(3).getStatus());
+        assertEquals("INVALID_EMAIL_FORMAT", results.get(4).getErrorCode());
+        assertEquals("COURSE_NOT_FOUND", results.get(5).getErrorCode());
+        assertEquals(BatchEnrollmentResultDTO.STATUS_CREATED, results.get(6).getStatus());
+        
+        assertEquals(2L, iscrizioneRepository.countByCorsoId(corsoId));
+        assertEquals(0, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+        assertEquals(4, corsoRepository.findById(otherId).orElseThrow().getDisponibilita());
+    }
+    
+    private Long newCourse(String titolo, int seats) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", seats);
+        return corsoRepository.save(corso).getCorsoId();
+    }
+    
+    private static List<EnrollmentDTO> team(Long corsoId, String prefix, int size) {
+        List<EnrollmentDTO> team = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            team.add(new EnrollmentDTO(corsoId, "Mario", "Rossi", prefix + i + "@example.com"));
+        }
+        return team;
+    }
+}
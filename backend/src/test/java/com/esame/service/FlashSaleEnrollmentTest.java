@@ -0,0 +1,251 @@
+package com.esame.service;
+
+import com.esame.dto.CourseDTO;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.exception.BusinessLogicException;
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for high-demand (flash-sale) enrollment
+ * Test per l'iscrizione ad alta domanda (flash sale)
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:flash_sale;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "app.seat-journal.path=target/flash-sale/seat-journal.log",
+    "app.seat-journal.dead-letter-path=target/flash-sale/seat-dead-letter.log"
+})
+@ActiveProfiles("test")
+public class FlashSaleEnrollmentTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleEnrollmentTest.class);
+    
+    private static final int ENROLLERS = 200;
+    private static final int SEATS = 50;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private CourseService courseService;
+    
+    @Autowired
+    private SeatInventory seatInventory;
+    
+    @Autowired
+    private SeatJournal seatJournal;
+    
+    @Autowired
+    private EnrollmentWriteBehind writeBehind;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Test
+    void testRushNeverOversellsOnEitherPath() throws Exception {
+        Long transactionalId = newCourse("Transactional Course", SEATS);
+        rush(transactionalId, enrollmentService::createEnrollment);
+        
+        Long flashId = newCourse("Flash Sale Course", SEATS);
+        courseService.setHighDemand(flashId, true);
+        rush(flashId, seatInventory::tryAdmit);
+        assertEquals(0, seatInventory.available(flashId));
+        
+        // Disabling drains the write-behind queue / La disattivazione svuota la coda write-behind
+        courseService.setHighDemand(flashId, false);
+        assertFalse(seatInventory.isHighDemand(flashId));
+        assertEquals(0, corsoRepository.findById(flashId).orElseThrow().getDisponibilita());
+        assertEquals(SEATS, iscrizioneRepository.countByCorsoId(flashId));
+    }
+    
+    // Runs with mvn test -Pbenchmark / Gira con mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void testFlashSaleOutpacesTransactionalPath() throws Exception {
+        // Warm up both paths / Riscalda entrambi i percorsi
+        rush(newCourse("Warm-up Transactional", SEATS), enrollmentService::createEnrollment);
+        Long warmUpId = newCourse("Warm-up Flash Sale", SEATS);
+        courseService.setHighDemand(warmUpId, true);
+        rush(warmUpId, seatInventory::tryAdmit);
+        courseService.setHighDemand(warmUpId, false);
+        
+        double transactionalRate = rush(newCourse("Measured Transactional", SEATS), enrollmentService::createEnrollment);
+        Long flashId = newCourse("Measured Flash Sale", SEATS);
+        courseService.setHighDemand(flashId, true);
+        double flashRate = rush(flashId, seatInventory::tryAdmit);
+        courseService.setHighDemand(flashId, false);
+        
+        log.info("Enrollment rush / Corsa alle iscrizioni: {} enrollers, {} seats, transactional {} requests/s, high-demand {} requests/s",
+            ENROLLERS, SEATS, Math.round(transactionalRate), Math.round(flashRate));
+        // Admission in memory skips the per-request transaction / L'ammissione in memoria evita la transazione per richiesta
+        assertTrue(flashRate > transactionalRate * 2,
+            "Expected high-demand admission to outpace the transactional path: " + flashRate + " vs " + transactionalRate);
+    }
+    
+    @Test
+    void testHighDemandAdmissionIsPendingAndRejectsDuplicates() throws Exception {
+        Long corsoId = newCourse("Pending Course", 2);
+        courseService.setHighDemand(corsoId, true);
+        
+        EnrollmentDTO pending = enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Mario", "Rossi", "mario@example.com"));
+        assertEquals(SeatInventory.STATUS_PENDING, pending.getStatus());
+        assertNull(pending.getIscrizioneId());
+        
+        BusinessLogicException duplicate = assertThrows(BusinessLogicException.class, () -> enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Mario", "Rossi", "MARIO@example.com")));
+        assertEquals("ALREADY_ENROLLED", duplicate.getErrorCode());
+        
+        courseService.setHighDemand(corsoId, false);
+        assertEquals(1L, iscrizioneRepository.countByCorsoId(corsoId));
+        assertEquals(1, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+    }
+    
+    @Test
+    void testRecoveryReplaysUnflushedAdmissionsOnce() {
+        Long corsoId = newCourse("Recovery Course", 5);
+        PendingEnrollment lost = new PendingEnrollment(UUID.randomUUID().toString(), corsoId,
+            "Anna", "Bianchi", "anna@example.com", LocalDateTime.now());
+        // Journaled but never queued, as after a crash / Nel journal ma mai in coda, come dopo un crash
+        seatJournal.admit(lost);
+        
+        seatInventory.recover();
+        seatJournal.admit(lost);
+        seatInventory.recover();
+        
+        assertEquals(1L, iscrizioneRepository.countByCorsoId(corsoId));
+        assertEquals(4, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+        assertTrue(seatJournal.unflushed().isEmpty());
+    }
+    
+    @Test
+    void testCommittedSeatChangeIsReconciledInMemory() throws Exception {
+        Long corsoId = newCourse("Reconciled Course", 5);
+        courseService.setHighDemand(corsoId, true);
+        seatInventory.tryAdmit(new EnrollmentDTO(corsoId, "Mario", "Rossi", "mario@example.com"));
+        writeBehind.drain();
+        assertEquals(4, seatInventory.available(corsoId));
+        
+        // Seats lowered by an update outside the inventory / Posti ridotti da un aggiornamento fuori dall'inventario
+        CourseDTO course = courseService.getCourseById(corsoId);
+        course.setDisponibilita(2);
+        courseService.updateCourse(corsoId, course);
+        assertEquals(2, seatInventory.available(corsoId));
+        
+        courseService.setHighDemand(corsoId, false);
+    }
+    
+    @Test
+    void testAdmissionsBeyondCommittedSeatsAreWaitlisted() {
+        Long corsoId = newCourse("Shortfall Course", 1);
+        List<PendingEnrollment> batch = List.of(
+            new PendingEnrollment(UUID.randomUUID().toString(), corsoId, "Mario", "Rossi", "seated@example.com", LocalDateTime.now()),
+            new PendingEnrollment(UUID.randomUUID().toString(), corsoId, "Anna", "Bianchi", "late@example.com", LocalDateTime.now()));
+        
+        assertEquals(1, writeBehind.flush(batch, false));
+        
+        assertEquals(1L, iscrizioneRepository.countByCorsoId(corsoId));
+        List<EnrollmentDTO> waitlist = waitlistService.getWaitlist(corsoId);
+        assertEquals(1, waitlist.size());
+        assertEquals("late@example.com", waitlist.get(0).getPartecipanteEmail());
+    }
+    
+    @Test
+    void testFailingAdmissionIsDeadLetteredWithoutBlockingItsBatch() throws Exception {
+        Long corsoId = newCourse("Poison Course", 5);
+        PendingEnrollment valid = new PendingEnrollment(UUID.randomUUID().toString(), corsoId,
+            "Mario", "Rossi", "valid@example.com", LocalDateTime.now());
+        // No first name: rejected on every attempt / Senza nome: respinta a ogni tentativo
+        PendingEnrollment poison = new PendingEnrollment(UUID.randomUUID().toString(), corsoId,
+            null, "Bianchi", "poison@example.com", LocalDateTime.now());
+        seatJournal.admit(valid);
+        seatJournal.admit(poison);
+        writeBehind.enqueue(valid);
+        writeBehind.enqueue(poison);
+        
+        writeBehind.drain();
+        
+        assertEquals(1L, iscrizioneRepository.countByCorsoId(corsoId));
+        assertTrue(iscrizioneRepository.existsByCorsoIdAndPartecipanteEmail(corsoId, "valid@example.com"));
+        Path deadLetters = Paths.get("target/flash-sale/seat-dead-letter.log");
+        assertTrue(Files.readString(deadLetters, StandardCharsets.UTF_8).contains("poison@example.com"));
+        assertTrue(seatJournal.unflushed().isEmpty());
+    }
+    
+    private Long newCourse(String titolo, int seats) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", seats);
+        return corsoRepository.save(corso).getCorsoId();
+    }
+    
+    private double rush(Long corsoId, Function<EnrollmentDTO, EnrollmentDTO> enroll) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(ENROLLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        
+        for (int i = 0; i < ENROLLERS; i++) {
+            EnrollmentDTO enrollment = new EnrollmentDTO(corsoId, "Mario", "Rossi", "rush" + i + "@example.com");
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    EnrollmentDTO result = enroll.apply(enrollment);
+                    // Full transactional courses queue the request / I corsi transazionali completi accodano la richiesta
+                    if (WaitlistService.STATUS_WAITLISTED.equals(result.getStatus())) {
+                        rejected.incrementAndGet();
+                    } else {
+                        accepted.incrementAndGet();
+                    }
+                } catch (BusinessLogicException e) {
+                    assertEquals("COURSE_FULL", e.getErrorCode());
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        pool.shutdown();
+        
+        assertEquals(SEATS, accepted.get());
+        assertEquals(ENROLLERS - SEATS, rejected.get());
+        return ENROLLERS / (elapsedNanos / 1e9);
+    }
+}
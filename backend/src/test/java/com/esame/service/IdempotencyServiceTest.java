@@ -0,0 +1,199 @@
+package com.esame.service;
+
+import com.esame.controller.EnhancedEnrollmentController;
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.EnrollmentTicketDTO;
+import com.esame.exception.BusinessLogicException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for Idempotency-Key handling
+ * Test per la gestione di Idempotency-Key
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+public class IdempotencyServiceTest {
+    
+    private static final String ENDPOINT = "POST /test";
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private final AtomicInteger runs = new AtomicInteger();
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+    
+    @Test
+    void testRetryReplaysFirstResponse() {
+        String key = UUID.randomUUID().toString();
+        
+        ResponseEntity<Object> first = execute(key, "body");
+        ResponseEntity<Object> retry = execute(key, "body");
+        
+        assertEquals(1, runs.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(json(first), json(retry));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+    
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() {
+        String key = UUID.randomUUID().toString();
+        execute(key, "body");
+        
+        BusinessLogicException e = assertThrows(BusinessLogicException.class, () -> execute(key, "other body"));
+        
+        assertEquals("IDEMPOTENCY_KEY_REUSED", e.getErrorCode());
+        assertEquals(1, runs.get());
+    }
+    
+    @Test
+    void testConcurrentDuplicatesCoalesceOntoFirstExecution() throws Exception {
+        String key = UUID.randomUUID().toString();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<Object>> first = pool.submit(() ->
+                idempotencyService.execute(ENDPOINT, key, "body", () -> {
+                    started.countDown();
+                    await(release);
+                    return created();
+                }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<ResponseEntity<Object>> duplicate = pool.submit(() -> execute(key, "body"));
+            
+            // The duplicate waits for the first execution / Il duplicato attende la prima esecuzione
+            Thread.sleep(200);
+            assertFalse(duplicate.isDone());
+            release.countDown();
+            
+            assertEquals(json(first.get(10, TimeUnit.SECONDS)), json(duplicate.get(10, TimeUnit.SECONDS)));
+            assertEquals("true", duplicate.get().getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+            assertEquals(0, runs.get());
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    void testSameKeyFromDifferentUsersRunsForEach() {
+        String key = UUID.randomUUID().toString();
+        
+        for (String user : List.of("mario.rossi@example.com", "luigi.verdi@example.com")) {
+            SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+            execute(key, "body");
+        }
+        
+        assertEquals(2, runs.get());
+    }
+    
+    @Test
+    void testSameKeyFromDifferentAnonymousClientsRunsForEach() {
+        String key = UUID.randomUUID().toString();
+        
+        for (String ip : List.of("10.0.0.1", "10.0.0.2", "10.0.0.1")) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setRemoteAddr(ip);
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            execute(key, "body");
+        }
+        
+        // The third call repeats the first client / La terza chiamata ripete il primo client
+        assertEquals(2, runs.get());
+    }
+    
+    @Test
+    void testQueueFullIsNotReplayedOnRetry() throws Exception {
+        AsyncEnrollmentPipeline pipeline = mock(AsyncEnrollmentPipeline.class);
+        when(pipeline.submit(any())).thenReturn(null)
+            .thenReturn(new EnrollmentTicketDTO("ticket-1", 1L, EnrollmentTicketDTO.STATUS_QUEUED, LocalDateTime.now()));
+        when(pipeline.retryAfterSeconds(any())).thenReturn(1L);
+        EnhancedEnrollmentController controller = new EnhancedEnrollmentController();
+        ReflectionTestUtils.setField(controller, "idempotencyService", idempotencyService);
+        ReflectionTestUtils.setField(controller, "asyncEnrollmentPipeline", pipeline);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        String key = UUID.randomUUID().toString();
+        String body = objectMapper.writeValueAsString(new EnrollmentDTO(1L, "Mario", "Rossi", "mario.rossi@example.com"));
+        
+        mockMvc.perform(post("/api/v1/enrollments/async").header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isTooManyRequests());
+        
+        // The retry after Retry-After is queued, not answered with the stored 429 / Il nuovo tentativo dopo Retry-After è accodato, non riceve il 429 salvato
+        mockMvc.perform(post("/api/v1/enrollments/async").header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isAccepted())
+            .andExpect(header().doesNotExist(IdempotencyService.REPLAYED_HEADER));
+        verify(pipeline, times(2)).submit(any());
+    }
+    
+    private ResponseEntity<Object> execute(String key, String request) {
+        return idempotencyService.execute(ENDPOINT, key, request, () -> {
+            runs.incrementAndGet();
+            return created();
+        });
+    }
+    
+    // Replays carry the body as JSON / I replay portano il corpo come JSON
+    private JsonNode json(ResponseEntity<Object> response) {
+        return objectMapper.valueToTree(response.getBody());
+    }
+    
+    private static ResponseEntity<Object> created() {
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", UUID.randomUUID().toString()));
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
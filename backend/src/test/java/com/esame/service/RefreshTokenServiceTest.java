@@ -0,0 +1,110 @@
+package com.esame.service;
+
+import com.esame.exception.BusinessLogicException;
+import com.esame.repository.FamigliaRefreshRepository;
+import com.esame.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for refresh token rotation and reuse detection
+ * Test per la rotazione dei token di refresh e il rilevamento del riuso
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:refresh_token;DB_CLOSE_DELAY=-1",
+    "app.jwt.refresh-families.max-lifetime=P30D"
+})
+@ActiveProfiles("test")
+public class RefreshTokenServiceTest {
+    
+    private static final String USERNAME = "mario.rossi@example.com";
+    
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+    
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+    
+    @Autowired
+    private FamigliaRefreshRepository famigliaRefreshRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void testRotationIssuesNextGeneration() {
+        String first = refreshTokenService.issue(USERNAME);
+        
+        String second = rotate(first);
+        String third = rotate(second);
+        
+        assertNotEquals(first, second);
+        assertEquals(2, claims(third).get(JwtTokenProvider.CLAIM_GENERATION, Number.class).intValue());
+        assertEquals(USERNAME, claims(third).getSubject());
+    }
+    
+    @Test
+    void testReusedTokenRevokesFamily() {
+        String first = refreshTokenService.issue(USERNAME);
+        String second = rotate(first);
+        
+        assertInvalid(first);
+        
+        // The legitimate holder is logged out too / Anche il titolare legittimo viene disconnesso
+        assertInvalid(second);
+        assertTrue(famigliaRefreshRepository.findById(family(first)).orElseThrow().isRevocata());
+    }
+    
+    @Test
+    void testReuseIsDetectedWithoutCachedFamily() {
+        String first = refreshTokenService.issue(USERNAME);
+        String second = rotate(first);
+        // As on a node that never saw this family / Come su un nodo che non ha mai visto questa famiglia
+        ((Map<?, ?>) ReflectionTestUtils.getField(refreshTokenService, "families")).clear();
+        
+        assertInvalid(first);
+        
+        assertInvalid(second);
+        assertTrue(famigliaRefreshRepository.findById(family(first)).orElseThrow().isRevocata());
+    }
+    
+    @Test
+    void testFamilyStopsRotatingAfterMaxLifetime() {
+        String first = refreshTokenService.issue(USERNAME);
+        String second = rotate(first);
+        jdbcTemplate.update("UPDATE famiglie_refresh SET data_ora_creazione = ? WHERE famiglia_id = ?",
+            LocalDateTime.now().minusDays(31), family(first));
+        
+        assertInvalid(second);
+        
+        // Aged out, not reused: the family is not flagged / Scaduta, non riusata: la famiglia non viene segnalata
+        assertFalse(famigliaRefreshRepository.findById(family(first)).orElseThrow().isRevocata());
+    }
+    
+    private String rotate(String token) {
+        return refreshTokenService.rotate(token, claims(token));
+    }
+    
+    private void assertInvalid(String token) {
+        BusinessLogicException e = assertThrows(BusinessLogicException.class, () -> rotate(token));
+        assertEquals("INVALID_REFRESH_TOKEN", e.getErrorCode());
+    }
+    
+    private Claims claims(String token) {
+        return tokenProvider.parseValidClaims(token);
+    }
+    
+    private String family(String token) {
+        return claims(token).get(JwtTokenProvider.CLAIM_FAMILY, String.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.esame.service;
+
+import com.esame.dto.EnrollmentDTO;
+import com.esame.dto.SeatHoldDTO;
+import com.esame.exception.ResourceNotFoundException;
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for seat hold expiry
+ * Test per la scadenza dei blocchi posto
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:seat_hold;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+public class SeatHoldServiceTest {
+    
+    @Autowired
+    private SeatHoldService seatHoldService;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void testExpiredHoldReleasesSeat() throws Exception {
+        Long corsoId = newCourse("Hold Course", 2);
+        SeatHoldDTO hold = seatHoldService.createHold(corsoId, 1);
+        assertEquals(1, disponibilita(corsoId));
+        
+        expireNow(hold);
+        
+        assertTrue(eventually(() -> disponibilita(corsoId) == 2));
+        assertThrows(ResourceNotFoundException.class, () -> seatHoldService.confirmHold(corsoId, hold.getCodice(),
+            new EnrollmentDTO(corsoId, "Mario", "Rossi", "mario.rossi@example.com")));
+    }
+    
+    @Test
+    void testExpiredHoldGivesSeatToWaitlistFirst() throws Exception {
+        Long corsoId = newCourse("Waitlisted Hold Course", 1);
+        SeatHoldDTO hold = seatHoldService.createHold(corsoId, 1);
+        EnrollmentDTO queued = enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Anna", "Bianchi", "anna.bianchi@example.com"));
+        assertEquals(WaitlistService.STATUS_WAITLISTED, queued.getStatus());
+        
+        expireNow(hold);
+        
+        assertTrue(eventually(() -> iscrizioneRepository.countByCorsoId(corsoId) == 1));
+        assertEquals(0, disponibilita(corsoId));
+        assertTrue(waitlistService.getWaitlist(corsoId).isEmpty());
+    }
+    
+    // Backdates the hold and lets the wheel pick it up / Retrodata il blocco e lascia che la ruota lo raccolga
+    private void expireNow(SeatHoldDTO hold) {
+        jdbcTemplate.update("UPDATE blocchi_posto SET scadenza = ? WHERE codice = ?",
+            LocalDateTime.now().minusSeconds(1), hold.getCodice());
+        seatHoldService.recover();
+    }
+    
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+    
+    private int disponibilita(Long corsoId) {
+        return corsoRepository.findById(corsoId).orElseThrow().getDisponibilita();
+    }
+    
+    private Long newCourse(String titolo, int seats) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", seats);
+        return corsoRepository.save(corso).getCorsoId();
+    }
+}
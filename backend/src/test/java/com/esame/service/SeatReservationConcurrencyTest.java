@@ -0,0 +1,149 @@
+package com.esame.service;
+
+import com.esame.dto.EnrollmentDTO;
+import com.esame.model.Corso;
+import com.esame.model.Iscrizione;
+import com.esame.repository.CorsoRepository;
+import com.esame.repository.IscrizioneRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency Tests for atomic seat reservation and waitlist promotion
+ * Test di Concorrenza per la prenotazione atomica dei posti e la promozione dalla lista d'attesa
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:seat_reservation;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@ActiveProfiles("test")
+public class SeatReservationConcurrencyTest {
+    
+    private static final Logger log = LoggerFactory.getLogger(SeatReservationConcurrencyTest.class);
+    
+    private static final int ENROLLERS = 200;
+    private static final int SEATS = 50;
+    
+    @Autowired
+    private EnrollmentService enrollmentService;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Autowired
+    private IscrizioneRepository iscrizioneRepository;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Test
+    void testConcurrentEnrollmentsNeverOversell() throws Exception {
+        Long corsoId = newCourse("Flash Course");
+        
+        // Exactly one enrollment per seat, the rest queued / Esattamente un'iscrizione per posto, il resto in coda
+        rush(corsoId);
+        assertEquals(0, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+        assertEquals(SEATS, iscrizioneRepository.countByCorsoId(corsoId));
+        assertEquals(ENROLLERS - SEATS, waitlistService.getWaitlist(corsoId).size());
+    }
+    
+    // Runs with mvn test -Pbenchmark / Gira con mvn test -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void testThroughputAtConcurrentEnrollers() throws Exception {
+        // Warm-up / Riscaldamento
+        rush(newCourse("Warm-up Course"));
+        
+        double rate = rush(newCourse("Measured Course"));
+        
+        log.info("Seat reservation / Prenotazione posti: {} enrollers, {} seats, {} requests/s",
+            ENROLLERS, SEATS, Math.round(rate));
+        assertTrue(rate > 0);
+    }
+    
+    @Test
+    void testDeleteEnrollmentPromotesWaitlistThenReleasesSeat() {
+        Long corsoId = newCourse("Release Course", 1);
+        
+        EnrollmentDTO first = enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Mario", "Rossi", "first@example.com"));
+        assertEquals(0, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+        EnrollmentDTO second = enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Anna", "Bianchi", "second@example.com"));
+        assertEquals(WaitlistService.STATUS_WAITLISTED, second.getStatus());
+        assertEquals(1, second.getPosizioneAttesa());
+        
+        // Retrying keeps a single entry / Ritentare mantiene una sola voce
+        EnrollmentDTO retry = enrollmentService.createEnrollment(
+            new EnrollmentDTO(corsoId, "Anna", "Bianchi", "second@example.com"));
+        assertEquals(second.getAttesaId(), retry.getAttesaId());
+        
+        // The freed seat goes to the waitlist / Il posto liberato va alla lista d'attesa
+        enrollmentService.deleteEnrollment(first.getIscrizioneId());
+        assertEquals(0, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+        assertTrue(waitlistService.getWaitlist(corsoId).isEmpty());
+        List<Iscrizione> promoted = iscrizioneRepository.findByCorsoIdAndPartecipanteEmail(corsoId, "second@example.com");
+        assertEquals(1, promoted.size());
+        
+        // Nobody waiting: the seat is given back / Nessuno in attesa: il posto viene restituito
+        enrollmentService.deleteEnrollment(promoted.get(0).getIscrizioneId());
+        assertEquals(1, corsoRepository.findById(corsoId).orElseThrow().getDisponibilita());
+    }
+    
+    private Long newCourse(String titolo) {
+        return newCourse(titolo, SEATS);
+    }
+    
+    private Long newCourse(String titolo, int seats) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", seats);
+        return corsoRepository.save(corso).getCorsoId();
+    }
+    
+    private double rush(Long corsoId) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(ENROLLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger waitlisted = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        
+        for (int i = 0; i < ENROLLERS; i++) {
+            EnrollmentDTO enrollment = new EnrollmentDTO(corsoId, "Mario", "Rossi", "enroller" + i + "@example.com");
+            results.add(pool.submit(() -> {
+                start.await();
+                EnrollmentDTO result = enrollmentService.createEnrollment(enrollment);
+                if (WaitlistService.STATUS_WAITLISTED.equals(result.getStatus())) {
+                    waitlisted.incrementAndGet();
+                } else {
+                    accepted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - begin;
+        pool.shutdown();
+        
+        assertEquals(SEATS, accepted.get());
+        assertEquals(ENROLLERS - SEATS, waitlisted.get());
+        return ENROLLERS / (elapsedNanos / 1e9);
+    }
+}
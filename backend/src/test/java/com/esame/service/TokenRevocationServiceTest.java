@@ -0,0 +1,100 @@
+package com.esame.service;
+
+import com.esame.model.TokenRevocato;
+import com.esame.repository.TokenRevocatoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the token revocation store and its Bloom filter
+ * Test per l'archivio delle revoche token e il suo filtro di Bloom
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:token_revocation;DB_CLOSE_DELAY=-1",
+    // Syncs run only when the test calls them / Le sincronizzazioni avvengono solo quando il test le chiama
+    "app.jwt.revocation.sync-interval=PT1H"
+})
+@ActiveProfiles("test")
+public class TokenRevocationServiceTest {
+    
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+    
+    @Autowired
+    private TokenRevocatoRepository tokenRevocatoRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Test
+    void testRevokedTokenIsRevoked() {
+        String jti = UUID.randomUUID().toString();
+        assertFalse(tokenRevocationService.isRevoked(jti));
+        
+        tokenRevocationService.revoke(jti, inOneHour());
+        
+        assertTrue(tokenRevocationService.isRevoked(jti));
+        assertTrue(tokenRevocatoRepository.existsByJti(jti));
+    }
+    
+    @Test
+    void testRebuildKeepsLiveRevocationsAndPurgesExpiredOnes() {
+        String live = UUID.randomUUID().toString();
+        tokenRevocationService.revoke(live, inOneHour());
+        String expired = UUID.randomUUID().toString();
+        tokenRevocatoRepository.save(new TokenRevocato(expired, LocalDateTime.now().minusSeconds(1), LocalDateTime.now().minusHours(1)));
+        
+        tokenRevocationService.rebuild();
+        
+        assertTrue(tokenRevocationService.isRevoked(live));
+        assertFalse(tokenRevocationService.isRevoked(expired));
+        assertFalse(tokenRevocatoRepository.existsByJti(expired));
+    }
+    
+    @Test
+    void testBloomNegativeSkipsStore() {
+        tokenRevocationService.revoke(UUID.randomUUID().toString(), inOneHour());
+        double lookups = lookups();
+        
+        for (int i = 0; i < 100; i++) {
+            assertFalse(tokenRevocationService.isRevoked(UUID.randomUUID().toString()));
+        }
+        
+        // 1% false positives expected, all of them still answered "not revoked" / 1% di falsi positivi attesi, tutti comunque "non revocato"
+        assertTrue(lookups() - lookups < 10, "lookups " + (lookups() - lookups));
+    }
+    
+    @Test
+    void testSyncPicksUpRowCommittedAfterLaterOne() {
+        tokenRevocationService.sync();
+        
+        // Revoked by another node before the last sync, committed after it / Revocato da un altro nodo prima dell'ultima sincronizzazione, confermato dopo
+        String late = UUID.randomUUID().toString();
+        tokenRevocatoRepository.save(new TokenRevocato(late, LocalDateTime.now().plusHours(1), LocalDateTime.now().minusSeconds(20)));
+        assertFalse(tokenRevocationService.isRevoked(late));
+        
+        tokenRevocationService.sync();
+        assertTrue(tokenRevocationService.isRevoked(late));
+        
+        // Rows read twice in the overlap stay revoked / Le righe lette due volte nella sovrapposizione restano revocate
+        tokenRevocationService.sync();
+        assertTrue(tokenRevocationService.isRevoked(late));
+    }
+    
+    private double lookups() {
+        return meterRegistry.get("auth.revocation.store.lookups").counter().count();
+    }
+    
+    private static Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3_600_000);
+    }
+}
@@ -0,0 +1,78 @@
+package com.esame.service;
+
+import com.esame.dto.EnrollmentDTO;
+import com.esame.model.Corso;
+import com.esame.repository.CorsoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for waitlist entries keyed on the normalized email
+ * Test per le voci in lista d'attesa con chiave sull'email normalizzata
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:waitlist;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000")
+@ActiveProfiles("test")
+public class WaitlistServiceTest {
+    
+    private static final int ROUNDS = 20;
+    
+    @Autowired
+    private WaitlistService waitlistService;
+    
+    @Autowired
+    private CorsoRepository corsoRepository;
+    
+    @Test
+    void testEmailCaseDoesNotCreateSecondEntry() {
+        Long corsoId = newFullCourse("Case Course");
+        
+        EnrollmentDTO first = waitlistService.enqueue(new EnrollmentDTO(corsoId, "Mario", "Rossi", "mario.rossi@example.com"));
+        EnrollmentDTO again = waitlistService.enqueue(new EnrollmentDTO(corsoId, "Mario", "Rossi", " Mario.Rossi@Example.com"));
+        
+        assertEquals(first.getAttesaId(), again.getAttesaId());
+        assertEquals(1, waitlistService.getWaitlist(corsoId).size());
+    }
+    
+    @Test
+    void testConcurrentIdenticalRequestsShareOneEntry() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Long corsoId = newFullCourse("Concurrent Waitlist Course " + round);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<EnrollmentDTO>> entries = new ArrayList<>();
+                for (String email : new String[] {"anna.bianchi@example.com", "Anna.Bianchi@example.com"}) {
+                    entries.add(pool.submit(() -> {
+                        start.await();
+                        return waitlistService.enqueue(new EnrollmentDTO(corsoId, "Anna", "Bianchi", email));
+                    }));
+                }
+                start.countDown();
+                
+                assertEquals(entries.get(0).get(30, TimeUnit.SECONDS).getAttesaId(),
+                    entries.get(1).get(30, TimeUnit.SECONDS).getAttesaId(), "round " + round);
+                assertEquals(1, waitlistService.getWaitlist(corsoId).size());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    private Long newFullCourse(String titolo) {
+        Corso corso = new Corso(titolo, LocalDateTime.now().plusDays(30), "Aula Test", 0);
+        return corsoRepository.save(corso).getCorsoId();
+    }
+}
@@ -25,7 +25,8 @@ CREATE TABLE users (
     last_login TIMESTAMP,
     role VARCHAR(20) DEFAULT 'STUDENT',
     subscription_type VARCHAR(20) DEFAULT 'FREE',
-    subscription_expires_at TIMESTAMP
+    subscription_expires_at TIMESTAMP,
+    token_version INTEGER NOT NULL DEFAULT 0
 );
 
 -- Create courses table / Crea tabella corsi
@@ -44,21 +45,84 @@ CREATE TABLE corsi (
     data_test_finale TIMESTAMP,
     data_completamento TIMESTAMP,
     progresso INT DEFAULT 0,
-    durata_ore INT
+    durata_ore INT,
+    alta_domanda BOOLEAN DEFAULT FALSE
 );
 
 -- Create enrollments table / Crea tabella iscrizioni
+-- Enrollment IDs are allocated 50 at a time to allow batched inserts; rows inserted here take theirs from the same sequence
+-- Gli ID delle iscrizioni sono allocati 50 alla volta per consentire insert in batch; le righe inserite qui prendono i loro dalla stessa sequenza
+CREATE SEQUENCE iscrizioni_seq START WITH 1 INCREMENT BY 50;
+
+-- partecipante_email_norm is lower(trim(partecipante_email)), the column behind the one-enrollment-per-course key
+-- partecipante_email_norm è lower(trim(partecipante_email)), la colonna dietro la chiave di un'iscrizione per corso
 CREATE TABLE iscrizioni (
-    id BIGSERIAL PRIMARY KEY,
-    nome VARCHAR(100) NOT NULL,
-    cognome VARCHAR(100) NOT NULL,
-    email VARCHAR(255) NOT NULL,
-    data_iscrizione TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    iscrizione_id BIGINT PRIMARY KEY DEFAULT nextval('iscrizioni_seq'),
+    partecipante_nome VARCHAR(30) NOT NULL,
+    partecipante_cognome VARCHAR(30) NOT NULL,
+    partecipante_email VARCHAR(50) NOT NULL,
+    partecipante_email_norm VARCHAR(50) NOT NULL,
+    data_ora_iscrizione TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     stato VARCHAR(50) DEFAULT 'attivo',
-    corso_id BIGINT,
+    corso_id BIGINT NOT NULL,
     user_id BIGINT,
     FOREIGN KEY (corso_id) REFERENCES corsi(corso_id) ON DELETE CASCADE,
-    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL,
+    CONSTRAINT uk_iscrizioni_corso_email UNIQUE (corso_id, partecipante_email_norm)
+);
+
+-- Create waitlist table / Crea tabella lista d'attesa
+CREATE TABLE lista_attesa (
+    attesa_id BIGSERIAL PRIMARY KEY,
+    corso_id BIGINT NOT NULL,
+    partecipante_nome VARCHAR(30) NOT NULL,
+    partecipante_cognome VARCHAR(30) NOT NULL,
+    partecipante_email VARCHAR(50) NOT NULL,
+    partecipante_email_norm VARCHAR(50) NOT NULL,
+    data_ora_richiesta TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (corso_id) REFERENCES corsi(corso_id) ON DELETE CASCADE,
+    CONSTRAINT uk_lista_attesa_corso_email UNIQUE (corso_id, partecipante_email_norm)
+);
+
+-- Create idempotent responses table / Crea tabella risposte idempotenti
+CREATE TABLE risposte_idempotenti (
+    chiave VARCHAR(300) PRIMARY KEY,
+    impronta VARCHAR(64) NOT NULL,
+    stato_http INTEGER NOT NULL,
+    corpo TEXT,
+    data_ora_creazione TIMESTAMP NOT NULL,
+    scadenza TIMESTAMP NOT NULL
+);
+
+-- Create revoked tokens table; every node polls it by data_ora_revoca
+-- Crea tabella token revocati; ogni nodo la legge per data_ora_revoca
+CREATE TABLE token_revocati (
+    revoca_id BIGSERIAL PRIMARY KEY,
+    jti VARCHAR(36) NOT NULL,
+    scadenza TIMESTAMP NOT NULL,
+    data_ora_revoca TIMESTAMP NOT NULL
+);
+
+-- Create refresh token families table; only the hash of the current token is stored
+-- Crea tabella famiglie di token di refresh; è salvato solo l'hash del token attuale
+CREATE TABLE famiglie_refresh (
+    famiglia_id VARCHAR(36) PRIMARY KEY,
+    username VARCHAR(100) NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    generazione INTEGER NOT NULL DEFAULT 0,
+    revocata BOOLEAN NOT NULL DEFAULT FALSE,
+    data_ora_creazione TIMESTAMP NOT NULL,
+    scadenza TIMESTAMP NOT NULL
+);
+
+-- Create seat holds table / Crea tabella blocchi posto
+CREATE TABLE blocchi_posto (
+    blocco_id BIGSERIAL PRIMARY KEY,
+    codice VARCHAR(36) NOT NULL,
+    corso_id BIGINT NOT NULL,
+    data_ora_creazione TIMESTAMP NOT NULL,
+    scadenza TIMESTAMP NOT NULL,
+    FOREIGN KEY (corso_id) REFERENCES corsi(corso_id) ON DELETE CASCADE
 );
 
 -- Create indexes for better performance / Crea indici per migliore performance
@@ -66,13 +130,33 @@ CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_users_role ON users(role);
 CREATE INDEX idx_users_subscription_type ON users(subscription_type);
 CREATE INDEX idx_users_active ON users(is_active);
-CREATE INDEX idx_corsi_data_inizio ON corsi(data_ora_inizio);
-CREATE INDEX idx_corsi_luogo ON corsi(luogo);
-CREATE INDEX idx_corsi_disponibilita ON corsi(disponibilita);
+-- Keyset sort columns paired with the corso_id tie-breaker / Colonne di ordinamento keyset abbinate allo spareggio corso_id
+CREATE INDEX idx_corsi_data_inizio_corso ON corsi(data_ora_inizio, corso_id);
+CREATE INDEX idx_corsi_titolo_corso ON corsi(titolo, corso_id);
+CREATE INDEX idx_corsi_luogo_corso ON corsi(luogo, corso_id);
+CREATE INDEX idx_corsi_disponibilita_corso ON corsi(disponibilita, corso_id);
+CREATE INDEX idx_corsi_prezzo ON corsi(prezzo);
+CREATE INDEX idx_corsi_durata_ore ON corsi(durata_ore);
 CREATE INDEX idx_iscrizioni_corso_id ON iscrizioni(corso_id);
 CREATE INDEX idx_iscrizioni_user_id ON iscrizioni(user_id);
-CREATE INDEX idx_iscrizioni_email ON iscrizioni(email);
+CREATE INDEX idx_iscrizioni_email ON iscrizioni(partecipante_email);
 CREATE INDEX idx_iscrizioni_stato ON iscrizioni(stato);
+CREATE INDEX idx_lista_attesa_corso ON lista_attesa(corso_id, attesa_id);
+CREATE UNIQUE INDEX idx_blocchi_posto_codice ON blocchi_posto(codice);
+CREATE INDEX idx_risposte_idempotenti_scadenza ON risposte_idempotenti(scadenza);
+CREATE UNIQUE INDEX idx_token_revocati_jti ON token_revocati(jti);
+CREATE INDEX idx_token_revocati_scadenza ON token_revocati(scadenza);
+CREATE INDEX idx_token_revocati_data_ora_revoca ON token_revocati(data_ora_revoca);
+CREATE UNIQUE INDEX idx_famiglie_refresh_token_hash ON famiglie_refresh(token_hash);
+CREATE INDEX idx_famiglie_refresh_scadenza ON famiglie_refresh(scadenza);
+
+-- Trigram indexes for infix LIKE searches / Indici a trigrammi per ricerche LIKE per sottostringa
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX idx_corsi_luogo_trgm ON corsi USING gin (lower(luogo) gin_trgm_ops);
+CREATE INDEX idx_iscrizioni_nome_trgm ON iscrizioni USING gin (lower(partecipante_nome) gin_trgm_ops);
+CREATE INDEX idx_iscrizioni_email_trgm ON iscrizioni USING gin (lower(partecipante_email) gin_trgm_ops);
+CREATE INDEX idx_users_nome_trgm ON users USING gin (lower(nome) gin_trgm_ops);
+CREATE INDEX idx_users_cognome_trgm ON users USING gin (lower(cognome) gin_trgm_ops);
 
 -- Insert sample users / Inserisci utenti di esempio
 INSERT INTO users (nome, cognome, email, password, role, subscription_type) VALUES
@@ -91,12 +175,12 @@ INSERT INTO corsi (titolo, descrizione, data_ora_inizio, data_ora_fine, luogo, d
 ('JavaScript ES6+', 'JavaScript moderno e avanzato', '2025-12-05 09:30:00', '2025-12-07 17:30:00', 'Napoli - Aula 101', 22, 179.00, 'Giulia Bianchi', '1. ES6 Features\n2. Async/Await\n3. Modules\n4. Promises\n5. Advanced patterns', 'Corso completo su JavaScript moderno', 30);
 
 -- Insert sample enrollments / Inserisci iscrizioni di esempio
-INSERT INTO iscrizioni (nome, cognome, email, corso_id, user_id, stato) VALUES
-('Mario', 'Rossi', 'mario.rossi@email.com', 1, 1, 'attivo'),
-('Luca', 'Verdi', 'luca.verdi@email.com', 1, 4, 'attivo'),
-('Sara', 'Neri', 'sara.neri@email.com', 2, 5, 'attivo'),
-('Mario', 'Rossi', 'mario.rossi@email.com', 3, 1, 'completato'),
-('Luca', 'Verdi', 'luca.verdi@email.com', 2, 4, 'attivo');
+INSERT INTO iscrizioni (partecipante_nome, partecipante_cognome, partecipante_email, partecipante_email_norm, corso_id, user_id, stato) VALUES
+('Mario', 'Rossi', 'mario.rossi@email.com', 'mario.rossi@email.com', 1, 1, 'attivo'),
+('Luca', 'Verdi', 'luca.verdi@email.com', 'luca.verdi@email.com', 1, 4, 'attivo'),
+('Sara', 'Neri', 'sara.neri@email.com', 'sara.neri@email.com', 2, 5, 'attivo'),
+('Mario', 'Rossi', 'mario.rossi@email.com', 'mario.rossi@email.com', 3, 1, 'completato'),
+('Luca', 'Verdi', 'luca.verdi@email.com', 'luca.verdi@email.com', 2, 4, 'attivo');
 
 -- Create function to update course availability / Crea funzione per aggiornare disponibilità corso
 CREATE OR REPLACE FUNCTION update_course_availability()